@@ -0,0 +1,101 @@
+package com.secureview.desktop.benchmark;
+
+import com.secureview.desktop.face.embedding.EmbeddingKernels;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares gallery scoring on the legacy double[] path (cosine with both norms
+ * recomputed per pair) against pre-normalized float32 embeddings.
+ * Run the vector backend with -Pvector-api,benchmark and
+ * -jvmArgsAppend "--add-modules=jdk.incubator.vector".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmbeddingSimilarityBenchmark {
+
+    @Param({"128", "512"})
+    private int dim;
+
+    @Param({"8", "1000"})
+    private int gallerySize;
+
+    private double[] queryDouble;
+    private double[][] galleryDouble;
+
+    private FloatEmbedding queryFloat;
+    private FloatEmbedding[] galleryFloat;
+    private float[] galleryMatrix;
+    private float[] scores;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        queryDouble = randomVector(random);
+        galleryDouble = new double[gallerySize][];
+        galleryFloat = new FloatEmbedding[gallerySize];
+        galleryMatrix = new float[gallerySize * dim];
+        for (int i = 0; i < gallerySize; i++) {
+            galleryDouble[i] = randomVector(random);
+            galleryFloat[i] = FloatEmbedding.of(galleryDouble[i]);
+            System.arraycopy(galleryFloat[i].values(), 0, galleryMatrix, i * dim, dim);
+        }
+        queryFloat = FloatEmbedding.of(queryDouble);
+        scores = new float[gallerySize];
+    }
+
+    private double[] randomVector(Random random) {
+        double[] v = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            v[i] = random.nextGaussian();
+        }
+        return v;
+    }
+
+    @Benchmark
+    public double doubleCosine() {
+        double best = -1.0;
+        for (double[] ref : galleryDouble) {
+            best = Math.max(best, cosine(queryDouble, ref));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public double floatDot() {
+        double best = -1.0;
+        for (FloatEmbedding ref : galleryFloat) {
+            best = Math.max(best, queryFloat.similarity(ref));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public float[] floatDotBatch() {
+        EmbeddingKernels.dotBatch(queryFloat.values(), galleryMatrix, dim, gallerySize, scores);
+        return scores;
+    }
+
+    /**
+     * Copy of the original FaceRecognitionService.calculateCosineSimilarity.
+     */
+    private static double cosine(double[] embedding1, double[] embedding2) {
+        double dotProduct = 0.0;
+        double norm1 = 0.0;
+        double norm2 = 0.0;
+        for (int i = 0; i < embedding1.length; i++) {
+            dotProduct += embedding1[i] * embedding2[i];
+            norm1 += embedding1[i] * embedding1[i];
+            norm2 += embedding2[i] * embedding2[i];
+        }
+        double denominator = Math.sqrt(norm1) * Math.sqrt(norm2);
+        return denominator == 0.0 ? 0.0 : dotProduct / denominator;
+    }
+}
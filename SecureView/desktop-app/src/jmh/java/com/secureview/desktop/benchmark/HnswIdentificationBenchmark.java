@@ -0,0 +1,106 @@
+package com.secureview.desktop.benchmark;
+
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import com.secureview.desktop.face.gallery.EmbeddingStore;
+import com.secureview.desktop.face.gallery.EmbeddingStores;
+import com.secureview.desktop.face.gallery.ExactEmbeddingStore;
+import com.secureview.desktop.face.gallery.GalleryMatch;
+import com.secureview.desktop.face.gallery.HnswEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1:N identification latency of the HNSW index against a brute-force scan.
+ * The gallery simulates enrolled users with several face images each (a per-user
+ * centre plus noise); queries are new noisy samples of enrolled users.
+ * Recall@k of HNSW is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HnswIdentificationBenchmark {
+
+    @Param({"512"})
+    private int dim;
+
+    @Param({"2000"})
+    private int users;
+
+    @Param({"5"})
+    private int imagesPerUser;
+
+    private static final int K = 8;
+    private static final int QUERIES = 500;
+    private static final double NOISE = 0.6;
+
+    private EmbeddingStore exact;
+    private EmbeddingStore hnsw;
+    private List<FloatEmbedding> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        exact = new ExactEmbeddingStore();
+        hnsw = new HnswEmbeddingStore(16, 200, 64);
+        List<double[]> centres = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            centres.add(randomVector(random));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < imagesPerUser; i++) {
+            for (int u = 0; u < users; u++) {
+                FloatEmbedding embedding = FloatEmbedding.of(noisy(centres.get(u), random));
+                exact.add("user-" + u, embedding);
+                hnsw.add("user-" + u, embedding);
+            }
+        }
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+        queries = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            queries.add(FloatEmbedding.of(noisy(centres.get(random.nextInt(users)), random)));
+        }
+        System.out.println();
+        System.out.println("hnsw vs exact (dim=" + dim + ", entries=" + hnsw.size() + ", build " + buildMs +
+                           " ms incl. exact): " + EmbeddingStores.evaluate(hnsw, exact, queries, K));
+    }
+
+    private double[] randomVector(Random random) {
+        double[] v = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            v[i] = random.nextGaussian();
+        }
+        return v;
+    }
+
+    private double[] noisy(double[] centre, Random random) {
+        double[] v = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            v[i] = centre[i] + NOISE * random.nextGaussian();
+        }
+        return v;
+    }
+
+    private FloatEmbedding nextQuery() {
+        FloatEmbedding query = queries.get(next);
+        next = (next + 1) % queries.size();
+        return query;
+    }
+
+    @Benchmark
+    public List<GalleryMatch> exactSearch() {
+        return exact.search(nextQuery(), K);
+    }
+
+    @Benchmark
+    public List<GalleryMatch> hnswSearch() {
+        return hnsw.search(nextQuery(), K);
+    }
+}
@@ -0,0 +1,97 @@
+package com.secureview.desktop.benchmark;
+
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import com.secureview.desktop.face.gallery.EmbeddingStore;
+import com.secureview.desktop.face.gallery.EmbeddingStores;
+import com.secureview.desktop.face.gallery.ExactEmbeddingStore;
+import com.secureview.desktop.face.gallery.GalleryMatch;
+import com.secureview.desktop.face.gallery.QuantizedEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k search latency of the exact float store against the int8 store with
+ * exact re-ranking. Recall@k of the int8 store is printed once per trial.
+ * Queries are noisy copies of gallery entries so the true neighbours are well separated
+ * from the rest, like a probe of an enrolled face.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuantizedGalleryBenchmark {
+
+    @Param({"512"})
+    private int dim;
+
+    @Param({"1000", "10000"})
+    private int gallerySize;
+
+    @Param({"16", "64"})
+    private int rerankCandidates;
+
+    private static final int K = 5;
+    private static final int QUERIES = 200;
+
+    private EmbeddingStore exact;
+    private EmbeddingStore quantized;
+    private List<FloatEmbedding> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        exact = new ExactEmbeddingStore();
+        quantized = new QuantizedEmbeddingStore(rerankCandidates);
+        List<double[]> raw = new ArrayList<>();
+        for (int i = 0; i < gallerySize; i++) {
+            double[] v = randomVector(random);
+            raw.add(v);
+            FloatEmbedding embedding = FloatEmbedding.of(v);
+            exact.add("id-" + i, embedding);
+            quantized.add("id-" + i, embedding);
+        }
+        queries = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            double[] base = raw.get(random.nextInt(gallerySize));
+            double[] probe = new double[dim];
+            for (int i = 0; i < dim; i++) {
+                probe[i] = base[i] + 0.5 * random.nextGaussian();
+            }
+            queries.add(FloatEmbedding.of(probe));
+        }
+        System.out.println();
+        System.out.println("int8 vs exact (dim=" + dim + ", n=" + gallerySize + ", rerank=" + rerankCandidates +
+                           "): " + EmbeddingStores.evaluate(quantized, exact, queries, K));
+    }
+
+    private double[] randomVector(Random random) {
+        double[] v = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            v[i] = random.nextGaussian();
+        }
+        return v;
+    }
+
+    private FloatEmbedding nextQuery() {
+        FloatEmbedding query = queries.get(next);
+        next = (next + 1) % queries.size();
+        return query;
+    }
+
+    @Benchmark
+    public List<GalleryMatch> exactSearch() {
+        return exact.search(nextQuery(), K);
+    }
+
+    @Benchmark
+    public List<GalleryMatch> int8Search() {
+        return quantized.search(nextQuery(), K);
+    }
+}
@@ -0,0 +1,186 @@
+package com.secureview.desktop.benchmark;
+
+import com.secureview.desktop.face.detection.RetinaFaceDecoder;
+import com.secureview.desktop.face.detection.RetinaFaceDetector;
+import com.secureview.desktop.opencv.stub.Point;
+import com.secureview.desktop.opencv.stub.Rect;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java-side cost of turning one 640x640 RetinaFace output (16,800 priors) into detections
+ * for a 1280x720 frame with two faces.
+ *
+ * {@code legacyParser}: the previous parseRetinaFaceOutput - reflective shape lookup on every
+ * call, the output read into a fresh double[] as if it were [1, N, 15], a threshold test per
+ * row and no NMS (every overlapping prior above threshold becomes a "face").
+ * {@code decoder}: RetinaFaceDecoder on the loc/conf/landms float arrays, cached priors,
+ * threshold-first decoding and NMS. Reading the tensors out of the Mats is included in both
+ * as an array copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetinaFaceDecodeBenchmark {
+    private static final int IMAGE_WIDTH = 1280;
+    private static final int IMAGE_HEIGHT = 720;
+    private static final int LEGACY_FEATURES = 15;
+
+    private RetinaFaceDecoder decoder;
+    private float[] loc;
+    private float[] conf;
+    private float[] landmarks;
+    private float[] legacyOutput;
+    private ShapeHolder legacyMat;
+
+    /** Stands in for the OpenCV Mat the legacy parser reflected on. */
+    public static class ShapeHolder {
+        private final ShapeSize size;
+
+        ShapeHolder(int height, int width) {
+            this.size = new ShapeSize(height, width);
+        }
+
+        public ShapeSize size() {
+            return size;
+        }
+    }
+
+    public static class ShapeSize {
+        private final double height;
+        private final double width;
+
+        ShapeSize(double height, double width) {
+            this.height = height;
+            this.width = width;
+        }
+
+        public double height() {
+            return height;
+        }
+
+        public double width() {
+            return width;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        decoder = new RetinaFaceDecoder(640, 640, 0.5, 0.4);
+        int priors = decoder.priorCount();
+        Random random = new Random(11);
+        loc = new float[priors * 4];
+        conf = new float[priors * 2];
+        landmarks = new float[priors * 10];
+        for (int i = 0; i < loc.length; i++) {
+            loc[i] = (float) (random.nextGaussian() * 0.5);
+        }
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = (float) (random.nextGaussian() * 0.5);
+        }
+        for (int i = 0; i < priors; i++) {
+            float face = random.nextFloat() * 0.05f;
+            conf[2 * i] = 1.0f - face;
+            conf[2 * i + 1] = face;
+        }
+        // Two faces, each seen by a cluster of neighbouring priors on the 16-px level
+        int level2 = 2 * 80 * 80;
+        markFace(level2, 12, 10, random);
+        markFace(level2, 20, 28, random);
+
+        legacyOutput = new float[priors * LEGACY_FEATURES];
+        for (int i = 0; i < priors; i++) {
+            for (int k = 0; k < 4; k++) {
+                legacyOutput[i * LEGACY_FEATURES + k] = random.nextFloat();
+            }
+            legacyOutput[i * LEGACY_FEATURES + 4] = conf[2 * i + 1];
+        }
+        legacyMat = new ShapeHolder(1, priors);
+    }
+
+    /**
+     * Priors around (row, col) score above threshold and regress, with a little noise,
+     * towards one 96-px face there, the way a trained network's outputs cluster.
+     */
+    private void markFace(int levelStart, int row, int col, Random random) {
+        double faceX = (col + 0.5) * 16 / 640.0;
+        double faceY = (row + 0.5) * 16 / 640.0;
+        double faceSize = 96 / 640.0;
+        int[] anchorSizes = {64, 128};
+        for (int dr = -2; dr <= 2; dr++) {
+            for (int dc = -2; dc <= 2; dc++) {
+                for (int anchor = 0; anchor < 2; anchor++) {
+                    int prior = levelStart + ((row + dr) * 40 + (col + dc)) * 2 + anchor;
+                    float score = 0.55f + random.nextFloat() * 0.4f;
+                    conf[2 * prior] = 1.0f - score;
+                    conf[2 * prior + 1] = score;
+
+                    double priorX = (col + dc + 0.5) * 16 / 640.0;
+                    double priorY = (row + dr + 0.5) * 16 / 640.0;
+                    double priorSize = anchorSizes[anchor] / 640.0;
+                    double noise = 0.005 * random.nextGaussian();
+                    loc[4 * prior] = (float) ((faceX - priorX + noise) / (0.1 * priorSize));
+                    loc[4 * prior + 1] = (float) ((faceY - priorY + noise) / (0.1 * priorSize));
+                    loc[4 * prior + 2] = (float) (Math.log(faceSize / priorSize) / 0.2);
+                    loc[4 * prior + 3] = (float) (Math.log(faceSize / priorSize) / 0.2);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Object decoder() {
+        float[] locData = loc.clone();
+        float[] confData = conf.clone();
+        float[] landmarkData = landmarks.clone();
+        return decoder.decode(locData, confData, landmarkData, IMAGE_WIDTH, IMAGE_HEIGHT);
+    }
+
+    @Benchmark
+    public Object legacyParser() throws Exception {
+        List<RetinaFaceDetector.FaceDetection> detections = new ArrayList<>();
+
+        // getMatShape: reflective lookups on every call
+        Method sizeMethod = legacyMat.getClass().getMethod("size");
+        Object sizeObj = sizeMethod.invoke(legacyMat);
+        Method heightMethod = sizeObj.getClass().getMethod("height");
+        Method widthMethod = sizeObj.getClass().getMethod("width");
+        int[] shape = {((Number) heightMethod.invoke(sizeObj)).intValue(),
+                       ((Number) widthMethod.invoke(sizeObj)).intValue()};
+
+        int numDetections = shape[1];
+        double[] outputData = new double[legacyOutput.length];
+        for (int i = 0; i < outputData.length; i++) {
+            outputData[i] = legacyOutput[i]; // output.get(0, 0, double[]) converts from float
+        }
+
+        for (int i = 0; i < numDetections; i++) {
+            int offset = i * LEGACY_FEATURES;
+            if (offset + 4 >= outputData.length) break;
+            double x1 = outputData[offset] * IMAGE_WIDTH;
+            double y1 = outputData[offset + 1] * IMAGE_HEIGHT;
+            double x2 = outputData[offset + 2] * IMAGE_WIDTH;
+            double y2 = outputData[offset + 3] * IMAGE_HEIGHT;
+            double score = outputData[offset + 4];
+            if (score < 0.5) {
+                continue;
+            }
+            Rect box = new Rect((int) x1, (int) y1, (int) (x2 - x1), (int) (y2 - y1));
+            Point[] points = new Point[5];
+            for (int j = 0; j < 5; j++) {
+                points[j] = new Point(outputData[offset + 5 + j * 2] * IMAGE_WIDTH,
+                                      outputData[offset + 5 + j * 2 + 1] * IMAGE_HEIGHT);
+            }
+            detections.add(new RetinaFaceDetector.FaceDetection(box, score, points));
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,140 @@
+package com.secureview.desktop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame dispatch overhead of the opencv.stub layer: the previous per-call
+ * {@code getMethod} + {@code Method.invoke} with a reflectively constructed Size,
+ * against {@code static final MethodHandle}s with a cached Size.
+ *
+ * OpenCV is not needed: the calls go to plain Java stand-ins with the same shape
+ * (a Mat with accessors, a static resize taking a Size), so only the binding cost is
+ * measured. One "frame" is the sequence the detection path issues per camera frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StubBindingBenchmark {
+
+    public static class FakeMat {
+        private final int cols;
+        private final int rows;
+
+        public FakeMat(int cols, int rows) {
+            this.cols = cols;
+            this.rows = rows;
+        }
+
+        public boolean empty() {
+            return cols == 0;
+        }
+
+        public int cols() {
+            return cols;
+        }
+
+        public int rows() {
+            return rows;
+        }
+    }
+
+    public static class FakeSize {
+        public final double width;
+        public final double height;
+
+        public FakeSize(double width, double height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public static class FakeImgproc {
+        public static void cvtColor(FakeMat src, FakeMat dst, int code) {
+        }
+
+        public static void resize(FakeMat src, FakeMat dst, FakeSize size) {
+        }
+    }
+
+    private static final Method CVT_COLOR;
+    private static final Method RESIZE;
+
+    private static final MethodHandle MH_EMPTY;
+    private static final MethodHandle MH_COLS;
+    private static final MethodHandle MH_ROWS;
+    private static final MethodHandle MH_CVT_COLOR;
+    private static final MethodHandle MH_RESIZE;
+    private static final MethodHandle MH_SIZE_NEW;
+
+    static {
+        try {
+            // Erased to Object exactly like OpenCvBindings does
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            CVT_COLOR = FakeImgproc.class.getMethod("cvtColor", FakeMat.class, FakeMat.class, int.class);
+            RESIZE = FakeImgproc.class.getMethod("resize", FakeMat.class, FakeMat.class, FakeSize.class);
+            MH_EMPTY = lookup.findVirtual(FakeMat.class, "empty", MethodType.methodType(boolean.class))
+                .asType(MethodType.methodType(boolean.class, Object.class));
+            MH_COLS = lookup.findVirtual(FakeMat.class, "cols", MethodType.methodType(int.class))
+                .asType(MethodType.methodType(int.class, Object.class));
+            MH_ROWS = lookup.findVirtual(FakeMat.class, "rows", MethodType.methodType(int.class))
+                .asType(MethodType.methodType(int.class, Object.class));
+            MH_CVT_COLOR = lookup.unreflect(CVT_COLOR)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class, int.class));
+            MH_RESIZE = lookup.unreflect(RESIZE)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class));
+            MH_SIZE_NEW = lookup.findConstructor(FakeSize.class,
+                                                 MethodType.methodType(void.class, double.class, double.class))
+                .asType(MethodType.methodType(Object.class, double.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Object frame;
+    private Object gray;
+    private Object cachedSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        frame = new FakeMat(640, 480);
+        gray = new FakeMat(640, 480);
+        cachedSize = (Object) MH_SIZE_NEW.invokeExact(320.0, 240.0);
+    }
+
+    @Benchmark
+    public int reflectivePerFrame() throws Exception {
+        Method empty = frame.getClass().getMethod("empty");
+        if ((Boolean) empty.invoke(frame)) {
+            return 0;
+        }
+        int cols = (Integer) frame.getClass().getMethod("cols").invoke(frame);
+        int rows = (Integer) frame.getClass().getMethod("rows").invoke(frame);
+        CVT_COLOR.invoke(null, frame, gray, 6);
+        Class<?> sizeClass = Class.forName(FakeSize.class.getName());
+        Object size = sizeClass.getDeclaredConstructor(double.class, double.class)
+            .newInstance(cols / 2.0, rows / 2.0);
+        RESIZE.invoke(null, gray, gray, size);
+        return cols + rows;
+    }
+
+    @Benchmark
+    public int methodHandlePerFrame() throws Throwable {
+        if ((boolean) MH_EMPTY.invokeExact(frame)) {
+            return 0;
+        }
+        int cols = (int) MH_COLS.invokeExact(frame);
+        int rows = (int) MH_ROWS.invokeExact(frame);
+        MH_CVT_COLOR.invokeExact(frame, gray, 6);
+        MH_RESIZE.invokeExact(gray, gray, cachedSize);
+        return cols + rows;
+    }
+}
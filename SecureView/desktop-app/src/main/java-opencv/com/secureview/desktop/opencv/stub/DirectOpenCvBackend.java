@@ -0,0 +1,435 @@
+package com.secureview.desktop.opencv.stub;
+
+import org.opencv.core.Core;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.MatOfRect;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Image2BlobParams;
+import org.opencv.dnn.Net;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.objdetect.CascadeClassifier;
+import org.opencv.videoio.VideoCapture;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend compiled against {@code org.opencv} (Maven profile {@code opencv-direct}).
+ * Each call is a cast plus a plain virtual or static call into OpenCV.
+ * Registered through {@code META-INF/services}; the stubs fall back to the
+ * reflective backend when this class or OpenCV is missing.
+ */
+public final class DirectOpenCvBackend implements OpenCvBackend {
+
+    private static org.opencv.core.Mat mat(Object o) {
+        return (org.opencv.core.Mat) o;
+    }
+
+    private static org.opencv.core.Size realSize(Object o) {
+        return (org.opencv.core.Size) o;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        try {
+            Class.forName("org.opencv.core.Mat", false, DirectOpenCvBackend.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "direct";
+    }
+
+    // --- Mat ---
+
+    @Override
+    public Object newMat() {
+        return new org.opencv.core.Mat();
+    }
+
+    @Override
+    public Object newMat(Object mat, int x, int y, int width, int height) {
+        return new org.opencv.core.Mat(mat(mat), new org.opencv.core.Rect(x, y, width, height));
+    }
+
+    @Override
+    public Object newMat(Object size, int type) {
+        return new org.opencv.core.Mat(realSize(size), type);
+    }
+
+    @Override
+    public boolean empty(Object mat) {
+        return mat(mat).empty();
+    }
+
+    @Override
+    public void release(Object mat) {
+        mat(mat).release();
+    }
+
+    @Override
+    public int cols(Object mat) {
+        return mat(mat).cols();
+    }
+
+    @Override
+    public int rows(Object mat) {
+        return mat(mat).rows();
+    }
+
+    @Override
+    public int channels(Object mat) {
+        return mat(mat).channels();
+    }
+
+    @Override
+    public long total(Object mat) {
+        return mat(mat).total();
+    }
+
+    @Override
+    public long elemSize(Object mat) {
+        return mat(mat).elemSize();
+    }
+
+    @Override
+    public void get(Object mat, int row, int col, byte[] data) {
+        mat(mat).get(row, col, data);
+    }
+
+    @Override
+    public void get(Object mat, int row, int col, float[] data) {
+        mat(mat).get(row, col, data);
+    }
+
+    @Override
+    public void get(Object mat, int row, int col, double[] data) {
+        mat(mat).get(row, col, data);
+    }
+
+    @Override
+    public double[] get(Object mat, int row, int col) {
+        return mat(mat).get(row, col);
+    }
+
+    @Override
+    public void put(Object mat, int row, int col, byte[] data) {
+        mat(mat).put(row, col, data);
+    }
+
+    @Override
+    public void put(Object mat, int row, int col, double[] data) {
+        mat(mat).put(row, col, data);
+    }
+
+    @Override
+    public void copyTo(Object src, Object dst) {
+        mat(src).copyTo(mat(dst));
+    }
+
+    @Override
+    public Object reshape(Object mat, int cn, int rows) {
+        return mat(mat).reshape(cn, rows);
+    }
+
+    @Override
+    public void convertTo(Object src, Object dst, int type, double alpha, double beta) {
+        mat(src).convertTo(mat(dst), type, alpha, beta);
+    }
+
+    @Override
+    public Size size(Object mat) {
+        org.opencv.core.Mat m = mat(mat);
+        return new Size(m.cols(), m.rows());
+    }
+
+    // --- value types ---
+
+    @Override
+    public Object newSize(double width, double height) {
+        return new org.opencv.core.Size(width, height);
+    }
+
+    @Override
+    public Object newScalar(double v0, double v1, double v2, double v3) {
+        return new org.opencv.core.Scalar(v0, v1, v2, v3);
+    }
+
+    @Override
+    public double[] scalarValues(Object scalar) {
+        return ((org.opencv.core.Scalar) scalar).val;
+    }
+
+    @Override
+    public Object newPoint(double x, double y) {
+        return new org.opencv.core.Point(x, y);
+    }
+
+    @Override
+    public double pointX(Object point) {
+        return ((org.opencv.core.Point) point).x;
+    }
+
+    @Override
+    public double pointY(Object point) {
+        return ((org.opencv.core.Point) point).y;
+    }
+
+    @Override
+    public Object newMatOfRect() {
+        return new MatOfRect();
+    }
+
+    @Override
+    public Rect[] toRects(Object matOfRect) {
+        org.opencv.core.Rect[] rects = ((MatOfRect) matOfRect).toArray();
+        Rect[] result = new Rect[rects.length];
+        for (int i = 0; i < rects.length; i++) {
+            org.opencv.core.Rect r = rects[i];
+            result[i] = new Rect(r.x, r.y, r.width, r.height);
+        }
+        return result;
+    }
+
+    // --- Core ---
+
+    @Override
+    public void normalize(Object src, Object dst, double alpha, double beta, int normType) {
+        Core.normalize(mat(src), mat(dst), alpha, beta, normType);
+    }
+
+    @Override
+    public void minMaxLoc(Object src, double[] minVal, double[] maxVal) {
+        Core.MinMaxLocResult result = Core.minMaxLoc(mat(src));
+        minVal[0] = result.minVal;
+        maxVal[0] = result.maxVal;
+    }
+
+    @Override
+    public void subtract(Object src, Object scalar, Object dst) {
+        Core.subtract(mat(src), (org.opencv.core.Scalar) scalar, mat(dst));
+    }
+
+    @Override
+    public Object mean(Object src) {
+        return Core.mean(mat(src));
+    }
+
+    @Override
+    public void meanStdDev(Object src, Object mean, Object stddev) {
+        // OpenCV writes into MatOfDouble outputs; copy them into the caller's Mats
+        MatOfDouble realMean = new MatOfDouble();
+        MatOfDouble realStddev = new MatOfDouble();
+        Core.meanStdDev(mat(src), realMean, realStddev);
+        realMean.copyTo(mat(mean));
+        realStddev.copyTo(mat(stddev));
+        realMean.release();
+        realStddev.release();
+    }
+
+    @Override
+    public void flip(Object src, Object dst, int flipCode) {
+        Core.flip(mat(src), mat(dst), flipCode);
+    }
+
+    @Override
+    public void absdiff(Object src1, Object src2, Object dst) {
+        Core.absdiff(mat(src1), mat(src2), mat(dst));
+    }
+
+    @Override
+    public void copyMakeBorder(Object src, Object dst, int top, int bottom, int left, int right,
+                               int borderType, Object value) {
+        Core.copyMakeBorder(mat(src), mat(dst), top, bottom, left, right, borderType,
+                            (org.opencv.core.Scalar) value);
+    }
+
+    // --- Imgproc ---
+
+    @Override
+    public void cvtColor(Object src, Object dst, int code) {
+        Imgproc.cvtColor(mat(src), mat(dst), code);
+    }
+
+    @Override
+    public void equalizeHist(Object src, Object dst) {
+        Imgproc.equalizeHist(mat(src), mat(dst));
+    }
+
+    @Override
+    public void resize(Object src, Object dst, Object size) {
+        Imgproc.resize(mat(src), mat(dst), realSize(size));
+    }
+
+    @Override
+    public void resize(Object src, Object dst, Object size, int interpolation) {
+        Imgproc.resize(mat(src), mat(dst), realSize(size), 0, 0, interpolation);
+    }
+
+    @Override
+    public void warpAffine(Object src, Object dst, Object transform, Object size, int flags) {
+        Imgproc.warpAffine(mat(src), mat(dst), mat(transform), realSize(size), flags);
+    }
+
+    @Override
+    public void sobel(Object src, Object dst, int ddepth, int dx, int dy, int ksize, double scale, double delta) {
+        Imgproc.Sobel(mat(src), mat(dst), ddepth, dx, dy, ksize, scale, delta);
+    }
+
+    @Override
+    public void calcHist(List<Object> images, Object channels, Object mask, Object hist,
+                         Object histSize, Object ranges) {
+        Imgproc.calcHist(mats(images), (MatOfInt) channels, mat(mask), mat(hist),
+                         (MatOfInt) histSize, (MatOfFloat) ranges);
+    }
+
+    @Override
+    public void matchTemplate(Object image, Object templ, Object result, int method) {
+        Imgproc.matchTemplate(mat(image), mat(templ), mat(result), method);
+    }
+
+    @Override
+    public double compareHist(Object hist1, Object hist2, int method) {
+        return Imgproc.compareHist(mat(hist1), mat(hist2), method);
+    }
+
+    @Override
+    public void laplacian(Object src, Object dst, int ddepth) {
+        Imgproc.Laplacian(mat(src), mat(dst), ddepth);
+    }
+
+    // --- Imgcodecs ---
+
+    @Override
+    public Object imread(String filename) {
+        return Imgcodecs.imread(filename);
+    }
+
+    @Override
+    public boolean imwrite(String filename, Object mat) {
+        return Imgcodecs.imwrite(filename, mat(mat));
+    }
+
+    // --- Dnn ---
+
+    @Override
+    public Object blobFromImage(Object image, double scalefactor, Object size, Object mean,
+                                boolean swapRB, boolean crop) {
+        return Dnn.blobFromImage(mat(image), scalefactor, realSize(size), (org.opencv.core.Scalar) mean, swapRB, crop);
+    }
+
+    @Override
+    public Object blobFromImages(List<Object> images, double scalefactor, Object size, Object mean,
+                                 boolean swapRB, boolean crop) {
+        return Dnn.blobFromImages(mats(images), scalefactor, realSize(size), (org.opencv.core.Scalar) mean, swapRB, crop);
+    }
+
+    @Override
+    public Object newImage2BlobParams(Object scalefactor, Object size, Object mean, boolean swapRB) {
+        return new Image2BlobParams((org.opencv.core.Scalar) scalefactor, realSize(size),
+                                    (org.opencv.core.Scalar) mean, swapRB);
+    }
+
+    @Override
+    public void blobFromImageWithParams(Object image, Object blob, Object params) {
+        Dnn.blobFromImageWithParams(mat(image), mat(blob), (Image2BlobParams) params);
+    }
+
+    @Override
+    public Object readNetFromONNX(String modelPath) {
+        return Dnn.readNetFromONNX(modelPath);
+    }
+
+    @Override
+    public Object readNetFromTensorflow(String modelPath) {
+        return Dnn.readNetFromTensorflow(modelPath);
+    }
+
+    @Override
+    public Object readNetFromTorch(String modelPath) {
+        return Dnn.readNetFromTorch(modelPath);
+    }
+
+    @Override
+    public void setInput(Object net, Object blob) {
+        ((Net) net).setInput(mat(blob));
+    }
+
+    @Override
+    public Object forward(Object net) {
+        return ((Net) net).forward();
+    }
+
+    @Override
+    public List<Object> forward(Object net, List<String> outputNames) {
+        List<org.opencv.core.Mat> outputs = new ArrayList<>(outputNames.size());
+        ((Net) net).forward(outputs, outputNames);
+        return new ArrayList<>(outputs);
+    }
+
+    @Override
+    public List<String> getUnconnectedOutLayersNames(Object net) {
+        return ((Net) net).getUnconnectedOutLayersNames();
+    }
+
+    // --- VideoCapture ---
+
+    @Override
+    public Object newVideoCapture(int index) {
+        return new VideoCapture(index);
+    }
+
+    @Override
+    public boolean isOpened(Object capture) {
+        return ((VideoCapture) capture).isOpened();
+    }
+
+    @Override
+    public boolean read(Object capture, Object mat) {
+        return ((VideoCapture) capture).read(mat(mat));
+    }
+
+    @Override
+    public void set(Object capture, int prop, double value) {
+        ((VideoCapture) capture).set(prop, value);
+    }
+
+    @Override
+    public void releaseCapture(Object capture) {
+        ((VideoCapture) capture).release();
+    }
+
+    // --- CascadeClassifier ---
+
+    @Override
+    public Object newCascadeClassifier() {
+        return new CascadeClassifier();
+    }
+
+    @Override
+    public boolean load(Object classifier, String filename) {
+        return ((CascadeClassifier) classifier).load(filename);
+    }
+
+    @Override
+    public void detectMultiScale(Object classifier, Object image, Object faces, double scaleFactor,
+                                 int minNeighbors, int flags, Object minSize, Object maxSize) {
+        ((CascadeClassifier) classifier).detectMultiScale(mat(image), (MatOfRect) faces, scaleFactor,
+                                                          minNeighbors, flags, realSize(minSize), realSize(maxSize));
+    }
+
+    private static List<org.opencv.core.Mat> mats(List<Object> images) {
+        List<org.opencv.core.Mat> result = new ArrayList<>(images.size());
+        for (Object image : images) {
+            result.add(mat(image));
+        }
+        return result;
+    }
+}
@@ -1,15 +1,19 @@
 package com.secureview.desktop;
 
+import com.secureview.desktop.camera.CameraCapture;
+import com.secureview.desktop.camera.CapturedFrame;
+import com.secureview.desktop.camera.MotionGate;
+import com.secureview.desktop.config.ApplicationConfig;
 import com.secureview.desktop.config.ConfigManager;
 import com.secureview.desktop.face.FaceRecognitionService;
+import com.secureview.desktop.face.detection.RetinaFaceDetector;
 import com.secureview.desktop.firebase.FirebaseService;
 import com.secureview.desktop.email.EmailAlertService;
 import com.secureview.desktop.lock.LockManager;
 import com.secureview.desktop.logging.AttemptLogger;
 import com.secureview.desktop.opencv.stub.Mat;
 import com.secureview.desktop.opencv.stub.Imgcodecs;
-import com.secureview.desktop.opencv.stub.VideoCapture;
-import com.secureview.desktop.opencv.stub.Videoio;
+import com.secureview.desktop.ui.CameraPreview;
 import com.secureview.desktop.ui.ModernTheme;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,13 +21,11 @@ import org.slf4j.LoggerFactory;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -38,23 +40,28 @@ public class AuthenticationWindow extends JFrame {
     private AttemptLogger attemptLogger;
     private ConfigManager configManager;
     
-    private JLabel cameraLabel;
+    private CameraPreview cameraPreview;
     private JLabel statusLabel;
     private JLabel userLabel;
     private JLabel confidenceLabel;
     private ModernTheme.AnimatedProgressBar progressBar;
     private ModernTheme.StatusBadge statusBadge;
     private JPanel cameraContainer;
-    private VideoCapture camera;
-    private Timer captureTimer;
-    private AtomicBoolean isProcessing = new AtomicBoolean(false);
+    private CameraCapture camera;
+    private Timer previewTimer;
+    private Thread recognitionThread;
+    private volatile boolean recognitionRunning;
+    private MotionGate motionGate; // null when disabled
+    private long lastPreviewSequence = 0;
     private AtomicInteger failedAttempts = new AtomicInteger(0);
-    private long lastLockoutTime = 0;
+    private volatile long lastLockoutTime = 0;
     private long lastAuthenticationAttempt = 0;
     private static final long AUTHENTICATION_COOLDOWN = 2000; // 2 seconds between attempts
     private static final long SUCCESS_DELAY = 500; // 500ms before closing on success
-    private int frameSkipCounter = 0;
-    private static final int FRAME_SKIP = 2; // Process every 3rd frame for display
+    private static final int PREVIEW_INTERVAL_MS = 33; // ~30 FPS preview, independent of recognition
+    private static final long FRAME_WAIT_MS = 500;
+    private static final long LOCKOUT_STATUS_INTERVAL_MS = 1000;
+    private static final long MOTION_GATE_LOG_INTERVAL = 300; // frames
     
     public AuthenticationWindow(
             FaceRecognitionService faceRecognitionService,
@@ -114,13 +121,9 @@ public class AuthenticationWindow extends JFrame {
         cameraContainer.setLayout(new BorderLayout());
         cameraContainer.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
-        // Camera label with modern styling
-        cameraLabel = new JLabel("Initializing camera...", JLabel.CENTER);
-        cameraLabel.setPreferredSize(new Dimension(720, 540));
-        cameraLabel.setForeground(ModernTheme.TEXT_SECONDARY);
-        cameraLabel.setFont(ModernTheme.getBodyFont());
-        cameraLabel.setVerticalAlignment(SwingConstants.CENTER);
-        cameraContainer.add(cameraLabel, BorderLayout.CENTER);
+        // Camera preview (frames are resized by OpenCV into a reused image)
+        cameraPreview = new CameraPreview("Initializing camera...", 720, 540);
+        cameraContainer.add(cameraPreview, BorderLayout.CENTER);
         
         // Camera caption
         JLabel cameraCaption = new JLabel("📹 Live Camera Feed");
@@ -278,18 +281,22 @@ public class AuthenticationWindow extends JFrame {
     
     private void startCamera() {
         try {
-            camera = new VideoCapture(0);
-            if (!camera.isOpened()) {
-                throw new Exception("Failed to open camera");
-            }
+            // Reader thread fills a small ring at camera rate; preview and recognition take the latest frame
+            camera = new CameraCapture(0, 1280, 720);
+            camera.start();
+            
+            previewTimer = new Timer(PREVIEW_INTERVAL_MS, e -> showLatestFrame());
+            previewTimer.start();
             
-            // Set camera resolution for modern display
-            camera.set(Videoio.CAP_PROP_FRAME_WIDTH, 1280);
-            camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, 720);
+            ApplicationConfig config = configManager.getConfig();
+            if (config.isMotionGateEnabled()) {
+                motionGate = new MotionGate(config.getMotionGateThreshold(), config.getMotionGateMaxSkipMs());
+            }
             
-            // Start capture timer - reduced frequency for better performance
-            captureTimer = new Timer(200, e -> captureAndProcess()); // 5 FPS for processing
-            captureTimer.start();
+            recognitionRunning = true;
+            recognitionThread = new Thread(this::recognitionLoop, "auth-recognition");
+            recognitionThread.setDaemon(true);
+            recognitionThread.start();
             
             logger.info("Camera started successfully");
             
@@ -303,17 +310,66 @@ public class AuthenticationWindow extends JFrame {
         }
     }
     
-    private void captureAndProcess() {
-        if (isProcessing.get()) {
-            return;
+    /**
+     * Preview tick on the EDT: shows the newest captured frame if it has not been shown yet.
+     * Never touches the camera.
+     */
+    private void showLatestFrame() {
+        try (CapturedFrame frame = camera.latestFrame()) {
+            if (frame == null || frame.sequence() == lastPreviewSequence) {
+                return;
+            }
+            lastPreviewSequence = frame.sequence();
+            cameraPreview.showFrame(frame.mat());
         }
-        
-        // Check for lockout
+    }
+    
+    /**
+     * Recognition worker: waits out lockouts and the cooldown, then authenticates
+     * against the newest frame. Frames captured meanwhile are simply skipped.
+     */
+    private void recognitionLoop() {
+        long lastSequence = 0;
+        while (recognitionRunning) {
+            try {
+                if (waitForLockout()) {
+                    continue;
+                }
+                
+                long cooldownLeft = AUTHENTICATION_COOLDOWN - (System.currentTimeMillis() - lastAuthenticationAttempt);
+                if (cooldownLeft > 0) {
+                    Thread.sleep(cooldownLeft);
+                    continue;
+                }
+                
+                try (CapturedFrame frame = camera.awaitFrame(lastSequence, FRAME_WAIT_MS)) {
+                    if (frame == null) {
+                        continue;
+                    }
+                    lastSequence = frame.sequence();
+                    
+                    // Static scene: the last attempt already saw this picture
+                    if (motionGate != null && !motionGate.shouldProcess(frame.mat())) {
+                        logMotionGate();
+                        continue;
+                    }
+                    processAuthentication(frame.mat());
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Shows the lockout countdown and sleeps while the system is locked.
+     * @return true if still locked out
+     */
+    private boolean waitForLockout() throws InterruptedException {
         long currentTime = System.currentTimeMillis();
-        if (lastLockoutTime > 0 && (currentTime - lastLockoutTime) < 
-            configManager.getConfig().getLockoutDuration()) {
-            long remainingSeconds = (configManager.getConfig().getLockoutDuration() - 
-                (currentTime - lastLockoutTime)) / 1000;
+        long lockoutDuration = configManager.getConfig().getLockoutDuration();
+        if (lastLockoutTime > 0 && (currentTime - lastLockoutTime) < lockoutDuration) {
+            long remainingSeconds = (lockoutDuration - (currentTime - lastLockoutTime)) / 1000;
             SwingUtilities.invokeLater(() -> {
                 statusLabel.setText("<html><div style='text-align: center; color: #F59E0B;'><b>🔒 System Locked</b><br>Please wait " + remainingSeconds + " seconds</div></html>");
                 progressBar.setString("Locked");
@@ -321,66 +377,35 @@ public class AuthenticationWindow extends JFrame {
                 statusBadge.setBadgeColor(ModernTheme.WARNING_ORANGE);
                 statusBadge.setText("● Locked");
             });
-            return;
+            Thread.sleep(LOCKOUT_STATUS_INTERVAL_MS);
+            return true;
         }
         
-        if (lastLockoutTime > 0 && (currentTime - lastLockoutTime) >= 
-            configManager.getConfig().getLockoutDuration()) {
+        if (lastLockoutTime > 0) {
             // Lockout expired
             lastLockoutTime = 0;
             failedAttempts.set(0);
-        }
-        
-        // Check authentication cooldown
-        if ((currentTime - lastAuthenticationAttempt) < AUTHENTICATION_COOLDOWN) {
-            // Still in cooldown, just display frame without processing
-            Mat frame = new Mat();
-            if (camera.read(frame) && !frame.empty()) {
-                displayFrame(frame);
-                frame.release();
+            if (motionGate != null) {
+                motionGate.reset();
             }
-            return;
-        }
-        
-        Mat frame = new Mat();
-        if (!camera.read(frame) || frame.empty()) {
-            frame.release();
-            return;
-        }
-        
-        // Display frame (every frame for smooth video)
-        displayFrame(frame);
-        
-        // Process authentication (with frame skipping for performance)
-        frameSkipCounter++;
-        if (frameSkipCounter >= FRAME_SKIP) {
-            frameSkipCounter = 0;
-            processAuthentication(frame);
-        } else {
-            frame.release(); // Release frame if not processing
         }
+        return false;
     }
     
-    private void displayFrame(Mat frame) {
-        try {
-            BufferedImage image = matToBufferedImage(frame);
-            // Scale to fit modern camera display
-            Image scaled = image.getScaledInstance(720, 540, Image.SCALE_SMOOTH);
-            ImageIcon icon = new ImageIcon(scaled);
-            cameraLabel.setIcon(icon);
-            cameraLabel.setText(""); // Clear text when showing image
-        } catch (Exception e) {
-            logger.error("Error displaying frame", e);
+    private void logMotionGate() {
+        if (motionGate.getEvaluated() % MOTION_GATE_LOG_INTERVAL == 0) {
+            logger.debug("Motion gate: skipped {} of {} frames ({}%), last difference {}",
+                        motionGate.getSkipped(), motionGate.getEvaluated(),
+                        String.format("%.1f", motionGate.getSkipRatio() * 100.0),
+                        String.format("%.2f", motionGate.getLastDifference()));
         }
     }
     
+    /**
+     * Runs one authentication attempt on the recognition thread. The frame belongs to the
+     * capture ring and is not released here.
+     */
     private void processAuthentication(Mat frame) {
-        if (isProcessing.get()) {
-            frame.release();
-            return;
-        }
-        
-        isProcessing.set(true);
         lastAuthenticationAttempt = System.currentTimeMillis();
         
         SwingUtilities.invokeLater(() -> {
@@ -392,66 +417,84 @@ public class AuthenticationWindow extends JFrame {
             statusBadge.setText("● Processing");
         });
         
-        new Thread(() -> {
-            try {
-                // Detect face
-                Mat face = faceRecognitionService.detectFace(frame);
-                
-                if (face == null || face.empty()) {
-                    SwingUtilities.invokeLater(() -> {
-                        statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'>👤 No face detected<br>Please position your face in front of the camera</div></html>");
-                        progressBar.setString("No face detected");
-                        progressBar.setValue(0);
-                        progressBar.stopAnimation();
-                        statusBadge.setBadgeColor(ModernTheme.TEXT_SECONDARY);
-                        statusBadge.setText("● Waiting");
-                    });
-                    isProcessing.set(false);
-                    frame.release();
-                    return;
-                }
-                
-                SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("<html><div style='text-align: center; color: #3B82F6;'>✅ Face detected<br>Authenticating...</div></html>");
-                    animateProgressBar(progressBar, 50, 75, 200);
-                });
-                
-                // Authenticate
-                double similarity = faceRecognitionService.authenticateUser(face);
-                double threshold = configManager.getConfig().getFaceRecognitionThreshold();
-                
-                final double finalSimilarity = similarity;
-                SwingUtilities.invokeLater(() -> {
-                    int confidencePercent = (int) Math.round(finalSimilarity * 100.0);
-                    int thresholdPercent = (int) Math.round(threshold * 100.0);
-                    confidenceLabel.setText("🎯 Confidence: " + confidencePercent + "% (Threshold: " + thresholdPercent + "%)");
-                });
-                
-                if (similarity >= threshold) {
-                    // Authentication successful
-                    handleAuthenticationSuccess();
-                } else {
-                    // Authentication failed
-                    handleAuthenticationFailure(face, similarity);
-                }
-                
-                face.release();
-                frame.release();
-                
-            } catch (Exception e) {
-                logger.error("Error during authentication", e);
+        // A registration that can no longer be compared is not a failed match: no attempt is counted
+        if (!faceRecognitionService.isUserRegistered()) {
+            logger.warn("No usable registration found, skipping authentication attempt");
+            SwingUtilities.invokeLater(() -> {
+                statusLabel.setText("<html><div style='text-align: center; color: #F59E0B;'>⚠️ Registration required<br>Your stored face data is no longer valid. Use Re-register Face.</div></html>");
+                progressBar.setString("Registration required");
+                progressBar.setValue(0);
+                progressBar.stopAnimation();
+                statusBadge.setBadgeColor(ModernTheme.WARNING_ORANGE);
+                statusBadge.setText("● Register");
+            });
+            return;
+        }
+        
+        Mat face = null;
+        Mat alignedFace = null;
+        try {
+            // Detect face
+            RetinaFaceDetector.FaceDetection detection = faceRecognitionService.detectLargestFace(frame);
+            if (detection != null) {
+                face = faceRecognitionService.cropFace(frame, detection.boundingBox);
+            }
+            
+            if (face == null || face.empty()) {
                 SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("<html><div style='text-align: center; color: #EF4444;'>⚠️ Error: " + e.getMessage() + "</div></html>");
-                    progressBar.setString("Error");
+                    statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'>👤 No face detected<br>Please position your face in front of the camera</div></html>");
+                    progressBar.setString("No face detected");
                     progressBar.setValue(0);
                     progressBar.stopAnimation();
-                    statusBadge.setBadgeColor(ModernTheme.ERROR_RED);
-                    statusBadge.setText("● Error");
+                    statusBadge.setBadgeColor(ModernTheme.TEXT_SECONDARY);
+                    statusBadge.setText("● Waiting");
                 });
-            } finally {
-                isProcessing.set(false);
+                return;
+            }
+            
+            SwingUtilities.invokeLater(() -> {
+                statusLabel.setText("<html><div style='text-align: center; color: #3B82F6;'>✅ Face detected<br>Authenticating...</div></html>");
+                animateProgressBar(progressBar, 50, 75, 200);
+            });
+            
+            // Authenticate; the embedding input is warped straight from the frame
+            alignedFace = faceRecognitionService.alignFace(frame, detection);
+            double similarity = faceRecognitionService.authenticateUser(face, alignedFace);
+            double threshold = configManager.getConfig().getFaceRecognitionThreshold();
+            
+            final double finalSimilarity = similarity;
+            SwingUtilities.invokeLater(() -> {
+                int confidencePercent = (int) Math.round(finalSimilarity * 100.0);
+                int thresholdPercent = (int) Math.round(threshold * 100.0);
+                confidenceLabel.setText("🎯 Confidence: " + confidencePercent + "% (Threshold: " + thresholdPercent + "%)");
+            });
+            
+            if (similarity >= threshold) {
+                // Authentication successful
+                handleAuthenticationSuccess();
+            } else {
+                // Authentication failed
+                handleAuthenticationFailure(face, similarity);
+            }
+            
+        } catch (Exception e) {
+            logger.error("Error during authentication", e);
+            SwingUtilities.invokeLater(() -> {
+                statusLabel.setText("<html><div style='text-align: center; color: #EF4444;'>⚠️ Error: " + e.getMessage() + "</div></html>");
+                progressBar.setString("Error");
+                progressBar.setValue(0);
+                progressBar.stopAnimation();
+                statusBadge.setBadgeColor(ModernTheme.ERROR_RED);
+                statusBadge.setText("● Error");
+            });
+        } finally {
+            if (face != null) {
+                face.release();
+            }
+            if (alignedFace != null) {
+                alignedFace.release();
             }
-        }).start();
+        }
     }
     
     private void handleAuthenticationSuccess() {
@@ -525,9 +568,15 @@ public class AuthenticationWindow extends JFrame {
         return null;
     }
     
+    /**
+     * Called on the recognition thread while {@code face} is still valid, so the
+     * intrusion snapshot is written before the face is released.
+     */
     private void handleAuthenticationFailure(Mat face, double similarity) {
+        int attempts = failedAttempts.incrementAndGet();
+        attemptLogger.logFailure("Low similarity score", similarity);
+        
         SwingUtilities.invokeLater(() -> {
-            int attempts = failedAttempts.incrementAndGet();
             statusLabel.setText("<html><div style='text-align: center; color: #EF4444;'><b>❌ Authentication Failed</b><br>Attempts: " + attempts + "</div></html>");
             progressBar.setString("Failed - " + String.format("%.1f", similarity * 100) + "% match");
             progressBar.setValue((int)(similarity * 100));
@@ -537,14 +586,12 @@ public class AuthenticationWindow extends JFrame {
             
             int confidencePercent = (int) Math.round(similarity * 100.0);
             confidenceLabel.setText("🎯 Confidence: " + confidencePercent + "% (below threshold)");
-            
-            attemptLogger.logFailure("Low similarity score", similarity);
-            
-            // Check if threshold exceeded
-            if (attempts >= configManager.getConfig().getMaxFailedAttempts()) {
-                handleIntrusion(face, attempts);
-            }
         });
+        
+        // Check if threshold exceeded
+        if (attempts >= configManager.getConfig().getMaxFailedAttempts()) {
+            handleIntrusion(face, attempts);
+        }
     }
     
     private void handleIntrusion(Mat face, int attempts) {
@@ -604,30 +651,31 @@ public class AuthenticationWindow extends JFrame {
         }
     }
     
-    private BufferedImage matToBufferedImage(Mat mat) {
-        int type = BufferedImage.TYPE_BYTE_GRAY;
-        if (mat.channels() > 1) {
-            type = BufferedImage.TYPE_3BYTE_BGR;
-        }
-        
-        int bufferSize = mat.channels() * mat.cols() * mat.rows();
-        byte[] buffer = new byte[bufferSize];
-        mat.get(0, 0, buffer);
-        
-        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
-        final byte[] targetPixels = ((java.awt.image.DataBufferByte) image.getRaster().getDataBuffer()).getData();
-        System.arraycopy(buffer, 0, targetPixels, 0, buffer.length);
-        
-        return image;
-    }
-    
     @Override
     public void dispose() {
-        if (captureTimer != null) {
-            captureTimer.stop();
+        if (previewTimer != null) {
+            previewTimer.stop();
+        }
+        recognitionRunning = false;
+        if (recognitionThread != null && recognitionThread != Thread.currentThread()) {
+            recognitionThread.interrupt();
+            try {
+                recognitionThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (camera != null) {
+            camera.stop();
+        }
+        if (cameraPreview != null) {
+            cameraPreview.release();
         }
-        if (camera != null && camera.isOpened()) {
-            camera.release();
+        if (motionGate != null) {
+            logger.info("Motion gate skipped detection on {} of {} frames ({}%)",
+                       motionGate.getSkipped(), motionGate.getEvaluated(),
+                       String.format("%.1f", motionGate.getSkipRatio() * 100.0));
+            motionGate.release();
         }
         super.dispose();
     }
@@ -1,23 +1,24 @@
 package com.secureview.desktop;
 
+import com.secureview.desktop.camera.CameraCapture;
+import com.secureview.desktop.camera.CapturedFrame;
 import com.secureview.desktop.config.ConfigManager;
 import com.secureview.desktop.face.FaceRecognitionService;
 import com.secureview.desktop.face.angle.AngleDetector;
+import com.secureview.desktop.face.detection.FaceTracker;
 import com.secureview.desktop.face.quality.FaceQualityAnalyzer;
 import com.secureview.desktop.face.quality.FaceQualityAnalyzer.QualityScore;
 import com.secureview.desktop.firebase.FirebaseService;
 import com.secureview.desktop.lock.LockManager;
 import com.secureview.desktop.logging.AttemptLogger;
 import com.secureview.desktop.opencv.stub.Mat;
-import com.secureview.desktop.opencv.stub.VideoCapture;
-import com.secureview.desktop.opencv.stub.Videoio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.secureview.desktop.ui.CameraPreview;
 import com.secureview.desktop.ui.ModernTheme;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
@@ -38,7 +39,7 @@ public class RegistrationWindow extends JFrame {
     private FirebaseService firebaseService;
     private ConfigManager configManager;
     
-    private JLabel cameraLabel;
+    private CameraPreview cameraPreview;
     private JLabel statusLabel;
     private JLabel angleProgressLabel;
     private ModernTheme.AnimatedProgressBar qualityBar;
@@ -48,9 +49,14 @@ public class RegistrationWindow extends JFrame {
     private ModernTheme.ModernButton finishButton;
     private ModernTheme.StatusBadge statusBadge;
     private JPanel cameraContainer;
-    private VideoCapture camera;
-    private Timer captureTimer;
+    private CameraCapture camera;
+    private Timer previewTimer;
+    private Thread analysisThread;
+    private volatile boolean analysisRunning;
+    private FaceTracker faceTracker; // analysis thread only, released as it exits; null when tracking is disabled
+    private long lastPreviewSequence = 0;
     private AtomicBoolean isProcessing = new AtomicBoolean(false);
+    private final AtomicBoolean captureRequested = new AtomicBoolean(false);
     private java.util.List<Mat> capturedFaces = new java.util.ArrayList<>();
     private int currentAngle = 0;
     private static final int[] ANGLES = {0, 45, 90, 135, 180, 225, 270, 315}; // 8 angles for 360-degree capture
@@ -61,6 +67,9 @@ public class RegistrationWindow extends JFrame {
     
     private final FaceQualityAnalyzer qualityAnalyzer = new FaceQualityAnalyzer();
     private final AngleDetector angleDetector = new AngleDetector();
+    private static final int PREVIEW_INTERVAL_MS = 33;
+    private static final long FIRST_FRAME_TIMEOUT_MS = 2000;
+    private static final long FRAME_WAIT_MS = 1000;
     private static final String EMAIL_CSV_PATH = "T:\\COLLEGE LIFE\\projects\\SecureView\\SecureView\\desktop-app\\Email Alert Data.csv";
     
     public RegistrationWindow(
@@ -117,12 +126,8 @@ public class RegistrationWindow extends JFrame {
         cameraCaption.setBorder(BorderFactory.createEmptyBorder(0, 0, 12, 0));
         cameraContainer.add(cameraCaption, BorderLayout.NORTH);
         
-        cameraLabel = new JLabel("Initializing camera...", JLabel.CENTER);
-        cameraLabel.setPreferredSize(new Dimension(720, 540));
-        cameraLabel.setForeground(ModernTheme.TEXT_SECONDARY);
-        cameraLabel.setFont(ModernTheme.getBodyFont());
-        cameraLabel.setVerticalAlignment(SwingConstants.CENTER);
-        cameraContainer.add(cameraLabel, BorderLayout.CENTER);
+        cameraPreview = new CameraPreview("Initializing camera...", 720, 540);
+        cameraContainer.add(cameraPreview, BorderLayout.CENTER);
         
         angleProgressLabel = new JLabel("📊 Angles captured: 0 / " + ANGLES.length);
         angleProgressLabel.setFont(ModernTheme.getBodyFont());
@@ -268,48 +273,36 @@ public class RegistrationWindow extends JFrame {
             logger.info("Initializing camera...");
             statusLabel.setText("Initializing camera...");
             
-            camera = new VideoCapture(0);
-            
-            // Wait a bit for camera to initialize
-            Thread.sleep(500);
-            
-            if (!camera.isOpened()) {
+            camera = new CameraCapture(0, 1280, 720);
+            try {
+                camera.start();
+            } catch (Exception e) {
                 throw new Exception("Failed to open camera. Please check:\n" +
                     "1. Camera is connected\n" +
                     "2. No other application is using the camera\n" +
                     "3. Camera permissions are granted");
             }
             
-            logger.info("Camera opened successfully, setting properties...");
-            
-            // Set camera resolution for modern display
-            camera.set(Videoio.CAP_PROP_FRAME_WIDTH, 1280);
-            camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, 720);
-            
-            // Give camera time to adjust
-            Thread.sleep(200);
-            
-            // Test if we can read a frame
-            Mat testFrame = new Mat();
-            int retries = 5;
-            boolean frameRead = false;
-            for (int i = 0; i < retries; i++) {
-                if (camera.read(testFrame) && !testFrame.empty()) {
-                    frameRead = true;
-                    logger.info("Camera test frame read successfully");
-                    break;
+            // Test that frames actually arrive
+            try (CapturedFrame testFrame = camera.awaitFrame(0, FIRST_FRAME_TIMEOUT_MS)) {
+                if (testFrame == null) {
+                    camera.stop();
+                    throw new Exception("Camera opened but cannot read frames. Please check camera settings.");
                 }
-                Thread.sleep(100);
+                logger.info("Camera test frame read successfully");
             }
-            testFrame.release();
             
-            if (!frameRead) {
-                throw new Exception("Camera opened but cannot read frames. Please check camera settings.");
-            }
+            // Preview on the EDT; detection, quality and angle analysis on their own thread
+            previewTimer = new Timer(PREVIEW_INTERVAL_MS, e -> showLatestFrame());
+            previewTimer.start();
             
-            // Start capture timer
-            captureTimer = new Timer(33, e -> updateCameraFeed());
-            captureTimer.start();
+            // Full detection every few frames; the face box is tracked in between
+            faceTracker = faceRecognitionService.createFaceTracker();
+            
+            analysisRunning = true;
+            analysisThread = new Thread(this::analysisLoop, "registration-analysis");
+            analysisThread.setDaemon(true);
+            analysisThread.start();
             
             logger.info("Camera started successfully for registration");
             SwingUtilities.invokeLater(() -> {
@@ -335,93 +328,133 @@ public class RegistrationWindow extends JFrame {
         }
     }
     
-    private void updateCameraFeed() {
-        if (isProcessing.get()) {
-            return;
-        }
-        
-        Mat frame = new Mat();
-        try {
-            if (!camera.read(frame)) {
-                frame.release();
-                return;
-            }
-            
-            if (frame.empty() || frame.cols() == 0 || frame.rows() == 0) {
-                frame.release();
+    /**
+     * Preview tick on the EDT: shows the newest frame, whatever the analysis is doing.
+     */
+    private void showLatestFrame() {
+        try (CapturedFrame frame = camera.latestFrame()) {
+            if (frame == null || frame.sequence() == lastPreviewSequence) {
                 return;
             }
-        } catch (Exception e) {
-            logger.debug("Error reading camera frame: {}", e.getMessage());
-            frame.release();
-            return;
+            lastPreviewSequence = frame.sequence();
+            cameraPreview.showFrame(frame.mat());
         }
-        
-        // Check for face and update quality/angle UI
+    }
+    
+    /**
+     * Analysis worker: always takes the newest frame, so a slow detector skips frames
+     * instead of queueing them. Results go to the EDT via {@link #showAnalysis}; a pending
+     * manual capture is served from the next frame.
+     */
+    private void analysisLoop() {
         try {
-            Mat face = faceRecognitionService.detectFace(frame);
-            if (face != null && !face.empty()) {
-                // Quality analysis
-                QualityScore quality = qualityAnalyzer.analyzeQuality(face);
-                int qualityPercent = (int) Math.round(quality.overallScore * 100.0);
-                qualityBar.setValue(qualityPercent);
-                qualityBar.setString("Quality: " + qualityPercent + "%");
-                if (qualityPercent > 70) {
-                    qualityBar.startAnimation();
-                } else {
-                    qualityBar.stopAnimation();
+            analyzeFrames();
+        } finally {
+            // The tracker's native state is only touched here, so it is freed once no update can run
+            releaseFaceTracker();
+        }
+    }
+    
+    private void analyzeFrames() {
+        long lastSequence = 0;
+        while (analysisRunning) {
+            try (CapturedFrame frame = camera.awaitFrame(lastSequence, FRAME_WAIT_MS)) {
+                if (frame == null) {
+                    if (captureRequested.getAndSet(false)) {
+                        SwingUtilities.invokeLater(this::showCaptureError);
+                    }
+                    continue;
                 }
+                lastSequence = frame.sequence();
                 
-                // Angle detection
-                AngleDetector.AngleInfo angleInfo = angleDetector.detectAngle(face);
-                String angleName = currentAngle < ANGLE_NAMES.length ? ANGLE_NAMES[currentAngle] : angleInfo.angleName;
-                
-                statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'><b style='color: #3B82F6; font-size: 16px;'>360° Face Registration</b><br><br>" +
-                    "✅ Face detected! Position: <b style='color: #10B981;'>" + angleName + "</b><br>" +
-                    quality.feedback + "<br><br>" +
-                    "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles</div></html>");
-                
-                angleProgressLabel.setText("📊 Angles captured: " + capturedFaces.size() + " / " + ANGLES.length);
-                
-                // Optional auto-capture when quality is optimal
-                if (quality.isOptimal && capturedFaces.size() < ANGLES.length && !isProcessing.get()) {
-                    logger.info("Quality optimal ({}). Auto-capturing angle {}.", qualityPercent, capturedFaces.size() + 1);
-                    autoCaptureFromFace(face);
-                    // autoCaptureFromFace will release face
-                    face = null;
-                } else {
-                    face.release();
-                }
-            } else {
-                qualityBar.setValue(0);
-                qualityBar.setString("Waiting for face...");
-                qualityBar.stopAnimation();
-                statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'><b style='color: #3B82F6; font-size: 16px;'>360° Face Registration</b><br><br>" +
-                    "👤 No face detected. Please position your face.<br><br>" +
-                    "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles</div></html>");
-                if (face != null) {
-                    face.release();
+                if (captureRequested.getAndSet(false)) {
+                    captureFromFrame(frame.mat());
+                } else if (!isProcessing.get()) {
+                    analyzeFrame(frame.mat());
                 }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.debug("Face analysis error: {}", e.getMessage());
+                SwingUtilities.invokeLater(() -> statusLabel.setText("Position your face in front of the camera."));
             }
-        } catch (Exception e) {
-            logger.debug("Face detection error: {}", e.getMessage());
-            statusLabel.setText("Position your face in front of the camera.");
         }
-        
-        // Display frame
-        displayFrame(frame);
-        frame.release();
     }
     
-    private void displayFrame(Mat frame) {
-        try {
-            BufferedImage image = matToBufferedImage(frame);
-            Image scaled = image.getScaledInstance(720, 540, Image.SCALE_SMOOTH);
-            ImageIcon icon = new ImageIcon(scaled);
-            cameraLabel.setIcon(icon);
-            cameraLabel.setText(""); // Clear text when showing image
-        } catch (Exception e) {
-            logger.error("Error displaying frame", e);
+    /**
+     * Runs detection, quality and angle analysis on the worker thread.
+     */
+    private void analyzeFrame(Mat frame) {
+        Mat face;
+        boolean detected; // whether the crop comes from a detection on this frame
+        if (faceTracker == null) {
+            face = faceRecognitionService.detectFace(frame);
+            detected = true;
+        } else {
+            FaceTracker.Track track = faceTracker.update(frame);
+            face = track != null ? faceTracker.crop(frame, track) : null;
+            detected = track != null && track.detected;
+        }
+        if (face == null || face.empty()) {
+            if (face != null) {
+                face.release();
+            }
+            SwingUtilities.invokeLater(() -> showAnalysis(null, null, null, false));
+            return;
+        }
+        QualityScore quality = qualityAnalyzer.analyzeQuality(face);
+        AngleDetector.AngleInfo angleInfo = angleDetector.detectAngle(face);
+        SwingUtilities.invokeLater(() -> showAnalysis(face, quality, angleInfo, detected));
+    }
+    
+    /**
+     * Updates the quality/angle UI from an analysis result and auto-captures when the quality
+     * is optimal. Runs on the EDT and takes ownership of {@code face} (null if none was found).
+     * Like a manual capture, auto-capture only stores a crop from a fresh detection
+     * ({@code detected}); crops of predicted tracker boxes only update the UI.
+     */
+    private void showAnalysis(Mat face, QualityScore quality, AngleDetector.AngleInfo angleInfo, boolean detected) {
+        if (!isDisplayable()) {
+            if (face != null) {
+                face.release();
+            }
+            return;
+        }
+        if (face != null) {
+            int qualityPercent = (int) Math.round(quality.overallScore * 100.0);
+            qualityBar.setValue(qualityPercent);
+            qualityBar.setString("Quality: " + qualityPercent + "%");
+            if (qualityPercent > 70) {
+                qualityBar.startAnimation();
+            } else {
+                qualityBar.stopAnimation();
+            }
+            
+            String angleName = currentAngle < ANGLE_NAMES.length ? ANGLE_NAMES[currentAngle] : angleInfo.angleName;
+            
+            statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'><b style='color: #3B82F6; font-size: 16px;'>360° Face Registration</b><br><br>" +
+                "✅ Face detected! Position: <b style='color: #10B981;'>" + angleName + "</b><br>" +
+                quality.feedback + "<br><br>" +
+                "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles</div></html>");
+            
+            angleProgressLabel.setText("📊 Angles captured: " + capturedFaces.size() + " / " + ANGLES.length);
+            
+            // Optional auto-capture when quality is optimal
+            if (detected && quality.isOptimal && capturedFaces.size() < ANGLES.length && !isProcessing.get()) {
+                logger.info("Quality optimal ({}). Auto-capturing angle {}.", qualityPercent, capturedFaces.size() + 1);
+                isProcessing.set(true);
+                autoCaptureFromFace(face);
+                // autoCaptureFromFace releases face
+            } else {
+                face.release();
+            }
+        } else {
+            qualityBar.setValue(0);
+            qualityBar.setString("Waiting for face...");
+            qualityBar.stopAnimation();
+            statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'><b style='color: #3B82F6; font-size: 16px;'>360° Face Registration</b><br><br>" +
+                "👤 No face detected. Please position your face.<br><br>" +
+                "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles</div></html>");
         }
     }
     
@@ -441,130 +474,114 @@ public class RegistrationWindow extends JFrame {
         isProcessing.set(true);
         captureButton.setEnabled(false);
         String angleName = currentAngle < ANGLE_NAMES.length ? ANGLE_NAMES[currentAngle] : "Angle " + currentAngle;
-            SwingUtilities.invokeLater(() -> {
-                statusLabel.setText("<html><div style='text-align: center; color: #3B82F6;'><b>📸 Capturing " + angleName + "...</b><br>Please wait...</div></html>");
-                qualityBar.setString("Capturing...");
-                qualityBar.setValue(50);
-                qualityBar.startAnimation();
-            });
+        statusLabel.setText("<html><div style='text-align: center; color: #3B82F6;'><b>📸 Capturing " + angleName + "...</b><br>Please wait...</div></html>");
+        qualityBar.setString("Capturing...");
+        qualityBar.setValue(50);
+        qualityBar.startAnimation();
         
-        new Thread(() -> {
-            try {
-                // Try multiple times to capture a frame
-                Mat frame = new Mat();
-                boolean frameCaptured = false;
-                int maxRetries = 10;
-                
-                for (int i = 0; i < maxRetries; i++) {
-                    if (camera.read(frame)) {
-                        if (!frame.empty() && frame.cols() > 0 && frame.rows() > 0) {
-                            frameCaptured = true;
-                            logger.info("Frame captured successfully (attempt {})", i + 1);
-                            break;
-                        }
-                    }
-                    Thread.sleep(50); // Wait 50ms between retries
-                }
-                
-                if (!frameCaptured) {
-                    logger.error("Failed to capture frame after {} attempts", maxRetries);
-                    SwingUtilities.invokeLater(() -> {
-                        statusLabel.setText("Failed to capture frame. Please try again.");
-                        JOptionPane.showMessageDialog(RegistrationWindow.this,
-                            "Failed to capture frame from camera.\n\n" +
-                            "Possible causes:\n" +
-                            "1. Camera is being used by another application\n" +
-                            "2. Camera permissions not granted\n" +
-                            "3. Camera hardware issue\n\n" +
-                            "Please check your camera and try again.",
-                            "Capture Error",
-                            JOptionPane.WARNING_MESSAGE);
-                        isProcessing.set(false);
-                        captureButton.setEnabled(true);
-                    });
-                    frame.release();
-                    return;
-                }
-                
-                Mat face = faceRecognitionService.detectFace(frame);
-                frame.release();
-                
-                if (face == null || face.empty()) {
-                    SwingUtilities.invokeLater(() -> {
-                        statusLabel.setText("No face detected. Please try again.");
-                        isProcessing.set(false);
-                        captureButton.setEnabled(true);
-                    });
-                    return;
-                }
-                
-                autoCaptureFromFace(face);
-                
-            } catch (Exception e) {
-                logger.error("Error capturing face", e);
-                SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("Error: " + e.getMessage());
-                    isProcessing.set(false);
-                    captureButton.setEnabled(true);
-                });
+        // Served by the analysis thread from the next frame, so the detector is only used there
+        captureRequested.set(true);
+    }
+    
+    /**
+     * Manual capture on the analysis thread: detects the face in {@code frame} and stores it.
+     */
+    private void captureFromFrame(Mat frame) {
+        // A stored registration image comes from a fresh detection, never a predicted box
+        if (faceTracker != null) {
+            faceTracker.requestDetection();
+        }
+        Mat face = locateFace(frame);
+        if (face == null || face.empty()) {
+            if (face != null) {
+                face.release();
             }
-        }).start();
+            SwingUtilities.invokeLater(() -> {
+                statusLabel.setText("No face detected. Please try again.");
+                isProcessing.set(false);
+                captureButton.setEnabled(true);
+            });
+            return;
+        }
+        SwingUtilities.invokeLater(() -> autoCaptureFromFace(face));
+    }
+    
+    /**
+     * Face crop for {@code frame}: from the tracker when enabled, otherwise from a full detection.
+     * Null if no face was found.
+     */
+    private Mat locateFace(Mat frame) {
+        if (faceTracker == null) {
+            return faceRecognitionService.detectFace(frame);
+        }
+        FaceTracker.Track track = faceTracker.update(frame);
+        return track != null ? faceTracker.crop(frame, track) : null;
+    }
+    
+    private void releaseFaceTracker() {
+        if (faceTracker != null) {
+            logger.info("Face tracker ran the detector on {} of {} frames ({}%)",
+                       faceTracker.getDetections(), faceTracker.getFrames(),
+                       String.format("%.1f", faceTracker.getDetectionRatio() * 100.0));
+            faceTracker.release();
+            faceTracker = null;
+        }
+    }
+    
+    private void showCaptureError() {
+        logger.error("Failed to capture frame: no camera frame within {} ms", FRAME_WAIT_MS);
+        statusLabel.setText("Failed to capture frame. Please try again.");
+        JOptionPane.showMessageDialog(RegistrationWindow.this,
+            "Failed to capture frame from camera.\n\n" +
+            "Possible causes:\n" +
+            "1. Camera is being used by another application\n" +
+            "2. Camera permissions not granted\n" +
+            "3. Camera hardware issue\n\n" +
+            "Please check your camera and try again.",
+            "Capture Error",
+            JOptionPane.WARNING_MESSAGE);
+        isProcessing.set(false);
+        captureButton.setEnabled(true);
     }
     
     /**
      * Adds a detected face to the captured list and updates UI.
-     * Used by both manual capture and auto-capture.
+     * Used by both manual capture and auto-capture. Runs on the EDT, which owns
+     * {@code capturedFaces}; releases {@code face}.
      */
     private void autoCaptureFromFace(Mat face) {
         try {
             // Store captured face - create a proper copy
             Mat faceCopy = new Mat();
-            try {
-                Object realFace = face.getRealInstance();
-                Object realCaptured = faceCopy.getRealInstance();
-                if (realFace != null && realCaptured != null) {
-                    java.lang.reflect.Method copyToMethod = realFace.getClass().getMethod("copyTo",
-                        Class.forName("org.opencv.core.Mat"));
-                    copyToMethod.invoke(realFace, realCaptured);
-                } else {
-                    face.copyTo(faceCopy);
-                }
-            } catch (Exception e) {
-                logger.warn("Error copying face Mat, using stub method", e);
-                face.copyTo(faceCopy);
-            }
+            face.copyTo(faceCopy);
             face.release();
             
             capturedFaces.add(faceCopy);
             currentAngle++;
             
-            SwingUtilities.invokeLater(() -> {
-                angleProgressLabel.setText("Angles captured: " + capturedFaces.size() + " / " + ANGLES.length);
-                if (capturedFaces.size() >= ANGLES.length) {
-                    statusLabel.setText("<html><div style='text-align: center; color: #10B981;'><b style='font-size: 18px;'>✅ All angles captured!</b><br><br>" +
-                        "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles<br><br>" +
-                        "Click <b>'Finish Registration'</b> to complete</div></html>");
-                    finishButton.setEnabled(true);
-                    captureButton.setEnabled(false);
-                    statusBadge.setBadgeColor(ModernTheme.SUCCESS_GREEN);
-                    statusBadge.setText("● Complete");
-                } else {
-                    String nextAngleName = currentAngle < ANGLE_NAMES.length ? ANGLE_NAMES[currentAngle] : "Angle " + currentAngle;
-                    statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'><b style='color: #10B981; font-size: 16px;'>✅ Angle " + (capturedFaces.size()) + " captured!</b><br><br>" +
-                        "Now position your face: <b style='color: #3B82F6;'>" + nextAngleName + "</b><br><br>" +
-                        "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles<br><br>" +
-                        "You can wait for auto-capture or click 'Capture current angle'</div></html>");
-                    captureButton.setEnabled(true);
-                }
-                isProcessing.set(false);
-            });
+            angleProgressLabel.setText("Angles captured: " + capturedFaces.size() + " / " + ANGLES.length);
+            if (capturedFaces.size() >= ANGLES.length) {
+                statusLabel.setText("<html><div style='text-align: center; color: #10B981;'><b style='font-size: 18px;'>✅ All angles captured!</b><br><br>" +
+                    "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles<br><br>" +
+                    "Click <b>'Finish Registration'</b> to complete</div></html>");
+                finishButton.setEnabled(true);
+                captureButton.setEnabled(false);
+                statusBadge.setBadgeColor(ModernTheme.SUCCESS_GREEN);
+                statusBadge.setText("● Complete");
+            } else {
+                String nextAngleName = currentAngle < ANGLE_NAMES.length ? ANGLE_NAMES[currentAngle] : "Angle " + currentAngle;
+                statusLabel.setText("<html><div style='text-align: center; color: #94A3B8;'><b style='color: #10B981; font-size: 16px;'>✅ Angle " + (capturedFaces.size()) + " captured!</b><br><br>" +
+                    "Now position your face: <b style='color: #3B82F6;'>" + nextAngleName + "</b><br><br>" +
+                    "📊 Captured: <b>" + capturedFaces.size() + "/" + ANGLES.length + "</b> angles<br><br>" +
+                    "You can wait for auto-capture or click 'Capture current angle'</div></html>");
+                captureButton.setEnabled(true);
+            }
         } catch (Exception e) {
             logger.error("Error during auto-capture", e);
-            SwingUtilities.invokeLater(() -> {
-                statusLabel.setText("Auto-capture error: " + e.getMessage());
-                isProcessing.set(false);
-                captureButton.setEnabled(true);
-            });
+            statusLabel.setText("Auto-capture error: " + e.getMessage());
+            captureButton.setEnabled(true);
+        } finally {
+            isProcessing.set(false);
         }
     }
 
@@ -710,23 +727,6 @@ public class RegistrationWindow extends JFrame {
         }).start();
     }
     
-    private BufferedImage matToBufferedImage(Mat mat) {
-        int type = BufferedImage.TYPE_BYTE_GRAY;
-        if (mat.channels() > 1) {
-            type = BufferedImage.TYPE_3BYTE_BGR;
-        }
-        
-        int bufferSize = mat.channels() * mat.cols() * mat.rows();
-        byte[] buffer = new byte[bufferSize];
-        mat.get(0, 0, buffer);
-        
-        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
-        final byte[] targetPixels = ((java.awt.image.DataBufferByte) image.getRaster().getDataBuffer()).getData();
-        System.arraycopy(buffer, 0, targetPixels, 0, buffer.length);
-        
-        return image;
-    }
-    
     private void startAuthenticationWindow() {
         logger.info("Starting authentication window after successful registration");
         try {
@@ -754,11 +754,28 @@ public class RegistrationWindow extends JFrame {
     
     @Override
     public void dispose() {
-        if (captureTimer != null) {
-            captureTimer.stop();
+        if (previewTimer != null) {
+            previewTimer.stop();
+        }
+        analysisRunning = false;
+        if (analysisThread != null) {
+            analysisThread.interrupt();
+            try {
+                analysisThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (analysisThread.isAlive()) {
+                logger.warn("Face analysis still running; its tracker is released when it exits");
+            }
+        } else {
+            releaseFaceTracker();
+        }
+        if (camera != null) {
+            camera.stop();
         }
-        if (camera != null && camera.isOpened()) {
-            camera.release();
+        if (cameraPreview != null) {
+            cameraPreview.release();
         }
         for (Mat face : capturedFaces) {
             if (face != null) {
@@ -1,11 +1,14 @@
 package com.secureview.desktop;
 
+import com.secureview.desktop.config.ApplicationConfig;
 import com.secureview.desktop.config.ConfigManager;
 import com.secureview.desktop.face.FaceRecognitionService;
 import com.secureview.desktop.firebase.FirebaseService;
 import com.secureview.desktop.lock.LockManager;
 import com.secureview.desktop.logging.AttemptLogger;
 import com.secureview.desktop.opencv.OpenCVLoader;
+import com.secureview.desktop.opencv.stub.MatTracker;
+import com.secureview.desktop.user.UserManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,6 +77,10 @@ public class SecureViewApplication {
             // Initialize configuration
             configManager = ConfigManager.getInstance();
             configManager.loadConfiguration();
+            ApplicationConfig config = configManager.getConfig();
+            if (config.isMatDebugEnabled()) {
+                MatTracker.enable(config.getMatDebugStackSampleRate(), config.getMatDebugReportIntervalSeconds());
+            }
             
             // Initialize services
             initializeServices();
@@ -91,7 +98,16 @@ public class SecureViewApplication {
             
             // Check if user is registered - REGISTRATION MUST HAPPEN FIRST
             if (!faceRecognitionService.isUserRegistered()) {
-                logger.info("No registered user found. User must register face first.");
+                if (faceRecognitionService.needsReRegistration()) {
+                    logger.warn("Stored registration is from a different model or version. User must register again.");
+                    JOptionPane.showMessageDialog(null,
+                        "Your stored face data was created by a different recognition model\n" +
+                        "and can no longer be used. Please register your face again.",
+                        "Registration Required",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    logger.info("No registered user found. User must register face first.");
+                }
                 showRegistrationWindow();
             } else {
                 logger.info("Registered user found. Starting authentication (will compare with registered face).");
@@ -125,9 +141,29 @@ public class SecureViewApplication {
         // Initialize attempt logger
         attemptLogger = AttemptLogger.getInstance();
         
+        // The windows leave through System.exit, so services are stopped from a shutdown hook
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdownServices, "secureview-shutdown"));
+        
         logger.info("All services initialized successfully");
     }
     
+    /**
+     * Stops background services so their threads and native resources are released on exit.
+     */
+    private void shutdownServices() {
+        logger.info("Shutting down services...");
+        try {
+            faceRecognitionService.shutdown();
+        } catch (Exception e) {
+            logger.error("Failed to shut down face recognition service", e);
+        }
+        try {
+            UserManager.getInstance().shutdown();
+        } catch (Exception e) {
+            logger.error("Failed to shut down user manager", e);
+        }
+    }
+    
     private void showRegistrationWindow() {
         logger.info("No registered user found. Showing registration window...");
         RegistrationWindow registrationWindow = new RegistrationWindow(
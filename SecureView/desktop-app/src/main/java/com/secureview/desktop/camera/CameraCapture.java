@@ -0,0 +1,162 @@
+package com.secureview.desktop.camera;
+
+import com.secureview.desktop.opencv.stub.Mat;
+import com.secureview.desktop.opencv.stub.VideoCapture;
+import com.secureview.desktop.opencv.stub.Videoio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the camera and a dedicated reader thread that keeps a {@link FrameRing} filled
+ * at the camera's own rate. Consumers (preview, recognition) take the latest frame
+ * whenever they are ready, so neither waits on camera I/O nor on each other.
+ */
+public class CameraCapture {
+    private static final Logger logger = LoggerFactory.getLogger(CameraCapture.class);
+
+    // Preview + one worker holding a frame each, the latest, and one being written
+    private static final int RING_SIZE = 4;
+    private static final long READ_RETRY_MS = 10;
+
+    private final int deviceIndex;
+    private final int width;
+    private final int height;
+
+    private VideoCapture camera;
+    private FrameRing ring;
+    private Thread reader;
+    private volatile boolean running;
+    private volatile long capturedFrames;
+    private volatile long droppedFrames;
+    private long startNanos;
+
+    public CameraCapture(int deviceIndex, int width, int height) {
+        this.deviceIndex = deviceIndex;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Opens the camera and starts the reader thread.
+     */
+    public synchronized void start() throws Exception {
+        if (running) {
+            return;
+        }
+        camera = new VideoCapture(deviceIndex);
+        if (!camera.isOpened()) {
+            throw new Exception("Failed to open camera");
+        }
+        camera.set(Videoio.CAP_PROP_FRAME_WIDTH, width);
+        camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, height);
+
+        ring = new FrameRing(RING_SIZE);
+        running = true;
+        startNanos = System.nanoTime();
+        reader = new Thread(this::readLoop, "camera-capture");
+        reader.setDaemon(true);
+        reader.start();
+        logger.info("Camera capture started ({}x{}, ring of {})", width, height, RING_SIZE);
+    }
+
+    /**
+     * Newest frame, or null if none has been captured yet. Close it when done.
+     */
+    public CapturedFrame latestFrame() {
+        FrameRing current = ring;
+        return current != null ? current.acquireLatest() : null;
+    }
+
+    /**
+     * Waits for a frame newer than {@code afterSequence}; null on timeout. Close it when done.
+     */
+    public CapturedFrame awaitFrame(long afterSequence, long timeoutMs) throws InterruptedException {
+        FrameRing current = ring;
+        if (current == null) {
+            return null;
+        }
+        return current.awaitNewer(afterSequence, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void readLoop() {
+        Mat discard = null;
+        while (running) {
+            CapturedFrame slot = ring.claim();
+            if (slot == null) {
+                // Every slot is held: keep draining the camera so the next frame is fresh
+                if (discard == null) {
+                    discard = new Mat();
+                }
+                if (camera.read(discard)) {
+                    droppedFrames++;
+                } else if (!backOff()) {
+                    break;
+                }
+                continue;
+            }
+            if (camera.read(slot.mat()) && !slot.mat().empty()) {
+                ring.publish(slot, System.nanoTime());
+                capturedFrames++;
+            } else {
+                ring.abandon(slot);
+                if (!backOff()) {
+                    break;
+                }
+            }
+        }
+        if (discard != null) {
+            discard.release();
+        }
+    }
+
+    /**
+     * Waits before retrying a failed camera read (e.g. the camera was unplugged).
+     * @return false if the reader was interrupted
+     */
+    private boolean backOff() {
+        try {
+            Thread.sleep(READ_RETRY_MS);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the reader thread and releases the camera. Consumers must have closed their
+     * frames (or be about to stop) before the ring's buffers are released.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        boolean readerStopped = true;
+        if (reader != null && reader != Thread.currentThread()) {
+            try {
+                reader.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readerStopped = !reader.isAlive();
+        }
+        if (camera != null && camera.isOpened()) {
+            camera.release();
+        }
+        if (readerStopped) {
+            ring.close();
+        } else {
+            logger.warn("Camera reader did not stop in time; leaving frame buffers to the GC");
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        logger.info("Camera capture stopped: {} frames ({} fps), {} dropped",
+                   capturedFrames, String.format("%.1f", seconds > 0 ? capturedFrames / seconds : 0.0),
+                   droppedFrames);
+    }
+}
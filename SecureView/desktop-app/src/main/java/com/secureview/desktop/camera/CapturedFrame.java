@@ -0,0 +1,82 @@
+package com.secureview.desktop.camera;
+
+import com.secureview.desktop.opencv.stub.Mat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One slot of a {@link FrameRing}: a camera frame with its sequence number and capture time.
+ *
+ * Frames are reference counted. The ring holds one reference while the frame is the latest,
+ * and every consumer that acquired it holds another until {@link #close()}. The capture thread
+ * only writes into a slot whose count is zero, so a consumer can read {@link #mat()} without
+ * copying for as long as it holds the frame. Close exactly once, and do not release the Mat.
+ */
+public final class CapturedFrame implements AutoCloseable {
+    private static final int WRITING = -1;
+
+    private final Mat mat = new Mat();
+    private final AtomicInteger refs = new AtomicInteger();
+    private long sequence;
+    private long timestampNanos;
+
+    CapturedFrame() {
+    }
+
+    public Mat mat() {
+        return mat;
+    }
+
+    /**
+     * Increases by one for every published frame, starting at 1.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * {@link System#nanoTime()} when the frame was read from the camera.
+     */
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    boolean tryClaimForWrite() {
+        return refs.compareAndSet(0, WRITING);
+    }
+
+    void abandonWrite() {
+        refs.set(0);
+    }
+
+    /**
+     * Fills in the metadata and hands the ring's reference over. The volatile write
+     * publishes the frame contents to consumers that later retain it.
+     */
+    void published(long sequence, long timestampNanos) {
+        this.sequence = sequence;
+        this.timestampNanos = timestampNanos;
+        refs.set(1);
+    }
+
+    boolean tryRetain() {
+        while (true) {
+            int current = refs.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (refs.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void releaseNative() {
+        mat.release();
+    }
+
+    @Override
+    public void close() {
+        refs.decrementAndGet();
+    }
+}
@@ -0,0 +1,148 @@
+package com.secureview.desktop.camera;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small lock-free ring of reusable {@link CapturedFrame}s with a single writer
+ * (the capture thread) and any number of readers that only want the newest frame.
+ *
+ * The writer fills the next free slot and swaps it in as the latest frame. Readers
+ * retain the latest frame without locking and read it in place. With one frame per
+ * reader plus the latest, a ring of readers + 2 slots never runs out; if it does,
+ * the writer drops the frame instead of waiting.
+ */
+public final class FrameRing {
+    private static final Logger logger = LoggerFactory.getLogger(FrameRing.class);
+
+    private final CapturedFrame[] slots;
+    private final AtomicReference<CapturedFrame> latest = new AtomicReference<>();
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+
+    // Writer-only state
+    private int nextSlot;
+    private long nextSequence;
+
+    public FrameRing(int size) {
+        slots = new CapturedFrame[Math.max(2, size)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new CapturedFrame();
+        }
+    }
+
+    /**
+     * Writer: claims the next free slot for writing, or returns null if every slot is in use.
+     */
+    CapturedFrame claim() {
+        for (int i = 0; i < slots.length; i++) {
+            int index = (nextSlot + i) % slots.length;
+            CapturedFrame slot = slots[index];
+            if (slot.tryClaimForWrite()) {
+                nextSlot = (index + 1) % slots.length;
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writer: makes a claimed slot the latest frame and wakes waiting readers.
+     */
+    void publish(CapturedFrame frame, long timestampNanos) {
+        frame.published(++nextSequence, timestampNanos);
+        CapturedFrame previous = latest.getAndSet(frame);
+        if (previous != null) {
+            previous.close();
+        }
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Writer: returns a claimed slot unused (e.g. the camera read failed).
+     */
+    void abandon(CapturedFrame frame) {
+        frame.abandonWrite();
+    }
+
+    /**
+     * The newest frame, retained for the caller (close it when done), or null before the first frame.
+     */
+    public CapturedFrame acquireLatest() {
+        while (true) {
+            CapturedFrame frame = latest.get();
+            if (frame == null) {
+                return null;
+            }
+            if (frame.tryRetain()) {
+                if (latest.get() == frame) {
+                    return frame;
+                }
+                // Superseded while retaining; take the newer one
+                frame.close();
+            }
+        }
+    }
+
+    /**
+     * Waits until a frame newer than {@code afterSequence} is published and returns it retained,
+     * or returns null on timeout.
+     */
+    public CapturedFrame awaitNewer(long afterSequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            while (true) {
+                CapturedFrame frame = acquireLatest();
+                if (frame != null) {
+                    if (frame.sequence() > afterSequence) {
+                        return frame;
+                    }
+                    frame.close();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    /**
+     * Releases the native buffers. Call after the writer has stopped. A slot a reader still
+     * holds (e.g. a slow detection pass) is not released; it is left to the GC instead of
+     * being freed under the reader.
+     */
+    void close() {
+        CapturedFrame previous = latest.getAndSet(null);
+        if (previous != null) {
+            previous.close();
+        }
+        int held = 0;
+        for (CapturedFrame slot : slots) {
+            // Claiming marks the slot as written, so no reader can retain it afterwards
+            if (slot.tryClaimForWrite()) {
+                slot.releaseNative();
+            } else {
+                held++;
+            }
+        }
+        if (held > 0) {
+            logger.warn("{} frame(s) still held by readers; leaving their buffers to the GC", held);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.secureview.desktop.camera;
+
+import com.secureview.desktop.opencv.stub.Imgproc;
+import com.secureview.desktop.opencv.stub.Mat;
+import com.secureview.desktop.opencv.stub.Size;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cheap check ahead of face detection: lets a frame through only if the scene changed
+ * since the last frame that was let through.
+ *
+ * Each frame is shrunk by OpenCV to a 64x36 grayscale thumbnail (reused buffers) and
+ * compared with the reference thumbnail by mean absolute difference in gray levels.
+ * Comparing against the last processed frame rather than the previous one means slow
+ * drift still adds up and eventually passes. After {@code maxSkipMillis} of skipping,
+ * a frame passes anyway.
+ *
+ * Not thread-safe; call from one thread. The counters may be read from any thread.
+ */
+public class MotionGate {
+    private static final int THUMB_WIDTH = 64;
+    private static final int THUMB_HEIGHT = 36;
+
+    private final double threshold;
+    private final long maxSkipNanos;
+
+    private final Mat small = new Mat();
+    private final Mat gray = new Mat();
+    private final Size thumbSize = new Size(THUMB_WIDTH, THUMB_HEIGHT);
+    private byte[] current = new byte[THUMB_WIDTH * THUMB_HEIGHT];
+    private byte[] reference = new byte[THUMB_WIDTH * THUMB_HEIGHT];
+    private boolean hasReference;
+    private long referenceNanos;
+
+    private volatile long evaluated;
+    private volatile long skipped;
+    private volatile double lastDifference;
+
+    /**
+     * @param threshold     mean absolute gray-level difference (0-255) below which a frame is skipped
+     * @param maxSkipMillis longest run of skipped frames before one passes regardless
+     */
+    public MotionGate(double threshold, long maxSkipMillis) {
+        this.threshold = threshold;
+        this.maxSkipNanos = TimeUnit.MILLISECONDS.toNanos(maxSkipMillis);
+    }
+
+    /**
+     * True if the frame differs enough from the last processed one (or nothing was processed
+     * yet); it then becomes the new reference. False if detection can be skipped.
+     */
+    public boolean shouldProcess(Mat frame) {
+        evaluated++;
+        if (!thumbnail(frame)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (hasReference && now - referenceNanos < maxSkipNanos) {
+            double difference = meanAbsoluteDifference(current, reference);
+            lastDifference = difference;
+            if (difference < threshold) {
+                skipped++;
+                return false;
+            }
+        }
+        byte[] previous = reference;
+        reference = current;
+        current = previous;
+        hasReference = true;
+        referenceNanos = now;
+        return true;
+    }
+
+    /**
+     * Forgets the reference, so the next frame is processed.
+     */
+    public void reset() {
+        hasReference = false;
+    }
+
+    private boolean thumbnail(Mat frame) {
+        if (frame.cols() <= 0 || frame.rows() <= 0) {
+            return false;
+        }
+        Imgproc.resize(frame, small, thumbSize);
+        Mat thumb = small;
+        if (small.channels() == 3) {
+            Imgproc.cvtColor(small, gray, Imgproc.COLOR_BGR2GRAY);
+            thumb = gray;
+        }
+        if (thumb.total() != current.length || thumb.channels() != 1) {
+            return false;
+        }
+        thumb.get(0, 0, current);
+        return true;
+    }
+
+    private static double meanAbsoluteDifference(byte[] a, byte[] b) {
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs((a[i] & 0xFF) - (b[i] & 0xFF));
+        }
+        return sum / (double) a.length;
+    }
+
+    public long getEvaluated() {
+        return evaluated;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Fraction of evaluated frames whose detection was skipped.
+     */
+    public double getSkipRatio() {
+        long total = evaluated;
+        return total == 0 ? 0.0 : skipped / (double) total;
+    }
+
+    /**
+     * Difference measured for the most recent frame compared with the reference.
+     */
+    public double getLastDifference() {
+        return lastDifference;
+    }
+
+    public void release() {
+        small.release();
+        gray.release();
+    }
+}
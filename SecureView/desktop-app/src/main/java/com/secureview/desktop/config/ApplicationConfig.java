@@ -22,6 +22,39 @@ public class ApplicationConfig {
     private boolean smtpUseTls;
     private String alertEmailFrom;
     private String alertEmailTo;
+
+    // Embedding gallery: "exact" (full precision scan) or "int8" (quantized pre-scan + exact re-rank)
+    private String galleryStore;
+    private int galleryRerankCandidates;
+
+    // Embedding inference pool: one model instance per worker, requests batched within the window
+    private int inferenceWorkers;
+    private int inferenceQueueCapacity;
+    private long inferenceBatchWindowMs;
+    private int inferenceMaxBatch;
+
+    // Motion gate: skip face detection while the camera image is static
+    private boolean motionGateEnabled;
+    private double motionGateThreshold;
+    private long motionGateMaxSkipMs;
+
+    // Face tracking: full detection every N frames, tracked boxes in between
+    private boolean faceTrackingEnabled;
+    private int faceTrackingDetectionInterval;
+    private double faceTrackingMinConfidence;
+
+    // Face detection: Haar pass on a frame shrunk by this factor; ROI margin around a known box
+    private double faceDetectionScale;
+    private double faceDetectionRoiMargin;
+
+    // RetinaFace input: speed profile (fast 320, balanced 480, accurate 640); an explicit size overrides it
+    private String retinaFaceProfile;
+    private int retinaFaceInputSize;
+
+    // Native Mat accounting (debug): live count/bytes and sampled allocation sites, logged periodically
+    private boolean matDebugEnabled;
+    private int matDebugStackSampleRate;
+    private int matDebugReportIntervalSeconds;
     
     // Getters and Setters
     public double getFaceRecognitionThreshold() {
@@ -151,5 +184,157 @@ public class ApplicationConfig {
     public void setAlertEmailTo(String alertEmailTo) {
         this.alertEmailTo = alertEmailTo;
     }
+
+    public String getGalleryStore() {
+        return galleryStore;
+    }
+
+    public void setGalleryStore(String galleryStore) {
+        this.galleryStore = galleryStore;
+    }
+
+    public int getGalleryRerankCandidates() {
+        return galleryRerankCandidates;
+    }
+
+    public void setGalleryRerankCandidates(int galleryRerankCandidates) {
+        this.galleryRerankCandidates = galleryRerankCandidates;
+    }
+
+    public int getInferenceWorkers() {
+        return inferenceWorkers;
+    }
+
+    public void setInferenceWorkers(int inferenceWorkers) {
+        this.inferenceWorkers = inferenceWorkers;
+    }
+
+    public int getInferenceQueueCapacity() {
+        return inferenceQueueCapacity;
+    }
+
+    public void setInferenceQueueCapacity(int inferenceQueueCapacity) {
+        this.inferenceQueueCapacity = inferenceQueueCapacity;
+    }
+
+    public long getInferenceBatchWindowMs() {
+        return inferenceBatchWindowMs;
+    }
+
+    public void setInferenceBatchWindowMs(long inferenceBatchWindowMs) {
+        this.inferenceBatchWindowMs = inferenceBatchWindowMs;
+    }
+
+    public int getInferenceMaxBatch() {
+        return inferenceMaxBatch;
+    }
+
+    public void setInferenceMaxBatch(int inferenceMaxBatch) {
+        this.inferenceMaxBatch = inferenceMaxBatch;
+    }
+
+    public boolean isMotionGateEnabled() {
+        return motionGateEnabled;
+    }
+
+    public void setMotionGateEnabled(boolean motionGateEnabled) {
+        this.motionGateEnabled = motionGateEnabled;
+    }
+
+    public double getMotionGateThreshold() {
+        return motionGateThreshold;
+    }
+
+    public void setMotionGateThreshold(double motionGateThreshold) {
+        this.motionGateThreshold = motionGateThreshold;
+    }
+
+    public long getMotionGateMaxSkipMs() {
+        return motionGateMaxSkipMs;
+    }
+
+    public void setMotionGateMaxSkipMs(long motionGateMaxSkipMs) {
+        this.motionGateMaxSkipMs = motionGateMaxSkipMs;
+    }
+
+    public boolean isFaceTrackingEnabled() {
+        return faceTrackingEnabled;
+    }
+
+    public void setFaceTrackingEnabled(boolean faceTrackingEnabled) {
+        this.faceTrackingEnabled = faceTrackingEnabled;
+    }
+
+    public int getFaceTrackingDetectionInterval() {
+        return faceTrackingDetectionInterval;
+    }
+
+    public void setFaceTrackingDetectionInterval(int faceTrackingDetectionInterval) {
+        this.faceTrackingDetectionInterval = faceTrackingDetectionInterval;
+    }
+
+    public double getFaceTrackingMinConfidence() {
+        return faceTrackingMinConfidence;
+    }
+
+    public void setFaceTrackingMinConfidence(double faceTrackingMinConfidence) {
+        this.faceTrackingMinConfidence = faceTrackingMinConfidence;
+    }
+
+    public double getFaceDetectionScale() {
+        return faceDetectionScale;
+    }
+
+    public void setFaceDetectionScale(double faceDetectionScale) {
+        this.faceDetectionScale = faceDetectionScale;
+    }
+
+    public double getFaceDetectionRoiMargin() {
+        return faceDetectionRoiMargin;
+    }
+
+    public void setFaceDetectionRoiMargin(double faceDetectionRoiMargin) {
+        this.faceDetectionRoiMargin = faceDetectionRoiMargin;
+    }
+
+    public String getRetinaFaceProfile() {
+        return retinaFaceProfile;
+    }
+
+    public void setRetinaFaceProfile(String retinaFaceProfile) {
+        this.retinaFaceProfile = retinaFaceProfile;
+    }
+
+    public int getRetinaFaceInputSize() {
+        return retinaFaceInputSize;
+    }
+
+    public void setRetinaFaceInputSize(int retinaFaceInputSize) {
+        this.retinaFaceInputSize = retinaFaceInputSize;
+    }
+
+    public boolean isMatDebugEnabled() {
+        return matDebugEnabled;
+    }
+
+    public void setMatDebugEnabled(boolean matDebugEnabled) {
+        this.matDebugEnabled = matDebugEnabled;
+    }
+
+    public int getMatDebugStackSampleRate() {
+        return matDebugStackSampleRate;
+    }
+
+    public void setMatDebugStackSampleRate(int matDebugStackSampleRate) {
+        this.matDebugStackSampleRate = matDebugStackSampleRate;
+    }
+
+    public int getMatDebugReportIntervalSeconds() {
+        return matDebugReportIntervalSeconds;
+    }
+
+    public void setMatDebugReportIntervalSeconds(int matDebugReportIntervalSeconds) {
+        this.matDebugReportIntervalSeconds = matDebugReportIntervalSeconds;
+    }
 }
 
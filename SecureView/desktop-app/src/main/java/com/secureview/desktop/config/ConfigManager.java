@@ -60,6 +60,54 @@ public class ConfigManager {
                     config.setMaxFailedAttempts(15);
                     saveConfiguration();
                 }
+                
+                // Older configs predate the gallery store settings
+                if (config.getGalleryStore() == null || config.getGalleryRerankCandidates() <= 0) {
+                    if (config.getGalleryStore() == null) {
+                        config.setGalleryStore("exact");
+                    }
+                    if (config.getGalleryRerankCandidates() <= 0) {
+                        config.setGalleryRerankCandidates(32);
+                    }
+                    saveConfiguration();
+                }
+                
+                // Older configs predate the inference pool settings
+                if (config.getInferenceWorkers() <= 0 || config.getInferenceQueueCapacity() <= 0 ||
+                    config.getInferenceMaxBatch() <= 0) {
+                    applyInferenceDefaults(config);
+                    saveConfiguration();
+                }
+                
+                // Older configs predate the motion gate settings
+                if (config.getMotionGateThreshold() <= 0 || config.getMotionGateMaxSkipMs() <= 0) {
+                    applyMotionGateDefaults(config);
+                    saveConfiguration();
+                }
+                
+                // Older configs predate the face tracking settings
+                if (config.getFaceTrackingDetectionInterval() <= 0 || config.getFaceTrackingMinConfidence() <= 0) {
+                    applyFaceTrackingDefaults(config);
+                    saveConfiguration();
+                }
+                
+                // Older configs predate the detection scale settings
+                if (config.getFaceDetectionScale() <= 0 || config.getFaceDetectionRoiMargin() <= 0) {
+                    applyFaceDetectionDefaults(config);
+                    saveConfiguration();
+                }
+                
+                // Older configs predate the RetinaFace input settings
+                if (config.getRetinaFaceProfile() == null) {
+                    applyRetinaFaceDefaults(config);
+                    saveConfiguration();
+                }
+                
+                // Older configs predate the Mat debug settings
+                if (config.getMatDebugStackSampleRate() <= 0 || config.getMatDebugReportIntervalSeconds() <= 0) {
+                    applyMatDebugDefaults(config);
+                    saveConfiguration();
+                }
             }
         } else {
             // Create default configuration
@@ -102,6 +150,76 @@ public class ConfigManager {
         config.setSmtpUseTls(true);
         config.setAlertEmailFrom("");
         config.setAlertEmailTo("");
+
+        // Gallery store: "exact" or "int8" (quantized pre-scan, top candidates re-ranked exactly)
+        config.setGalleryStore("exact");
+        config.setGalleryRerankCandidates(32);
+
+        applyInferenceDefaults(config);
+        applyMotionGateDefaults(config);
+        applyFaceTrackingDefaults(config);
+        applyFaceDetectionDefaults(config);
+        applyRetinaFaceDefaults(config);
+        applyMatDebugDefaults(config);
+    }
+    
+    /**
+     * Inference pool defaults: 2 model instances, up to 32 waiting requests,
+     * requests arriving within 5 ms batched together (at most 8 per forward pass).
+     */
+    private void applyInferenceDefaults(ApplicationConfig config) {
+        config.setInferenceWorkers(2);
+        config.setInferenceQueueCapacity(32);
+        config.setInferenceBatchWindowMs(5);
+        config.setInferenceMaxBatch(8);
+    }
+    
+    /**
+     * Motion gate defaults: on; a frame is processed when its 64x36 gray thumbnail differs from
+     * the last processed one by at least 3 gray levels on average, or after 10 s regardless.
+     */
+    private void applyMotionGateDefaults(ApplicationConfig config) {
+        config.setMotionGateEnabled(true);
+        config.setMotionGateThreshold(3.0);
+        config.setMotionGateMaxSkipMs(10000);
+    }
+    
+    /**
+     * Face tracking defaults: on; the detector runs every 10th frame, or sooner when the
+     * tracked region's appearance confidence falls below 0.5.
+     */
+    private void applyFaceTrackingDefaults(ApplicationConfig config) {
+        config.setFaceTrackingEnabled(true);
+        config.setFaceTrackingDetectionInterval(10);
+        config.setFaceTrackingMinConfidence(0.5);
+    }
+    
+    /**
+     * Face detection defaults: the Haar pass runs at half resolution (a quarter of the pixels);
+     * around a known face, a region half the box size larger on each side is searched first.
+     */
+    private void applyFaceDetectionDefaults(ApplicationConfig config) {
+        config.setFaceDetectionScale(0.5);
+        config.setFaceDetectionRoiMargin(0.5);
+    }
+    
+    /**
+     * RetinaFace defaults: the "accurate" profile (640x640 input); no explicit size, so the
+     * profile decides. Low-end machines can switch to "fast" (320x320).
+     */
+    private void applyRetinaFaceDefaults(ApplicationConfig config) {
+        config.setRetinaFaceProfile("accurate");
+        config.setRetinaFaceInputSize(0);
+    }
+    
+    /**
+     * Mat debug defaults: off; when switched on, one allocation in 16 records its
+     * call site and a summary is logged every 60 s.
+     */
+    private void applyMatDebugDefaults(ApplicationConfig config) {
+        config.setMatDebugEnabled(false);
+        config.setMatDebugStackSampleRate(16);
+        config.setMatDebugReportIntervalSeconds(60);
     }
     
     private void ensureDirectoriesExist() throws IOException {
@@ -26,6 +26,9 @@ public class EncryptionService {
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
     
+    /** Bytes {@link #encrypt} adds to the plaintext (IV + authentication tag). */
+    public static final int ENVELOPE_OVERHEAD = GCM_IV_LENGTH + GCM_TAG_LENGTH;
+    
     private SecretKey secretKey;
     private static final String KEY_FILE = "encryption.key";
     
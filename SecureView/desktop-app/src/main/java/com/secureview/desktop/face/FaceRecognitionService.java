@@ -1,14 +1,24 @@
 package com.secureview.desktop.face;
 
+import com.secureview.desktop.config.ApplicationConfig;
 import com.secureview.desktop.config.ConfigManager;
 import com.secureview.desktop.encryption.EncryptionService;
 import com.secureview.desktop.face.detection.FaceDetector;
-import com.secureview.desktop.face.embedding.FaceEmbeddingExtractor;
+import com.secureview.desktop.face.detection.FaceTracker;
+import com.secureview.desktop.face.detection.RetinaFaceDetector;
+import com.secureview.desktop.face.embedding.EmbeddingKernels;
+import com.secureview.desktop.face.embedding.EmbeddingInferenceService;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
 import com.secureview.desktop.face.liveness.LivenessDetector;
 import com.secureview.desktop.face.comparison.ImageComparisonService;
-import com.secureview.desktop.face.alignment.FaceAligner;
+import com.secureview.desktop.face.gallery.EmbeddingCodec;
+import com.secureview.desktop.face.gallery.EmbeddingGallery;
+import com.secureview.desktop.face.gallery.EmbeddingStore;
+import com.secureview.desktop.face.gallery.GalleryMatch;
+import com.secureview.desktop.face.gallery.ReferenceEmbeddingCache;
 import com.secureview.desktop.opencv.stub.Mat;
 import com.secureview.desktop.opencv.stub.Imgcodecs;
+import com.secureview.desktop.opencv.stub.Rect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +36,13 @@ public class FaceRecognitionService {
     private static FaceRecognitionService instance;
     
     private FaceDetector faceDetector;
-    private FaceEmbeddingExtractor embeddingExtractor;
+    private EmbeddingInferenceService inferenceService;
     private LivenessDetector livenessDetector;
     private ImageComparisonService imageComparisonService;
     private EncryptionService encryptionService;
     private ConfigManager configManager;
+    private final EmbeddingGallery gallery;
+    private ReferenceEmbeddingCache referenceEmbeddingCache;
     
     private static final String EMBEDDING_FILE = "face_embedding.enc";
     private static final String REGISTERED_FACES_DIR = "registered_faces";
@@ -39,6 +51,8 @@ public class FaceRecognitionService {
     private FaceRecognitionService() {
         configManager = ConfigManager.getInstance();
         encryptionService = EncryptionService.getInstance();
+        gallery = new EmbeddingGallery(configManager, encryptionService, EMBEDDING_FILE, getImageDataPath(),
+                                       () -> inferenceService != null ? inferenceService.getModelFingerprint() : null);
     }
     
     public static synchronized FaceRecognitionService getInstance() {
@@ -51,11 +65,23 @@ public class FaceRecognitionService {
     public void initialize() throws Exception {
         logger.info("Initializing Face Recognition Service...");
         
-        faceDetector = new FaceDetector();
+        ApplicationConfig config = configManager.getConfig();
+        int retinaFaceInputSize = config.getRetinaFaceInputSize() > 0
+            ? config.getRetinaFaceInputSize()
+            : RetinaFaceDetector.inputSizeForProfile(config.getRetinaFaceProfile());
+        faceDetector = new FaceDetector(config.getFaceDetectionScale(), config.getFaceDetectionRoiMargin(),
+                                        retinaFaceInputSize);
         faceDetector.initialize();
         
-        embeddingExtractor = new FaceEmbeddingExtractor();
-        embeddingExtractor.initialize();
+        // Embeddings are extracted by a pool of workers, each with its own model instance,
+        // so concurrent callers never share a Net
+        inferenceService = new EmbeddingInferenceService(config.getInferenceWorkers(),
+                                                         config.getInferenceQueueCapacity(),
+                                                         config.getInferenceBatchWindowMs(),
+                                                         config.getInferenceMaxBatch());
+        referenceEmbeddingCache = new ReferenceEmbeddingCache(encryptionService, inferenceService, faceDetector);
+        // A snapshot loaded before the model was known could not check the stored embedding's fingerprint
+        gallery.invalidate();
         
         imageComparisonService = new ImageComparisonService();
         
@@ -71,23 +97,38 @@ public class FaceRecognitionService {
      * Checks if a user is registered (has stored face images or embedding).
      */
     public boolean isUserRegistered() {
-        // Check for image-based registration (new method)
-        String imageDataPath = getImageDataPath();
-        File imageDataDir = new File(imageDataPath);
-        if (imageDataDir.exists() && imageDataDir.isDirectory()) {
-            File[] imageFiles = imageDataDir.listFiles((d, name) -> 
-                name.toLowerCase().endsWith(".jpg") || 
-                name.toLowerCase().endsWith(".jpeg") || 
-                name.toLowerCase().endsWith(".png"));
-            if (imageFiles != null && imageFiles.length > 0) {
-                return true;
-            }
-        }
-        
-        // Fallback: check for embedding-based registration (old method)
-        String dataDir = configManager.getConfig().getDataDirectory();
-        File embeddingFile = new File(dataDir, EMBEDDING_FILE);
-        return embeddingFile.exists();
+        // Image-based registration (new method) or embedding-based registration (old method),
+        // answered from the resident gallery instead of scanning the disk on every call
+        return gallery.getSnapshot().isRegistered();
+    }
+    
+    /**
+     * Checks if a stored registration exists but can no longer be compared (e.g. it was
+     * produced by another model), so the user has to register again.
+     */
+    public boolean needsReRegistration() {
+        return gallery.getSnapshot().needsReRegistration();
+    }
+    
+    /**
+     * Gets the in-memory gallery of registered embeddings.
+     */
+    public EmbeddingGallery getGallery() {
+        return gallery;
+    }
+    
+    /**
+     * Gets the embedding inference service, or null before {@link #initialize()}.
+     */
+    public EmbeddingInferenceService getInferenceService() {
+        return inferenceService;
+    }
+    
+    /**
+     * Gets the persisted per-image embedding cache, or null before {@link #initialize()}.
+     */
+    public ReferenceEmbeddingCache getReferenceEmbeddingCache() {
+        return referenceEmbeddingCache;
     }
     
     /**
@@ -144,6 +185,7 @@ public class FaceRecognitionService {
                     name.toLowerCase().endsWith(".png"));
                 if (imageFiles != null) {
                     for (File file : imageFiles) {
+                        ReferenceEmbeddingCache.deleteFor(file);
                         boolean fileDeleted = file.delete();
                         if (!fileDeleted) {
                             logger.warn("Failed to delete image file: {}", file.getName());
@@ -153,6 +195,9 @@ public class FaceRecognitionService {
                 }
             }
             
+            // Registration data changed - drop the resident copy
+            gallery.invalidate();
+            
             if (deleted) {
                 logger.info("Registration cleared successfully. User can now register again.");
                 return true;
@@ -181,15 +226,14 @@ public class FaceRecognitionService {
         
         // STEP 2: Face Alignment
         logger.info("Step 2: Face Alignment - Aligning face for better recognition");
-        FaceAligner aligner = new FaceAligner();
-        Mat alignedFace = aligner.alignFaceSimple(faceImage);
+        Mat alignedFace = alignFace(faceImage);
         if (alignedFace == null || alignedFace.empty()) {
             alignedFace = faceImage; // Use original if alignment fails
         }
         
         // STEP 3: Feature Extraction (Embeddings)
         logger.info("Step 3: Feature Extraction - Extracting face embedding...");
-        double[] embedding = embeddingExtractor.extractEmbedding(alignedFace);
+        double[] embedding = inferenceService.extractEmbedding(alignedFace);
         if (embedding == null || embedding.length == 0) {
             logger.error("Failed to extract face embedding");
             if (alignedFace != faceImage) alignedFace.release();
@@ -222,10 +266,11 @@ public class FaceRecognitionService {
         String dataDir = configManager.getConfig().getDataDirectory();
         Files.createDirectories(Paths.get(dataDir));
         
-        byte[] embeddingBytes = convertToBytes(embedding);
+        byte[] embeddingBytes = EmbeddingCodec.encode(embedding, inferenceService.getModelFingerprint());
         byte[] encryptedData = encryptionService.encrypt(embeddingBytes);
         
         Files.write(Paths.get(dataDir, EMBEDDING_FILE), encryptedData);
+        gallery.invalidate();
         
         // Store face image in registered_faces folder
         logger.info("Step 4: Saving registered face image...");
@@ -268,31 +313,37 @@ public class FaceRecognitionService {
             return false;
         }
         
-        // STEP 1: Face Alignment
-        FaceAligner aligner = new FaceAligner();
-        
-        // STEP 2 & 3: Extract embeddings from all angles and average them
-        List<double[]> allEmbeddings = new java.util.ArrayList<>();
+        // STEP 1: Face Alignment (below, per image)
         
+        // STEP 2 & 3: Extract embeddings from all angles (one batched forward pass) and average them
+        List<Mat> alignedFaces = new java.util.ArrayList<>(faceImages.size());
         for (int i = 0; i < faceImages.size(); i++) {
             Mat faceImage = faceImages.get(i);
             if (faceImage == null || faceImage.empty()) {
                 logger.warn("Skipping empty face image at index {}", i);
+                alignedFaces.add(null);
                 continue;
             }
             
             // Align face
-            Mat alignedFace = aligner.alignFaceSimple(faceImage);
-            if (alignedFace == null) alignedFace = faceImage;
-            
-            // Extract embedding
-            double[] embedding = embeddingExtractor.extractEmbedding(alignedFace);
+            Mat alignedFace = alignFace(faceImage);
+            alignedFaces.add(alignedFace != null ? alignedFace : faceImage);
+        }
+        
+        List<double[]> extracted = inferenceService.extractEmbeddings(alignedFaces);
+        List<double[]> allEmbeddings = new java.util.ArrayList<>();
+        double[][] perImageEmbeddings = new double[faceImages.size()][];
+        
+        for (int i = 0; i < faceImages.size(); i++) {
+            double[] embedding = extracted.get(i);
             if (embedding != null && embedding.length > 0) {
                 allEmbeddings.add(embedding);
+                perImageEmbeddings[i] = embedding;
                 logger.debug("Extracted embedding {}: {} dimensions", i + 1, embedding.length);
             }
             
-            if (alignedFace != faceImage) alignedFace.release();
+            Mat alignedFace = alignedFaces.get(i);
+            if (alignedFace != null && alignedFace != faceImages.get(i)) alignedFace.release();
         }
         
         if (allEmbeddings.isEmpty()) {
@@ -309,9 +360,10 @@ public class FaceRecognitionService {
         String dataDir = configManager.getConfig().getDataDirectory();
         Files.createDirectories(Paths.get(dataDir));
         
-        byte[] embeddingBytes = convertToBytes(averagedEmbedding);
+        byte[] embeddingBytes = EmbeddingCodec.encode(averagedEmbedding, inferenceService.getModelFingerprint());
         byte[] encryptedData = encryptionService.encrypt(embeddingBytes);
         Files.write(Paths.get(dataDir, EMBEDDING_FILE), encryptedData);
+        gallery.invalidate();
         logger.info("Stored averaged embedding at: {}/{}", dataDir, EMBEDDING_FILE);
         
         // Also save face images for reference
@@ -327,6 +379,7 @@ public class FaceRecognitionService {
             name.toLowerCase().endsWith(".png"));
         if (existingFiles != null) {
             for (File file : existingFiles) {
+                ReferenceEmbeddingCache.deleteFor(file);
                 file.delete();
             }
         }
@@ -346,9 +399,15 @@ public class FaceRecognitionService {
             if (saved) {
                 savedCount++;
                 logger.info("Saved face image {}: {}", i + 1, imagePath);
+                // Cache the embedding next to the image so authentication never re-embeds it
+                if (perImageEmbeddings[i] != null) {
+                    referenceEmbeddingCache.store(new File(imagePath), perImageEmbeddings[i]);
+                }
             }
         }
         
+        gallery.invalidate();
+        
         logger.info("=== MULTI-ANGLE REGISTRATION COMPLETE ===");
         logger.info("Saved {}/{} face images and averaged embedding", savedCount, faceImages.size());
         logger.info("User registered successfully with {} face angles.", savedCount);
@@ -363,33 +422,15 @@ public class FaceRecognitionService {
             return null;
         }
         
-        int dim = embeddings.get(0).length;
-        double[] averaged = new double[dim];
-        
+        List<float[]> vectors = new java.util.ArrayList<>(embeddings.size());
         for (double[] emb : embeddings) {
-            for (int i = 0; i < dim && i < emb.length; i++) {
-                averaged[i] += emb[i];
-            }
-        }
-        
-        // Normalize by count
-        for (int i = 0; i < dim; i++) {
-            averaged[i] /= embeddings.size();
+            vectors.add(EmbeddingKernels.toFloat(emb));
         }
         
-        // L2 normalize
-        double norm = 0.0;
-        for (double v : averaged) {
-            norm += v * v;
-        }
-        norm = Math.sqrt(norm);
-        if (norm > 0.0) {
-            for (int i = 0; i < dim; i++) {
-                averaged[i] /= norm;
-            }
-        }
-        
-        return averaged;
+        // Mean, then L2 normalize
+        float[] averaged = EmbeddingKernels.mean(vectors);
+        EmbeddingKernels.l2Normalize(averaged);
+        return EmbeddingKernels.toDouble(averaged);
     }
     
     /**
@@ -398,13 +439,25 @@ public class FaceRecognitionService {
      * @return similarity score (0.0 to 1.0), where 1.0 is perfect match
      */
     public double authenticateUser(Mat faceImage) throws Exception {
+        return authenticateUser(faceImage, null);
+    }
+    
+    /**
+     * Authenticates with a face that was already aligned for embedding extraction, e.g.
+     * warped straight from the camera frame by {@link #alignFace(Mat, RetinaFaceDetector.FaceDetection)}.
+     * @param faceImage   face crop, used for liveness
+     * @param alignedFace embedding input owned by the caller, or null to align {@code faceImage} here
+     * @throws IllegalStateException if no comparable registration exists; this is not a failed match
+     */
+    public double authenticateUser(Mat faceImage, Mat alignedFace) throws Exception {
         logger.debug("=== AUTHENTICATION PROCESS STARTED ===");
         
-        // Check if user is registered FIRST
-        if (!isUserRegistered()) {
+        // Check if user is registered FIRST (resident gallery - no disk access)
+        EmbeddingGallery.Snapshot registration = gallery.getSnapshot();
+        if (!registration.isRegistered()) {
             logger.error("No registered user found! User must register first.");
             logger.error("Authentication cannot proceed without registration.");
-            return 0.0;
+            throw new IllegalStateException("No usable registration found - please register your face again");
         }
         
         if (faceImage == null || faceImage.empty()) {
@@ -412,10 +465,12 @@ public class FaceRecognitionService {
             return 0.0;
         }
         
-        // Verify liveness if enabled (but don't block authentication if it fails)
+        // Verify liveness if enabled (but don't block authentication if it fails).
+        // Run once per attempt: every call adds a frame to the detector's motion history.
+        boolean livenessPassed = true;
         if (livenessDetector != null) {
-            boolean isLive = livenessDetector.verifyLiveness(faceImage);
-            if (!isLive) {
+            livenessPassed = livenessDetector.verifyLiveness(faceImage);
+            if (!livenessPassed) {
                 logger.warn("Liveness detection failed during authentication, but continuing with image comparison");
                 // Don't return 0.0 - continue with image comparison anyway
                 // This prevents false negatives from liveness detection blocking legitimate users
@@ -429,93 +484,63 @@ public class FaceRecognitionService {
         
         // STEP 2: Face Alignment
         logger.debug("Step 2: Face Alignment - Aligning face for better recognition");
-        FaceAligner aligner = new FaceAligner();
-        Mat alignedFace = aligner.alignFaceSimple(faceImage);
+        Mat ownedAligned = null;
         if (alignedFace == null || alignedFace.empty()) {
-            alignedFace = faceImage; // Use original if alignment fails
+            ownedAligned = alignFace(faceImage);
+            // Use original if alignment fails
+            alignedFace = ownedAligned != null && !ownedAligned.empty() ? ownedAligned : faceImage;
         }
         
         // STEP 3: Feature Extraction (Embeddings) - PRIMARY METHOD
         logger.debug("Step 3: Feature Extraction - Extracting face embeddings");
-        double[] currentEmbedding = embeddingExtractor.extractEmbedding(alignedFace);
-        if (currentEmbedding == null || currentEmbedding.length == 0) {
+        FloatEmbedding currentEmbedding = inferenceService.extractFloatEmbedding(alignedFace);
+        if (currentEmbedding == null) {
             logger.error("Failed to extract face embedding - cannot authenticate");
-            if (alignedFace != faceImage) alignedFace.release();
+            if (ownedAligned != null) ownedAligned.release();
             return 0.0;
         }
-        logger.debug("Current embedding extracted. Dimensions: {}", currentEmbedding.length);
+        if (logger.isDebugEnabled()) {
+            // getStats() copies and sorts the latency samples, so only collect them when logged
+            logger.debug("Current embedding extracted. Dimensions: {} (inference: {})",
+                        currentEmbedding.dimension(), inferenceService.getStats());
+        }
         
         // STEP 4: Comparison with stored embeddings
         logger.debug("Step 4: Comparison - Comparing embeddings");
         
-        // Try to load stored embeddings from registration
-        String dataDir = configManager.getConfig().getDataDirectory();
-        File embeddingFile = new File(dataDir, EMBEDDING_FILE);
-        
+        // Stored embedding is kept decrypted in memory by the gallery
+        long matchStart = System.nanoTime();
         double bestSimilarity = 0.0;
         
-        if (embeddingFile.exists()) {
-            // Use embedding-based comparison (most accurate)
-            try {
-                byte[] encryptedData = Files.readAllBytes(Paths.get(dataDir, EMBEDDING_FILE));
-                byte[] decryptedData = encryptionService.decrypt(encryptedData);
-                double[] storedEmbedding = convertFromBytes(decryptedData);
-                
-                if (storedEmbedding.length == currentEmbedding.length) {
-                    bestSimilarity = calculateCosineSimilarity(storedEmbedding, currentEmbedding);
-                    logger.debug("Embedding-based similarity: {}", bestSimilarity);
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to load stored embedding, trying image-based fallback", e);
-            }
+        FloatEmbedding storedEmbedding = registration.storedEmbedding;
+        if (storedEmbedding != null && storedEmbedding.dimension() == currentEmbedding.dimension()) {
+            // Use embedding-based comparison (most accurate) - both sides are unit length
+            bestSimilarity = currentEmbedding.similarity(storedEmbedding);
+            logger.debug("Embedding-based similarity: {}", bestSimilarity);
         }
         
-        // Fallback: Compare with registered images using embeddings
-        String imageDataPath = getImageDataPath();
-        File imageDataDir = new File(imageDataPath);
+        // Fallback: Compare with registered images using their cached embeddings
+        File[] imageFiles = registration.referenceImages;
         
-        if (imageDataDir.exists() && imageDataDir.isDirectory()) {
-            File[] imageFiles = imageDataDir.listFiles((d, name) -> 
-                name.toLowerCase().endsWith(".jpg") || 
-                name.toLowerCase().endsWith(".jpeg") || 
-                name.toLowerCase().endsWith(".png"));
+        if (imageFiles.length > 0) {
+            logger.debug("Comparing with {} registered images using embeddings", imageFiles.length);
+            EmbeddingStore referenceStore = registration.getReferenceStore(referenceEmbeddingCache,
+                                                                           configManager.getConfig());
             
-            if (imageFiles != null && imageFiles.length > 0) {
-                logger.debug("Comparing with {} registered images using embeddings", imageFiles.length);
-                
-                for (File imgFile : imageFiles) {
-                    try {
-                        Mat refImage = Imgcodecs.imread(imgFile.getAbsolutePath());
-                        if (refImage != null && !refImage.empty()) {
-                            // Align reference image
-                            Mat alignedRef = aligner.alignFaceSimple(refImage);
-                            if (alignedRef == null) alignedRef = refImage;
-                            
-                            // Extract embedding from reference
-                            double[] refEmbedding = embeddingExtractor.extractEmbedding(alignedRef);
-                            if (refEmbedding != null && refEmbedding.length == currentEmbedding.length) {
-                                double similarity = calculateCosineSimilarity(currentEmbedding, refEmbedding);
-                                bestSimilarity = Math.max(bestSimilarity, similarity);
-                                logger.debug("Similarity with {}: {}", imgFile.getName(), similarity);
-                            }
-                            
-                            if (alignedRef != refImage) alignedRef.release();
-                            refImage.release();
-                        }
-                    } catch (Exception e) {
-                        logger.debug("Error processing reference image {}", imgFile.getName(), e);
-                    }
-                }
+            List<GalleryMatch> matches = referenceStore.search(currentEmbedding, 1);
+            if (!matches.isEmpty()) {
+                GalleryMatch best = matches.get(0);
+                bestSimilarity = Math.max(bestSimilarity, best.score);
+                logger.debug("Best reference match ({} store): {} = {}", referenceStore.getName(), best.label, best.score);
             }
         }
+        logger.debug("Embedding matching took {} us", (System.nanoTime() - matchStart) / 1000);
         
         // Cleanup
-        if (alignedFace != faceImage) alignedFace.release();
+        if (ownedAligned != null) ownedAligned.release();
         
-        // STEP 5: Liveness Check (already done above, but log result)
-        boolean livenessPassed = true;
+        // STEP 5: Liveness Check (already done above, apply its result)
         if (livenessDetector != null) {
-            livenessPassed = livenessDetector.verifyLiveness(faceImage);
             logger.debug("Step 5: Liveness Check - {}", livenessPassed ? "PASSED" : "FAILED");
             
             // Liveness failure reduces confidence but doesn't block
@@ -542,60 +567,63 @@ public class FaceRecognitionService {
     }
     
     /**
-     * Gets the image comparison service.
+     * Detects the largest face in a frame without cropping it.
+     * @return the detection, or null if no face was found
      */
-    public ImageComparisonService getImageComparisonService() {
-        return imageComparisonService;
+    public RetinaFaceDetector.FaceDetection detectLargestFace(Mat frame) {
+        return faceDetector.detectLargestFace(frame);
     }
     
     /**
-     * Calculates cosine similarity between two embeddings.
+     * Copies a detected face out of a frame (padded like {@link #detectFace} crops).
      */
-    private double calculateCosineSimilarity(double[] embedding1, double[] embedding2) {
-        if (embedding1.length != embedding2.length) {
-            logger.error("Embedding dimensions do not match");
-            return 0.0;
-        }
-        
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-        
-        for (int i = 0; i < embedding1.length; i++) {
-            dotProduct += embedding1[i] * embedding2[i];
-            norm1 += embedding1[i] * embedding1[i];
-            norm2 += embedding2[i] * embedding2[i];
-        }
-        
-        double denominator = Math.sqrt(norm1) * Math.sqrt(norm2);
-        if (denominator == 0.0) {
-            return 0.0;
-        }
-        
-        return dotProduct / denominator;
+    public Mat cropFace(Mat frame, Rect box) {
+        return faceDetector.cropFace(frame, box);
     }
     
-    private byte[] convertToBytes(double[] array) {
-        byte[] bytes = new byte[array.length * 8];
-        for (int i = 0; i < array.length; i++) {
-            long bits = Double.doubleToLongBits(array[i]);
-            for (int j = 0; j < 8; j++) {
-                bytes[i * 8 + j] = (byte) ((bits >> (j * 8)) & 0xff);
-            }
+    /**
+     * Warps a detected face straight from the frame into the embedding model's input size.
+     * @return aligned face owned by the caller, or null if it could not be produced
+     */
+    public Mat alignFace(Mat frame, RetinaFaceDetector.FaceDetection detection) {
+        return faceDetector.alignFace(frame, detection, inferenceService.getInputSize());
+    }
+    
+    /**
+     * Aligns an already cropped face into the embedding model's input size, the same way
+     * faces are aligned from the frame.
+     * @return aligned face owned by the caller, or null if the image is empty
+     */
+    public Mat alignFace(Mat faceImage) {
+        return faceDetector.alignFace(faceImage, inferenceService.getInputSize());
+    }
+    
+    /**
+     * Creates a tracker over this service's detector for one video stream,
+     * or null if face tracking is disabled in the configuration.
+     */
+    public FaceTracker createFaceTracker() {
+        ApplicationConfig config = configManager.getConfig();
+        if (!config.isFaceTrackingEnabled()) {
+            return null;
         }
-        return bytes;
+        return new FaceTracker(faceDetector, config.getFaceTrackingDetectionInterval(),
+                               config.getFaceTrackingMinConfidence());
     }
     
-    private double[] convertFromBytes(byte[] bytes) {
-        double[] array = new double[bytes.length / 8];
-        for (int i = 0; i < array.length; i++) {
-            long bits = 0;
-            for (int j = 0; j < 8; j++) {
-                bits |= ((long) (bytes[i * 8 + j] & 0xff)) << (j * 8);
-            }
-            array[i] = Double.longBitsToDouble(bits);
+    /**
+     * Gets the image comparison service.
+     */
+    public ImageComparisonService getImageComparisonService() {
+        return imageComparisonService;
+    }
+    
+    /**
+     * Stops the embedding inference workers. Called once when the application exits.
+     */
+    public void shutdown() {
+        if (inferenceService != null) {
+            inferenceService.shutdown();
         }
-        return array;
     }
 }
-
@@ -7,18 +7,33 @@ import org.slf4j.LoggerFactory;
 /**
  * Aligns faces using facial landmarks for better recognition accuracy.
  * Normalizes face position, rotation, and scale.
+ *
+ * The 5 detected landmarks are fitted to {@link #REFERENCE_LANDMARKS} with a least-squares
+ * similarity transform (rotation, uniform scale, translation), and the face is produced by
+ * one {@code warpAffine} from the source image straight into the requested output size.
+ * The source can be the whole camera frame; no crop or intermediate resize is needed.
  */
 public class FaceAligner {
     private static final Logger logger = LoggerFactory.getLogger(FaceAligner.class);
     
+    /**
+     * Identifies the alignment method; embeddings of differently aligned faces are not
+     * comparable.
+     */
+    public static final String ALIGNMENT_VERSION = "align5pt:v1";
+    
+    private static final Size DEFAULT_SIZE = new Size(112, 112);
+    private static final int LANDMARK_COUNT = 5;
+    
     // Standard face alignment points (normalized coordinates)
     // Based on 5-point landmarks: left eye, right eye, nose, left mouth, right mouth
+    // (the ArcFace 112x112 template divided by 112)
     private static final double[] REFERENCE_LANDMARKS = {
-        0.31556875, 0.46157411,  // Left eye
-        0.68262286, 0.46157411,  // Right eye
-        0.50026200, 0.64050549,  // Nose tip
-        0.37044702, 0.82403695,  // Left mouth corner
-        0.62974198, 0.82403695   // Right mouth corner
+        0.34191607, 0.46157411,  // Left eye
+        0.65653393, 0.45983393,  // Right eye
+        0.50022500, 0.64050536,  // Nose tip
+        0.37097589, 0.82469196,  // Left mouth corner
+        0.63151696, 0.82325089   // Right mouth corner
     };
     
     /**
@@ -33,27 +48,40 @@ public class FaceAligner {
             return null;
         }
         
-        // If no landmarks, return resized face
-        if (landmarks == null || landmarks.length < 5) {
-            logger.debug("No landmarks provided, returning resized face");
-            Mat aligned = new Mat();
-            Imgproc.resize(faceImage, aligned, new Size(112, 112));
-            return aligned;
+        Mat aligned = alignFace(faceImage, landmarks, DEFAULT_SIZE);
+        if (aligned == null) {
+            logger.debug("No usable landmarks provided, returning resized face");
+            return alignFaceSimple(faceImage, DEFAULT_SIZE);
+        }
+        return aligned;
+    }
+    
+    /**
+     * Warps the face described by {@code landmarks} out of {@code source} into an
+     * {@code outputSize} image in one step.
+     * @param source    image the landmarks refer to (e.g. the full camera frame)
+     * @param landmarks 5 facial landmarks in {@code source} coordinates
+     * @return aligned face owned by the caller, or null if the landmarks are missing or degenerate
+     */
+    public Mat alignFace(Mat source, Point[] landmarks, Size outputSize) {
+        if (source == null || source.empty() || landmarks == null || landmarks.length < LANDMARK_COUNT) {
+            return null;
+        }
+        double[] transform = similarityTransform(landmarks, outputSize.width, outputSize.height);
+        if (transform == null) {
+            logger.debug("Degenerate landmarks, cannot align");
+            return null;
         }
         
-        try {
-            // For now, use simple alignment (resize and center crop)
-            // Advanced alignment with landmarks requires additional OpenCV methods
-            // that may not be available in the stub
-            Mat aligned = new Mat();
-            Imgproc.resize(faceImage, aligned, new Size(112, 112));
+        try (MatScope scope = MatScope.open()) {
+            Mat matrix = new Mat(new Size(3, 2), CvType.CV_64F);
+            matrix.put(0, 0, transform);
+            Mat aligned = scope.keep(new Mat());
+            Imgproc.warpAffine(source, aligned, matrix, outputSize, Imgproc.INTER_LINEAR);
             return aligned;
         } catch (Exception e) {
             logger.error("Error aligning face", e);
-            // Fallback: just resize
-            Mat aligned = new Mat();
-            Imgproc.resize(faceImage, aligned, new Size(112, 112));
-            return aligned;
+            return null;
         }
     }
     
@@ -61,16 +89,60 @@ public class FaceAligner {
      * Aligns face without landmarks (simple center crop and resize).
      */
     public Mat alignFaceSimple(Mat faceImage) {
+        return alignFaceSimple(faceImage, DEFAULT_SIZE);
+    }
+    
+    /**
+     * Resizes the whole face image to {@code outputSize} in one step.
+     */
+    public Mat alignFaceSimple(Mat faceImage, Size outputSize) {
         if (faceImage == null || faceImage.empty()) {
             return null;
         }
         
         Mat aligned = new Mat();
-        Imgproc.resize(faceImage, aligned, new Size(112, 112));
+        Imgproc.resize(faceImage, aligned, outputSize);
         return aligned;
     }
     
-    // Advanced alignment with landmarks requires additional OpenCV methods
-    // For now, simple resize is used which works well for most cases
+    /**
+     * Least-squares similarity transform taking the 5 landmarks onto the reference points
+     * scaled to {@code width} x {@code height}.
+     * @return row-major 2x3 affine matrix, or null if the landmarks coincide
+     */
+    static double[] similarityTransform(Point[] landmarks, double width, double height) {
+        double srcMeanX = 0, srcMeanY = 0, dstMeanX = 0, dstMeanY = 0;
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            srcMeanX += landmarks[i].x;
+            srcMeanY += landmarks[i].y;
+            dstMeanX += REFERENCE_LANDMARKS[2 * i] * width;
+            dstMeanY += REFERENCE_LANDMARKS[2 * i + 1] * height;
+        }
+        srcMeanX /= LANDMARK_COUNT;
+        srcMeanY /= LANDMARK_COUNT;
+        dstMeanX /= LANDMARK_COUNT;
+        dstMeanY /= LANDMARK_COUNT;
+        
+        // For centered points, the best rotation-scale [a -b; b a] has
+        // a = sum(x*u + y*v) / sum(x^2 + y^2) and b = sum(x*v - y*u) / sum(x^2 + y^2)
+        double dot = 0, cross = 0, norm = 0;
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            double x = landmarks[i].x - srcMeanX;
+            double y = landmarks[i].y - srcMeanY;
+            double u = REFERENCE_LANDMARKS[2 * i] * width - dstMeanX;
+            double v = REFERENCE_LANDMARKS[2 * i + 1] * height - dstMeanY;
+            dot += x * u + y * v;
+            cross += x * v - y * u;
+            norm += x * x + y * y;
+        }
+        if (norm < 1e-6) {
+            return null;
+        }
+        double a = dot / norm;
+        double b = cross / norm;
+        return new double[] {
+            a, -b, dstMeanX - (a * srcMeanX - b * srcMeanY),
+            b,  a, dstMeanY - (b * srcMeanX + a * srcMeanY)
+        };
+    }
 }
-
@@ -36,45 +36,44 @@ public class AngleDetector {
             return info;
         }
         
+        // Releases the gray copy and the symmetry temporaries; faceImage is left alone
         try {
-            // Convert to grayscale
-            Mat gray = new Mat();
-            if (faceImage.channels() == 3) {
-                Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray = faceImage;
-            }
-            
-            // Calculate face symmetry and orientation
-            // For simplicity, we use symmetry as a proxy for frontal angle
-            // In production, you'd use face landmarks or pose estimation
-            
-            double symmetry = calculateSymmetry(gray);
-            
-            // Estimate angle based on symmetry
-            // High symmetry (0.8+) = frontal (0° or 180°)
-            // Medium symmetry (0.6-0.8) = 45° or 135°
-            // Low symmetry (<0.6) = 90° (side profile)
-            
-            if (symmetry >= 0.8) {
-                // Frontal - determine if 0° or 180° based on other features
-                info.angle = 0; // Default to front
-                info.angleName = "Front";
-                info.confidence = symmetry;
-            } else if (symmetry >= 0.6) {
-                // Slight angle - estimate 45° or 135°
-                info.angle = 45; // Default
-                info.angleName = "Right 45°";
-                info.confidence = symmetry;
-            } else {
-                // Side profile
-                info.angle = 90;
-                info.angleName = "Right 90°";
-                info.confidence = 1.0 - symmetry;
-            }
-            
-            gray.release();
-            
+            MatScope.run(() -> {
+                // Convert to grayscale
+                Mat gray = faceImage;
+                if (faceImage.channels() == 3) {
+                    gray = new Mat();
+                    Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
+                }
+                
+                // Calculate face symmetry and orientation
+                // For simplicity, we use symmetry as a proxy for frontal angle
+                // In production, you'd use face landmarks or pose estimation
+                
+                double symmetry = calculateSymmetry(gray);
+                
+                // Estimate angle based on symmetry
+                // High symmetry (0.8+) = frontal (0° or 180°)
+                // Medium symmetry (0.6-0.8) = 45° or 135°
+                // Low symmetry (<0.6) = 90° (side profile)
+                
+                if (symmetry >= 0.8) {
+                    // Frontal - determine if 0° or 180° based on other features
+                    info.angle = 0; // Default to front
+                    info.angleName = "Front";
+                    info.confidence = symmetry;
+                } else if (symmetry >= 0.6) {
+                    // Slight angle - estimate 45° or 135°
+                    info.angle = 45; // Default
+                    info.angleName = "Right 45°";
+                    info.confidence = symmetry;
+                } else {
+                    // Side profile
+                    info.angle = 90;
+                    info.angleName = "Right 90°";
+                    info.confidence = 1.0 - symmetry;
+                }
+            });
         } catch (Exception e) {
             logger.warn("Error detecting angle", e);
         }
@@ -102,7 +101,6 @@ public class AngleDetector {
             if (leftHalf.cols() != rightFlipped.cols()) {
                 Mat resized = new Mat();
                 Imgproc.resize(rightFlipped, resized, leftHalf.size());
-                rightFlipped.release();
                 rightFlipped = resized;
             }
             
@@ -113,11 +111,6 @@ public class AngleDetector {
             double symmetry = 1.0 - (meanDiff.val[0] / 255.0);
             symmetry = Math.max(0.0, Math.min(1.0, symmetry));
             
-            leftHalf.release();
-            rightHalf.release();
-            rightFlipped.release();
-            diff.release();
-            
             return symmetry;
             
         } catch (Exception e) {
@@ -95,48 +95,51 @@ public class ImageComparisonService {
      * Uses weighted average with higher weight on template matching for better accuracy.
      */
     private double compareTwoImages(Mat img1, Mat img2) {
+        // Releases every temporary of the four comparisons, including calcHist masks
         try {
-            // Method 1: Template matching (normalized cross-correlation)
-            double templateScore = templateMatch(img1, img2);
-            
-            // Method 2: Histogram comparison
-            double histogramScore = histogramCompare(img1, img2);
-            
-            // Method 3: Structural similarity
-            double structuralScore = structuralSimilarity(img1, img2);
-            
-            // Method 4: Direct pixel comparison (normalized)
-            double pixelScore = pixelWiseCompare(img1, img2);
-            
-            // Use weighted average: 50% template, 30% histogram, 15% structural, 5% pixel
-            // Increased template weight for better accuracy
-            double combinedScore = (templateScore * 0.5) + (histogramScore * 0.3) + 
-                                   (structuralScore * 0.15) + (pixelScore * 0.05);
-            
-            // STRICT: require template matching to be at least 0.6 for a valid match
-            // This prevents false matches when other methods give high scores
-            if (templateScore < 0.6) {
-                combinedScore = Math.min(combinedScore, templateScore * 0.7); // Heavy penalty if template is low
-                logger.debug("Template score {} is below 0.6, applying strict penalty", templateScore);
-            }
-            
-            // Additional strictness: if template is very low, heavily penalize
-            if (templateScore < 0.5) {
-                combinedScore = combinedScore * 0.5; // Cut score in half
-                logger.debug("Template score {} is very low, heavily penalizing", templateScore);
-            }
-            
-            // If all scores are very low, use the best single score instead of weighted average
-            // This helps when one method works better than others
-            if (combinedScore < 0.3 && (templateScore > 0.3 || histogramScore > 0.3 || structuralScore > 0.3)) {
-                combinedScore = Math.max(templateScore, Math.max(histogramScore, structuralScore));
-                logger.debug("Using best single score instead of weighted average: {}", combinedScore);
-            }
-            
-            logger.debug("Comparison scores - Template: {:.3f}, Histogram: {:.3f}, Structural: {:.3f}, Pixel: {:.3f}, Combined: {:.3f}", 
-                        templateScore, histogramScore, structuralScore, pixelScore, combinedScore);
-            
-            return Math.max(0.0, Math.min(1.0, combinedScore)); // Clamp to [0, 1]
+            return MatScope.call(() -> {
+                // Method 1: Template matching (normalized cross-correlation)
+                double templateScore = templateMatch(img1, img2);
+                
+                // Method 2: Histogram comparison
+                double histogramScore = histogramCompare(img1, img2);
+                
+                // Method 3: Structural similarity
+                double structuralScore = structuralSimilarity(img1, img2);
+                
+                // Method 4: Direct pixel comparison (normalized)
+                double pixelScore = pixelWiseCompare(img1, img2);
+                
+                // Use weighted average: 50% template, 30% histogram, 15% structural, 5% pixel
+                // Increased template weight for better accuracy
+                double combinedScore = (templateScore * 0.5) + (histogramScore * 0.3) + 
+                                       (structuralScore * 0.15) + (pixelScore * 0.05);
+                
+                // STRICT: require template matching to be at least 0.6 for a valid match
+                // This prevents false matches when other methods give high scores
+                if (templateScore < 0.6) {
+                    combinedScore = Math.min(combinedScore, templateScore * 0.7); // Heavy penalty if template is low
+                    logger.debug("Template score {} is below 0.6, applying strict penalty", templateScore);
+                }
+                
+                // Additional strictness: if template is very low, heavily penalize
+                if (templateScore < 0.5) {
+                    combinedScore = combinedScore * 0.5; // Cut score in half
+                    logger.debug("Template score {} is very low, heavily penalizing", templateScore);
+                }
+                
+                // If all scores are very low, use the best single score instead of weighted average
+                // This helps when one method works better than others
+                if (combinedScore < 0.3 && (templateScore > 0.3 || histogramScore > 0.3 || structuralScore > 0.3)) {
+                    combinedScore = Math.max(templateScore, Math.max(histogramScore, structuralScore));
+                    logger.debug("Using best single score instead of weighted average: {}", combinedScore);
+                }
+                
+                logger.debug("Comparison scores - Template: {:.3f}, Histogram: {:.3f}, Structural: {:.3f}, Pixel: {:.3f}, Combined: {:.3f}", 
+                            templateScore, histogramScore, structuralScore, pixelScore, combinedScore);
+                
+                return Math.max(0.0, Math.min(1.0, combinedScore)); // Clamp to [0, 1]
+            });
         } catch (Exception e) {
             logger.error("Error in compareTwoImages", e);
             return 0.0;
@@ -280,20 +283,18 @@ public class ImageComparisonService {
      */
     private double histogramCompare(Mat img1, Mat img2) {
         try {
-            // Convert to grayscale
-            Mat gray1 = new Mat();
-            Mat gray2 = new Mat();
+            // Convert to grayscale (gray inputs are used as-is and must not be released here)
+            Mat gray1 = img1;
+            Mat gray2 = img2;
             
             if (img1.channels() == 3) {
+                gray1 = new Mat();
                 Imgproc.cvtColor(img1, gray1, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray1 = img1;
             }
             
             if (img2.channels() == 3) {
+                gray2 = new Mat();
                 Imgproc.cvtColor(img2, gray2, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray2 = img2;
             }
             
             // Calculate histograms
@@ -313,9 +314,7 @@ public class ImageComparisonService {
             // Compare histograms using correlation
             double correlation = Imgproc.compareHist(hist1, hist2, Imgproc.HISTCMP_CORREL);
             
-            // Cleanup
-            gray1.release();
-            gray2.release();
+            // Cleanup (gray copies go with the caller's MatScope)
             hist1.release();
             hist2.release();
             
@@ -1,5 +1,6 @@
 package com.secureview.desktop.face.detection;
 
+import com.secureview.desktop.face.alignment.FaceAligner;
 import com.secureview.desktop.opencv.stub.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,10 +9,16 @@ import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Handles face detection using RetinaFace (preferred) or Haar Cascade (fallback).
  * RetinaFace provides state-of-the-art accuracy for face detection.
+ *
+ * The Haar pass can run on a downscaled frame, and when the caller knows where the face
+ * was, only a region around that box is searched. Boxes are always returned in
+ * full-resolution coordinates and crops are taken from the full-resolution frame.
  */
 public class FaceDetector {
     private static final Logger logger = LoggerFactory.getLogger(FaceDetector.class);
@@ -20,6 +27,41 @@ public class FaceDetector {
     private RetinaFaceDetector retinaFaceDetector;
     private boolean useRetinaFace = false;
     private static final String CASCADE_FILE = "haarcascade_frontalface_alt.xml";
+    private static final int CROP_PADDING = 20;
+    private static final int MIN_FACE_SIZE = 30;        // at full resolution
+    private static final int MIN_CASCADE_WINDOW = 20;   // training window of the frontal cascades
+    private static final double DEFAULT_ROI_MARGIN = 0.5;
+    private static final double HAAR_CONFIDENCE = 1.0;  // the cascade reports no per-face score
+    
+    private final double detectionScale;
+    private final double roiMargin;
+    private final int retinaFaceInputSize;
+    private final FaceAligner aligner = new FaceAligner();
+    
+    /**
+     * Full-resolution detector.
+     */
+    public FaceDetector() {
+        this(1.0, DEFAULT_ROI_MARGIN);
+    }
+    
+    /**
+     * @param detectionScale factor the frame is shrunk by before the Haar pass (0-1, 1 = full resolution)
+     * @param roiMargin      when searching around a known box, margin added on each side as a
+     *                       fraction of the box size
+     */
+    public FaceDetector(double detectionScale, double roiMargin) {
+        this(detectionScale, roiMargin, RetinaFaceDetector.DEFAULT_INPUT_SIZE);
+    }
+    
+    /**
+     * @param retinaFaceInputSize side of the square RetinaFace network input (e.g. 320, 480 or 640)
+     */
+    public FaceDetector(double detectionScale, double roiMargin, int retinaFaceInputSize) {
+        this.detectionScale = detectionScale > 0 && detectionScale < 1.0 ? detectionScale : 1.0;
+        this.roiMargin = Math.max(0.0, roiMargin);
+        this.retinaFaceInputSize = retinaFaceInputSize;
+    }
     
     public void initialize() throws Exception {
         logger.info("Initializing Face Detector...");
@@ -32,7 +74,7 @@ public class FaceDetector {
         if (retinaFaceModel.exists() && retinaFaceModel.isFile() && retinaFaceModel.length() > 1024 * 1024) {
             try {
                 logger.info("RetinaFace model found. Initializing RetinaFace detector...");
-                retinaFaceDetector = new RetinaFaceDetector();
+                retinaFaceDetector = new RetinaFaceDetector(retinaFaceInputSize);
                 retinaFaceDetector.initialize();
                 useRetinaFace = true;
                 logger.info("Face Detector initialized with RetinaFace (high accuracy)");
@@ -84,83 +126,291 @@ public class FaceDetector {
      * @return Cropped face region, or null if no face detected
      */
     public Mat detectFace(Mat image) {
-        if (image == null || image.empty()) {
-            logger.warn("Empty or null image provided for face detection");
+        RetinaFaceDetector.FaceDetection largest = detectLargestFace(image);
+        return largest != null ? cropFace(image, largest.boundingBox) : null;
+    }
+    
+    /**
+     * Detects the largest face in the image without cropping it.
+     * @return the detection (with landmarks when RetinaFace is in use), or null if no face
+     */
+    public RetinaFaceDetector.FaceDetection detectLargestFace(Mat image) {
+        List<RetinaFaceDetector.FaceDetection> faces = detectFaces(image);
+        if (faces.isEmpty()) {
             return null;
         }
         
-        logger.debug("Starting face detection on image: {}x{}", image.cols(), image.rows());
-        
-        // Use RetinaFace if available
-        if (useRetinaFace && retinaFaceDetector != null) {
-            try {
-                Mat face = retinaFaceDetector.detectFace(image);
-                if (face != null && !face.empty()) {
-                    logger.debug("Face detected using RetinaFace");
-                    return face;
-                }
-            } catch (Exception e) {
-                logger.warn("RetinaFace detection failed, falling back to Haar Cascade: {}", e.getMessage());
+        // Use the largest face detected
+        RetinaFaceDetector.FaceDetection largest = faces.get(0);
+        for (RetinaFaceDetector.FaceDetection face : faces) {
+            if (face.boundingBox.area() > largest.boundingBox.area()) {
+                largest = face;
             }
         }
         
-        // Fallback to Haar Cascade
-        Mat gray = new Mat();
-        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
-        Imgproc.equalizeHist(gray, gray);
-        
-        logger.debug("Converted to grayscale and equalized histogram");
+        Rect box = largest.boundingBox;
+        logger.debug("Face detected at ({}, {}) with size {}x{}", box.x, box.y, box.width, box.height);
+        return largest;
+    }
+    
+    /**
+     * Detects all faces in the given image without cropping them.
+     * Uses RetinaFace if available, otherwise falls back to Haar Cascade.
+     * @param image Input image
+     * @return Face bounding boxes in image coordinates (empty if none)
+     */
+    public List<Rect> detectFaceBoxes(Mat image) {
+        return detectFaceBoxes(image, null);
+    }
+    
+    /**
+     * Detects faces, searching only around {@code previous} (expanded by the ROI margin) when
+     * it is given. Falls back to the whole frame if nothing is found there.
+     * @param image    Input image
+     * @param previous Where a face was last seen, or null to search the whole frame
+     * @return Face bounding boxes in image coordinates (empty if none)
+     */
+    public List<Rect> detectFaceBoxes(Mat image, Rect previous) {
+        List<RetinaFaceDetector.FaceDetection> detections = detectFaces(image, previous);
+        List<Rect> boxes = new ArrayList<>(detections.size());
+        for (RetinaFaceDetector.FaceDetection detection : detections) {
+            boxes.add(detection.boundingBox);
+        }
+        return boxes;
+    }
+    
+    /**
+     * Detects every face in the image in a single detector pass, without cropping.
+     * RetinaFace results carry its score and 5 landmarks; Haar Cascade has no per-face
+     * score, so its detections report confidence 1.0 and null landmarks.
+     * Use {@link #cropFace} to cut out only the faces that are needed.
+     * @param image Input image
+     * @return Detections in image coordinates (empty if none)
+     */
+    public List<RetinaFaceDetector.FaceDetection> detectFaces(Mat image) {
+        return detectFaces(image, null);
+    }
+    
+    /**
+     * {@link #detectFaces(Mat)} restricted to the region around {@code previous}, falling back
+     * to the whole frame if nothing is found there.
+     */
+    public List<RetinaFaceDetector.FaceDetection> detectFaces(Mat image, Rect previous) {
+        if (image == null || image.empty()) {
+            logger.warn("Empty or null image provided for face detection");
+            return new ArrayList<>();
+        }
         
-        MatOfRect faces = new MatOfRect();
-        logger.debug("Calling detectMultiScale...");
-        faceCascade.detectMultiScale(
-            gray,
-            faces,
-            1.1,
-            3,
-            0,
-            new Size(30, 30),
-            new Size()
-        );
+        if (previous != null) {
+            Rect roi = expand(previous, image.cols(), image.rows());
+            if (roi.width > 0 && roi.height > 0 && roi.area() < (double) image.cols() * image.rows()) {
+                List<RetinaFaceDetector.FaceDetection> detections = detectIn(image, roi);
+                if (!detections.isEmpty()) {
+                    return detections;
+                }
+                logger.debug("No face in {}x{} region around previous box, searching whole frame",
+                            roi.width, roi.height);
+            }
+        }
+        return detectIn(image, null);
+    }
+    
+    /**
+     * Runs the detector on {@code region} of {@code image} (whole image if null) and maps
+     * the boxes and landmarks back to image coordinates.
+     */
+    private List<RetinaFaceDetector.FaceDetection> detectIn(Mat image, Rect region) {
+        List<RetinaFaceDetector.FaceDetection> detections = new ArrayList<>();
+        int offsetX = region != null ? region.x : 0;
+        int offsetY = region != null ? region.y : 0;
         
-        logger.debug("detectMultiScale completed, extracting faces array...");
-        Rect[] facesArray = faces.toArray();
-        logger.info("Face detection found {} faces", facesArray.length);
+        MatScope.run(() -> {
+            // Sub-matrix view, no copy
+            Mat source = region != null ? new Mat(image, region) : image;
+            logger.debug("Starting face detection on image: {}x{}", source.cols(), source.rows());
+            
+            // Use RetinaFace if available (resizes to its own input size)
+            if (useRetinaFace && retinaFaceDetector != null) {
+                try {
+                    for (RetinaFaceDetector.FaceDetection detection : retinaFaceDetector.detectFaces(source)) {
+                        detections.add(offset(detection, offsetX, offsetY));
+                    }
+                    if (!detections.isEmpty()) {
+                        logger.debug("Face detected using RetinaFace");
+                        return;
+                    }
+                } catch (Exception e) {
+                    logger.warn("RetinaFace detection failed, falling back to Haar Cascade: {}", e.getMessage());
+                }
+            }
+            
+            // Fallback to Haar Cascade (not loaded when RetinaFace initialized)
+            if (faceCascade == null) {
+                return;
+            }
+            
+            Mat scaled = source;
+            double scale = detectionScale;
+            if (scale < 1.0) {
+                int width = (int) Math.round(source.cols() * scale);
+                int height = (int) Math.round(source.rows() * scale);
+                if (width >= MIN_CASCADE_WINDOW && height >= MIN_CASCADE_WINDOW) {
+                    scaled = new Mat();
+                    Imgproc.resize(source, scaled, new Size(width, height), Imgproc.INTER_AREA);
+                } else {
+                    scale = 1.0;
+                }
+            }
+            
+            Mat gray = new Mat();
+            Imgproc.cvtColor(scaled, gray, Imgproc.COLOR_BGR2GRAY);
+            Imgproc.equalizeHist(gray, gray);
+            
+            logger.debug("Converted to grayscale and equalized histogram ({}x{}, scale {})",
+                        scaled.cols(), scaled.rows(), scale);
+            
+            int minSize = Math.max(MIN_CASCADE_WINDOW, (int) Math.round(MIN_FACE_SIZE * scale));
+            MatOfRect faces = new MatOfRect();
+            logger.debug("Calling detectMultiScale...");
+            faceCascade.detectMultiScale(
+                gray,
+                faces,
+                1.1,
+                3,
+                0,
+                new Size(minSize, minSize),
+                new Size()
+            );
+            
+            logger.debug("detectMultiScale completed, extracting faces array...");
+            Rect[] facesArray = faces.toArray();
+            logger.info("Face detection found {} faces", facesArray.length);
+            
+            // Back to full-resolution image coordinates
+            for (Rect face : facesArray) {
+                Rect box = new Rect(offsetX + (int) Math.round(face.x / scale),
+                                    offsetY + (int) Math.round(face.y / scale),
+                                    (int) Math.round(face.width / scale),
+                                    (int) Math.round(face.height / scale));
+                detections.add(new RetinaFaceDetector.FaceDetection(box, HAAR_CONFIDENCE, null));
+            }
+        });
         
-        if (facesArray.length == 0) {
+        if (detections.isEmpty()) {
             logger.debug("No face detected in image");
-            gray.release();
-            faces.release();
+        }
+        return detections;
+    }
+    
+    /**
+     * {@code detection} shifted by the region offset (the detection itself if there is none).
+     */
+    private static RetinaFaceDetector.FaceDetection offset(RetinaFaceDetector.FaceDetection detection,
+                                                           int offsetX, int offsetY) {
+        if (offsetX == 0 && offsetY == 0) {
+            return detection;
+        }
+        Rect box = detection.boundingBox;
+        Point[] landmarks = null;
+        if (detection.landmarks != null) {
+            landmarks = new Point[detection.landmarks.length];
+            for (int i = 0; i < landmarks.length; i++) {
+                landmarks[i] = new Point(detection.landmarks[i].x + offsetX, detection.landmarks[i].y + offsetY);
+            }
+        }
+        Rect shifted = new Rect(box.x + offsetX, box.y + offsetY, box.width, box.height);
+        return new RetinaFaceDetector.FaceDetection(shifted, detection.confidence, landmarks);
+    }
+    
+    /**
+     * {@code box} grown by the ROI margin on each side, clipped to the image.
+     */
+    private Rect expand(Rect box, int cols, int rows) {
+        int marginX = (int) Math.round(box.width * roiMargin);
+        int marginY = (int) Math.round(box.height * roiMargin);
+        int x = Math.max(0, box.x - marginX);
+        int y = Math.max(0, box.y - marginY);
+        int right = Math.min(cols, box.x + box.width + marginX);
+        int bottom = Math.min(rows, box.y + box.height + marginY);
+        return new Rect(x, y, Math.max(0, right - x), Math.max(0, bottom - y));
+    }
+    
+    /**
+     * Copies a face region out of {@code image}, padded by {@value #CROP_PADDING} pixels on
+     * each side and clipped to the image.
+     * @return Cropped face region, or null if the box lies outside the image
+     */
+    public Mat cropFace(Mat image, Rect box) {
+        Rect faceRect = paddedRegion(image, box);
+        if (faceRect == null) {
             return null;
         }
         
-        // Use the largest face detected
-        Rect largestFace = facesArray[0];
-        for (Rect face : facesArray) {
-            if (face.area() > largestFace.area()) {
-                largestFace = face;
+        try (MatScope scope = MatScope.open()) {
+            Mat faceRegion = new Mat(image, faceRect);
+            Mat faceCopy = scope.keep(new Mat());
+            faceRegion.copyTo(faceCopy);
+            return faceCopy;
+        }
+    }
+    
+    /**
+     * {@code box} padded by {@value #CROP_PADDING} pixels on each side and clipped to the
+     * image, or null if nothing of it lies inside.
+     */
+    private static Rect paddedRegion(Mat image, Rect box) {
+        int x = Math.max(0, box.x - CROP_PADDING);
+        int y = Math.max(0, box.y - CROP_PADDING);
+        int width = Math.min(image.cols() - x, box.x + box.width + CROP_PADDING - x);
+        int height = Math.min(image.rows() - y, box.y + box.height + CROP_PADDING - y);
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        return new Rect(x, y, width, height);
+    }
+    
+    /**
+     * Produces the embedding input for a detected face straight from {@code image}: with
+     * landmarks, one similarity warp; without (Haar), the padded box region resized once.
+     * @param outputSize embedding model input size
+     * @return aligned face owned by the caller, or null if the box lies outside the image
+     */
+    public Mat alignFace(Mat image, RetinaFaceDetector.FaceDetection detection, Size outputSize) {
+        Mat aligned = aligner.alignFace(image, detection.landmarks, outputSize);
+        if (aligned != null) {
+            return aligned;
+        }
+        Rect region = paddedRegion(image, detection.boundingBox);
+        if (region == null) {
+            return null;
+        }
+        // Only the region view belongs to the scope; the resized face goes to the caller
+        try (MatScope scope = MatScope.open()) {
+            return scope.keep(aligner.alignFaceSimple(new Mat(image, region), outputSize));
+        }
+    }
+    
+    /**
+     * Produces the embedding input for an already cropped face (e.g. a stored reference
+     * image). With RetinaFace the crop is searched for landmarks so it is aligned the same
+     * way as live faces; otherwise the whole crop is resized once.
+     * @return aligned face owned by the caller, or null if the image is empty
+     */
+    public Mat alignFace(Mat faceImage, Size outputSize) {
+        if (faceImage == null || faceImage.empty()) {
+            return null;
+        }
+        if (useRetinaFace && retinaFaceDetector != null) {
+            RetinaFaceDetector.FaceDetection largest = detectLargestFace(faceImage);
+            if (largest != null && largest.landmarks != null) {
+                Mat aligned = aligner.alignFace(faceImage, largest.landmarks, outputSize);
+                if (aligned != null) {
+                    return aligned;
+                }
             }
+            logger.debug("No landmarks found in face crop, resizing instead");
         }
-        
-        // Extract face region with padding
-        int padding = 20;
-        int x = Math.max(0, largestFace.x - padding);
-        int y = Math.max(0, largestFace.y - padding);
-        int width = Math.min(image.cols() - x, largestFace.width + 2 * padding);
-        int height = Math.min(image.rows() - y, largestFace.height + 2 * padding);
-        
-        Rect faceRect = new Rect(x, y, width, height);
-        Mat faceRegion = new Mat(image, faceRect);
-        Mat faceCopy = new Mat();
-        faceRegion.copyTo(faceCopy);
-        
-        gray.release();
-        faces.release();
-        
-        logger.debug("Face detected at ({}, {}) with size {}x{}", 
-            largestFace.x, largestFace.y, largestFace.width, largestFace.height);
-        
-        return faceCopy;
+        return aligner.alignFaceSimple(faceImage, outputSize);
     }
     
     /**
@@ -0,0 +1,362 @@
+package com.secureview.desktop.face.detection;
+
+import com.secureview.desktop.opencv.stub.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Carries face boxes across video frames so the full detector only runs every few frames.
+ *
+ * Between detections each track is moved by its constant-velocity estimate. The primary
+ * (largest) track is checked against a 24x24 grayscale template taken at its last detection;
+ * if the predicted region no longer looks like that template, tracking confidence drops and
+ * the detector runs on the same frame. At a detection, boxes are matched to tracks by IoU
+ * (greedy, best overlap first), so a face keeps its track ID for as long as it is followed.
+ * Scheduled detections only search the region around the primary track's predicted box;
+ * every few detections (and on request) the whole frame is searched for new faces.
+ *
+ * Not thread-safe; use one tracker per video stream, from one thread.
+ */
+public class FaceTracker {
+    private static final Logger logger = LoggerFactory.getLogger(FaceTracker.class);
+
+    private static final int TEMPLATE_SIZE = 24;
+    private static final double MIN_IOU = 0.3;
+    private static final double VELOCITY_SMOOTHING = 0.5;
+    private static final int MAX_MISSES = 2;
+    // Mean gray-level difference from the template at which confidence reaches 0
+    private static final double APPEARANCE_TOLERANCE = 40.0;
+    // Every this many detections the whole frame is searched, not just around the primary track
+    private static final int FULL_FRAME_DETECTIONS = 5;
+
+    /**
+     * A face followed across frames.
+     */
+    public static class Track {
+        public final int id;
+        public Rect boundingBox;
+        public double confidence;
+        public boolean detected; // box came from the detector on this frame
+
+        private double centerX, centerY, width, height;
+        private double velocityX, velocityY;
+        private double detectedX, detectedY;
+        private long detectedFrame;
+        private int misses;
+        private final byte[] template = new byte[TEMPLATE_SIZE * TEMPLATE_SIZE];
+        private boolean hasTemplate;
+
+        Track(int id) {
+            this.id = id;
+        }
+
+        boolean isActive() {
+            return misses == 0;
+        }
+    }
+
+    private final FaceDetector detector;
+    private final int detectionInterval;
+    private final double minConfidence;
+
+    private final List<Track> tracks = new ArrayList<>();
+    private final Mat small = new Mat();
+    private final Mat gray = new Mat();
+    private final Size templateSize = new Size(TEMPLATE_SIZE, TEMPLATE_SIZE);
+    private final byte[] patch = new byte[TEMPLATE_SIZE * TEMPLATE_SIZE];
+    private int nextId = 1;
+    private long frameIndex;
+    private long lastDetectionFrame;
+    private boolean detectionRequested;
+
+    private volatile long frames;
+    private volatile long detections;
+
+    /**
+     * @param detectionInterval run the detector at least every this many frames
+     * @param minConfidence     appearance confidence (0-1) below which the detector runs early
+     */
+    public FaceTracker(FaceDetector detector, int detectionInterval, double minConfidence) {
+        this.detector = detector;
+        this.detectionInterval = Math.max(1, detectionInterval);
+        this.minConfidence = minConfidence;
+    }
+
+    /**
+     * Advances all tracks to {@code frame}, running the detector if it is due.
+     * @return the primary (largest active) track, or null if no face is being tracked
+     */
+    public Track update(Mat frame) {
+        frameIndex++;
+        frames++;
+
+        for (Track track : tracks) {
+            predict(track, frame);
+        }
+
+        Track primary = primaryTrack();
+        boolean detect = primary == null || detectionRequested
+            || frameIndex - lastDetectionFrame >= detectionInterval;
+        if (!detect) {
+            primary.confidence = appearanceConfidence(frame, primary);
+            if (primary.confidence < minConfidence) {
+                logger.debug("Track {} confidence {} below {}, re-detecting",
+                            primary.id, String.format("%.2f", primary.confidence), minConfidence);
+                detect = true;
+            }
+        }
+
+        if (detect) {
+            boolean fullFrame = primary == null || detectionRequested || detections % FULL_FRAME_DETECTIONS == 0;
+            detect(frame, fullFrame ? null : primary.boundingBox);
+            primary = primaryTrack();
+        }
+        return primary;
+    }
+
+    /**
+     * Crops the region of {@code track} out of {@code frame} (padded like detector crops).
+     * @return the face region, or null if the box lies outside the frame
+     */
+    public Mat crop(Mat frame, Track track) {
+        return detector.cropFace(frame, track.boundingBox);
+    }
+
+    /**
+     * Makes the next {@link #update} run the detector, e.g. before a capture that must be exact.
+     */
+    public void requestDetection() {
+        detectionRequested = true;
+    }
+
+    /**
+     * Drops all tracks.
+     */
+    public void reset() {
+        tracks.clear();
+    }
+
+    /**
+     * Active tracks (those found at the last detection), in no particular order.
+     */
+    public List<Track> getTracks() {
+        List<Track> active = new ArrayList<>(tracks.size());
+        for (Track track : tracks) {
+            if (track.isActive()) {
+                active.add(track);
+            }
+        }
+        return Collections.unmodifiableList(active);
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getDetections() {
+        return detections;
+    }
+
+    /**
+     * Fraction of frames on which the full detector ran.
+     */
+    public double getDetectionRatio() {
+        long total = frames;
+        return total == 0 ? 0.0 : detections / (double) total;
+    }
+
+    public void release() {
+        small.release();
+        gray.release();
+    }
+
+    private void detect(Mat frame, Rect searchAround) {
+        detectionRequested = false;
+        lastDetectionFrame = frameIndex;
+        detections++;
+
+        List<Rect> boxes = detector.detectFaceBoxes(frame, searchAround);
+        boolean[] trackMatched = new boolean[tracks.size()];
+        boolean[] boxMatched = new boolean[boxes.size()];
+
+        // Greedy IoU association, best overlaps first
+        while (true) {
+            double bestIou = MIN_IOU;
+            int bestTrack = -1;
+            int bestBox = -1;
+            for (int t = 0; t < tracks.size(); t++) {
+                if (trackMatched[t]) continue;
+                for (int b = 0; b < boxes.size(); b++) {
+                    if (boxMatched[b]) continue;
+                    double iou = iou(tracks.get(t).boundingBox, boxes.get(b));
+                    if (iou >= bestIou) {
+                        bestIou = iou;
+                        bestTrack = t;
+                        bestBox = b;
+                    }
+                }
+            }
+            if (bestTrack < 0) {
+                break;
+            }
+            trackMatched[bestTrack] = true;
+            boxMatched[bestBox] = true;
+            correct(tracks.get(bestTrack), boxes.get(bestBox), frame);
+        }
+
+        List<Track> kept = new ArrayList<>(tracks.size() + boxes.size());
+        for (int t = 0; t < tracks.size(); t++) {
+            Track track = tracks.get(t);
+            if (!trackMatched[t]) {
+                if (searchAround != null && iou(track.boundingBox, searchAround) == 0.0) {
+                    // Outside the searched region: not a miss, keeps coasting until a full-frame pass
+                    kept.add(track);
+                    continue;
+                }
+                track.misses++;
+                track.detected = false;
+                track.confidence = 0.0;
+                if (track.misses > MAX_MISSES) {
+                    logger.debug("Track {} lost", track.id);
+                    continue;
+                }
+            }
+            kept.add(track);
+        }
+        for (int b = 0; b < boxes.size(); b++) {
+            if (!boxMatched[b]) {
+                Track track = new Track(nextId++);
+                start(track, boxes.get(b), frame);
+                kept.add(track);
+                logger.debug("Track {} started at ({}, {}) {}x{}", track.id,
+                            track.boundingBox.x, track.boundingBox.y,
+                            track.boundingBox.width, track.boundingBox.height);
+            }
+        }
+        tracks.clear();
+        tracks.addAll(kept);
+    }
+
+    private void start(Track track, Rect box, Mat frame) {
+        track.centerX = box.x + box.width / 2.0;
+        track.centerY = box.y + box.height / 2.0;
+        track.width = box.width;
+        track.height = box.height;
+        track.velocityX = 0.0;
+        track.velocityY = 0.0;
+        markDetected(track, box, frame);
+    }
+
+    private void correct(Track track, Rect box, Mat frame) {
+        double centerX = box.x + box.width / 2.0;
+        double centerY = box.y + box.height / 2.0;
+        long elapsed = Math.max(1, frameIndex - track.detectedFrame);
+        double measuredX = (centerX - track.detectedX) / elapsed;
+        double measuredY = (centerY - track.detectedY) / elapsed;
+        track.velocityX = VELOCITY_SMOOTHING * measuredX + (1.0 - VELOCITY_SMOOTHING) * track.velocityX;
+        track.velocityY = VELOCITY_SMOOTHING * measuredY + (1.0 - VELOCITY_SMOOTHING) * track.velocityY;
+        track.centerX = centerX;
+        track.centerY = centerY;
+        track.width = box.width;
+        track.height = box.height;
+        markDetected(track, box, frame);
+    }
+
+    private void markDetected(Track track, Rect box, Mat frame) {
+        track.boundingBox = new Rect(box.x, box.y, box.width, box.height);
+        track.detectedX = track.centerX;
+        track.detectedY = track.centerY;
+        track.detectedFrame = frameIndex;
+        track.detected = true;
+        track.confidence = 1.0;
+        track.misses = 0;
+        track.hasTemplate = sample(frame, track.boundingBox, track.template);
+    }
+
+    private void predict(Track track, Mat frame) {
+        track.detected = false;
+        if (!track.isActive()) {
+            return;
+        }
+        track.centerX += track.velocityX;
+        track.centerY += track.velocityY;
+        track.boundingBox = clip(new Rect((int) Math.round(track.centerX - track.width / 2.0),
+                                          (int) Math.round(track.centerY - track.height / 2.0),
+                                          (int) Math.round(track.width), (int) Math.round(track.height)),
+                                 frame.cols(), frame.rows());
+    }
+
+    private Track primaryTrack() {
+        Track primary = null;
+        for (Track track : tracks) {
+            if (track.isActive() && (primary == null || track.boundingBox.area() > primary.boundingBox.area())) {
+                primary = track;
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * 1 when the predicted region matches the detection-time template, falling to 0 at
+     * {@link #APPEARANCE_TOLERANCE} mean gray levels of difference.
+     */
+    private double appearanceConfidence(Mat frame, Track track) {
+        if (!track.hasTemplate || !sample(frame, track.boundingBox, patch)) {
+            return 0.0;
+        }
+        long sum = 0;
+        for (int i = 0; i < patch.length; i++) {
+            sum += Math.abs((patch[i] & 0xFF) - (track.template[i] & 0xFF));
+        }
+        double difference = sum / (double) patch.length;
+        return Math.max(0.0, 1.0 - difference / APPEARANCE_TOLERANCE);
+    }
+
+    /**
+     * Reads {@code box} of {@code frame} as a TEMPLATE_SIZE square grayscale thumbnail.
+     */
+    private boolean sample(Mat frame, Rect box, byte[] out) {
+        Rect region = clip(box, frame.cols(), frame.rows());
+        if (region.width < 2 || region.height < 2) {
+            return false;
+        }
+        MatScope.run(() -> {
+            Mat roi = new Mat(frame, region);
+            Imgproc.resize(roi, small, templateSize);
+        });
+        Mat thumb = small;
+        if (small.channels() == 3) {
+            Imgproc.cvtColor(small, gray, Imgproc.COLOR_BGR2GRAY);
+            thumb = gray;
+        }
+        if (thumb.total() != out.length || thumb.channels() != 1) {
+            return false;
+        }
+        thumb.get(0, 0, out);
+        return true;
+    }
+
+    private static Rect clip(Rect box, int cols, int rows) {
+        int x = Math.max(0, box.x);
+        int y = Math.max(0, box.y);
+        int right = Math.min(cols, box.x + box.width);
+        int bottom = Math.min(rows, box.y + box.height);
+        return new Rect(x, y, Math.max(0, right - x), Math.max(0, bottom - y));
+    }
+
+    private static double iou(Rect a, Rect b) {
+        int left = Math.max(a.x, b.x);
+        int top = Math.max(a.y, b.y);
+        int right = Math.min(a.x + a.width, b.x + b.width);
+        int bottom = Math.min(a.y + a.height, b.y + b.height);
+        if (right <= left || bottom <= top) {
+            return 0.0;
+        }
+        double intersection = (double) (right - left) * (bottom - top);
+        return intersection / (a.area() + b.area() - intersection);
+    }
+}
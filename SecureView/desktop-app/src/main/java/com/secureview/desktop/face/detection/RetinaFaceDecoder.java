@@ -0,0 +1,207 @@
+package com.secureview.desktop.face.detection;
+
+import com.secureview.desktop.opencv.stub.Point;
+import com.secureview.desktop.opencv.stub.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the raw RetinaFace head outputs into face boxes with landmarks.
+ *
+ * The network predicts, for every prior box, box offsets ({@code loc}, 4 values), class
+ * scores ({@code conf}, background and face) and 5 landmark offsets ({@code landms}, 10
+ * values). Priors follow the reference RetinaFace configuration (steps 8/16/32, two anchor
+ * sizes per level, variances 0.1/0.2) and are generated once per input size and shared.
+ * Only priors whose face score passes the threshold are decoded; overlapping boxes are then
+ * removed by greedy non-maximum suppression, highest score first, and the survivors are
+ * clipped to the image.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public class RetinaFaceDecoder {
+    private static final int[] STEPS = {8, 16, 32};
+    private static final int[][] MIN_SIZES = {{16, 32}, {64, 128}, {256, 512}};
+    private static final float CENTER_VARIANCE = 0.1f;
+    private static final float SIZE_VARIANCE = 0.2f;
+    private static final int MAX_CANDIDATES = 1000;
+    public static final int LANDMARK_COUNT = 5;
+
+    private static final ConcurrentHashMap<Long, float[]> PRIORS = new ConcurrentHashMap<>();
+
+    private final float[] priors; // cx, cy, w, h per prior, normalized to the input size
+    private final int priorCount;
+    private final float confidenceThreshold;
+    private final float nmsThreshold;
+
+    public RetinaFaceDecoder(int inputWidth, int inputHeight, double confidenceThreshold, double nmsThreshold) {
+        this.priors = priors(inputWidth, inputHeight);
+        this.priorCount = priors.length / 4;
+        this.confidenceThreshold = (float) confidenceThreshold;
+        this.nmsThreshold = (float) nmsThreshold;
+    }
+
+    /**
+     * Number of prior boxes, i.e. the row count of each network output.
+     */
+    public int priorCount() {
+        return priorCount;
+    }
+
+    /**
+     * Decodes one image's outputs. Arrays are the flattened {@code [N, 4]}, {@code [N, 2]} and
+     * {@code [N, 10]} tensors; {@code landmarks} may be null.
+     * @param imageWidth  width the normalized coordinates are scaled to
+     * @param imageHeight height the normalized coordinates are scaled to
+     * @return detections after NMS, highest score first
+     */
+    public List<RetinaFaceDetector.FaceDetection> decode(float[] loc, float[] conf, float[] landmarks,
+                                                         int imageWidth, int imageHeight) {
+        return decode(loc, conf, landmarks, imageWidth, imageHeight, imageWidth, imageHeight);
+    }
+    
+    /**
+     * Decodes one image's outputs when the network input covered more than the image, as with
+     * letterboxing: normalized coordinates are multiplied by {@code scaleX}/{@code scaleY} and
+     * the boxes are then clipped to {@code imageWidth} x {@code imageHeight}.
+     * @return detections after NMS, highest score first
+     */
+    public List<RetinaFaceDetector.FaceDetection> decode(float[] loc, float[] conf, float[] landmarks,
+                                                         double scaleX, double scaleY,
+                                                         int imageWidth, int imageHeight) {
+        float sx = (float) scaleX;
+        float sy = (float) scaleY;
+        int scoreStride = conf.length / priorCount;
+
+        // Score pass: only priors above the threshold are decoded. Keys sort by score because
+        // the bits of non-negative floats order like the floats themselves.
+        long[] keys = new long[64];
+        int count = 0;
+        for (int i = 0, s = scoreStride - 1; i < priorCount; i++, s += scoreStride) {
+            float score = conf[s];
+            if (score >= confidenceThreshold) {
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, count * 2);
+                }
+                keys[count++] = ((long) Float.floatToIntBits(score) << 32) | i;
+            }
+        }
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(keys, 0, count);
+        int candidates = Math.min(count, MAX_CANDIDATES);
+
+        // Decode candidate boxes, best first
+        int[] index = new int[candidates];
+        float[] score = new float[candidates];
+        float[] boxes = new float[candidates * 4];
+        float[] areas = new float[candidates];
+        for (int c = 0; c < candidates; c++) {
+            long key = keys[count - 1 - c];
+            int i = (int) key;
+            int p = i * 4;
+            float centerX = priors[p] + loc[p] * CENTER_VARIANCE * priors[p + 2];
+            float centerY = priors[p + 1] + loc[p + 1] * CENTER_VARIANCE * priors[p + 3];
+            float width = priors[p + 2] * (float) Math.exp(loc[p + 2] * SIZE_VARIANCE);
+            float height = priors[p + 3] * (float) Math.exp(loc[p + 3] * SIZE_VARIANCE);
+            int b = c * 4;
+            boxes[b] = (centerX - width / 2) * sx;
+            boxes[b + 1] = (centerY - height / 2) * sy;
+            boxes[b + 2] = (centerX + width / 2) * sx;
+            boxes[b + 3] = (centerY + height / 2) * sy;
+            areas[c] = (boxes[b + 2] - boxes[b]) * (boxes[b + 3] - boxes[b + 1]);
+            index[c] = i;
+            score[c] = Float.intBitsToFloat((int) (key >>> 32));
+        }
+
+        // Greedy NMS
+        boolean[] suppressed = new boolean[candidates];
+        List<RetinaFaceDetector.FaceDetection> detections = new ArrayList<>();
+        for (int c = 0; c < candidates; c++) {
+            if (suppressed[c]) {
+                continue;
+            }
+            int b = c * 4;
+            for (int o = c + 1; o < candidates; o++) {
+                if (suppressed[o]) {
+                    continue;
+                }
+                int ob = o * 4;
+                float left = Math.max(boxes[b], boxes[ob]);
+                float top = Math.max(boxes[b + 1], boxes[ob + 1]);
+                float right = Math.min(boxes[b + 2], boxes[ob + 2]);
+                float bottom = Math.min(boxes[b + 3], boxes[ob + 3]);
+                if (right <= left || bottom <= top) {
+                    continue;
+                }
+                float intersection = (right - left) * (bottom - top);
+                if (intersection > nmsThreshold * (areas[c] + areas[o] - intersection)) {
+                    suppressed[o] = true;
+                }
+            }
+
+            // Clipped to the image only after NMS, so suppression sees the predicted boxes
+            int left = Math.max(0, Math.round(boxes[b]));
+            int top = Math.max(0, Math.round(boxes[b + 1]));
+            int right = Math.min(imageWidth, Math.round(boxes[b + 2]));
+            int bottom = Math.min(imageHeight, Math.round(boxes[b + 3]));
+            if (right <= left || bottom <= top) {
+                continue;
+            }
+            Rect box = new Rect(left, top, right - left, bottom - top);
+            Point[] points = landmarks != null ? decodeLandmarks(landmarks, index[c], scaleX, scaleY) : null;
+            detections.add(new RetinaFaceDetector.FaceDetection(box, score[c], points));
+        }
+        return detections;
+    }
+
+    private Point[] decodeLandmarks(float[] landmarks, int i, double scaleX, double scaleY) {
+        int p = i * 4;
+        int l = i * LANDMARK_COUNT * 2;
+        Point[] points = new Point[LANDMARK_COUNT];
+        for (int k = 0; k < LANDMARK_COUNT; k++) {
+            double x = priors[p] + landmarks[l + 2 * k] * CENTER_VARIANCE * priors[p + 2];
+            double y = priors[p + 1] + landmarks[l + 2 * k + 1] * CENTER_VARIANCE * priors[p + 3];
+            points[k] = new Point(x * scaleX, y * scaleY);
+        }
+        return points;
+    }
+
+    /**
+     * Prior boxes for an input size, generated on first use.
+     */
+    static float[] priors(int inputWidth, int inputHeight) {
+        long key = ((long) inputWidth << 32) | inputHeight;
+        return PRIORS.computeIfAbsent(key, k -> generatePriors(inputWidth, inputHeight));
+    }
+
+    private static float[] generatePriors(int inputWidth, int inputHeight) {
+        int count = 0;
+        for (int level = 0; level < STEPS.length; level++) {
+            int rows = (inputHeight + STEPS[level] - 1) / STEPS[level];
+            int cols = (inputWidth + STEPS[level] - 1) / STEPS[level];
+            count += rows * cols * MIN_SIZES[level].length;
+        }
+        float[] priors = new float[count * 4];
+        int p = 0;
+        for (int level = 0; level < STEPS.length; level++) {
+            int step = STEPS[level];
+            int rows = (inputHeight + step - 1) / step;
+            int cols = (inputWidth + step - 1) / step;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    for (int minSize : MIN_SIZES[level]) {
+                        priors[p++] = (col + 0.5f) * step / inputWidth;
+                        priors[p++] = (row + 0.5f) * step / inputHeight;
+                        priors[p++] = (float) minSize / inputWidth;
+                        priors[p++] = (float) minSize / inputHeight;
+                    }
+                }
+            }
+        }
+        return priors;
+    }
+}
@@ -11,6 +11,11 @@ import java.util.List;
 /**
  * Advanced face detection using RetinaFace deep learning model.
  * Provides high accuracy face detection with landmark extraction.
+ *
+ * Frames are letterboxed into a square network input of configurable size: scaled to fit
+ * with the aspect ratio kept, and padded at the right and bottom with the mean color (zero
+ * after mean subtraction). Smaller inputs trade small-face recall for speed; the detector
+ * cost grows roughly with the square of the input size.
  */
 public class RetinaFaceDetector {
     private static final Logger logger = LoggerFactory.getLogger(RetinaFaceDetector.class);
@@ -19,7 +24,19 @@ public class RetinaFaceDetector {
     private boolean initialized = false;
     private static final String MODEL_PATH = System.getProperty("user.home") + "/.secureview/models/retinaface.onnx";
     private static final double CONFIDENCE_THRESHOLD = 0.5;
-    private static final Size INPUT_SIZE = new Size(640, 640);
+    private static final double NMS_THRESHOLD = 0.4;
+    public static final int DEFAULT_INPUT_SIZE = 640;
+    private static final int MIN_INPUT_SIZE = 160;
+    private static final int MAX_INPUT_SIZE = 1280;
+    private static final int INPUT_STRIDE = 32; // coarsest prior step; input sides must be multiples of it
+    // Reference RetinaFace preprocessing: BGR, mean-subtracted, not scaled
+    private static final Scalar MEAN = new Scalar(104, 117, 123);
+    
+    private int inputSize;
+    private Size inputDims;
+    private RetinaFaceDecoder decoder;
+    private List<String> outputNames;
+    private volatile boolean layoutWarned;
     
     /**
      * Face detection result with bounding box and landmarks
@@ -36,6 +53,49 @@ public class RetinaFaceDetector {
         }
     }
     
+    /**
+     * Detector with the default 640x640 input.
+     */
+    public RetinaFaceDetector() {
+        this(DEFAULT_INPUT_SIZE);
+    }
+    
+    /**
+     * @param inputSize side of the square network input, rounded to a multiple of 32
+     *                  (e.g. 320, 480 or 640)
+     */
+    public RetinaFaceDetector(int inputSize) {
+        int clamped = Math.max(MIN_INPUT_SIZE, Math.min(MAX_INPUT_SIZE, inputSize));
+        setInputSize(Math.round(clamped / (float) INPUT_STRIDE) * INPUT_STRIDE);
+    }
+    
+    /**
+     * Network input size for a speed profile: "fast" 320, "balanced" 480, "accurate" 640.
+     * Unknown or missing profiles get the default size.
+     */
+    public static int inputSizeForProfile(String profile) {
+        if (profile == null) {
+            return DEFAULT_INPUT_SIZE;
+        }
+        switch (profile.trim().toLowerCase()) {
+            case "fast":
+                return 320;
+            case "balanced":
+                return 480;
+            case "accurate":
+                return 640;
+            default:
+                logger.warn("Unknown RetinaFace profile '{}', using {}x{}", profile,
+                           DEFAULT_INPUT_SIZE, DEFAULT_INPUT_SIZE);
+                return DEFAULT_INPUT_SIZE;
+        }
+    }
+    
+    private void setInputSize(int size) {
+        this.inputSize = size;
+        this.inputDims = new Size(size, size);
+    }
+    
     public void initialize() throws Exception {
         if (initialized) {
             return;
@@ -69,8 +129,20 @@ public class RetinaFaceDetector {
                 logger.warn("Could not set DNN backend preferences", e);
             }
             
+            outputNames = retinaFaceNet.getUnconnectedOutLayersNames();
+            decoder = new RetinaFaceDecoder(inputSize, inputSize, CONFIDENCE_THRESHOLD, NMS_THRESHOLD);
+            
+            // Models exported with a fixed input shape only run at that size
+            if (inputSize != DEFAULT_INPUT_SIZE && !acceptsInputSize()) {
+                logger.warn("RetinaFace model does not accept {}x{} input, using {}x{}",
+                           inputSize, inputSize, DEFAULT_INPUT_SIZE, DEFAULT_INPUT_SIZE);
+                setInputSize(DEFAULT_INPUT_SIZE);
+                decoder = new RetinaFaceDecoder(inputSize, inputSize, CONFIDENCE_THRESHOLD, NMS_THRESHOLD);
+            }
+            
             initialized = true;
-            logger.info("RetinaFace Detector initialized successfully");
+            logger.info("RetinaFace Detector initialized successfully ({}x{} input, {} priors, outputs {})",
+                       inputSize, inputSize, decoder.priorCount(), outputNames);
         } catch (Exception e) {
             logger.error("Failed to initialize RetinaFace detector", e);
             throw new Exception("RetinaFace initialization failed: " + e.getMessage(), e);
@@ -93,34 +165,24 @@ public class RetinaFaceDetector {
             return new ArrayList<>();
         }
         
+        // Letterbox intermediates, blob and outputs are released on every exit path
         try {
-            // Preprocess: resize to 640x640 and normalize
-            Mat resized = new Mat();
-            Imgproc.resize(image, resized, INPUT_SIZE);
-            
-            // Normalize to [0, 1] range
-            Mat normalized = new Mat();
-            resized.convertTo(normalized, CvType.CV_32F, 1.0 / 255.0);
-            
-            // Create blob: scale=1.0, mean=(0,0,0), swapRB=false, crop=false
-            Mat blob = Dnn.blobFromImage(normalized, 1.0, INPUT_SIZE, new Scalar(0, 0, 0), false, false);
-            
-            // Run inference
-            retinaFaceNet.setInput(blob);
-            Mat output = retinaFaceNet.forward();
-            
-            // Parse output
-            List<FaceDetection> detections = parseRetinaFaceOutput(output, image.cols(), image.rows());
-            
-            // Cleanup
-            resized.release();
-            normalized.release();
-            blob.release();
-            output.release();
-            
-            logger.info("RetinaFace detected {} faces", detections.size());
-            return detections;
-            
+            return MatScope.call(() -> {
+                double scale = Math.min((double) inputSize / image.cols(), (double) inputSize / image.rows());
+                Mat input = letterbox(image, scale);
+                Mat blob = Dnn.blobFromImage(input, 1.0, inputDims, MEAN, false, false);
+                
+                // Run inference
+                retinaFaceNet.setInput(blob);
+                List<Mat> outputs = retinaFaceNet.forward(outputNames);
+                
+                // Decode all faces; one input pixel is 1/scale image pixels on both axes
+                double span = inputSize / scale;
+                List<FaceDetection> detections = decodeOutputs(outputs, span, image.cols(), image.rows());
+                
+                logger.info("RetinaFace detected {} faces", detections.size());
+                return detections;
+            });
         } catch (Exception e) {
             logger.error("Error during RetinaFace detection", e);
             return new ArrayList<>();
@@ -153,11 +215,12 @@ public class RetinaFaceDetector {
         int height = Math.min(image.rows() - y, box.height + 2 * padding);
         
         Rect faceRect = new Rect(x, y, width, height);
-        Mat faceRegion = new Mat(image, faceRect);
-        Mat faceCopy = new Mat();
-        faceRegion.copyTo(faceCopy);
-        
-        return faceCopy;
+        try (MatScope scope = MatScope.open()) {
+            Mat faceRegion = new Mat(image, faceRect);
+            Mat faceCopy = scope.keep(new Mat());
+            faceRegion.copyTo(faceCopy);
+            return faceCopy;
+        }
     }
     
     /**
@@ -169,97 +232,99 @@ public class RetinaFaceDetector {
     }
     
     /**
-     * Parses RetinaFace output format.
-     * Output shape: [1, num_detections, 15]
-     * Where 15 = [x1, y1, x2, y2, score, landmark_x1, landmark_y1, ..., landmark_x5, landmark_y5]
+     * Scales {@code image} by {@code scale} (aspect ratio kept) and pads it at the right and
+     * bottom to the square input size. Intermediates belong to the caller's scope.
      */
-    private List<FaceDetection> parseRetinaFaceOutput(Mat output, int originalWidth, int originalHeight) {
-        List<FaceDetection> detections = new ArrayList<>();
-        
+    private Mat letterbox(Mat image, double scale) {
+        int width = Math.min(inputSize, Math.max(1, (int) Math.round(image.cols() * scale)));
+        int height = Math.min(inputSize, Math.max(1, (int) Math.round(image.rows() * scale)));
+        Mat scaled = image;
+        if (image.cols() != width || image.rows() != height) {
+            scaled = new Mat();
+            int interpolation = scale < 1.0 ? Imgproc.INTER_AREA : Imgproc.INTER_LINEAR;
+            Imgproc.resize(image, scaled, new Size(width, height), interpolation);
+        }
+        if (width == inputSize && height == inputSize) {
+            return scaled;
+        }
+        Mat padded = new Mat();
+        Core.copyMakeBorder(scaled, padded, 0, inputSize - height, 0, inputSize - width,
+                            Core.BORDER_CONSTANT, MEAN);
+        return padded;
+    }
+    
+    /**
+     * Runs one blank frame through the network and checks the outputs match the priors for
+     * the configured input size.
+     */
+    private boolean acceptsInputSize() {
         try {
-            // Get output dimensions
-            int[] shape = getMatShape(output);
-            if (shape.length < 2) {
-                logger.warn("Unexpected output shape");
-                return detections;
-            }
-            
-            int numDetections = shape[1];
-            int featuresPerDetection = shape.length > 2 ? shape[2] : 15;
-            
-            // Scale factors for converting back to original image size
-            double scaleX = (double) originalWidth / INPUT_SIZE.width;
-            double scaleY = (double) originalHeight / INPUT_SIZE.height;
-            
-            // Extract detection data
-            double[] outputData = new double[(int) output.total()];
-            output.get(0, 0, outputData);
-            
-            for (int i = 0; i < numDetections; i++) {
-                int offset = i * featuresPerDetection;
-                
-                if (offset + 4 >= outputData.length) break;
-                
-                // Get bounding box (normalized coordinates)
-                double x1 = outputData[offset] * originalWidth;
-                double y1 = outputData[offset + 1] * originalHeight;
-                double x2 = outputData[offset + 2] * originalWidth;
-                double y2 = outputData[offset + 3] * originalHeight;
-                double score = outputData[offset + 4];
-                
-                // Filter by confidence
-                if (score < CONFIDENCE_THRESHOLD) {
-                    continue;
-                }
-                
-                // Create bounding box
-                Rect box = new Rect((int) x1, (int) y1, (int) (x2 - x1), (int) (y2 - y1));
-                
-                // Extract landmarks (5 points: 2 eyes, nose, 2 mouth corners)
-                Point[] landmarks = new Point[5];
-                if (featuresPerDetection >= 15) {
-                    for (int j = 0; j < 5; j++) {
-                        double lx = outputData[offset + 5 + j * 2] * originalWidth;
-                        double ly = outputData[offset + 5 + j * 2 + 1] * originalHeight;
-                        landmarks[j] = new Point(lx, ly);
+            return MatScope.call(() -> {
+                Mat probe = new Mat(inputDims, CvType.CV_8UC3);
+                retinaFaceNet.setInput(Dnn.blobFromImage(probe, 1.0, inputDims, MEAN, false, false));
+                for (Mat output : retinaFaceNet.forward(outputNames)) {
+                    if (output.total() == (long) decoder.priorCount() * 2) {
+                        return true;
                     }
                 }
-                
-                detections.add(new FaceDetection(box, score, landmarks));
-            }
-            
+                return false;
+            });
         } catch (Exception e) {
-            logger.error("Error parsing RetinaFace output", e);
+            logger.debug("RetinaFace probe at {}x{} failed", inputSize, inputSize, e);
+            return false;
         }
-        
-        return detections;
     }
     
     /**
-     * Gets the shape/dimensions of a Mat.
+     * Reads the loc, conf and landmark outputs (told apart by values per prior: 4, 2 and 10)
+     * into float arrays and decodes them.
+     * @param span image pixels covered by one side of the network input
      */
-    private int[] getMatShape(Mat mat) {
-        try {
-            Object realMat = mat.getRealInstance();
-            if (realMat != null) {
-                Class<?> matClass = realMat.getClass();
-                java.lang.reflect.Method sizeMethod = matClass.getMethod("size");
-                Object sizeObj = sizeMethod.invoke(realMat);
-                
-                // Get dimensions from Size object
-                Class<?> sizeClass = sizeObj.getClass();
-                java.lang.reflect.Method heightMethod = sizeClass.getMethod("height");
-                java.lang.reflect.Method widthMethod = sizeClass.getMethod("width");
-                
-                int height = ((Number) heightMethod.invoke(sizeObj)).intValue();
-                int width = ((Number) widthMethod.invoke(sizeObj)).intValue();
-                
-                return new int[]{height, width};
+    private List<FaceDetection> decodeOutputs(List<Mat> outputs, double span, int imageWidth, int imageHeight) {
+        int priorCount = decoder.priorCount();
+        float[] loc = null;
+        float[] conf = null;
+        float[] landmarks = null;
+        
+        for (Mat output : outputs) {
+            long total = output.total();
+            if (total == 0 || total % priorCount != 0) {
+                continue;
+            }
+            float[] data = new float[(int) total];
+            // Outputs are [1, N, k]; viewed as N rows so they can be read in one call
+            output.reshape(1, priorCount).get(0, 0, data);
+            switch ((int) (total / priorCount)) {
+                case 4:
+                    loc = data;
+                    break;
+                case 2:
+                    conf = data;
+                    break;
+                case 2 * RetinaFaceDecoder.LANDMARK_COUNT:
+                    landmarks = data;
+                    break;
+                default:
+                    break;
             }
-        } catch (Exception e) {
-            logger.debug("Could not get Mat shape", e);
         }
-        return new int[]{1, 1}; // Default
+        
+        if (loc == null || conf == null) {
+            if (!layoutWarned) {
+                layoutWarned = true;
+                logger.warn("Unexpected RetinaFace outputs {} (expected loc/conf/landms for {} priors)",
+                           outputNames, priorCount);
+            }
+            return new ArrayList<>();
+        }
+        return decoder.decode(loc, conf, landmarks, span, span, imageWidth, imageHeight);
+    }
+    
+    /**
+     * Side of the square network input in use.
+     */
+    public int getInputSize() {
+        return inputSize;
     }
     
     public boolean isInitialized() {
@@ -0,0 +1,427 @@
+package com.secureview.desktop.face.embedding;
+
+import com.secureview.desktop.opencv.stub.Mat;
+import com.secureview.desktop.opencv.stub.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe front end for embedding extraction.
+ *
+ * Requests go into a bounded queue served by a pool of worker threads. Each worker owns
+ * its own {@link FaceEmbeddingExtractor}, and with it its own DNN {@code Net}, so
+ * {@code setInput}/{@code forward} are never shared between threads. A worker that picks
+ * up a request waits up to {@code batchWindowMs} for more and runs them as one batch
+ * through {@link FaceEmbeddingExtractor#extractEmbeddings}.
+ */
+public class EmbeddingInferenceService {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingInferenceService.class);
+    private static final long WORKER_JOIN_MILLIS = 2000;
+    // Upper bound on waiting for queue space or for a result, so a stuck worker cannot hang callers
+    private static final long REQUEST_TIMEOUT_MILLIS = 30_000;
+
+    private final BlockingQueue<Request> queue;
+    private final List<FaceEmbeddingExtractor> extractors = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final long batchWindowNanos;
+    private final int maxBatch;
+    private volatile boolean running = true;
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+
+    private final LatencyStats latency = new LatencyStats(1024);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private static final class Request {
+        final Mat face;
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<double[]> result = new CompletableFuture<>();
+
+        Request(Mat face) {
+            this.face = face;
+        }
+    }
+
+    /**
+     * Creates the service and loads one extractor per worker.
+     * @param workerCount   number of worker threads (and model instances)
+     * @param queueCapacity maximum number of waiting requests
+     * @param batchWindowMs how long a worker waits to fill a batch
+     * @param maxBatch      maximum requests per batch
+     */
+    public EmbeddingInferenceService(int workerCount, int queueCapacity, long batchWindowMs, int maxBatch)
+            throws Exception {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, batchWindowMs));
+        this.maxBatch = Math.max(1, maxBatch);
+
+        int count = Math.max(1, workerCount);
+        for (int i = 0; i < count; i++) {
+            FaceEmbeddingExtractor extractor = new FaceEmbeddingExtractor();
+            extractor.initialize();
+            extractors.add(extractor);
+        }
+        for (int i = 0; i < count; i++) {
+            FaceEmbeddingExtractor extractor = extractors.get(i);
+            Thread worker = new Thread(() -> workerLoop(extractor), "embedding-inference-" + i);
+            worker.setDaemon(true);
+            liveWorkers.incrementAndGet();
+            worker.start();
+            workers.add(worker);
+        }
+        logger.info("Embedding inference service started: {} workers, queue {}, batch window {} ms, max batch {}",
+                   count, queueCapacity, batchWindowMs, this.maxBatch);
+    }
+
+    /**
+     * Queues a face for embedding. The face is copied, so the caller may release it.
+     * Fails fast when the queue is full, so a per-frame caller drops the frame instead of
+     * falling behind the camera.
+     * @return future completed with the embedding (null if extraction failed), or failed
+     *         with {@link RejectedExecutionException} if the queue is full
+     */
+    public CompletableFuture<double[]> submit(Mat face) {
+        return enqueue(face, false);
+    }
+
+    /**
+     * True while requests can still be served: not shut down and at least one worker alive.
+     */
+    private boolean isAccepting() {
+        return running && liveWorkers.get() > 0;
+    }
+
+    /**
+     * Queues a face, copying it first. With {@code block} set, waits for queue space
+     * (while the service is accepting, up to {@link #REQUEST_TIMEOUT_MILLIS}) instead of
+     * rejecting the request.
+     */
+    private CompletableFuture<double[]> enqueue(Mat face, boolean block) {
+        if (!isAccepting()) {
+            CompletableFuture<double[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RejectedExecutionException(rejectionReason()));
+            return failed;
+        }
+        Mat copy = new Mat();
+        face.copyTo(copy);
+        Request request = new Request(copy);
+        boolean queued;
+        try {
+            queued = block ? offerWhileRunning(request) : queue.offer(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        // shutdown() may have drained the queue between the running check and the offer;
+        // a request still in the queue then has no worker left to complete it
+        if (queued && !isAccepting() && queue.remove(request)) {
+            queued = false;
+        }
+        if (!queued) {
+            copy.release();
+            rejected.incrementAndGet();
+            request.result.completeExceptionally(new RejectedExecutionException(rejectionReason()));
+        }
+        return request.result;
+    }
+
+    private String rejectionReason() {
+        if (!running) {
+            return "Inference service is shut down";
+        }
+        if (liveWorkers.get() == 0) {
+            return "No inference workers left";
+        }
+        return "Inference queue full (" + queue.size() + " waiting)";
+    }
+
+    private boolean offerWhileRunning(Request request) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REQUEST_TIMEOUT_MILLIS);
+        while (isAccepting() && deadline - System.nanoTime() > 0) {
+            if (queue.offer(request, 200, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts one embedding, waiting for the result. The caller waits anyway, so a full
+     * queue delays the request rather than rejecting it; a transient backlog must not turn
+     * into a failed authentication.
+     * @return embedding, or null if extraction failed, timed out or the service is stopped
+     */
+    public double[] extractEmbedding(Mat face) {
+        return await(enqueue(face, true));
+    }
+
+    public FloatEmbedding extractFloatEmbedding(Mat face) {
+        return FloatEmbedding.of(extractEmbedding(face));
+    }
+
+    /**
+     * Extracts embeddings for several faces. The requests are queued back to back, so they
+     * are batched together by the workers; when the queue is full this waits for the workers
+     * to make room rather than rejecting the rest, so any number of faces can be passed.
+     * @return one entry per input, null where extraction failed or the input was null/empty
+     */
+    public List<double[]> extractEmbeddings(List<Mat> faces) {
+        List<CompletableFuture<double[]>> futures = new ArrayList<>(faces.size());
+        for (Mat face : faces) {
+            futures.add(face == null || face.empty() ? CompletableFuture.completedFuture(null) : enqueue(face, true));
+        }
+        List<double[]> results = new ArrayList<>(faces.size());
+        for (CompletableFuture<double[]> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    private double[] await(CompletableFuture<double[]> future) {
+        try {
+            return future.get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("Embedding request failed: {}", e.getCause().getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            logger.warn("Embedding request timed out after {} ms ({} waiting)", REQUEST_TIMEOUT_MILLIS, queue.size());
+            return null;
+        }
+    }
+
+    private void workerLoop(FaceEmbeddingExtractor extractor) {
+        try {
+            serveRequests(extractor);
+        } finally {
+            // runBatch contains failures, so this is normally shutdown; if the last worker
+            // dies while running, fail what is queued instead of leaving callers waiting
+            if (liveWorkers.decrementAndGet() == 0 && running) {
+                logger.error("All embedding inference workers have stopped");
+                failQueued(new RejectedExecutionException("No inference workers left"));
+            }
+        }
+    }
+
+    private void serveRequests(FaceEmbeddingExtractor extractor) {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        List<Mat> faces = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Request first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                runBatch(extractor, batch, faces);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                for (Request request : batch) {
+                    request.result.complete(null); // no-op unless the batch threw
+                    request.face.release();
+                }
+                batch.clear();
+                faces.clear();
+            }
+        }
+    }
+
+    private void runBatch(FaceEmbeddingExtractor extractor, List<Request> batch, List<Mat> faces) {
+        for (Request request : batch) {
+            faces.add(request.face);
+        }
+        List<double[]> embeddings;
+        try {
+            embeddings = batch.size() == 1
+                ? java.util.Collections.singletonList(extractor.extractEmbedding(faces.get(0)))
+                : extractor.extractEmbeddings(faces);
+        } catch (Throwable e) {
+            // Also native errors (e.g. UnsatisfiedLinkError) and OutOfMemoryError: fail this
+            // batch and keep the worker serving instead of silently losing it
+            logger.error("Embedding batch of {} failed", batch.size(), e);
+            for (Request request : batch) {
+                request.result.completeExceptionally(e);
+            }
+            return;
+        }
+        batches.incrementAndGet();
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            latency.record(now - request.enqueuedNanos);
+            completed.incrementAndGet();
+            request.result.complete(embeddings.get(i));
+        }
+    }
+
+    /**
+     * Fingerprint of the model loaded by the workers.
+     */
+    public String getModelFingerprint() {
+        return extractors.get(0).getModelFingerprint();
+    }
+
+    /**
+     * Input size of the loaded model; faces aligned to it skip the resize in preprocessing.
+     */
+    public Size getInputSize() {
+        return extractors.get(0).getInputSize();
+    }
+
+    /**
+     * Number of requests waiting for a worker.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Snapshot of throughput and per-request latency (queue wait + inference).
+     */
+    public Stats getStats() {
+        return new Stats(queue.size(), completed.get(), rejected.get(), batches.get(),
+                         latency.percentileMicros(50), latency.percentileMicros(95), latency.maxMicros());
+    }
+
+    /**
+     * Stops the workers, waiting for them to finish their current batch. Queued requests
+     * complete with null; requests submitted concurrently are rejected.
+     */
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        drainQueue();
+        for (Thread worker : workers) {
+            try {
+                worker.join(WORKER_JOIN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (worker.isAlive()) {
+                logger.warn("Inference worker {} did not stop within {} ms", worker.getName(), WORKER_JOIN_MILLIS);
+            }
+        }
+        // Workers exit without taking more requests, so anything queued meanwhile is still here
+        drainQueue();
+        logger.info("Embedding inference service stopped ({})", getStats());
+    }
+
+    private void drainQueue() {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result.complete(null);
+            request.face.release();
+        }
+    }
+
+    private void failQueued(Throwable cause) {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(cause);
+            request.face.release();
+        }
+    }
+
+    /**
+     * Inference service metrics.
+     */
+    public static class Stats {
+        public final int queueDepth;
+        public final long completed;
+        public final long rejected;
+        public final long batches;
+        public final long p50Micros;
+        public final long p95Micros;
+        public final long maxMicros;
+
+        Stats(int queueDepth, long completed, long rejected, long batches,
+              long p50Micros, long p95Micros, long maxMicros) {
+            this.queueDepth = queueDepth;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.batches = batches;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public double getAverageBatchSize() {
+            return batches == 0 ? 0.0 : (double) completed / batches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("queue=%d, completed=%d, rejected=%d, avg batch=%.2f, latency p50=%d us p95=%d us max=%d us",
+                                 queueDepth, completed, rejected, getAverageBatchSize(), p50Micros, p95Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Ring buffer of the most recent latency samples.
+     */
+    private static final class LatencyStats {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyStats(int capacity) {
+            samples = new long[capacity];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized long percentileMicros(int percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = java.util.Arrays.copyOf(samples, size);
+            java.util.Arrays.sort(sorted);
+            int index = Math.min(size - 1, (int) Math.ceil(percentile / 100.0 * size) - 1);
+            return sorted[Math.max(0, index)] / 1000;
+        }
+
+        synchronized long maxMicros() {
+            long max = 0;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, samples[i]);
+            }
+            return max / 1000;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.secureview.desktop.face.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Similarity kernels for float32 embeddings: dot product, batched dot, mean and L2 normalize.
+ * Uses the jdk.incubator.vector backend when it was compiled in (-Pvector-api) and the JVM
+ * runs with --add-modules jdk.incubator.vector; otherwise falls back to unrolled scalar loops.
+ */
+public final class EmbeddingKernels {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingKernels.class);
+
+    private static final String VECTOR_BACKEND = "com.secureview.desktop.face.embedding.VectorEmbeddingKernels";
+    private static final Backend BACKEND = loadBackend();
+
+    /**
+     * Dot product of two float ranges of equal length.
+     */
+    interface Backend {
+        float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+    }
+
+    private EmbeddingKernels() {
+    }
+
+    private static Backend loadBackend() {
+        try {
+            Backend vector = (Backend) Class.forName(VECTOR_BACKEND).getDeclaredConstructor().newInstance();
+            // Touch the Vector API once so a missing module fails here rather than on the hot path
+            vector.dot(new float[16], 0, new float[16], 0, 16);
+            logger.info("Embedding kernels using Vector API backend");
+            return vector;
+        } catch (Throwable t) {
+            logger.debug("Vector API backend not available, using scalar kernels: {}", t.toString());
+            return new ScalarBackend();
+        }
+    }
+
+    /**
+     * Returns the name of the active backend ("vector" or "scalar").
+     */
+    public static String getBackendName() {
+        return BACKEND instanceof ScalarBackend ? "scalar" : "vector";
+    }
+
+    /**
+     * Dot product of two vectors. For L2-normalized inputs this is the cosine similarity.
+     */
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Embedding dimensions do not match: " + a.length + " vs " + b.length);
+        }
+        return BACKEND.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Dot product of {@code query} with the matrix row starting at {@code offset}.
+     */
+    public static float dotRow(float[] query, float[] matrix, int offset) {
+        if (offset < 0 || offset + query.length > matrix.length) {
+            throw new IllegalArgumentException("Row out of bounds: " + offset);
+        }
+        return BACKEND.dot(query, 0, matrix, offset, query.length);
+    }
+
+    /**
+     * Dot product of two rows of the same matrix.
+     */
+    public static float dotRows(float[] matrix, int aOffset, int bOffset, int length) {
+        if (aOffset < 0 || bOffset < 0 || aOffset + length > matrix.length || bOffset + length > matrix.length) {
+            throw new IllegalArgumentException("Row out of bounds");
+        }
+        return BACKEND.dot(matrix, aOffset, matrix, bOffset, length);
+    }
+
+    /**
+     * Scores one query against a row-major matrix of {@code count} vectors of length {@code dim}.
+     * @param out receives one score per row, must hold at least {@code count} entries
+     */
+    public static void dotBatch(float[] query, float[] matrix, int dim, int count, float[] out) {
+        if (query.length != dim || matrix.length < dim * count || out.length < count) {
+            throw new IllegalArgumentException("Invalid batch dimensions");
+        }
+        for (int row = 0, offset = 0; row < count; row++, offset += dim) {
+            out[row] = BACKEND.dot(query, 0, matrix, offset, dim);
+        }
+    }
+
+    /**
+     * Squared L2 norm.
+     */
+    public static float squaredNorm(float[] v) {
+        return BACKEND.dot(v, 0, v, 0, v.length);
+    }
+
+    /**
+     * Normalizes a vector to unit length in place. Zero vectors are left unchanged.
+     */
+    public static void l2Normalize(float[] v) {
+        float norm = (float) Math.sqrt(squaredNorm(v));
+        if (norm > 0.0f) {
+            float inv = 1.0f / norm;
+            for (int i = 0; i < v.length; i++) {
+                v[i] *= inv;
+            }
+        }
+    }
+
+    /**
+     * Unit-length copy of {@code length} values starting at {@code offset}, widened to double.
+     * Gives the same values as {@link #l2Normalize} followed by {@link #toDouble} without
+     * modifying {@code v}. Zero vectors are copied unchanged.
+     */
+    public static double[] normalizedRow(float[] v, int offset, int length) {
+        float norm = (float) Math.sqrt(dotRows(v, offset, offset, length));
+        float inv = norm > 0.0f ? 1.0f / norm : 1.0f;
+        double[] d = new double[length];
+        for (int i = 0; i < length; i++) {
+            d[i] = v[offset + i] * inv;
+        }
+        return d;
+    }
+
+    /**
+     * Element-wise mean of equally sized vectors.
+     */
+    public static float[] mean(List<float[]> vectors) {
+        if (vectors.isEmpty()) {
+            return null;
+        }
+        int dim = vectors.get(0).length;
+        float[] sum = new float[dim];
+        for (float[] v : vectors) {
+            int n = Math.min(dim, v.length);
+            for (int i = 0; i < n; i++) {
+                sum[i] += v[i];
+            }
+        }
+        float inv = 1.0f / vectors.size();
+        for (int i = 0; i < dim; i++) {
+            sum[i] *= inv;
+        }
+        return sum;
+    }
+
+    public static float[] toFloat(double[] v) {
+        float[] f = new float[v.length];
+        for (int i = 0; i < v.length; i++) {
+            f[i] = (float) v[i];
+        }
+        return f;
+    }
+
+    public static double[] toDouble(float[] v) {
+        double[] d = new double[v.length];
+        for (int i = 0; i < v.length; i++) {
+            d[i] = v[i];
+        }
+        return d;
+    }
+
+    /**
+     * Scalar fallback. Four independent accumulators break the loop-carried dependency
+     * on a single sum so the CPU can overlap the multiply-adds.
+     */
+    static final class ScalarBackend implements Backend {
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+            int i = 0;
+            int upper = length & ~3;
+            for (; i < upper; i += 4) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+                s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+                s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+                s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+            }
+            for (; i < length; i++) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.secureview.desktop.face.embedding;
 
+import com.secureview.desktop.face.alignment.FaceAligner;
 import com.secureview.desktop.opencv.stub.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Extracts face embeddings using a deep learning model.
  * Uses OpenCV DNN module with a pre-trained face recognition model.
+ *
+ * Not thread-safe: the blob and the scratch buffers are reused by every extraction.
+ * {@link EmbeddingInferenceService} gives each worker thread its own extractor.
  */
 public class FaceEmbeddingExtractor {
     private static final Logger logger = LoggerFactory.getLogger(FaceEmbeddingExtractor.class);
@@ -21,6 +32,39 @@ public class FaceEmbeddingExtractor {
     private int embeddingSize = 128;
     private Size inputSize = new Size(96, 96);
     
+    // Identifies which model produced an embedding; cached embeddings are only
+    // reused when their fingerprint matches. Bump the simplified version whenever
+    // extractSimplified() changes its output.
+    private static final String SIMPLIFIED_FINGERPRINT = "simplified:v2";
+    private String modelFingerprint = SIMPLIFIED_FINGERPRINT;
+    
+    // Content hash per model file, so the extractors of an inference pool read the bytes once
+    private static final Map<String, String> MODEL_HASHES = new ConcurrentHashMap<>();
+    
+    // Upper bound on faces per forward pass; larger requests are split into chunks
+    private static final int MAX_BATCH_SIZE = 16;
+    // Cleared the first time a batched forward pass fails (e.g. model exported with batch=1)
+    private volatile boolean batchInferenceSupported = true;
+    // Set once a single-image forward pass has established the model's output width
+    private boolean embeddingSizeKnown = false;
+    
+    // Model normalization applied by blobFromImage: (pixel - blobMean) * blobScale
+    private double blobScale = 1.0 / 255.0;
+    private Scalar blobMean = new Scalar(0, 0, 0);
+    private Image2BlobParams blobParams;
+    
+    // Reused across extractions, so steady-state inference allocates no Mats of its own
+    private final Mat blob = new Mat();
+    private final Mat colorBuffer = new Mat();
+    private float[] outputBuffer = new float[0];
+    
+    // Simplified (no model) path: 112x112 grayscale face and its pixels
+    private static final Size SIMPLIFIED_SIZE = new Size(SimplifiedEmbedding.SIZE, SimplifiedEmbedding.SIZE);
+    private final Mat grayBuffer = new Mat();
+    private final Mat simplifiedGray = new Mat();
+    private final byte[] simplifiedPixels = new byte[SimplifiedEmbedding.SIZE * SimplifiedEmbedding.SIZE];
+    private final SimplifiedEmbedding simplifiedEmbedding = new SimplifiedEmbedding();
+    
     public void initialize() throws Exception {
         logger.info("Initializing Face Embedding Extractor...");
         
@@ -84,8 +128,10 @@ public class FaceEmbeddingExtractor {
     
     /**
      * Extracts face embedding from a face image.
+     * With a model loaded, only the model's embedding is returned: a simplified or zero
+     * vector would be cached under the model fingerprint and compared with real ones.
      * @param faceImage Pre-processed face image
-     * @return Face embedding vector
+     * @return Face embedding vector, or null if extraction failed
      */
     public double[] extractEmbedding(Mat faceImage) {
         if (faceImage.empty()) {
@@ -94,27 +140,23 @@ public class FaceEmbeddingExtractor {
         }
         
         try {
-            // Preprocess face image
-            Mat processed = preprocessFace(faceImage);
-            
             // Extract embedding
             double[] embedding;
             
             if (faceNet != null) {
-                // Use DNN model if available
-                embedding = extractWithDNN(processed);
+                // Use DNN model if available; the face goes into the blob without preprocessing
+                embedding = extractWithDNN(faceImage);
                 
-                // If DNN extraction failed (e.g., OpenCV DNN not available), fallback
+                // If DNN extraction failed (e.g., OpenCV DNN not available), report no embedding
                 if (embedding == null || embedding.length == 0) {
-                    logger.warn("DNN embedding extraction failed or returned empty result. Falling back to simplified embedding.");
-                    embedding = extractSimplified(processed);
+                    logger.warn("DNN embedding extraction failed or returned empty result");
+                    return null;
                 }
             } else {
                 // Fallback to simplified feature extraction
-                embedding = extractSimplified(processed);
+                embedding = extractSimplified(faceImage);
             }
             
-            processed.release();
             return embedding;
             
         } catch (Exception e) {
@@ -124,344 +166,225 @@ public class FaceEmbeddingExtractor {
     }
     
     /**
-     * Preprocesses face image for embedding extraction.
-     * FaceNet requires 160x160 input with specific preprocessing.
+     * Extracts embeddings for several faces with one forward pass per chunk of up to
+     * {@value #MAX_BATCH_SIZE} faces. Falls back to per-image inference when no DNN model
+     * is loaded or the model only accepts a batch of one.
+     * @return one entry per input, null where extraction failed
      */
-    private Mat preprocessFace(Mat faceImage) {
-        Mat resized = new Mat();
-        Imgproc.resize(faceImage, resized, inputSize);
-        
-        // FaceNet and most models expect RGB/BGR color images, not grayscale
-        // Keep color if available, convert to BGR if needed
-        Mat processed = new Mat();
-        if (resized.channels() == 1) {
-            // Convert grayscale to BGR
-            Imgproc.cvtColor(resized, processed, Imgproc.COLOR_GRAY2BGR);
-            resized.release();
-        } else if (resized.channels() == 4) {
-            // Convert RGBA to BGR
-            Imgproc.cvtColor(resized, processed, Imgproc.COLOR_BGRA2BGR);
-            resized.release();
-        } else {
-            processed = resized;
+    public List<double[]> extractEmbeddings(List<Mat> faceImages) {
+        List<double[]> embeddings = new ArrayList<>(faceImages.size());
+        if (faceNet == null || !batchInferenceSupported || faceImages.size() < 2) {
+            for (Mat face : faceImages) {
+                embeddings.add(face != null ? extractEmbedding(face) : null);
+            }
+            return embeddings;
         }
         
-        // ArcFace: normalize to [0, 1] and subtract mean [0.5, 0.5, 0.5] then divide by std [0.5, 0.5, 0.5]
-        // FaceNet: normalize to [-1, 1] range
-        // Other models: normalize to [0, 1] range
-        Mat normalized = new Mat();
-        if ("arcface".equals(modelType)) {
-            // ArcFace: (pixel / 255.0 - 0.5) / 0.5 = (pixel - 127.5) / 127.5
-            processed.convertTo(normalized, CvType.CV_32F, 1.0 / 127.5, -1.0);
-        } else if ("facenet".equals(modelType)) {
-            // FaceNet: normalize to [-1, 1] range
-            processed.convertTo(normalized, CvType.CV_32F, 2.0 / 255.0, -1.0);
-        } else {
-            // Other models: normalize to [0, 1] range
-            processed.convertTo(normalized, CvType.CV_32F, 1.0 / 255.0);
+        for (int start = 0; start < faceImages.size(); start += MAX_BATCH_SIZE) {
+            List<Mat> chunk = faceImages.subList(start, Math.min(faceImages.size(), start + MAX_BATCH_SIZE));
+            List<double[]> batch = batchInferenceSupported ? extractBatchWithDNN(chunk) : null;
+            if (batch == null) {
+                for (Mat face : chunk) {
+                    embeddings.add(face != null ? extractEmbedding(face) : null);
+                }
+            } else {
+                embeddings.addAll(batch);
+            }
         }
-        
-        // Release intermediate matrices
-        processed.release();
-        
-        return normalized;
+        return embeddings;
     }
     
     /**
-     * Extracts embedding using DNN model.
-     * Supports FaceNet (512-dim) and other models (128-dim).
+     * Runs one forward pass over a chunk of faces.
+     * @return one entry per input (null for empty inputs), or null if batching is not possible
      */
-    private double[] extractWithDNN(Mat processed) {
-        // Create blob from image
-        // FaceNet: scale=1.0, mean subtraction not needed (already normalized)
-        // swapRB=false (already in BGR), crop=false
-        Mat blob = Dnn.blobFromImage(processed, 1.0, inputSize, new Scalar(0, 0, 0), false, false);
-        
-        // Set input
-        faceNet.setInput(blob);
-        
-        // Forward pass
-        Mat output = faceNet.forward();
-        
-        // Ensure output contains data
-        if (output == null || output.empty() || output.total() == 0) {
-            logger.error("DNN forward pass returned empty output. Check OpenCV DNN installation.");
-            blob.release();
-            output.release();
-            return null;
-        }
-        
-        // Extract embedding - size depends on model type
-        int actualSize = (int) output.total();
-        if (actualSize != embeddingSize) {
-            logger.debug("Model output size ({}) differs from expected ({}), using actual size", actualSize, embeddingSize);
-            embeddingSize = actualSize;
-        }
-        
-        double[] embedding = new double[embeddingSize];
-        
-        // Extract embedding from output
-        double[] flatOutput = new double[(int) output.total()];
-        output.get(0, 0, flatOutput);
-        
-        if (flatOutput.length == 0) {
-            logger.error("DNN output array is empty. Falling back to simplified embedding.");
-            blob.release();
-            output.release();
-            return null;
-        }
-        
-        // Copy to embedding array (handle different output shapes)
-        int copyLength = Math.min(embeddingSize, flatOutput.length);
-        System.arraycopy(flatOutput, 0, embedding, 0, copyLength);
-        
-        // If output is smaller than expected, pad with zeros
-        if (flatOutput.length < embeddingSize) {
-            logger.warn("Model output size ({}) is smaller than expected ({}), padding with zeros", 
-                       flatOutput.length, embeddingSize);
+    private List<double[]> extractBatchWithDNN(List<Mat> faces) {
+        List<Mat> inputs = new ArrayList<>(faces.size());
+        List<Mat> converted = new ArrayList<>();
+        int[] slots = new int[faces.size()];
+        for (int i = 0; i < faces.size(); i++) {
+            Mat face = faces.get(i);
+            if (face == null || face.empty()) {
+                slots[i] = -1;
+            } else {
+                slots[i] = inputs.size();
+                if (face.channels() == 3) {
+                    inputs.add(face);
+                } else {
+                    Mat bgr = new Mat();
+                    Imgproc.cvtColor(face, bgr, face.channels() == 1 ? Imgproc.COLOR_GRAY2BGR : Imgproc.COLOR_BGRA2BGR);
+                    converted.add(bgr);
+                    inputs.add(bgr);
+                }
+            }
         }
         
-        // Normalize embedding (L2 normalization)
-        normalizeEmbedding(embedding);
-        
-        blob.release();
-        output.release();
-        
-        return embedding;
-    }
-    
-    /**
-     * Simplified embedding extraction (fallback method).
-     * Uses multiple features: histogram, texture, and spatial features for better accuracy.
-     */
-    private double[] extractSimplified(Mat processed) {
-        // Use 512-dim embedding for better accuracy
-        double[] embedding = new double[512];
-        
+        List<double[]> result = new ArrayList<>(faces.size());
+        Mat batchBlob = null;
+        Mat output = null;
         try {
-            // Convert to grayscale for feature extraction
-            Mat gray = new Mat();
-            if (processed.channels() == 3) {
-                Imgproc.cvtColor(processed, gray, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray = processed;
-            }
-            
-            // Resize to standard size for consistent features
-            Mat resized = new Mat();
-            Size targetSize = new Size(112, 112);
-            Imgproc.resize(gray, resized, targetSize);
-            if (gray != processed) gray.release();
-            gray = resized;
-            
-            // Feature 1: Histogram (128 dims) - normalized
-            Mat hist = new Mat();
-            MatOfInt histSize = new MatOfInt(128);
-            MatOfFloat ranges = new MatOfFloat(0f, 256f);
-            MatOfInt channels = new MatOfInt(0);
-            
-            Imgproc.calcHist(
-                java.util.Arrays.asList(gray),
-                channels,
-                new Mat(),
-                hist,
-                histSize,
-                ranges
-            );
-            
-            // Normalize histogram
-            Core.normalize(hist, hist, 0.0, 1.0, Core.NORM_MINMAX);
-            
-            double[] histData = new double[(int) hist.total()];
-            hist.get(0, 0, histData);
-            
-            // Feature 2: Texture features (gradient-based, 128 dims)
-            double[] textureFeatures = extractTextureFeatures(gray);
-            
-            // Feature 3: Spatial features (mean/stddev, 128 dims)
-            double[] spatialFeatures = extractSpatialFeatures(gray);
-            
-            // Feature 4: Edge features (Laplacian, 128 dims)
-            double[] edgeFeatures = extractEdgeFeatures(gray);
-            
-            // Combine all features into embedding
-            int idx = 0;
-            // Histogram (128 dims)
-            for (int i = 0; i < Math.min(128, histData.length) && idx < embedding.length; i++) {
-                embedding[idx++] = histData[i];
+            if (inputs.size() < 2) {
+                return null; // Nothing to batch; the single-image path handles it
             }
-            // Texture (128 dims)
-            for (int i = 0; i < textureFeatures.length && idx < embedding.length; i++) {
-                embedding[idx++] = textureFeatures[i];
+            if (!embeddingSizeKnown) {
+                return null; // Batched outputs are checked against the width a single pass reports
             }
-            // Spatial (128 dims)
-            for (int i = 0; i < spatialFeatures.length && idx < embedding.length; i++) {
-                embedding[idx++] = spatialFeatures[i];
+            
+            // Resize and normalization happen inside blobFromImages, one pass per face
+            batchBlob = Dnn.blobFromImages(inputs, blobScale, inputSize, blobMean, false, false);
+            if (batchBlob.empty()) {
+                return null;
             }
-            // Edge (128 dims)
-            for (int i = 0; i < edgeFeatures.length && idx < embedding.length; i++) {
-                embedding[idx++] = edgeFeatures[i];
+            faceNet.setInput(batchBlob);
+            output = faceNet.forward();
+            
+            long total = output == null ? 0 : output.total();
+            int batch = inputs.size();
+            int dim = embeddingSize;
+            if (total != (long) batch * dim) {
+                // Fixed-batch models either fail the forward pass or return a single row,
+                // which must not be split into narrower "embeddings"
+                logger.info("Model does not accept batched input (output size {} for batch {} x {}), " +
+                           "using per-image inference", total, batch, dim);
+                batchInferenceSupported = false;
+                return null;
             }
             
-            // Normalize entire embedding
-            normalizeEmbedding(embedding);
-            
-            hist.release();
-            if (resized != processed) resized.release();
-            
-            logger.debug("Extracted enhanced simplified embedding: {} dimensions", embedding.length);
-            return embedding;
+            float[] flatOutput = outputBuffer(total);
+            output.get(0, 0, flatOutput);
             
-        } catch (Exception e) {
-            logger.error("Error in simplified embedding extraction", e);
-            // Return zero embedding as fallback
-            return new double[512];
+            for (int i = 0; i < faces.size(); i++) {
+                if (slots[i] < 0) {
+                    result.add(null);
+                    continue;
+                }
+                result.add(EmbeddingKernels.normalizedRow(flatOutput, slots[i] * dim, dim));
+            }
+            logger.debug("Batched embedding extraction: {} faces in one forward pass", batch);
+            return result;
+        } finally {
+            if (batchBlob != null) batchBlob.release();
+            if (output != null) output.release();
+            for (Mat mat : converted) {
+                mat.release();
+            }
         }
     }
     
     /**
-     * Extracts texture features using gradient-based approach.
+     * Extracts a float32, L2-normalized face embedding.
+     * @return embedding, or null if extraction failed
      */
-    private double[] extractTextureFeatures(Mat gray) {
-        double[] features = new double[128];
-        
-        try {
-            // Calculate gradients
-            Mat gradX = new Mat();
-            Mat gradY = new Mat();
-            Mat gradMag = new Mat();
-            
-            Imgproc.Sobel(gray, gradX, CvType.CV_64F, 1, 0, 3, 1.0, 0.0);
-            Imgproc.Sobel(gray, gradY, CvType.CV_64F, 0, 1, 3, 1.0, 0.0);
-            Core.magnitude(gradX, gradY, gradMag);
-            
-            // Calculate histogram of gradient magnitudes
-            Mat hist = new Mat();
-            MatOfInt histSize = new MatOfInt(128);
-            MatOfFloat ranges = new MatOfFloat(0f, 1000f);
-            MatOfInt channels = new MatOfInt(0);
-            
-            Imgproc.calcHist(
-                java.util.Arrays.asList(gradMag),
-                channels,
-                new Mat(),
-                hist,
-                histSize,
-                ranges
-            );
-            
-            double[] histData = new double[(int) hist.total()];
-            hist.get(0, 0, histData);
-            
-            System.arraycopy(histData, 0, features, 0, Math.min(features.length, histData.length));
-            
-            gradX.release();
-            gradY.release();
-            gradMag.release();
-            hist.release();
-            
-        } catch (Exception e) {
-            logger.debug("Error extracting texture features", e);
-        }
-        
-        return features;
+    public FloatEmbedding extractFloatEmbedding(Mat faceImage) {
+        return FloatEmbedding.of(extractEmbedding(faceImage));
     }
     
     /**
-     * Extracts spatial features using mean and variance of image regions.
+     * Extracts embedding using DNN model.
+     * Supports FaceNet (512-dim) and other models (128-dim).
+     *
+     * A single blobFromImage call resizes the face, applies the model normalization and
+     * writes the NCHW blob into {@link #blob}; the output is read into {@link #outputBuffer}.
      */
-    private double[] extractSpatialFeatures(Mat gray) {
-        double[] features = new double[128];
+    private double[] extractWithDNN(Mat faceImage) {
+        Mat bgr = toBgr(faceImage);
+        Mat input = blob;
+        Mat ownedBlob = null;
+        if (!Dnn.blobFromImageWithParams(bgr, blob, blobParams)) {
+            // OpenCV before 4.8: same single pass, into a new blob
+            ownedBlob = Dnn.blobFromImage(bgr, blobScale, inputSize, blobMean, false, false);
+            input = ownedBlob;
+        }
         
+        Mat output = null;
         try {
-            // Calculate overall statistics
-            Scalar mean = Core.mean(gray);
-            Mat meanMat = new Mat();
-            Mat stddevMat = new Mat();
-            Core.meanStdDev(gray, meanMat, stddevMat);
-            
-            // Use mean and stddev values
-            double[] meanVals = meanMat.get(0, 0);
-            double[] stddevVals = stddevMat.get(0, 0);
+            faceNet.setInput(input);
+            output = faceNet.forward();
             
-            if (meanVals != null && meanVals.length > 0) {
-                features[0] = meanVals[0] / 255.0;
-            }
-            if (stddevVals != null && stddevVals.length > 0) {
-                features[1] = stddevVals[0] / 255.0;
+            // Ensure output contains data
+            if (output == null || output.empty() || output.total() == 0) {
+                logger.error("DNN forward pass returned empty output. Check OpenCV DNN installation.");
+                return null;
             }
             
-            // Fill rest with image statistics (variance, etc.)
-            for (int i = 2; i < features.length; i++) {
-                features[i] = (mean.val[0] / 255.0) * (i % 10) / 10.0; // Simple pattern
+            // Extract embedding - size depends on model type
+            int actualSize = (int) output.total();
+            if (actualSize != embeddingSize) {
+                logger.debug("Model output size ({}) differs from expected ({}), using actual size", actualSize, embeddingSize);
+                embeddingSize = actualSize;
             }
+            embeddingSizeKnown = true;
             
-            meanMat.release();
-            stddevMat.release();
+            // DNN output is CV_32F - read it as floats
+            float[] flatOutput = outputBuffer(actualSize);
+            output.get(0, 0, flatOutput);
             
-        } catch (Exception e) {
-            logger.debug("Error extracting spatial features", e);
+            // Normalize embedding (L2 normalization)
+            return EmbeddingKernels.normalizedRow(flatOutput, 0, actualSize);
+        } finally {
+            if (output != null) output.release();
+            if (ownedBlob != null) ownedBlob.release();
         }
-        
-        return features;
     }
     
     /**
-     * Extracts edge features using Laplacian operator.
+     * Faces are fed to the model as 3-channel BGR; gray and BGRA faces are converted into
+     * {@link #colorBuffer}.
      */
-    private double[] extractEdgeFeatures(Mat gray) {
-        double[] features = new double[128];
-        
-        try {
-            Mat laplacian = new Mat();
-            Imgproc.Laplacian(gray, laplacian, CvType.CV_64F);
-            
-            // Calculate histogram of Laplacian
-            Mat hist = new Mat();
-            MatOfInt histSize = new MatOfInt(128);
-            MatOfFloat ranges = new MatOfFloat(-1000f, 1000f);
-            MatOfInt channels = new MatOfInt(0);
-            
-            Imgproc.calcHist(
-                java.util.Arrays.asList(laplacian),
-                channels,
-                new Mat(),
-                hist,
-                histSize,
-                ranges
-            );
-            
-            Core.normalize(hist, hist, 0.0, 1.0, Core.NORM_MINMAX);
-            
-            double[] histData = new double[(int) hist.total()];
-            hist.get(0, 0, histData);
-            
-            System.arraycopy(histData, 0, features, 0, Math.min(features.length, histData.length));
-            
-            laplacian.release();
-            hist.release();
-            
-        } catch (Exception e) {
-            logger.debug("Error extracting edge features", e);
+    private Mat toBgr(Mat faceImage) {
+        if (faceImage.channels() == 1) {
+            Imgproc.cvtColor(faceImage, colorBuffer, Imgproc.COLOR_GRAY2BGR);
+            return colorBuffer;
+        } else if (faceImage.channels() == 4) {
+            Imgproc.cvtColor(faceImage, colorBuffer, Imgproc.COLOR_BGRA2BGR);
+            return colorBuffer;
         }
-        
-        return features;
+        return faceImage;
     }
     
     /**
-     * Normalizes embedding vector to unit length.
+     * Output array holding at least {@code length} floats, grown when a larger output arrives.
      */
-    private void normalizeEmbedding(double[] embedding) {
-        double norm = 0.0;
-        for (double value : embedding) {
-            norm += value * value;
+    private float[] outputBuffer(long length) {
+        if (outputBuffer.length < length) {
+            outputBuffer = new float[(int) length];
         }
-        norm = Math.sqrt(norm);
-        
-        if (norm > 0.0) {
-            for (int i = 0; i < embedding.length; i++) {
-                embedding[i] /= norm;
+        return outputBuffer;
+    }
+    
+    /**
+     * Simplified embedding extraction, used when no model is loaded.
+     * OpenCV only produces the 112x112 grayscale face; the histogram, gradient, spatial and
+     * Laplacian features are computed by {@link SimplifiedEmbedding} in one pass over its pixels.
+     * @return embedding, or null if the face could not be converted
+     */
+    private double[] extractSimplified(Mat faceImage) {
+        try {
+            Mat gray = faceImage;
+            if (faceImage.channels() == 3) {
+                Imgproc.cvtColor(faceImage, grayBuffer, Imgproc.COLOR_BGR2GRAY);
+                gray = grayBuffer;
+            } else if (faceImage.channels() == 4) {
+                Imgproc.cvtColor(faceImage, grayBuffer, Imgproc.COLOR_BGRA2GRAY);
+                gray = grayBuffer;
+            }
+            Imgproc.resize(gray, simplifiedGray, SIMPLIFIED_SIZE);
+            
+            // Never compute from stale pixels if OpenCV could not produce the face
+            if (simplifiedGray.empty() || simplifiedGray.cols() != SimplifiedEmbedding.SIZE
+                    || simplifiedGray.rows() != SimplifiedEmbedding.SIZE) {
+                logger.warn("Could not convert face for simplified embedding");
+                return null;
             }
+            simplifiedGray.get(0, 0, simplifiedPixels);
+            
+            double[] embedding = simplifiedEmbedding.compute(simplifiedPixels);
+            logger.debug("Extracted enhanced simplified embedding: {} dimensions", embedding.length);
+            return embedding;
+            
+        } catch (Exception e) {
+            logger.error("Error in simplified embedding extraction", e);
+            return null;
         }
     }
     
@@ -514,11 +437,66 @@ public class FaceEmbeddingExtractor {
             throw new Exception("Unsupported model format: " + modelPath);
         }
         
+        configureBlob();
+        embeddingSizeKnown = false;
+        batchInferenceSupported = true;
+        
+        // Content-based, so copying, restoring or touching the file keeps stored embeddings valid
+        modelFingerprint = modelType + ":" + hashModel(modelFile) + ":" +
+                           (int) inputSize.width + "x" + (int) inputSize.height;
+        
         logger.info("Face recognition model loaded from: {}", modelPath);
         logger.info("Model configuration: {}x{} input, {}-dim embeddings", 
                     (int)inputSize.width, (int)inputSize.height, embeddingSize);
     }
     
+    /**
+     * SHA-256 of the model file, truncated to 16 hex characters.
+     * Computed once per unchanged file for the lifetime of the process.
+     */
+    private static String hashModel(File modelFile) throws Exception {
+        String key = modelFile.getCanonicalPath() + ":" + modelFile.length() + ":" + modelFile.lastModified();
+        String cached = MODEL_HASHES.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(modelFile.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        byte[] sha = digest.digest();
+        StringBuilder hash = new StringBuilder(16);
+        for (int i = 0; i < 8; i++) {
+            hash.append(String.format("%02x", sha[i] & 0xff));
+        }
+        MODEL_HASHES.put(key, hash.toString());
+        return hash.toString();
+    }
+    
+    /**
+     * Folds the model normalization into blob creation:
+     * ArcFace (pixel - 127.5) / 127.5, FaceNet (pixel - 127.5) * 2 / 255, others pixel / 255.
+     * Channels stay in BGR order.
+     */
+    private void configureBlob() {
+        double mean = 0.0;
+        if ("arcface".equals(modelType)) {
+            blobScale = 1.0 / 127.5;
+            mean = 127.5;
+        } else if ("facenet".equals(modelType)) {
+            blobScale = 2.0 / 255.0;
+            mean = 127.5;
+        } else {
+            blobScale = 1.0 / 255.0;
+        }
+        blobMean = new Scalar(mean, mean, mean);
+        blobParams = new Image2BlobParams(new Scalar(blobScale, blobScale, blobScale), inputSize, blobMean, false);
+    }
+    
     /**
      * Gets the current embedding size (128 for OpenFace/SFace, 512 for FaceNet).
      */
@@ -526,6 +504,22 @@ public class FaceEmbeddingExtractor {
         return embeddingSize;
     }
     
+    /**
+     * Gets a fingerprint of the active model (type, content hash and input size) and of the face
+     * alignment applied before extraction.
+     * Embeddings produced under a different fingerprint are not comparable.
+     */
+    public String getModelFingerprint() {
+        return modelFingerprint + ":" + FaceAligner.ALIGNMENT_VERSION;
+    }
+    
+    /**
+     * Input size of the active model; faces already this size are not resized again.
+     */
+    public Size getInputSize() {
+        return inputSize;
+    }
+    
     /**
      * Gets the current model type.
      */
@@ -0,0 +1,55 @@
+package com.secureview.desktop.face.embedding;
+
+/**
+ * Float32, L2-normalized face embedding.
+ * Because every instance has unit length, cosine similarity is a single dot product
+ * and no norms have to be recomputed per comparison.
+ */
+public final class FloatEmbedding {
+    private final float[] values;
+
+    private FloatEmbedding(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Wraps a float vector, normalizing it in place.
+     */
+    public static FloatEmbedding normalizeInPlace(float[] values) {
+        EmbeddingKernels.l2Normalize(values);
+        return new FloatEmbedding(values);
+    }
+
+    /**
+     * Creates a normalized float copy of a double embedding.
+     * @return embedding, or null if {@code values} is null or empty
+     */
+    public static FloatEmbedding of(double[] values) {
+        if (values == null || values.length == 0) {
+            return null;
+        }
+        return normalizeInPlace(EmbeddingKernels.toFloat(values));
+    }
+
+    /**
+     * Cosine similarity with another embedding of the same dimension.
+     */
+    public double similarity(FloatEmbedding other) {
+        return EmbeddingKernels.dot(values, other.values);
+    }
+
+    public int dimension() {
+        return values.length;
+    }
+
+    /**
+     * Returns the backing array. Callers must not modify it.
+     */
+    public float[] values() {
+        return values;
+    }
+
+    public double[] toDoubleArray() {
+        return EmbeddingKernels.toDouble(values);
+    }
+}
@@ -0,0 +1,146 @@
+package com.secureview.desktop.face.embedding;
+
+import java.util.Arrays;
+
+/**
+ * Feature vector used when no face recognition model is available, computed in pure Java
+ * from a {@value #SIZE}x{@value #SIZE} 8-bit grayscale face in a single pass.
+ *
+ * Layout (128 values each, then L2-normalized as a whole):
+ * <ol>
+ *   <li>intensity histogram over [0, 256), min-max normalized to [0, 1]</li>
+ *   <li>histogram of 3x3 Sobel gradient magnitudes over [0, 1000), min-max normalized</li>
+ *   <li>mean and standard deviation of the intensities (divided by 255), followed by
+ *       {@code mean / 255 * (i % 10) / 10}</li>
+ *   <li>histogram of the 4-neighbour Laplacian over [-1000, 1000), min-max normalized</li>
+ * </ol>
+ * Out-of-range values are not counted; the 3x3 kernels skip the one-pixel border.
+ *
+ * Instances keep their scratch histograms and are not thread-safe.
+ */
+public final class SimplifiedEmbedding {
+    /** Side length of the grayscale input. */
+    public static final int SIZE = 112;
+    public static final int DIMENSIONS = 512;
+    private static final int BINS = 128;
+    private static final int GRADIENT_RANGE = 1000;
+    private static final int LAPLACIAN_RANGE = 1000;
+
+    private final int[] intensityHist = new int[BINS];
+    private final int[] gradientHist = new int[BINS];
+    private final int[] laplacianHist = new int[BINS];
+
+    /**
+     * Computes the embedding of a row-major {@value #SIZE}x{@value #SIZE} grayscale image.
+     * @param gray 8-bit intensities, {@code SIZE * SIZE} bytes
+     * @return unit-length vector of {@value #DIMENSIONS} values
+     */
+    public double[] compute(byte[] gray) {
+        if (gray.length < SIZE * SIZE) {
+            throw new IllegalArgumentException("Expected " + SIZE * SIZE + " pixels, got " + gray.length);
+        }
+        Arrays.fill(intensityHist, 0);
+        Arrays.fill(gradientHist, 0);
+        Arrays.fill(laplacianHist, 0);
+        long sum = 0;
+        long sumSquares = 0;
+
+        // First and last rows: intensity statistics only
+        for (int x = 0; x < SIZE; x++) {
+            int top = gray[x] & 0xFF;
+            int bottom = gray[(SIZE - 1) * SIZE + x] & 0xFF;
+            intensityHist[top >> 1]++;
+            intensityHist[bottom >> 1]++;
+            sum += top + bottom;
+            sumSquares += top * top + bottom * bottom;
+        }
+
+        for (int y = 1; y < SIZE - 1; y++) {
+            int row = y * SIZE;
+            int left = gray[row] & 0xFF;
+            int right = gray[row + SIZE - 1] & 0xFF;
+            intensityHist[left >> 1]++;
+            intensityHist[right >> 1]++;
+            sum += left + right;
+            sumSquares += left * left + right * right;
+
+            for (int x = 1; x < SIZE - 1; x++) {
+                int i = row + x;
+                int p = gray[i] & 0xFF;
+                intensityHist[p >> 1]++;
+                sum += p;
+                sumSquares += p * p;
+
+                int nw = gray[i - SIZE - 1] & 0xFF;
+                int n = gray[i - SIZE] & 0xFF;
+                int ne = gray[i - SIZE + 1] & 0xFF;
+                int w = gray[i - 1] & 0xFF;
+                int e = gray[i + 1] & 0xFF;
+                int sw = gray[i + SIZE - 1] & 0xFF;
+                int s = gray[i + SIZE] & 0xFF;
+                int se = gray[i + SIZE + 1] & 0xFF;
+
+                int gx = (ne + 2 * e + se) - (nw + 2 * w + sw);
+                int gy = (sw + 2 * s + se) - (nw + 2 * n + ne);
+                int squared = gx * gx + gy * gy;
+                if (squared < GRADIENT_RANGE * GRADIENT_RANGE) {
+                    gradientHist[(int) (Math.sqrt(squared) * BINS / GRADIENT_RANGE)]++;
+                }
+
+                int laplacian = n + w + e + s - 4 * p;
+                if (laplacian >= -LAPLACIAN_RANGE && laplacian < LAPLACIAN_RANGE) {
+                    laplacianHist[(laplacian + LAPLACIAN_RANGE) * BINS / (2 * LAPLACIAN_RANGE)]++;
+                }
+            }
+        }
+
+        double[] embedding = new double[DIMENSIONS];
+        minMaxNormalize(intensityHist, embedding, 0);
+        minMaxNormalize(gradientHist, embedding, BINS);
+
+        int count = SIZE * SIZE;
+        double mean = (double) sum / count;
+        double variance = Math.max(0.0, (double) sumSquares / count - mean * mean);
+        embedding[2 * BINS] = mean / 255.0;
+        embedding[2 * BINS + 1] = Math.sqrt(variance) / 255.0;
+        for (int i = 2; i < BINS; i++) {
+            embedding[2 * BINS + i] = (mean / 255.0) * (i % 10) / 10.0;
+        }
+
+        minMaxNormalize(laplacianHist, embedding, 3 * BINS);
+        normalize(embedding);
+        return embedding;
+    }
+
+    /**
+     * Scales counts to [0, 1] by their minimum and maximum; a flat histogram becomes zeros.
+     */
+    private static void minMaxNormalize(int[] hist, double[] out, int offset) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int value : hist) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        if (max == min) {
+            return;
+        }
+        double scale = 1.0 / (max - min);
+        for (int i = 0; i < hist.length; i++) {
+            out[offset + i] = (hist[i] - min) * scale;
+        }
+    }
+
+    private static void normalize(double[] v) {
+        double norm = 0.0;
+        for (double value : v) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm > 0.0) {
+            for (int i = 0; i < v.length; i++) {
+                v[i] /= norm;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.secureview.desktop.face.gallery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Plaintext format of a persisted embedding: format version, model fingerprint,
+ * dimension, then the values as doubles. Used for the registered user's
+ * face_embedding.enc and the reference image sidecars, before encryption.
+ */
+public final class EmbeddingCodec {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingCodec.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private EmbeddingCodec() {
+    }
+
+    /**
+     * Serializes an embedding tagged with the fingerprint of the model that produced it.
+     */
+    public static byte[] encode(double[] embedding, String fingerprint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + embedding.length * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(embedding.length);
+            for (double v : embedding) {
+                out.writeDouble(v);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an embedding written by {@link #encode}.
+     * @return the embedding, or null if it was written by a different model or format version
+     * @throws IOException if the data is truncated or its dimension does not fit the data
+     */
+    public static double[] decode(byte[] bytes, String expectedFingerprint) throws IOException {
+        // Untagged data from older versions (bare little-endian doubles) fails the version or fingerprint check
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                return null;
+            }
+            String fingerprint = in.readUTF();
+            if (!fingerprint.equals(expectedFingerprint)) {
+                logger.debug("Stale embedding (fingerprint: {}, model: {})", fingerprint, expectedFingerprint);
+                return null;
+            }
+            int dim = in.readInt();
+            if (dim <= 0 || dim > in.available() / 8) {
+                throw new IOException("Invalid embedding dimension " + dim);
+            }
+            double[] embedding = new double[dim];
+            for (int i = 0; i < dim; i++) {
+                embedding[i] = in.readDouble();
+            }
+            return embedding;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.config.ApplicationConfig;
+import com.secureview.desktop.config.ConfigManager;
+import com.secureview.desktop.encryption.EncryptionService;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the registered user's decrypted face embedding resident in memory.
+ * The encrypted embedding file and the reference image list are read once on
+ * first use and kept until {@link #invalidate()} is called by a registration change,
+ * so authentication attempts do no file I/O or decryption.
+ *
+ * The stored embedding is tagged with the fingerprint of the model that produced it,
+ * in the {@link EmbeddingCodec} format shared with the {@link ReferenceEmbeddingCache} sidecars. An embedding from
+ * another model (or an untagged file from an older version) is not scored. Without
+ * reference images to fall back on, such a user counts as not registered, so the
+ * registration flow is offered instead of failing every attempt.
+ */
+public class EmbeddingGallery {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingGallery.class);
+
+    private final ConfigManager configManager;
+    private final EncryptionService encryptionService;
+    private final String embeddingFileName;
+    private final String imageDataPath;
+    private final Supplier<String> modelFingerprint;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * View of the registration data loaded from disk.
+     * Reference image embeddings are resolved lazily on first use.
+     */
+    public static class Snapshot {
+        public final FloatEmbedding storedEmbedding; // null if no (readable, current-model) embedding file
+        public final boolean embeddingFilePresent;
+        public final File[] referenceImages; // never null
+        public final long loadTimeMs;
+        private FloatEmbedding[] referenceEmbeddings;
+        private EmbeddingStore referenceStore;
+
+        Snapshot(FloatEmbedding storedEmbedding, boolean embeddingFilePresent, File[] referenceImages, long loadTimeMs) {
+            this.storedEmbedding = storedEmbedding;
+            this.embeddingFilePresent = embeddingFilePresent;
+            this.referenceImages = referenceImages;
+            this.loadTimeMs = loadTimeMs;
+        }
+
+        /**
+         * True if there is something to compare against: reference images, or a stored
+         * embedding from the active model.
+         */
+        public boolean isRegistered() {
+            return referenceImages.length > 0 || storedEmbedding != null;
+        }
+        
+        /**
+         * True if an embedding file exists but could not be used (different model, older
+         * format or unreadable) and there are no reference images, so the user has to
+         * register again.
+         */
+        public boolean needsReRegistration() {
+            return embeddingFilePresent && !isRegistered();
+        }
+        
+        /**
+         * Returns one embedding per reference image (null entries for images that
+         * could not be embedded), read from the persisted cache on first call.
+         */
+        public synchronized FloatEmbedding[] getReferenceEmbeddings(ReferenceEmbeddingCache cache) {
+            if (referenceEmbeddings == null) {
+                double[][] raw = cache.getOrComputeAll(referenceImages);
+                FloatEmbedding[] embeddings = new FloatEmbedding[referenceImages.length];
+                for (int i = 0; i < referenceImages.length; i++) {
+                    embeddings[i] = FloatEmbedding.of(raw[i]);
+                }
+                referenceEmbeddings = embeddings;
+            }
+            return referenceEmbeddings;
+        }
+
+        /**
+         * Returns the reference embeddings indexed in a store of the configured type,
+         * labelled by image file name. Built once per snapshot.
+         */
+        public synchronized EmbeddingStore getReferenceStore(ReferenceEmbeddingCache cache, ApplicationConfig config) {
+            if (referenceStore == null) {
+                EmbeddingStore store = EmbeddingStores.create(config);
+                FloatEmbedding[] embeddings = getReferenceEmbeddings(cache);
+                for (int i = 0; i < embeddings.length; i++) {
+                    FloatEmbedding embedding = embeddings[i];
+                    if (embedding == null) {
+                        continue;
+                    }
+                    try {
+                        store.add(referenceImages[i].getName(), embedding);
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Skipping reference {}: {}", referenceImages[i].getName(), e.getMessage());
+                    }
+                }
+                referenceStore = store;
+            }
+            return referenceStore;
+        }
+    }
+
+    /**
+     * @param modelFingerprint fingerprint of the active embedding model, queried on each load
+     */
+    public EmbeddingGallery(ConfigManager configManager, EncryptionService encryptionService,
+                            String embeddingFileName, String imageDataPath, Supplier<String> modelFingerprint) {
+        this.configManager = configManager;
+        this.encryptionService = encryptionService;
+        this.embeddingFileName = embeddingFileName;
+        this.imageDataPath = imageDataPath;
+        this.modelFingerprint = modelFingerprint;
+    }
+
+    /**
+     * Returns the resident snapshot, loading it from disk if needed.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drops the resident data. The next access reloads it from disk.
+     * Must be called whenever the stored embedding or reference images change.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+        logger.debug("Embedding gallery invalidated");
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    private Snapshot load() {
+        long start = System.nanoTime();
+
+        File[] referenceImages = listReferenceImages(new File(imageDataPath));
+
+        String dataDir = configManager.getConfig().getDataDirectory();
+        File embeddingFile = new File(dataDir, embeddingFileName);
+        boolean embeddingFilePresent = embeddingFile.exists();
+        FloatEmbedding storedEmbedding = null;
+
+        if (embeddingFilePresent) {
+            try {
+                byte[] encryptedData = Files.readAllBytes(embeddingFile.toPath());
+                byte[] decryptedData = encryptionService.decrypt(encryptedData);
+                double[] embedding = EmbeddingCodec.decode(decryptedData, modelFingerprint.get());
+                if (embedding != null) {
+                    storedEmbedding = FloatEmbedding.of(embedding);
+                } else {
+                    logger.warn("Stored embedding was produced by a different model or an older version and "
+                              + "is not used; {}", referenceImages.length > 0
+                              ? "only image-based comparison will be used"
+                              : "the user has to register again");
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to load stored embedding, {}", referenceImages.length > 0
+                          ? "only image-based comparison will be used"
+                          : "the user has to register again", e);
+            }
+        }
+
+        long loadTimeMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Embedding gallery loaded in {} ms (embedding: {}, reference images: {})",
+                   loadTimeMs, storedEmbedding != null ? storedEmbedding.dimension() + " dims" : "none",
+                   referenceImages.length);
+        return new Snapshot(storedEmbedding, embeddingFilePresent, referenceImages, loadTimeMs);
+    }
+
+    /**
+     * Lists the jpg/jpeg/png reference images in a directory.
+     */
+    public static File[] listReferenceImages(File dir) {
+        if (!dir.exists() || !dir.isDirectory()) {
+            return new File[0];
+        }
+        File[] imageFiles = dir.listFiles((d, name) ->
+            name.toLowerCase().endsWith(".jpg") ||
+            name.toLowerCase().endsWith(".jpeg") ||
+            name.toLowerCase().endsWith(".png"));
+        if (imageFiles == null) {
+            return new File[0];
+        }
+        java.util.Arrays.sort(imageFiles);
+        return imageFiles;
+    }
+}
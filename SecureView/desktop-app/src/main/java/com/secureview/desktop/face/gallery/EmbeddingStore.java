@@ -0,0 +1,38 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+
+import java.util.List;
+
+/**
+ * In-memory store of labelled face embeddings supporting top-k similarity search.
+ * A label may have several entries (e.g. one per registered face angle).
+ * Implementations must be safe for concurrent use.
+ */
+public interface EmbeddingStore {
+
+    /**
+     * Adds an embedding under a label.
+     */
+    void add(String label, FloatEmbedding embedding);
+
+    /**
+     * Removes every entry with the given label.
+     * @return true if anything was removed
+     */
+    boolean remove(String label);
+
+    /**
+     * Returns up to {@code k} entries ordered by descending cosine similarity.
+     */
+    List<GalleryMatch> search(FloatEmbedding query, int k);
+
+    int size();
+
+    void clear();
+
+    /**
+     * Short name used in logs and configuration ("exact", "int8", ...).
+     */
+    String getName();
+}
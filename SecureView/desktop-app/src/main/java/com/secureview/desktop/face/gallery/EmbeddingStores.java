@@ -0,0 +1,94 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.config.ApplicationConfig;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Creates the {@link EmbeddingStore} selected in the configuration and
+ * measures how closely an approximate store follows the exact one.
+ */
+public final class EmbeddingStores {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingStores.class);
+
+    public static final String EXACT = "exact";
+    public static final String INT8 = "int8";
+
+    private EmbeddingStores() {
+    }
+
+    /**
+     * Creates the store named by {@code ApplicationConfig.getGalleryStore()}.
+     * Unknown names fall back to the exact store.
+     */
+    public static EmbeddingStore create(ApplicationConfig config) {
+        String type = config.getGalleryStore();
+        if (INT8.equalsIgnoreCase(type)) {
+            return new QuantizedEmbeddingStore(config.getGalleryRerankCandidates());
+        }
+        if (type != null && !EXACT.equalsIgnoreCase(type)) {
+            logger.warn("Unknown gallery store '{}', using exact store", type);
+        }
+        return new ExactEmbeddingStore();
+    }
+
+    /**
+     * Result of comparing an approximate store against exact search.
+     */
+    public static class Evaluation {
+        public final double recallAtK;
+        public final double approximateMicrosPerQuery;
+        public final double exactMicrosPerQuery;
+
+        Evaluation(double recallAtK, double approximateMicrosPerQuery, double exactMicrosPerQuery) {
+            this.recallAtK = recallAtK;
+            this.approximateMicrosPerQuery = approximateMicrosPerQuery;
+            this.exactMicrosPerQuery = exactMicrosPerQuery;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("recall@k=%.4f, approximate=%.1f us/query, exact=%.1f us/query",
+                                 recallAtK, approximateMicrosPerQuery, exactMicrosPerQuery);
+        }
+    }
+
+    /**
+     * Runs every query against both stores and reports recall@k of the approximate
+     * store (fraction of exact top-k labels it also returned) and mean latency of each.
+     * Both stores must hold the same entries; with repeated labels recall is per label.
+     */
+    public static Evaluation evaluate(EmbeddingStore approximate, EmbeddingStore exact,
+                                      List<FloatEmbedding> queries, int k) {
+        long approxNanos = 0;
+        long exactNanos = 0;
+        int hits = 0;
+        int expected = 0;
+        for (FloatEmbedding query : queries) {
+            long start = System.nanoTime();
+            List<GalleryMatch> truth = exact.search(query, k);
+            exactNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<GalleryMatch> found = approximate.search(query, k);
+            approxNanos += System.nanoTime() - start;
+
+            java.util.Set<String> foundLabels = new java.util.HashSet<>();
+            for (GalleryMatch match : found) {
+                foundLabels.add(match.label);
+            }
+            for (GalleryMatch match : truth) {
+                expected++;
+                if (foundLabels.contains(match.label)) {
+                    hits++;
+                }
+            }
+        }
+        int n = Math.max(1, queries.size());
+        return new Evaluation(expected == 0 ? 1.0 : (double) hits / expected,
+                              approxNanos / 1000.0 / n, exactNanos / 1000.0 / n);
+    }
+}
@@ -0,0 +1,100 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.face.embedding.EmbeddingKernels;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Brute-force store that scores every entry against the query at full float precision.
+ * Embeddings are kept in one contiguous row-major matrix for cache-friendly scanning.
+ */
+public class ExactEmbeddingStore implements EmbeddingStore {
+    private int dim;
+    private int count;
+    private float[] matrix = new float[0];
+    private String[] labels = new String[0];
+    private float[] scores = new float[0];
+
+    @Override
+    public synchronized void add(String label, FloatEmbedding embedding) {
+        if (count == 0) {
+            if (embedding.dimension() != dim) {
+                // The arrays are sized for rows of the old dimension
+                clear();
+                dim = embedding.dimension();
+            }
+        } else if (embedding.dimension() != dim) {
+            throw new IllegalArgumentException("Embedding dimension " + embedding.dimension() +
+                                               " does not match store dimension " + dim);
+        }
+        ensureCapacity(count + 1);
+        System.arraycopy(embedding.values(), 0, matrix, count * dim, dim);
+        labels[count] = label;
+        count++;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (labels.length >= rows) {
+            return;
+        }
+        int capacity = Math.max(rows, Math.max(8, labels.length * 2));
+        matrix = Arrays.copyOf(matrix, capacity * dim);
+        labels = Arrays.copyOf(labels, capacity);
+        scores = new float[capacity];
+    }
+
+    @Override
+    public synchronized boolean remove(String label) {
+        boolean removed = false;
+        for (int row = count - 1; row >= 0; row--) {
+            if (labels[row].equals(label)) {
+                // Move the last row into the hole
+                int last = count - 1;
+                System.arraycopy(matrix, last * dim, matrix, row * dim, dim);
+                labels[row] = labels[last];
+                labels[last] = null;
+                count--;
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized List<GalleryMatch> search(FloatEmbedding query, int k) {
+        List<GalleryMatch> result = new ArrayList<>();
+        if (count == 0 || query.dimension() != dim) {
+            return result;
+        }
+        EmbeddingKernels.dotBatch(query.values(), matrix, dim, count, scores);
+        TopK top = new TopK(Math.min(k, count));
+        for (int row = 0; row < count; row++) {
+            top.offer(row, scores[row]);
+        }
+        for (int row : top.sortedRows()) {
+            result.add(new GalleryMatch(labels[row], scores[row]));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized void clear() {
+        count = 0;
+        matrix = new float[0];
+        labels = new String[0];
+        scores = new float[0];
+    }
+
+    @Override
+    public String getName() {
+        return "exact";
+    }
+}
@@ -0,0 +1,398 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.encryption.EncryptionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single memory-mapped file holding the enrolled face embeddings of all users.
+ *
+ * <pre>
+ * header (512 bytes): magic, version, dimension, record stride, record count,
+ *                     model fingerprint
+ * record i at 512 + i * stride:
+ *   status (1 = live, 0 = deleted), id length, id (64 bytes, UTF-8),
+ *   AES-GCM envelope of the little-endian float embedding
+ * </pre>
+ *
+ * Opening maps the file and reads the header only; records are decrypted when read.
+ * Records are appended and deletions flip the status byte in place. {@link #compact()}
+ * moves live records into deleted slots without shrinking the file, so it also works
+ * while the mapping is held (Windows refuses to truncate mapped files).
+ * The record is forced to disk before the record count in the header is raised, so
+ * a crash or power loss mid-append never leaves the count covering a torn record.
+ * Compaction is forced once at the end; its ordering guarantee (below) holds for
+ * process crashes, not for power loss mid-compaction.
+ */
+public class GalleryFile implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GalleryFile.class);
+
+    private static final int MAGIC = 0x53564746; // "SVGF"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 512;
+    private static final int MAX_FINGERPRINT_BYTES = 256;
+    private static final int ID_BYTES = 64;
+    private static final int RECORD_PREFIX = 2 + ID_BYTES;
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_DIM = 8;
+    private static final int OFF_STRIDE = 12;
+    private static final int OFF_COUNT = 16;
+    private static final int OFF_FINGERPRINT = 20;
+
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 0;
+
+    private final File file;
+    private final EncryptionService encryptionService;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int dim;
+    private int stride;
+    private int count;
+    private Map<String, List<Integer>> slotsById; // built on first lookup
+    private int deletedCount = -1;
+
+    private GalleryFile(File file, EncryptionService encryptionService, FileChannel channel) {
+        this.file = file;
+        this.encryptionService = encryptionService;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens or creates a gallery file. A file with a different format version or
+     * model fingerprint is reset to empty, since its embeddings are not comparable.
+     */
+    public static GalleryFile open(File file, EncryptionService encryptionService, String modelFingerprint)
+            throws IOException {
+        byte[] fingerprint = modelFingerprint.getBytes(StandardCharsets.UTF_8);
+        if (fingerprint.length > MAX_FINGERPRINT_BYTES) {
+            throw new IllegalArgumentException("Model fingerprint too long");
+        }
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        GalleryFile gallery = new GalleryFile(file, encryptionService, channel);
+        try {
+            gallery.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(HEADER_SIZE, channel.size()));
+            gallery.map.order(ByteOrder.LITTLE_ENDIAN);
+            if (!gallery.readHeader(fingerprint)) {
+                gallery.writeEmptyHeader(fingerprint);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return gallery;
+    }
+
+    private boolean readHeader(byte[] expectedFingerprint) {
+        if (map.getInt(OFF_MAGIC) != MAGIC) {
+            return false;
+        }
+        if (map.getInt(OFF_VERSION) != FORMAT_VERSION) {
+            logger.info("Gallery file {} has format {}, recreating", file.getName(), map.getInt(OFF_VERSION));
+            return false;
+        }
+        int length = map.getShort(OFF_FINGERPRINT) & 0xffff;
+        byte[] stored = new byte[Math.min(length, MAX_FINGERPRINT_BYTES)];
+        map.position(OFF_FINGERPRINT + 2);
+        map.get(stored);
+        if (!java.util.Arrays.equals(stored, expectedFingerprint)) {
+            logger.info("Gallery file {} was built with model {}, recreating",
+                       file.getName(), new String(stored, StandardCharsets.UTF_8));
+            return false;
+        }
+        dim = map.getInt(OFF_DIM);
+        stride = map.getInt(OFF_STRIDE);
+        count = map.getInt(OFF_COUNT);
+        // A record must fit its prefix and the envelope of a dim-float embedding
+        boolean layoutValid = dim == 0
+            ? count == 0
+            : dim > 0 && stride >= RECORD_PREFIX + dim * 4L + EncryptionService.ENVELOPE_OVERHEAD;
+        if (count < 0 || !layoutValid || (long) HEADER_SIZE + (long) count * stride > map.capacity()) {
+            logger.warn("Gallery file {} header is inconsistent, recreating", file.getName());
+            return false;
+        }
+        return true;
+    }
+
+    private void writeEmptyHeader(byte[] fingerprint) {
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            map.put(i, (byte) 0);
+        }
+        map.putInt(OFF_MAGIC, MAGIC);
+        map.putInt(OFF_VERSION, FORMAT_VERSION);
+        map.putShort(OFF_FINGERPRINT, (short) fingerprint.length);
+        map.position(OFF_FINGERPRINT + 2);
+        map.put(fingerprint);
+        dim = 0;
+        stride = 0;
+        count = 0;
+        map.putInt(OFF_DIM, 0);
+        map.putInt(OFF_STRIDE, 0);
+        map.putInt(OFF_COUNT, 0);
+        slotsById = null;
+        deletedCount = -1;
+    }
+
+    private static int strideFor(int dim) {
+        int raw = RECORD_PREFIX + dim * 4 + EncryptionService.ENVELOPE_OVERHEAD;
+        return (raw + 7) & ~7;
+    }
+
+    /**
+     * Embedding dimension, or 0 while the file is empty.
+     */
+    public synchronized int getDimension() {
+        return dim;
+    }
+
+    /**
+     * Number of record slots, including deleted ones.
+     */
+    public synchronized int getRecordCount() {
+        return count;
+    }
+
+    public synchronized int getLiveCount() {
+        return count - deletedCount();
+    }
+
+    /**
+     * Appends an embedding under an id.
+     */
+    public synchronized void append(String id, float[] embedding) throws Exception {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        if (idBytes.length > ID_BYTES) {
+            throw new IllegalArgumentException("Gallery id longer than " + ID_BYTES + " bytes: " + id);
+        }
+        if (count == 0 && dim != embedding.length) {
+            dim = embedding.length;
+            stride = strideFor(dim);
+            map.putInt(OFF_DIM, dim);
+            map.putInt(OFF_STRIDE, stride);
+        } else if (embedding.length != dim) {
+            throw new IllegalArgumentException("Embedding dimension " + embedding.length +
+                                               " does not match gallery dimension " + dim);
+        }
+
+        ByteBuffer plain = ByteBuffer.allocate(dim * 4).order(ByteOrder.LITTLE_ENDIAN);
+        plain.asFloatBuffer().put(embedding);
+        byte[] envelope = encryptionService.encrypt(plain.array());
+
+        int slot = count;
+        ensureMapped(HEADER_SIZE + (long) (slot + 1) * stride);
+        int base = offset(slot);
+        map.put(base, LIVE);
+        map.put(base + 1, (byte) idBytes.length);
+        map.position(base + 2);
+        map.put(idBytes);
+        map.position(base + RECORD_PREFIX);
+        map.put(envelope);
+        // The kernel may write mapped pages back in any order: the record must be on disk
+        // before the count that makes it visible
+        map.force();
+
+        count = slot + 1;
+        map.putInt(OFF_COUNT, count);
+        if (slotsById != null) {
+            slotsById.computeIfAbsent(id, key -> new ArrayList<>()).add(slot);
+        }
+    }
+
+    private void ensureMapped(long size) throws IOException {
+        if (size <= map.capacity()) {
+            return;
+        }
+        long grown = Math.max(size, HEADER_SIZE + Math.max(stride * 64L, (map.capacity() - HEADER_SIZE) * 2L));
+        if (grown > Integer.MAX_VALUE) {
+            throw new IOException("Gallery file too large");
+        }
+        map.force();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, grown);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int offset(int slot) {
+        return HEADER_SIZE + slot * stride;
+    }
+
+    public synchronized boolean isLive(int slot) {
+        checkSlot(slot);
+        return map.get(offset(slot)) == LIVE;
+    }
+
+    public synchronized String idAt(int slot) {
+        checkSlot(slot);
+        return readId(offset(slot));
+    }
+
+    private String readId(int base) {
+        int length = map.get(base + 1) & 0xff;
+        byte[] idBytes = new byte[Math.min(length, ID_BYTES)];
+        map.position(base + 2);
+        map.get(idBytes);
+        return new String(idBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decrypts the embedding stored in a slot.
+     */
+    public synchronized float[] read(int slot) throws Exception {
+        checkSlot(slot);
+        byte[] envelope = new byte[dim * 4 + EncryptionService.ENVELOPE_OVERHEAD];
+        map.position(offset(slot) + RECORD_PREFIX);
+        map.get(envelope);
+        byte[] plain = encryptionService.decrypt(envelope);
+        float[] embedding = new float[dim];
+        ByteBuffer.wrap(plain).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= count) {
+            throw new IndexOutOfBoundsException("Gallery slot " + slot + " of " + count);
+        }
+    }
+
+    /**
+     * Returns the live slots of an id. Builds the id table on first call.
+     */
+    public synchronized List<Integer> slotsOf(String id) {
+        List<Integer> slots = idTable().get(id);
+        return slots != null ? new ArrayList<>(slots) : new ArrayList<>();
+    }
+
+    private Map<String, List<Integer>> idTable() {
+        if (slotsById == null) {
+            Map<String, List<Integer>> table = new HashMap<>();
+            int deleted = 0;
+            for (int slot = 0; slot < count; slot++) {
+                int base = offset(slot);
+                if (map.get(base) == LIVE) {
+                    table.computeIfAbsent(readId(base), key -> new ArrayList<>()).add(slot);
+                } else {
+                    deleted++;
+                }
+            }
+            slotsById = table;
+            deletedCount = deleted;
+        }
+        return slotsById;
+    }
+
+    private int deletedCount() {
+        idTable();
+        return deletedCount;
+    }
+
+    /**
+     * Marks every record of an id as deleted.
+     * @return number of records deleted
+     */
+    public synchronized int delete(String id) {
+        List<Integer> slots = idTable().remove(id);
+        if (slots == null) {
+            return 0;
+        }
+        for (int slot : slots) {
+            map.put(offset(slot), DELETED);
+        }
+        deletedCount += slots.size();
+        return slots.size();
+    }
+
+    /**
+     * Compacts when at least a quarter of the slots are deleted.
+     * @return true if the file was compacted
+     */
+    public synchronized boolean compactIfNeeded() {
+        if (count > 0 && deletedCount() * 4 >= count) {
+            compact();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves live records from the end of the file into deleted slots and lowers the
+     * record count. Each record is copied before its source is marked deleted, so an
+     * interrupted compaction leaves at most a duplicate of one record behind.
+     */
+    public synchronized void compact() {
+        int read = count - 1;
+        int write = 0;
+        byte[] record = new byte[stride];
+        while (true) {
+            while (write < count && map.get(offset(write)) == LIVE) {
+                write++;
+            }
+            while (read > write && map.get(offset(read)) != LIVE) {
+                read--;
+            }
+            if (read <= write) {
+                break;
+            }
+            map.position(offset(read));
+            map.get(record);
+            record[0] = DELETED;
+            map.position(offset(write));
+            map.put(record);
+            map.put(offset(write), LIVE);
+            map.put(offset(read), DELETED);
+            read--;
+            write++;
+        }
+        int live = 0;
+        while (live < count && map.get(offset(live)) == LIVE) {
+            live++;
+        }
+        logger.info("Compacted gallery file {}: {} -> {} records", file.getName(), count, live);
+        count = live;
+        map.putInt(OFF_COUNT, count);
+        map.force();
+        slotsById = null;
+        deletedCount = -1;
+    }
+
+    /**
+     * Removes all records.
+     */
+    public synchronized void clear() {
+        count = 0;
+        map.putInt(OFF_COUNT, 0);
+        slotsById = null;
+        deletedCount = -1;
+    }
+
+    /**
+     * Flushes the mapping to disk.
+     */
+    public synchronized void force() {
+        map.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.secureview.desktop.face.gallery;
+
+/**
+ * A single search result from an {@link EmbeddingStore}.
+ */
+public class GalleryMatch {
+    public final String label;
+    public final double score;
+
+    public GalleryMatch(String label, double score) {
+        this.label = label;
+        this.score = score;
+    }
+
+    @Override
+    public String toString() {
+        return label + " (" + String.format("%.4f", score) + ")";
+    }
+}
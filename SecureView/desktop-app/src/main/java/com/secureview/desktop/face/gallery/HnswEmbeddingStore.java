@@ -0,0 +1,604 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.face.embedding.EmbeddingKernels;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Approximate nearest-neighbour store backed by a Hierarchical Navigable Small World graph
+ * (Malkov &amp; Yashunin). Search cost grows roughly logarithmically with the number of
+ * entries instead of linearly, which keeps 1:N identification fast for large galleries.
+ *
+ * Vectors are kept in one contiguous matrix and scored with {@link EmbeddingKernels#dotRow}.
+ * Removal marks nodes as deleted: they are still used for navigation but never returned.
+ * Once more than half the nodes are deleted the graph is rebuilt from the live ones.
+ */
+public class HnswEmbeddingStore implements EmbeddingStore {
+    private static final int MAGIC = 0x53564857; // "SVHW"
+    private static final int FORMAT_VERSION = 1;
+    // randomLevel() stays below 54 for any m >= 2 (-ln of a double in (0, 1] is at most ~36.7);
+    // a stored node with more layers than this is corrupt
+    private static final int MAX_LEVEL = 64;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private int dim;
+    private int count;
+    private int deletedCount;
+    private float[] matrix = new float[0];
+    private String[] labels = new String[0];
+    private boolean[] deleted = new boolean[0];
+    // links[node][level] = {n, neighbour_1 .. neighbour_n}
+    private int[][][] links = new int[0][][];
+    private final Map<String, List<Integer>> nodesByLabel = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    // Reused per search; all access is synchronized
+    private int[] visited = new int[0];
+    private int visitEpoch;
+    private final NodeHeap candidates = new NodeHeap(false);
+    private final NodeHeap results = new NodeHeap(true);
+
+    /**
+     * @param m              links per node on upper layers (layer 0 keeps 2*m)
+     * @param efConstruction candidate list size while inserting
+     * @param efSearch       candidate list size while searching (raised to k if smaller)
+     */
+    public HnswEmbeddingStore(int m, int efConstruction, int efSearch) {
+        this(m, efConstruction, efSearch, 42L);
+    }
+
+    HnswEmbeddingStore(int m, int efConstruction, int efSearch, long seed) {
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public synchronized void add(String label, FloatEmbedding embedding) {
+        if (count - deletedCount == 0 && count > 0) {
+            resetStorage();
+        }
+        if (count == 0) {
+            dim = embedding.dimension();
+        } else if (embedding.dimension() != dim) {
+            throw new IllegalArgumentException("Embedding dimension " + embedding.dimension() +
+                                               " does not match store dimension " + dim);
+        }
+        insert(label, embedding.values(), randomLevel());
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private void insert(String label, float[] vector, int level) {
+        ensureCapacity(count + 1);
+        int node = count++;
+        System.arraycopy(vector, 0, matrix, node * dim, dim);
+        labels[node] = label;
+        deleted[node] = false;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[1 + (l == 0 ? maxM0 : m)];
+        }
+        nodesByLabel.computeIfAbsent(label, key -> new ArrayList<>()).add(node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        float currentScore = score(vector, current);
+        for (int l = maxLevel; l > level; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[] neighbours = links[current][l];
+                for (int i = 1; i <= neighbours[0]; i++) {
+                    int next = neighbours[i];
+                    float s = score(vector, next);
+                    if (s > currentScore) {
+                        currentScore = s;
+                        current = next;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            searchLayer(vector, current, currentScore, efConstruction, l);
+            int[] found = results.drainDescending();
+            int[] selected = selectNeighbours(vector, found, m);
+            int[] own = links[node][l];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+            int maxLinks = l == 0 ? maxM0 : m;
+            for (int neighbour : selected) {
+                connect(neighbour, node, l, maxLinks);
+            }
+            current = found[0];
+            currentScore = score(vector, current);
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Adds a back-link from {@code node} to {@code target}, pruning with the
+     * selection heuristic when the node is already full.
+     */
+    private void connect(int node, int target, int level, int maxLinks) {
+        int[] list = links[node][level];
+        int n = list[0];
+        if (n < maxLinks) {
+            list[n + 1] = target;
+            list[0] = n + 1;
+            return;
+        }
+        float[] base = Arrays.copyOfRange(matrix, node * dim, node * dim + dim);
+        int[] pool = new int[n + 1];
+        System.arraycopy(list, 1, pool, 0, n);
+        pool[n] = target;
+        sortByScore(base, pool);
+        int[] kept = selectNeighbours(base, pool, maxLinks);
+        list[0] = kept.length;
+        System.arraycopy(kept, 0, list, 1, kept.length);
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is kept only if it is closer to the
+     * base vector than to any already kept neighbour, so links spread in different
+     * directions instead of all pointing into the same cluster.
+     * @param candidates sorted by descending similarity to {@code base}
+     */
+    private int[] selectNeighbours(float[] base, int[] candidates, int max) {
+        int[] kept = new int[Math.min(max, candidates.length)];
+        int n = 0;
+        for (int c = 0; c < candidates.length && n < kept.length; c++) {
+            int candidate = candidates[c];
+            float toBase = score(base, candidate);
+            boolean diverse = true;
+            for (int i = 0; i < n; i++) {
+                if (nodeScore(candidate, kept[i]) > toBase) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                kept[n++] = candidate;
+            }
+        }
+        // Fill remaining slots with the closest pruned candidates to keep the graph connected
+        for (int c = 0; c < candidates.length && n < kept.length; c++) {
+            int candidate = candidates[c];
+            boolean present = false;
+            for (int i = 0; i < n; i++) {
+                if (kept[i] == candidate) {
+                    present = true;
+                    break;
+                }
+            }
+            if (!present) {
+                kept[n++] = candidate;
+            }
+        }
+        return n == kept.length ? kept : Arrays.copyOf(kept, n);
+    }
+
+    private void sortByScore(float[] base, int[] nodes) {
+        float[] scores = new float[nodes.length];
+        Integer[] order = new Integer[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            scores[i] = score(base, nodes[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] copy = nodes.clone();
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = copy[order[i]];
+        }
+    }
+
+    /**
+     * Best-first search of one layer. Leaves the {@code ef} best nodes in {@link #results}.
+     */
+    private void searchLayer(float[] query, int entry, float entryScore, int ef, int level) {
+        int epoch = nextVisitEpoch();
+        candidates.clear();
+        results.clear();
+        visited[entry] = epoch;
+        candidates.push(entry, entryScore);
+        results.push(entry, entryScore);
+
+        while (candidates.size() > 0) {
+            float candidateScore = candidates.topScore();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            int[] neighbours = links[candidate][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int next = neighbours[i];
+                if (visited[next] == epoch) {
+                    continue;
+                }
+                visited[next] = epoch;
+                float s = score(query, next);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(next, s);
+                    results.push(next, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+    }
+
+    private int nextVisitEpoch() {
+        if (visited.length < count) {
+            visited = new int[labels.length];
+            visitEpoch = 0;
+        }
+        if (++visitEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitEpoch = 1;
+        }
+        return visitEpoch;
+    }
+
+    private float score(float[] query, int node) {
+        return EmbeddingKernels.dotRow(query, matrix, node * dim);
+    }
+
+    private float nodeScore(int a, int b) {
+        return EmbeddingKernels.dotRows(matrix, a * dim, b * dim, dim);
+    }
+
+    @Override
+    public synchronized List<GalleryMatch> search(FloatEmbedding query, int k) {
+        List<GalleryMatch> result = new ArrayList<>();
+        if (entryPoint < 0 || count == deletedCount || query.dimension() != dim || k <= 0) {
+            return result;
+        }
+        float[] q = query.values();
+        int current = entryPoint;
+        float currentScore = score(q, current);
+        for (int l = maxLevel; l > 0; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[] neighbours = links[current][l];
+                for (int i = 1; i <= neighbours[0]; i++) {
+                    int next = neighbours[i];
+                    float s = score(q, next);
+                    if (s > currentScore) {
+                        currentScore = s;
+                        current = next;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        // Deleted nodes still occupy result slots, so widen the beam by the deleted share
+        int ef = Math.max(efSearch, k);
+        if (deletedCount > 0) {
+            ef = (int) Math.min(count, (long) ef * count / Math.max(1, count - deletedCount));
+        }
+        searchLayer(q, current, currentScore, ef, 0);
+        int[] found = results.drainDescending();
+        for (int node : found) {
+            if (!deleted[node]) {
+                result.add(new GalleryMatch(labels[node], score(q, node)));
+                if (result.size() == k) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean remove(String label) {
+        List<Integer> nodes = nodesByLabel.remove(label);
+        if (nodes == null) {
+            return false;
+        }
+        for (int node : nodes) {
+            deleted[node] = true;
+        }
+        deletedCount += nodes.size();
+        if (deletedCount * 2 > count) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds the graph from the live nodes, dropping deleted ones.
+     */
+    private void compact() {
+        int live = count - deletedCount;
+        float[] oldMatrix = matrix;
+        String[] oldLabels = labels;
+        boolean[] oldDeleted = deleted;
+        int oldCount = count;
+        resetStorage();
+        ensureCapacity(live);
+        float[] vector = new float[dim];
+        for (int node = 0; node < oldCount; node++) {
+            if (!oldDeleted[node]) {
+                System.arraycopy(oldMatrix, node * dim, vector, 0, dim);
+                insert(oldLabels[node], vector, randomLevel());
+            }
+        }
+    }
+
+    private void resetStorage() {
+        count = 0;
+        deletedCount = 0;
+        matrix = new float[0];
+        labels = new String[0];
+        deleted = new boolean[0];
+        links = new int[0][][];
+        visited = new int[0];
+        nodesByLabel.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (labels.length >= rows) {
+            return;
+        }
+        int capacity = Math.max(rows, Math.max(16, labels.length * 2));
+        matrix = Arrays.copyOf(matrix, capacity * dim);
+        labels = Arrays.copyOf(labels, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+        links = Arrays.copyOf(links, capacity);
+    }
+
+    @Override
+    public synchronized int size() {
+        return count - deletedCount;
+    }
+
+    @Override
+    public synchronized void clear() {
+        resetStorage();
+    }
+
+    @Override
+    public String getName() {
+        return "hnsw";
+    }
+
+    /**
+     * Returns true if the label has at least one live entry.
+     */
+    public synchronized boolean contains(String label) {
+        return nodesByLabel.containsKey(label);
+    }
+
+    /**
+     * Serializes the graph, vectors and labels so it can be reopened without re-inserting.
+     */
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(m);
+        out.writeInt(dim);
+        out.writeInt(count);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < count; node++) {
+            out.writeUTF(labels[node]);
+            out.writeBoolean(deleted[node]);
+            out.writeInt(links[node].length);
+            for (int i = 0, off = node * dim; i < dim; i++) {
+                out.writeFloat(matrix[off + i]);
+            }
+            for (int[] list : links[node]) {
+                out.writeInt(list[0]);
+                for (int i = 1; i <= list[0]; i++) {
+                    out.writeInt(list[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #writeTo}. The store must be empty.
+     * Every layer count, neighbour id and the entry point are checked, so a corrupt or
+     * truncated index fails here instead of in a later search.
+     * @throws IOException if the data is malformed or was written with a different m
+     */
+    public synchronized void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not an HNSW index or unsupported version");
+        }
+        int storedM = in.readInt();
+        if (storedM != m) {
+            throw new IOException("Index was built with m=" + storedM + ", expected " + m);
+        }
+        resetStorage();
+        dim = in.readInt();
+        int nodes = in.readInt();
+        int storedEntry = in.readInt();
+        int storedMaxLevel = in.readInt();
+        boolean validEntry = nodes == 0
+            ? storedEntry == -1 && storedMaxLevel == -1
+            : storedEntry >= 0 && storedEntry < nodes && storedMaxLevel >= 0 && storedMaxLevel < MAX_LEVEL;
+        if (dim <= 0 && nodes > 0 || nodes < 0 || (long) nodes * dim > Integer.MAX_VALUE || !validEntry) {
+            throw new IOException("Corrupt HNSW header");
+        }
+        ensureCapacity(nodes);
+        for (int node = 0; node < nodes; node++) {
+            labels[node] = in.readUTF();
+            deleted[node] = in.readBoolean();
+            int levels = in.readInt();
+            if (levels <= 0 || levels > MAX_LEVEL) {
+                throw new IOException("Corrupt layer count " + levels + " at node " + node);
+            }
+            for (int i = 0, off = node * dim; i < dim; i++) {
+                matrix[off + i] = in.readFloat();
+            }
+            links[node] = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int n = in.readInt();
+                int capacity = l == 0 ? maxM0 : m;
+                if (n < 0 || n > capacity) {
+                    throw new IOException("Corrupt neighbour list at node " + node);
+                }
+                int[] list = new int[1 + capacity];
+                list[0] = n;
+                for (int i = 1; i <= n; i++) {
+                    int neighbour = in.readInt();
+                    if (neighbour < 0 || neighbour >= nodes) {
+                        throw new IOException("Corrupt neighbour id at node " + node);
+                    }
+                    list[i] = neighbour;
+                }
+                links[node][l] = list;
+            }
+            if (deleted[node]) {
+                deletedCount++;
+            } else {
+                nodesByLabel.computeIfAbsent(labels[node], key -> new ArrayList<>()).add(node);
+            }
+        }
+        // Searches step from a node's layer-l list onto layer l of each neighbour, and start
+        // from the top layer of the entry point
+        for (int node = 0; node < nodes; node++) {
+            for (int l = 1; l < links[node].length; l++) {
+                int[] list = links[node][l];
+                for (int i = 1; i <= list[0]; i++) {
+                    if (links[list[i]].length <= l) {
+                        throw new IOException("Node " + node + " links to node " + list[i] + " above its top layer");
+                    }
+                }
+            }
+        }
+        if (nodes > 0 && links[storedEntry].length != storedMaxLevel + 1) {
+            throw new IOException("Entry point " + storedEntry + " is not on the top layer " + storedMaxLevel);
+        }
+        count = nodes;
+        entryPoint = storedEntry;
+        maxLevel = storedMaxLevel;
+    }
+
+    /**
+     * Binary heap of (node, score) pairs in parallel primitive arrays.
+     * A min-heap keeps the worst of the current results on top, a max-heap the best candidate.
+     */
+    private static final class NodeHeap {
+        private final boolean minHeap;
+        private int[] nodes = new int[64];
+        private float[] scores = new float[64];
+        private int size;
+
+        NodeHeap(boolean minHeap) {
+            this.minHeap = minHeap;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                int node = nodes[size];
+                float score = scores[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                        child++;
+                    }
+                    if (!before(scores[child], score)) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    scores[i] = scores[child];
+                    i = child;
+                }
+                nodes[i] = node;
+                scores[i] = score;
+            }
+            return top;
+        }
+
+        /**
+         * Empties the heap and returns its nodes ordered by descending score.
+         * Only meaningful for the min-heap.
+         */
+        int[] drainDescending() {
+            int[] out = new int[size];
+            for (int i = out.length - 1; i >= 0; i--) {
+                out[i] = pop();
+            }
+            return out;
+        }
+
+        private boolean before(float a, float b) {
+            return minHeap ? a < b : a > b;
+        }
+    }
+}
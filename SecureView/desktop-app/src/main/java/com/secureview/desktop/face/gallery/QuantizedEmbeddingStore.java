@@ -0,0 +1,166 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.face.embedding.EmbeddingKernels;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Two-stage store: an 8-bit scalar-quantized pre-scan over all entries followed by
+ * exact float re-ranking of the best candidates.
+ *
+ * Each unit-length embedding is quantized symmetrically with its own scale
+ * (max |v| / 127), so the approximate score is scaleA * scaleB * sum(qa * qb).
+ * The pre-scan touches a quarter of the bytes of the float matrix; only
+ * {@code rerankCandidates} rows are then rescored at full precision.
+ */
+public class QuantizedEmbeddingStore implements EmbeddingStore {
+    private final int rerankCandidates;
+
+    private int dim;
+    private int count;
+    private byte[] codes = new byte[0];
+    private float[] codeScales = new float[0];
+    private float[] matrix = new float[0];
+    private String[] labels = new String[0];
+
+    public QuantizedEmbeddingStore(int rerankCandidates) {
+        this.rerankCandidates = Math.max(1, rerankCandidates);
+    }
+
+    @Override
+    public synchronized void add(String label, FloatEmbedding embedding) {
+        if (count == 0) {
+            if (embedding.dimension() != dim) {
+                // The arrays are sized for rows of the old dimension
+                clear();
+                dim = embedding.dimension();
+            }
+        } else if (embedding.dimension() != dim) {
+            throw new IllegalArgumentException("Embedding dimension " + embedding.dimension() +
+                                               " does not match store dimension " + dim);
+        }
+        ensureCapacity(count + 1);
+        float[] values = embedding.values();
+        System.arraycopy(values, 0, matrix, count * dim, dim);
+        codeScales[count] = quantize(values, codes, count * dim);
+        labels[count] = label;
+        count++;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (labels.length >= rows) {
+            return;
+        }
+        int capacity = Math.max(rows, Math.max(8, labels.length * 2));
+        codes = Arrays.copyOf(codes, capacity * dim);
+        codeScales = Arrays.copyOf(codeScales, capacity);
+        matrix = Arrays.copyOf(matrix, capacity * dim);
+        labels = Arrays.copyOf(labels, capacity);
+    }
+
+    /**
+     * Quantizes {@code values} into {@code out} at {@code offset}.
+     * @return the dequantization scale
+     */
+    static float quantize(float[] values, byte[] out, int offset) {
+        float maxAbs = 0f;
+        for (float v : values) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        if (maxAbs == 0f) {
+            Arrays.fill(out, offset, offset + values.length, (byte) 0);
+            return 0f;
+        }
+        float inv = 127f / maxAbs;
+        for (int i = 0; i < values.length; i++) {
+            out[offset + i] = (byte) Math.round(values[i] * inv);
+        }
+        return maxAbs / 127f;
+    }
+
+    private static int dotInt8(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int upper = length & ~3;
+        for (; i < upper; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    @Override
+    public synchronized boolean remove(String label) {
+        boolean removed = false;
+        for (int row = count - 1; row >= 0; row--) {
+            if (labels[row].equals(label)) {
+                int last = count - 1;
+                System.arraycopy(matrix, last * dim, matrix, row * dim, dim);
+                System.arraycopy(codes, last * dim, codes, row * dim, dim);
+                codeScales[row] = codeScales[last];
+                labels[row] = labels[last];
+                labels[last] = null;
+                count--;
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized List<GalleryMatch> search(FloatEmbedding query, int k) {
+        List<GalleryMatch> result = new ArrayList<>();
+        if (count == 0 || query.dimension() != dim) {
+            return result;
+        }
+
+        // Stage 1: int8 pre-scan
+        byte[] queryCodes = new byte[dim];
+        float queryScale = quantize(query.values(), queryCodes, 0);
+        TopK candidates = new TopK(Math.min(count, Math.max(k, rerankCandidates)));
+        for (int row = 0, offset = 0; row < count; row++, offset += dim) {
+            int approx = dotInt8(queryCodes, 0, codes, offset, dim);
+            candidates.offer(row, approx * codeScales[row] * queryScale);
+        }
+
+        // Stage 2: exact rescoring of the candidates
+        int[] candidateRows = candidates.sortedRows();
+        float[] exactScores = new float[candidateRows.length];
+        TopK top = new TopK(Math.min(k, candidateRows.length));
+        for (int i = 0; i < candidateRows.length; i++) {
+            exactScores[i] = EmbeddingKernels.dotRow(query.values(), matrix, candidateRows[i] * dim);
+            top.offer(i, exactScores[i]);
+        }
+        for (int i : top.sortedRows()) {
+            result.add(new GalleryMatch(labels[candidateRows[i]], exactScores[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized void clear() {
+        count = 0;
+        codes = new byte[0];
+        codeScales = new float[0];
+        matrix = new float[0];
+        labels = new String[0];
+    }
+
+    @Override
+    public String getName() {
+        return "int8";
+    }
+}
@@ -0,0 +1,172 @@
+package com.secureview.desktop.face.gallery;
+
+import com.secureview.desktop.encryption.EncryptionService;
+import com.secureview.desktop.face.detection.FaceDetector;
+import com.secureview.desktop.face.embedding.EmbeddingInferenceService;
+import com.secureview.desktop.opencv.stub.Imgcodecs;
+import com.secureview.desktop.opencv.stub.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the embedding of each registered reference image next to the image
+ * (e.g. face_angle_001.jpg.emb), encrypted and tagged with the model fingerprint.
+ * A sidecar whose fingerprint does not match the active model is treated as stale
+ * and rebuilt from the image on first use.
+ */
+public class ReferenceEmbeddingCache {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceEmbeddingCache.class);
+
+    public static final String SIDECAR_SUFFIX = ".emb";
+
+    private final EncryptionService encryptionService;
+    private final EmbeddingInferenceService inferenceService;
+    private final FaceDetector faceDetector;
+
+    /**
+     * @param faceDetector aligns reference images the same way live faces are aligned
+     */
+    public ReferenceEmbeddingCache(EncryptionService encryptionService, EmbeddingInferenceService inferenceService,
+                                   FaceDetector faceDetector) {
+        this.encryptionService = encryptionService;
+        this.inferenceService = inferenceService;
+        this.faceDetector = faceDetector;
+    }
+
+    /**
+     * Returns the cached embedding for a reference image, computing and storing
+     * it if the sidecar is missing or was produced by a different model.
+     * @return embedding, or null if the image could not be embedded
+     */
+    public double[] getOrCompute(File imageFile) {
+        double[] cached = load(imageFile);
+        if (cached != null) {
+            return cached;
+        }
+
+        double[] embedding = computeFromImage(imageFile);
+        if (embedding != null) {
+            store(imageFile, embedding);
+            logger.info("Rebuilt cached embedding for {} (model: {})",
+                       imageFile.getName(), inferenceService.getModelFingerprint());
+        }
+        return embedding;
+    }
+
+    /**
+     * Batch form of {@link #getOrCompute}: images without a valid sidecar are
+     * embedded together in batched forward passes.
+     * @return one entry per image, null where the image could not be embedded
+     */
+    public double[][] getOrComputeAll(File[] imageFiles) {
+        double[][] embeddings = new double[imageFiles.length][];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < imageFiles.length; i++) {
+            embeddings[i] = load(imageFiles[i]);
+            if (embeddings[i] == null) {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return embeddings;
+        }
+
+        List<Mat> aligned = new ArrayList<>(missing.size());
+        for (int i : missing) {
+            aligned.add(readAligned(imageFiles[i]));
+        }
+        List<double[]> computed = inferenceService.extractEmbeddings(aligned);
+        for (int j = 0; j < missing.size(); j++) {
+            int i = missing.get(j);
+            if (aligned.get(j) != null) {
+                aligned.get(j).release();
+            }
+            embeddings[i] = computed.get(j);
+            if (embeddings[i] != null) {
+                store(imageFiles[i], embeddings[i]);
+            }
+        }
+        logger.info("Rebuilt {} cached embeddings (model: {})", missing.size(), inferenceService.getModelFingerprint());
+        return embeddings;
+    }
+
+    /**
+     * Loads a sidecar embedding if it exists and matches the active model.
+     */
+    public double[] load(File imageFile) {
+        File sidecar = sidecarFor(imageFile);
+        if (!sidecar.exists()) {
+            return null;
+        }
+        try {
+            byte[] decrypted = encryptionService.decrypt(Files.readAllBytes(sidecar.toPath()));
+            double[] embedding = EmbeddingCodec.decode(decrypted, inferenceService.getModelFingerprint());
+            if (embedding == null) {
+                logger.debug("Stale embedding cache for {}", imageFile.getName());
+            }
+            return embedding;
+        } catch (Exception e) {
+            logger.warn("Failed to read embedding cache {}, it will be rebuilt", sidecar.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the embedding sidecar for a reference image.
+     */
+    public void store(File imageFile, double[] embedding) {
+        File sidecar = sidecarFor(imageFile);
+        try {
+            byte[] bytes = EmbeddingCodec.encode(embedding, inferenceService.getModelFingerprint());
+            Files.write(sidecar.toPath(), encryptionService.encrypt(bytes));
+        } catch (Exception e) {
+            logger.warn("Failed to write embedding cache {}", sidecar.getName(), e);
+        }
+    }
+
+    private double[] computeFromImage(File imageFile) {
+        Mat alignedRef = readAligned(imageFile);
+        if (alignedRef == null) {
+            return null;
+        }
+        double[] embedding = inferenceService.extractEmbedding(alignedRef);
+        alignedRef.release();
+        return embedding;
+    }
+
+    /**
+     * Reads and aligns a reference image.
+     * @return aligned face owned by the caller, or null if the image could not be read
+     */
+    private Mat readAligned(File imageFile) {
+        Mat refImage = Imgcodecs.imread(imageFile.getAbsolutePath());
+        if (refImage == null || refImage.empty()) {
+            return null;
+        }
+        Mat alignedRef = faceDetector.alignFace(refImage, inferenceService.getInputSize());
+        if (alignedRef == null || alignedRef == refImage) {
+            return refImage;
+        }
+        refImage.release();
+        return alignedRef;
+    }
+
+    public static File sidecarFor(File imageFile) {
+        return new File(imageFile.getPath() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Deletes the sidecar of a reference image, if any.
+     */
+    public static void deleteFor(File imageFile) {
+        File sidecar = sidecarFor(imageFile);
+        if (sidecar.exists() && !sidecar.delete()) {
+            logger.warn("Failed to delete embedding cache {}", sidecar.getName());
+        }
+    }
+}
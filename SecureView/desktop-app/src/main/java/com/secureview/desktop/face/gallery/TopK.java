@@ -0,0 +1,57 @@
+package com.secureview.desktop.face.gallery;
+
+/**
+ * Fixed-capacity selection of the highest scoring row indices.
+ * Keeps a small unsorted buffer and tracks its minimum, which is cheaper than a heap
+ * for the small k used in face matching.
+ */
+class TopK {
+    private final int[] rows;
+    private final float[] scores;
+    private int count;
+    private int minSlot;
+
+    TopK(int k) {
+        rows = new int[Math.max(1, k)];
+        scores = new float[rows.length];
+    }
+
+    void offer(int row, float score) {
+        if (count < rows.length) {
+            rows[count] = row;
+            scores[count] = score;
+            if (count == 0 || score < scores[minSlot]) {
+                minSlot = count;
+            }
+            count++;
+        } else if (score > scores[minSlot]) {
+            rows[minSlot] = row;
+            scores[minSlot] = score;
+            for (int i = 0; i < count; i++) {
+                if (scores[i] < scores[minSlot]) {
+                    minSlot = i;
+                }
+            }
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns the selected rows ordered by descending score.
+     */
+    int[] sortedRows() {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        java.util.Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = rows[order[i]];
+        }
+        return sorted;
+    }
+}
@@ -4,9 +4,6 @@ import com.secureview.desktop.opencv.stub.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Detects liveness to prevent spoofing attacks using photos or videos.
  * Uses multiple techniques: eye blink detection, head movement, texture analysis.
@@ -14,13 +11,28 @@ import java.util.List;
 public class LivenessDetector {
     private static final Logger logger = LoggerFactory.getLogger(LivenessDetector.class);
     
-    private List<Mat> previousFrames;
     private static final int FRAME_HISTORY_SIZE = 5;
     private static final double MIN_MOVEMENT_THRESHOLD = 0.02;
     
+    // Frame history: a ring of 64x64 grayscale thumbnails. One slot more than the window,
+    // so the newest frame can be pulled in while the window is still intact.
+    private static final int THUMBNAIL_SIZE = 64;
+    private static final int THUMBNAIL_PIXELS = THUMBNAIL_SIZE * THUMBNAIL_SIZE;
+    private static final Size THUMBNAIL = new Size(THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+    private static final int SLOTS = FRAME_HISTORY_SIZE + 1;
+    private final byte[][] thumbnails = new byte[SLOTS][THUMBNAIL_PIXELS];
+    private final int[] thumbnailSums = new int[SLOTS];
+    private int head; // slot the next frame is written to
+    private int historyCount; // frames in the window, at most FRAME_HISTORY_SIZE
+    private final Mat thumbnail = new Mat();
+    
+    // Grayscale face and its pixels, reused by every texture analysis
+    private final Mat grayBuffer = new Mat();
+    private byte[] grayPixels = new byte[0];
+    
     public void initialize() {
         logger.info("Initializing Liveness Detector...");
-        previousFrames = new ArrayList<>();
+        reset();
         logger.info("Liveness Detector initialized");
     }
     
@@ -35,234 +47,151 @@ public class LivenessDetector {
             return false;
         }
         
-        // Fast path: If we have previous frames, do quick movement check
-        // Otherwise, assume live (first frame)
-        if (previousFrames.isEmpty()) {
-            updateFrameHistory(faceImage);
-            return true; // First frame, assume live
-        }
+        Mat gray = toGray(faceImage);
         
-        // Quick movement check (fastest method)
-        boolean hasMovement = checkMovement(faceImage);
-        
-        // Update frame history
-        updateFrameHistory(faceImage);
+        // Quick movement check of this frame's thumbnail against the history window.
+        // The first frame has nothing to compare with: assume live.
+        boolean captured = captureThumbnail(gray);
+        boolean hasMovement = captured && (historyCount == 0 || checkMovement());
+        if (captured) {
+            commitThumbnail();
+        }
         
-        // Simplified: Only check movement for speed
-        // Texture and 3D checks are expensive, skip them for faster authentication
         if (hasMovement) {
             return true; // Movement detected, assume live
         }
         
-        // If no movement, do a quick texture check (simplified)
-        // Skip expensive 3D structure check
-        boolean isRealTexture = checkTextureFast(faceImage);
+        // If no movement, run the full texture (LBP) and 3D structure checks; both come
+        // from one pass over the face's pixels
+        TextureKernels.TextureStats texture = analyzeTexture(gray);
+        boolean isRealTexture = texture != null && checkTexture(texture);
+        boolean has3DStructure = texture != null && check3DStructure(texture);
         
-        boolean isLive = isRealTexture; // Only need texture check if no movement
+        boolean isLive = isRealTexture && has3DStructure;
         
         if (!isLive) {
-            logger.debug("Liveness detection failed. Movement: {}, Texture: {}", 
-                hasMovement, isRealTexture);
+            logger.debug("Liveness detection failed. Movement: {}, Texture: {}, 3D: {}", 
+                hasMovement, isRealTexture, has3DStructure);
         }
         
         return isLive;
     }
     
     /**
-     * Checks for movement between frames.
+     * The face as one 8-bit channel; color faces are converted into {@link #grayBuffer}.
      */
-    private boolean checkMovement(Mat currentFrame) {
-        if (previousFrames.isEmpty()) {
-            return true; // First frame, assume movement
+    private Mat toGray(Mat faceImage) {
+        if (faceImage.channels() == 3) {
+            Imgproc.cvtColor(faceImage, grayBuffer, Imgproc.COLOR_BGR2GRAY);
+            return grayBuffer;
+        } else if (faceImage.channels() == 4) {
+            Imgproc.cvtColor(faceImage, grayBuffer, Imgproc.COLOR_BGRA2GRAY);
+            return grayBuffer;
         }
-        
-        Mat previousFrame = previousFrames.get(previousFrames.size() - 1);
-        
-        // Calculate optical flow or frame difference
-        Mat diff = new Mat();
-        Core.absdiff(currentFrame, previousFrame, diff);
-        
-        // Calculate mean difference
-        Scalar meanDiff = Core.mean(diff);
-        double movement = meanDiff.val[0] / 255.0;
-        
-        diff.release();
-        
-        return movement > MIN_MOVEMENT_THRESHOLD;
+        return faceImage;
     }
     
     /**
-     * Fast texture check - simplified version for performance.
+     * Shrinks the face to a thumbnail and pulls it into the ring slot at {@link #head},
+     * which is not part of the window yet. Crops of any size map onto the same grid.
+     * @return false if no thumbnail could be produced
      */
-    private boolean checkTextureFast(Mat faceImage) {
-        // Simplified texture check using variance
-        Mat gray = new Mat();
-        if (faceImage.channels() == 3) {
-            Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            gray = faceImage;
+    private boolean captureThumbnail(Mat gray) {
+        if (gray.empty() || gray.elemSize() != 1) {
+            return false;
         }
-        
-        Mat mean = new Mat();
-        Mat stddev = new Mat();
-        Core.meanStdDev(gray, mean, stddev);
-        
-        // Defensive coding: stub Mat.get(...) may return null if underlying data
-        // is not available yet. In that case, treat variance as low (non-live)
-        // instead of throwing an exception.
-        double variance = 0.0;
-        try {
-            double[] vals = stddev.get(0, 0);
-            if (vals != null && vals.length > 0) {
-                variance = vals[0];
-            } else {
-                logger.debug("LivenessDetector.checkTextureFast: stddev.get(0,0) returned null/empty, treating as low variance");
-            }
-        } catch (Exception e) {
-            logger.debug("LivenessDetector.checkTextureFast: error reading stddev value, treating as low variance", e);
-            variance = 0.0;
+        Imgproc.resize(gray, thumbnail, THUMBNAIL, Imgproc.INTER_AREA);
+        if (thumbnail.empty() || thumbnail.cols() != THUMBNAIL_SIZE || thumbnail.rows() != THUMBNAIL_SIZE) {
+            return false;
         }
         
-        if (gray != faceImage) {
-            gray.release();
+        byte[] pixels = thumbnails[head];
+        thumbnail.get(0, 0, pixels);
+        int sum = 0;
+        for (byte pixel : pixels) {
+            sum += pixel & 0xFF;
         }
-        
-        // Lower threshold for faster processing
-        return variance > 8.0;
+        thumbnailSums[head] = sum;
+        return true;
     }
     
     /**
-     * Analyzes texture to detect printed photos (full version - slower).
+     * Adds the captured thumbnail to the window, dropping the oldest frame when it is full.
      */
-    private boolean checkTexture(Mat faceImage) {
-        // Convert to grayscale if needed
-        Mat gray = new Mat();
-        if (faceImage.channels() == 3) {
-            Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            gray = faceImage;
-        }
-        
-        // Calculate Local Binary Pattern (LBP) or similar texture descriptor
-        // Real faces have more texture variation than printed photos
-        
-        Mat lbp = calculateLBP(gray);
-        
-        // Calculate variance of LBP
-        Mat mean = new Mat();
-        Mat stddev = new Mat();
-        Core.meanStdDev(lbp, mean, stddev);
-        
-        double textureVariance = stddev.get(0, 0)[0];
-        
-        if (gray != faceImage) {
-            gray.release();
-        }
-        lbp.release();
-        
-        // Real faces typically have higher texture variance
-        return textureVariance > 10.0;
+    private void commitThumbnail() {
+        head = (head + 1) % SLOTS;
+        historyCount = Math.min(historyCount + 1, FRAME_HISTORY_SIZE);
     }
     
     /**
-     * Calculates Local Binary Pattern for texture analysis.
+     * Checks for movement between the captured thumbnail and every frame in the window.
+     *
+     * Each comparison is the mean absolute gray-level difference after removing both
+     * thumbnails' mean brightness, so exposure changes do not count as movement. The
+     * comparisons are averaged: a single noisy frame moves the score little, while slow
+     * movement adds up against the older frames.
      */
-    private Mat calculateLBP(Mat image) {
-        Mat lbp = new Mat(image.size(), CvType.CV_8UC1);
-        
-        for (int y = 1; y < image.rows() - 1; y++) {
-            for (int x = 1; x < image.cols() - 1; x++) {
-                double center = image.get(y, x)[0];
-                int code = 0;
-                
-                // 8-neighborhood
-                double[] neighbors = {
-                    image.get(y - 1, x - 1)[0],
-                    image.get(y - 1, x)[0],
-                    image.get(y - 1, x + 1)[0],
-                    image.get(y, x + 1)[0],
-                    image.get(y + 1, x + 1)[0],
-                    image.get(y + 1, x)[0],
-                    image.get(y + 1, x - 1)[0],
-                    image.get(y, x - 1)[0]
-                };
-                
-                for (int i = 0; i < 8; i++) {
-                    if (neighbors[i] >= center) {
-                        code |= (1 << i);
-                    }
-                }
-                
-                lbp.put(y, x, code);
+    private boolean checkMovement() {
+        byte[] current = thumbnails[head];
+        double total = 0.0;
+        for (int k = 1; k <= historyCount; k++) {
+            int slot = (head - k + SLOTS) % SLOTS;
+            byte[] previous = thumbnails[slot];
+            // THUMBNAIL_PIXELS * (difference - mean difference), kept in integers
+            int offset = thumbnailSums[head] - thumbnailSums[slot];
+            long sum = 0;
+            for (int i = 0; i < THUMBNAIL_PIXELS; i++) {
+                sum += Math.abs(THUMBNAIL_PIXELS * ((current[i] & 0xFF) - (previous[i] & 0xFF)) - offset);
             }
+            total += sum / ((double) THUMBNAIL_PIXELS * THUMBNAIL_PIXELS);
         }
-        
-        return lbp;
+        double movement = total / historyCount / 255.0;
+        logger.debug("Movement over {} frames: {}", historyCount, movement);
+        return movement > MIN_MOVEMENT_THRESHOLD;
     }
     
     /**
-     * Checks for 3D structure (depth information).
+     * Pulls the face's grayscale plane once and computes its texture statistics.
+     * @return statistics, or null if the pixels could not be read
      */
-    private boolean check3DStructure(Mat faceImage) {
-        // Simplified 3D structure check using gradient analysis
-        // Real faces have depth, which creates gradients
-        // Flat photos have less pronounced gradients
-        
-        Mat gray = new Mat();
-        if (faceImage.channels() == 3) {
-            Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            gray = faceImage;
+    private TextureKernels.TextureStats analyzeTexture(Mat gray) {
+        int width = gray.cols();
+        int height = gray.rows();
+        if (gray.empty() || width == 0 || height == 0 || gray.elemSize() != 1) {
+            logger.debug("Face has no 8-bit grayscale plane, skipping texture analysis");
+            return null;
         }
         
-        // Calculate gradients
-        Mat gradX = new Mat();
-        Mat gradY = new Mat();
-        Mat gradMag = new Mat();
-        
-        Imgproc.Sobel(gray, gradX, CvType.CV_64F, 1, 0, 3, 1.0, 0.0);
-        Imgproc.Sobel(gray, gradY, CvType.CV_64F, 0, 1, 3, 1.0, 0.0);
-        
-        Core.magnitude(gradX, gradY, gradMag);
-        
-        // Calculate mean gradient magnitude
-        Scalar meanGrad = Core.mean(gradMag);
-        double avgGradient = meanGrad.val[0];
-        
-        if (gray != faceImage) {
-            gray.release();
+        int pixels = width * height;
+        if (grayPixels.length < pixels) {
+            grayPixels = new byte[pixels];
         }
-        gradX.release();
-        gradY.release();
-        gradMag.release();
-        
-        // Real faces have more pronounced gradients
-        return avgGradient > 20.0;
+        gray.get(0, 0, grayPixels);
+        return TextureKernels.analyze(grayPixels, width, height);
     }
     
     /**
-     * Updates frame history for movement detection.
+     * Analyzes texture to detect printed photos: real faces have more varied local
+     * binary patterns.
      */
-    private void updateFrameHistory(Mat frame) {
-        Mat frameCopy = new Mat();
-        frame.copyTo(frameCopy);
-        
-        previousFrames.add(frameCopy);
-        
-        if (previousFrames.size() > FRAME_HISTORY_SIZE) {
-            Mat oldFrame = previousFrames.remove(0);
-            oldFrame.release();
-        }
+    private boolean checkTexture(TextureKernels.TextureStats texture) {
+        return texture.getLbpStdDev() > 10.0;
+    }
+    
+    /**
+     * Checks for 3D structure (depth information).
+     * Real faces have depth, which creates pronounced gradients; flat photos have less.
+     */
+    private boolean check3DStructure(TextureKernels.TextureStats texture) {
+        return texture.getMeanGradient() > 20.0;
     }
     
     /**
      * Resets the liveness detector state.
      */
     public void reset() {
-        for (Mat frame : previousFrames) {
-            frame.release();
-        }
-        previousFrames.clear();
+        head = 0;
+        historyCount = 0;
     }
 }
 
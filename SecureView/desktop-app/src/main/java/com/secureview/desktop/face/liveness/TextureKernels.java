@@ -0,0 +1,253 @@
+package com.secureview.desktop.face.liveness;
+
+import java.util.stream.IntStream;
+
+/**
+ * Texture statistics for liveness checks, computed in pure Java from an 8-bit grayscale
+ * plane pulled out of OpenCV once.
+ *
+ * A single pass over the plane gathers the intensity mean/deviation, the 8-neighbour LBP
+ * codes (their mean/deviation and the uniform-pattern histogram) and the mean 3x3 Sobel
+ * gradient magnitude. Large planes are split into row bands analysed in parallel.
+ */
+public final class TextureKernels {
+    /** 58 uniform patterns (at most two 0/1 transitions) plus one bin for all others. */
+    public static final int UNIFORM_BINS = 59;
+    private static final int[] UNIFORM_INDEX = uniformIndex();
+
+    // Below this many pixels (a 320x320 face) splitting into bands costs more than it saves
+    private static final int PARALLEL_MIN_PIXELS = 320 * 320;
+    private static final int MIN_BAND_ROWS = 32;
+
+    private TextureKernels() {
+    }
+
+    /**
+     * Statistics of one grayscale plane.
+     */
+    public static final class TextureStats {
+        private final double intensityMean;
+        private final double intensityStdDev;
+        private final double lbpMean;
+        private final double lbpStdDev;
+        private final double meanGradient;
+        private final double[] uniformLbpHistogram;
+
+        TextureStats(double intensityMean, double intensityStdDev, double lbpMean, double lbpStdDev,
+                     double meanGradient, double[] uniformLbpHistogram) {
+            this.intensityMean = intensityMean;
+            this.intensityStdDev = intensityStdDev;
+            this.lbpMean = lbpMean;
+            this.lbpStdDev = lbpStdDev;
+            this.meanGradient = meanGradient;
+            this.uniformLbpHistogram = uniformLbpHistogram;
+        }
+
+        public double getIntensityMean() {
+            return intensityMean;
+        }
+
+        public double getIntensityStdDev() {
+            return intensityStdDev;
+        }
+
+        /**
+         * Mean of the LBP image; border pixels, which have no code, count as 0.
+         */
+        public double getLbpMean() {
+            return lbpMean;
+        }
+
+        /**
+         * Standard deviation of the LBP image; border pixels count as 0.
+         */
+        public double getLbpStdDev() {
+            return lbpStdDev;
+        }
+
+        /**
+         * Mean Sobel gradient magnitude (3x3, reflected borders, as {@code Imgproc.Sobel}).
+         */
+        public double getMeanGradient() {
+            return meanGradient;
+        }
+
+        /**
+         * Uniform-LBP histogram of the interior pixels, summing to 1 ({@value #UNIFORM_BINS} bins,
+         * the last one for non-uniform codes). Callers must not modify it.
+         */
+        public double[] getUniformLbpHistogram() {
+            return uniformLbpHistogram;
+        }
+    }
+
+    /** Sums of one row band, merged after the bands are done. */
+    private static final class Partial {
+        long sum;
+        long sumSquares;
+        long lbpSum;
+        long lbpSumSquares;
+        double gradientSum;
+        final long[] uniform = new long[UNIFORM_BINS];
+
+        void add(Partial other) {
+            sum += other.sum;
+            sumSquares += other.sumSquares;
+            lbpSum += other.lbpSum;
+            lbpSumSquares += other.lbpSumSquares;
+            gradientSum += other.gradientSum;
+            for (int i = 0; i < UNIFORM_BINS; i++) {
+                uniform[i] += other.uniform[i];
+            }
+        }
+    }
+
+    /**
+     * Analyses a row-major {@code width} x {@code height} 8-bit plane, in parallel row bands
+     * when it is large enough.
+     */
+    public static TextureStats analyze(byte[] gray, int width, int height) {
+        return analyze(gray, width, height, (long) width * height >= PARALLEL_MIN_PIXELS);
+    }
+
+    public static TextureStats analyze(byte[] gray, int width, int height, boolean parallel) {
+        if (width <= 0 || height <= 0 || gray.length < width * height) {
+            throw new IllegalArgumentException("Plane of " + gray.length + " bytes is not " + width + "x" + height);
+        }
+        int bands = parallel
+            ? Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), height / MIN_BAND_ROWS))
+            : 1;
+
+        Partial total;
+        if (bands == 1) {
+            total = band(gray, width, height, 0, height);
+        } else {
+            Partial[] partials = new Partial[bands];
+            IntStream.range(0, bands).parallel().forEach(b ->
+                partials[b] = band(gray, width, height, height * b / bands, height * (b + 1) / bands));
+            total = partials[0];
+            for (int b = 1; b < bands; b++) {
+                total.add(partials[b]);
+            }
+        }
+
+        double count = (double) width * height;
+        double mean = total.sum / count;
+        double lbpMean = total.lbpSum / count;
+        long interior = (long) Math.max(0, width - 2) * Math.max(0, height - 2);
+        double[] histogram = new double[UNIFORM_BINS];
+        if (interior > 0) {
+            for (int i = 0; i < UNIFORM_BINS; i++) {
+                histogram[i] = total.uniform[i] / (double) interior;
+            }
+        }
+        return new TextureStats(mean, Math.sqrt(Math.max(0.0, total.sumSquares / count - mean * mean)),
+                                lbpMean, Math.sqrt(Math.max(0.0, total.lbpSumSquares / count - lbpMean * lbpMean)),
+                                total.gradientSum / count, histogram);
+    }
+
+    /**
+     * Rows {@code [fromRow, toRow)}; neighbours are read from adjacent rows outside the band.
+     */
+    private static Partial band(byte[] g, int width, int height, int fromRow, int toRow) {
+        Partial p = new Partial();
+        for (int y = fromRow; y < toRow; y++) {
+            int row = y * width;
+            int up = reflect(y - 1, height) * width;
+            int down = reflect(y + 1, height) * width;
+            boolean lbpRow = y > 0 && y < height - 1;
+
+            // Border columns: intensity and gradient only
+            p.gradientSum += gradient(g, up, row, down, 0, reflect(-1, width), reflect(1, width));
+            if (width > 1) {
+                p.gradientSum += gradient(g, up, row, down, width - 1, reflect(width - 2, width), reflect(width, width));
+            }
+            int first = g[row] & 0xFF;
+            p.sum += first;
+            p.sumSquares += first * first;
+            if (width > 1) {
+                int last = g[row + width - 1] & 0xFF;
+                p.sum += last;
+                p.sumSquares += last * last;
+            }
+
+            for (int x = 1; x < width - 1; x++) {
+                int c = g[row + x] & 0xFF;
+                p.sum += c;
+                p.sumSquares += c * c;
+
+                int nw = g[up + x - 1] & 0xFF;
+                int n = g[up + x] & 0xFF;
+                int ne = g[up + x + 1] & 0xFF;
+                int w = g[row + x - 1] & 0xFF;
+                int e = g[row + x + 1] & 0xFF;
+                int sw = g[down + x - 1] & 0xFF;
+                int s = g[down + x] & 0xFF;
+                int se = g[down + x + 1] & 0xFF;
+
+                int gx = (ne + 2 * e + se) - (nw + 2 * w + sw);
+                int gy = (sw + 2 * s + se) - (nw + 2 * n + ne);
+                p.gradientSum += Math.sqrt(gx * gx + gy * gy);
+
+                if (lbpRow) {
+                    // Bit order: top-left, then clockwise
+                    int code = (nw >= c ? 1 : 0)
+                        | (n >= c ? 2 : 0)
+                        | (ne >= c ? 4 : 0)
+                        | (e >= c ? 8 : 0)
+                        | (se >= c ? 16 : 0)
+                        | (s >= c ? 32 : 0)
+                        | (sw >= c ? 64 : 0)
+                        | (w >= c ? 128 : 0);
+                    p.lbpSum += code;
+                    p.lbpSumSquares += code * code;
+                    p.uniform[UNIFORM_INDEX[code]]++;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Sobel magnitude at column {@code x} with explicit left/right neighbour columns.
+     */
+    private static double gradient(byte[] g, int up, int row, int down, int x, int left, int right) {
+        int nw = g[up + left] & 0xFF;
+        int n = g[up + x] & 0xFF;
+        int ne = g[up + right] & 0xFF;
+        int w = g[row + left] & 0xFF;
+        int e = g[row + right] & 0xFF;
+        int sw = g[down + left] & 0xFF;
+        int s = g[down + x] & 0xFF;
+        int se = g[down + right] & 0xFF;
+        int gx = (ne + 2 * e + se) - (nw + 2 * w + sw);
+        int gy = (sw + 2 * s + se) - (nw + 2 * n + ne);
+        return Math.sqrt(gx * gx + gy * gy);
+    }
+
+    /**
+     * OpenCV's default border (BORDER_REFLECT_101): -1 maps to 1, n to n - 2.
+     */
+    private static int reflect(int i, int n) {
+        if (n == 1) {
+            return 0;
+        }
+        if (i < 0) {
+            return -i;
+        }
+        if (i >= n) {
+            return 2 * n - 2 - i;
+        }
+        return i;
+    }
+
+    private static int[] uniformIndex() {
+        int[] index = new int[256];
+        int next = 0;
+        for (int code = 0; code < 256; code++) {
+            int rotated = ((code >> 1) | (code << 7)) & 0xFF;
+            index[code] = Integer.bitCount(code ^ rotated) <= 2 ? next++ : UNIFORM_BINS - 1;
+        }
+        return index;
+    }
+}
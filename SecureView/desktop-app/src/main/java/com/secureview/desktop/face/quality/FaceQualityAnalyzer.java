@@ -45,33 +45,37 @@ public class FaceQualityAnalyzer {
             return score;
         }
         
+        // Every temporary Mat below, including the gray copy, is released when the scope closes
         try {
-            // Analyze lighting
-            score.lightingScore = analyzeLighting(faceImage);
-            
-            // Analyze angle (face orientation)
-            score.angleScore = analyzeAngle(faceImage);
-            
-            // Analyze clarity (blur detection)
-            score.clarityScore = analyzeClarity(faceImage);
-            
-            // Analyze size (face should be large enough)
-            score.sizeScore = analyzeSize(faceImage);
-            
-            // Calculate overall score (weighted average)
-            score.overallScore = (
-                score.lightingScore * 0.25 +
-                score.angleScore * 0.25 +
-                score.clarityScore * 0.30 +
-                score.sizeScore * 0.20
-            );
-            
-            // Determine if optimal (threshold: 0.7)
-            score.isOptimal = score.overallScore >= 0.7;
-            
-            // Generate feedback
-            score.feedback = generateFeedback(score);
-            
+            MatScope.run(() -> {
+                Mat gray = toGray(faceImage);
+                
+                // Analyze lighting
+                score.lightingScore = analyzeLighting(gray);
+                
+                // Analyze angle (face orientation)
+                score.angleScore = analyzeAngle(gray);
+                
+                // Analyze clarity (blur detection)
+                score.clarityScore = analyzeClarity(gray);
+                
+                // Analyze size (face should be large enough)
+                score.sizeScore = analyzeSize(faceImage);
+                
+                // Calculate overall score (weighted average)
+                score.overallScore = (
+                    score.lightingScore * 0.25 +
+                    score.angleScore * 0.25 +
+                    score.clarityScore * 0.30 +
+                    score.sizeScore * 0.20
+                );
+                
+                // Determine if optimal (threshold: 0.7)
+                score.isOptimal = score.overallScore >= 0.7;
+                
+                // Generate feedback
+                score.feedback = generateFeedback(score);
+            });
         } catch (Exception e) {
             logger.error("Error analyzing face quality", e);
             score.feedback = "Error analyzing quality";
@@ -80,19 +84,24 @@ public class FaceQualityAnalyzer {
         return score;
     }
     
+    /**
+     * Grayscale view of the face: a converted copy for BGR input, the input itself otherwise
+     * (never released here, since the caller owns it).
+     */
+    private Mat toGray(Mat faceImage) {
+        if (faceImage.channels() != 3) {
+            return faceImage;
+        }
+        Mat gray = new Mat();
+        Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
+        return gray;
+    }
+    
     /**
      * Analyzes lighting conditions (brightness and contrast).
      */
-    private double analyzeLighting(Mat faceImage) {
+    private double analyzeLighting(Mat gray) {
         try {
-            // Convert to grayscale if needed
-            Mat gray = new Mat();
-            if (faceImage.channels() == 3) {
-                Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray = faceImage;
-            }
-            
             // Calculate mean brightness
             Scalar mean = Core.mean(gray);
             double brightness = mean.val[0] / 255.0;
@@ -111,9 +120,6 @@ public class FaceQualityAnalyzer {
             // Good contrast is > 0.2
             double contrastScore = Math.min(1.0, contrast / 0.2);
             
-            gray.release();
-            stddev.release();
-            
             // Combined lighting score
             return (brightnessScore * 0.6 + contrastScore * 0.4);
             
@@ -126,19 +132,11 @@ public class FaceQualityAnalyzer {
     /**
      * Analyzes face angle (how frontal the face is).
      */
-    private double analyzeAngle(Mat faceImage) {
+    private double analyzeAngle(Mat gray) {
         try {
             // For simplicity, we assume frontal faces are more symmetric
             // In a real implementation, you'd use face landmarks
             
-            // Convert to grayscale
-            Mat gray = new Mat();
-            if (faceImage.channels() == 3) {
-                Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray = faceImage;
-            }
-            
             // Calculate symmetry (compare left and right halves)
             int width = gray.cols();
             int height = gray.rows();
@@ -155,7 +153,6 @@ public class FaceQualityAnalyzer {
             if (leftHalf.cols() != rightFlipped.cols()) {
                 Mat resized = new Mat();
                 Imgproc.resize(rightFlipped, resized, leftHalf.size());
-                rightFlipped.release();
                 rightFlipped = resized;
             }
             
@@ -166,12 +163,6 @@ public class FaceQualityAnalyzer {
             double symmetry = 1.0 - (meanDiff.val[0] / 255.0);
             symmetry = Math.max(0.0, Math.min(1.0, symmetry));
             
-            leftHalf.release();
-            rightHalf.release();
-            rightFlipped.release();
-            diff.release();
-            gray.release();
-            
             return symmetry;
             
         } catch (Exception e) {
@@ -183,16 +174,8 @@ public class FaceQualityAnalyzer {
     /**
      * Analyzes image clarity (blur detection using Laplacian variance).
      */
-    private double analyzeClarity(Mat faceImage) {
+    private double analyzeClarity(Mat gray) {
         try {
-            // Convert to grayscale
-            Mat gray = new Mat();
-            if (faceImage.channels() == 3) {
-                Imgproc.cvtColor(faceImage, gray, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                gray = faceImage;
-            }
-            
             // Apply Laplacian filter for blur detection
             Mat laplacian = new Mat();
             Imgproc.Laplacian(gray, laplacian, CvType.CV_64F);
@@ -207,14 +190,7 @@ public class FaceQualityAnalyzer {
             double varianceValue = variance[0] * variance[0];
             
             // Normalize (good clarity is variance > 100)
-            double clarityScore = Math.min(1.0, varianceValue / 100.0);
-            
-            gray.release();
-            laplacian.release();
-            mean.release();
-            stddev.release();
-            
-            return clarityScore;
+            return Math.min(1.0, varianceValue / 100.0);
             
         } catch (Exception e) {
             logger.warn("Error analyzing clarity", e);
@@ -1,6 +1,7 @@
 package com.secureview.desktop.intrusion;
 
 import com.secureview.desktop.face.detection.FaceDetector;
+import com.secureview.desktop.face.detection.RetinaFaceDetector;
 import com.secureview.desktop.face.FaceRecognitionService;
 import com.secureview.desktop.firebase.FirebaseService;
 import com.secureview.desktop.opencv.stub.*;
@@ -16,7 +17,12 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Enhanced intrusion detection with multiple unknown faces, motion detection, and alerts.
@@ -34,6 +40,11 @@ public class EnhancedIntrusionDetector {
     private long lastMotionDetectionTime = 0;
     private static final long MOTION_DETECTION_INTERVAL = 1000; // 1 second
     private static final double MOTION_THRESHOLD = 5000.0; // Motion sensitivity
+    private static final int IDENTIFICATION_THREADS =
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    
+    // Identifies the faces of one frame concurrently; daemon threads, lives as long as the detector
+    private final ExecutorService identificationPool;
     
     // Sound detection (simplified - would need audio library in production)
     private boolean soundDetectionEnabled = false;
@@ -46,6 +57,13 @@ public class EnhancedIntrusionDetector {
         this.faceRecognitionService = faceRecognitionService;
         this.firebaseService = firebaseService;
         this.userManager = userManager;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.identificationPool = Executors.newFixedThreadPool(IDENTIFICATION_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "intrusion-identify-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
     
     /**
@@ -97,39 +115,31 @@ public class EnhancedIntrusionDetector {
     
     /**
      * Detects multiple unknown faces in the frame.
+     * All faces come from one detector pass; each is cropped and identified on its own task,
+     * and only the crops of unknown faces are kept.
      */
     private void detectMultipleUnknownFaces(Mat frame) {
+        List<Mat> unknownFaces = new ArrayList<>();
         try {
             // Detect all faces in frame
-            List<Mat> detectedFaces = detectAllFaces(frame);
+            List<RetinaFaceDetector.FaceDetection> detections = detectAllFaces(frame);
             
-            if (detectedFaces.isEmpty()) {
+            if (detections.isEmpty()) {
                 return;
             }
             
-            List<Mat> unknownFaces = new ArrayList<>();
-            int knownFaceCount = 0;
+            // Check each face against registered users, in parallel when there are several
+            List<Identification> results = identifyAll(frame, detections);
             
-            // Check each face against registered users
-            for (Mat face : detectedFaces) {
-                try {
-                    // Try to identify the face
-                    UserProfile matchedUser = userManager.findUserByFace(
-                        face, 
-                        faceRecognitionService.getImageComparisonService()
-                    );
-                    
-                    if (matchedUser == null) {
-                        // Unknown face
-                        unknownFaces.add(face);
-                    } else {
-                        knownFaceCount++;
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error identifying face", e);
-                    unknownFaces.add(face);
+            int knownFaceCount = 0;
+            for (Identification result : results) {
+                if (result.known) {
+                    knownFaceCount++;
+                } else if (result.face != null) {
+                    unknownFaces.add(result.face);
                 }
             }
+            int faceCount = detections.size();
             
             // Alert if multiple unknown faces detected
             if (unknownFaces.size() > 1) {
@@ -137,46 +147,135 @@ public class EnhancedIntrusionDetector {
                            unknownFaces.size(), knownFaceCount);
                 handleIntrusionAlert(frame, unknownFaces, 
                     "Multiple unknown faces detected: " + unknownFaces.size());
-            } else if (unknownFaces.size() == 1 && detectedFaces.size() > 1) {
+            } else if (unknownFaces.size() == 1 && faceCount > 1) {
                 // One unknown face among multiple faces
-                logger.warn("UNKNOWN FACE DETECTED among {} total faces", detectedFaces.size());
+                logger.warn("UNKNOWN FACE DETECTED among {} total faces", faceCount);
                 handleIntrusionAlert(frame, unknownFaces, 
-                    "Unknown face detected among " + detectedFaces.size() + " faces");
+                    "Unknown face detected among " + faceCount + " faces");
             } else if (unknownFaces.size() == 1) {
                 // Single unknown face
                 logger.warn("UNKNOWN FACE DETECTED");
                 handleIntrusionAlert(frame, unknownFaces, "Unknown face detected");
             }
             
+        } catch (Exception e) {
+            logger.error("Error detecting multiple unknown faces", e);
+        } finally {
             // Cleanup
-            for (Mat face : detectedFaces) {
-                if (!unknownFaces.contains(face)) {
-                    face.release();
-                }
+            for (Mat face : unknownFaces) {
+                face.release();
             }
-            
+        }
+    }
+    
+    /**
+     * Detects all faces in a frame (not just the largest one), without cropping them.
+     */
+    private List<RetinaFaceDetector.FaceDetection> detectAllFaces(Mat frame) {
+        try {
+            return faceDetector.detectFaces(frame);
         } catch (Exception e) {
-            logger.error("Error detecting multiple unknown faces", e);
+            logger.warn("Error detecting faces", e);
+            return new ArrayList<>();
         }
     }
     
     /**
-     * Detects all faces in a frame (not just the first one).
+     * Identifies every detection. A single face is handled on the calling thread; several
+     * are spread over the identification pool, whose concurrent embedding requests the
+     * inference service batches together.
+     * @return one result per detection, in the same order
      */
-    private List<Mat> detectAllFaces(Mat frame) {
-        List<Mat> faces = new ArrayList<>();
-        // This would need to be implemented in FaceDetector to return all faces
-        // For now, we'll use a simplified approach
+    private List<Identification> identifyAll(Mat frame, List<RetinaFaceDetector.FaceDetection> detections) {
+        List<Identification> results = new ArrayList<>(detections.size());
+        if (detections.size() == 1) {
+            results.add(identify(frame, detections.get(0)));
+            return results;
+        }
+        
+        List<CompletableFuture<Identification>> pending = new ArrayList<>(detections.size());
+        for (RetinaFaceDetector.FaceDetection detection : detections) {
+            pending.add(CompletableFuture.supplyAsync(() -> identify(frame, detection), identificationPool));
+        }
+        // Every task is awaited before returning, so none reads the frame after the caller moves on
+        for (CompletableFuture<Identification> future : pending) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(new Identification(false, null));
+            } catch (ExecutionException e) {
+                logger.warn("Error identifying face", e.getCause());
+                results.add(new Identification(false, null));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Looks one detection up, with the embedding input warped straight from the frame.
+     * The face is cropped out of the frame only where it is needed: for the pixel-based
+     * fallback when there is no embedding index, and for the alert when the face is unknown.
+     */
+    private Identification identify(Mat frame, RetinaFaceDetector.FaceDetection detection) {
+        Mat face = null;
+        Mat alignedFace = null;
         try {
-            Mat face = faceDetector.detectFace(frame);
-            if (face != null && !face.empty()) {
-                faces.add(face);
+            // Try to identify the face
+            alignedFace = faceRecognitionService.alignFace(frame, detection);
+            boolean aligned = alignedFace != null && !alignedFace.empty();
+            if (!aligned || !userManager.hasFaceIndex()) {
+                face = cropFace(frame, detection);
+                if (face == null) {
+                    return new Identification(false, null);
+                }
+            }
+            UserProfile matchedUser = userManager.findUserByFace(
+                face, 
+                alignedFace,
+                faceRecognitionService.getImageComparisonService()
+            );
+            
+            if (matchedUser != null) {
+                if (face != null) {
+                    face.release();
+                }
+                return new Identification(true, null);
             }
-            // In production, you'd call a method that returns all detected faces
         } catch (Exception e) {
-            logger.warn("Error detecting faces", e);
+            logger.warn("Error identifying face", e);
+        } finally {
+            if (alignedFace != null) {
+                alignedFace.release();
+            }
+        }
+        // Unknown face: the alert carries its crop
+        return new Identification(false, face != null ? face : cropFace(frame, detection));
+    }
+    
+    /**
+     * Copies one detection out of the frame, or returns null if nothing could be cut out.
+     */
+    private Mat cropFace(Mat frame, RetinaFaceDetector.FaceDetection detection) {
+        Mat face = faceDetector.cropFace(frame, detection.boundingBox);
+        if (face != null && face.empty()) {
+            face.release();
+            return null;
+        }
+        return face;
+    }
+    
+    /**
+     * Outcome of identifying one face: known, or unknown with its crop (null if it could not be cut out).
+     */
+    private static final class Identification {
+        final boolean known;
+        final Mat face;
+        
+        Identification(boolean known, Mat face) {
+            this.known = known;
+            this.face = face;
         }
-        return faces;
     }
     
     /**
@@ -3,37 +3,28 @@ package com.secureview.desktop.opencv.stub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.File;
-import java.lang.reflect.Method;
+
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV CascadeClassifier.
- * Uses reflection to call real OpenCV methods if available.
+ * Calls the real OpenCV methods through the selected {@link OpenCvBackend} if available.
  */
 public class CascadeClassifier {
     private static final Logger logger = LoggerFactory.getLogger(CascadeClassifier.class);
     private Object realCascadeClassifier;
-    private Class<?> realClass;
-    private Method loadMethod;
-    private Method detectMultiScaleMethod;
     
     public CascadeClassifier() {
-        // Try to load real OpenCV CascadeClassifier
+        // Try to create a real OpenCV CascadeClassifier
+        if (!CV.isAvailable()) {
+            logger.warn("OpenCV CascadeClassifier class not found. OpenCV may not be loaded yet.");
+            return;
+        }
         try {
-            realClass = Class.forName("org.opencv.objdetect.CascadeClassifier");
-            realCascadeClassifier = realClass.getDeclaredConstructor().newInstance();
-            loadMethod = realClass.getMethod("load", String.class);
-            detectMultiScaleMethod = realClass.getMethod("detectMultiScale", 
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.MatOfRect"),
-                double.class, int.class, int.class,
-                Class.forName("org.opencv.core.Size"),
-                Class.forName("org.opencv.core.Size"));
+            realCascadeClassifier = CV.newCascadeClassifier();
             logger.debug("Successfully created real OpenCV CascadeClassifier");
-        } catch (ClassNotFoundException e) {
-            logger.warn("OpenCV CascadeClassifier class not found. OpenCV may not be loaded yet.");
-            realCascadeClassifier = null;
-        } catch (Exception e) {
-            logger.error("Error creating real OpenCV CascadeClassifier", e);
+        } catch (Throwable t) {
+            logger.error("Error creating real OpenCV CascadeClassifier", t);
             realCascadeClassifier = null;
         }
     }
@@ -43,10 +34,6 @@ public class CascadeClassifier {
             logger.error("Cannot load cascade: realCascadeClassifier is null. OpenCV may not be loaded.");
             return false;
         }
-        if (loadMethod == null) {
-            logger.error("Cannot load cascade: loadMethod is null.");
-            return false;
-        }
         try {
             // Verify file exists
             File file = new File(filename);
@@ -54,18 +41,18 @@ public class CascadeClassifier {
                 logger.error("Cascade file does not exist: {}", filename);
                 return false;
             }
-            boolean result = (Boolean) loadMethod.invoke(realCascadeClassifier, filename);
+            boolean result = CV.load(realCascadeClassifier, filename);
             logger.info("Cascade load result: {} for file: {}", result, filename);
             return result;
-        } catch (Exception e) {
-            logger.error("Error loading cascade file: {}", filename, e);
+        } catch (Throwable t) {
+            logger.error("Error loading cascade file: {}", filename, t);
             return false;
         }
     }
     
     public void detectMultiScale(Mat image, Object faces, double scaleFactor, 
                                 int minNeighbors, int flags, Object minSize, Object maxSize) {
-        if (realCascadeClassifier != null && detectMultiScaleMethod != null) {
+        if (realCascadeClassifier != null) {
             try {
                 // Get real Mat instance from image
                 Object realImage = image.getRealInstance();
@@ -73,62 +60,33 @@ public class CascadeClassifier {
                     logger.error("Cannot detect faces: realImage is null. Mat stub may not have real OpenCV Mat instance.");
                     return; // Can't proceed without real Mat
                 }
-                logger.debug("Got real Mat instance for face detection");
                 
                 // Get or create real MatOfRect
                 Object realFaces;
                 if (faces instanceof MatOfRect) {
                     MatOfRect matOfRect = (MatOfRect) faces;
-                    Object realInstance = matOfRect.getRealInstance();
-                    if (realInstance != null) {
-                        realFaces = realInstance;
-                    } else {
-                        // Create real MatOfRect and store in stub
-                        Class<?> matOfRectClass = Class.forName("org.opencv.core.MatOfRect");
-                        realFaces = matOfRectClass.getDeclaredConstructor().newInstance();
-                        // Update the stub to wrap it
-                        try {
-                            java.lang.reflect.Field realField = MatOfRect.class.getDeclaredField("realMatOfRect");
-                            realField.setAccessible(true);
-                            realField.set(faces, realFaces);
-                        } catch (Exception e) {
-                            // Ignore
-                        }
+                    realFaces = matOfRect.getRealInstance();
+                    if (realFaces == null) {
+                        realFaces = CV.newMatOfRect();
+                        matOfRect.setRealInstance(realFaces);
                     }
                 } else {
                     realFaces = faces; // Assume it's already a real instance
                 }
                 
-                // Convert Size objects to real OpenCV Size
-                Object realMinSize;
-                Object realMaxSize;
-                Class<?> sizeClass = Class.forName("org.opencv.core.Size");
+                // Stub sizes convert to cached real Size instances
+                Object realMinSize = Size.toReal(minSize);
+                Object realMaxSize = Size.toReal(maxSize);
                 
-                if (minSize instanceof Size) {
-                    Size s = (Size) minSize;
-                    realMinSize = sizeClass.getDeclaredConstructor(double.class, double.class)
-                        .newInstance(s.width, s.height);
-                } else {
-                    realMinSize = minSize; // Assume it's already real
-                }
-                
-                if (maxSize instanceof Size) {
-                    Size s = (Size) maxSize;
-                    realMaxSize = sizeClass.getDeclaredConstructor(double.class, double.class)
-                        .newInstance(s.width, s.height);
-                } else {
-                    realMaxSize = maxSize; // Assume it's already real
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Invoking real OpenCV detectMultiScale with image size: {}x{}",
+                                image.cols(), image.rows());
                 }
-                
-                // Call real OpenCV detectMultiScale
-                logger.debug("Invoking real OpenCV detectMultiScale with image size: {}x{}", 
-                    realImage.getClass().getMethod("cols").invoke(realImage),
-                    realImage.getClass().getMethod("rows").invoke(realImage));
-                detectMultiScaleMethod.invoke(realCascadeClassifier, realImage, realFaces, 
+                CV.detectMultiScale(realCascadeClassifier, realImage, realFaces,
                     scaleFactor, minNeighbors, flags, realMinSize, realMaxSize);
                 logger.debug("detectMultiScale completed successfully");
-            } catch (Exception e) {
-                logger.error("Error in detectMultiScale", e);
+            } catch (Throwable t) {
+                logger.error("Error in detectMultiScale", t);
                 // Fall through to stub behavior
             }
         }
@@ -138,4 +96,3 @@ public class CascadeClassifier {
         return realCascadeClassifier;
     }
 }
-
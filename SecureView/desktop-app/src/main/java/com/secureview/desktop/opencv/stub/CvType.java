@@ -6,6 +6,7 @@ package com.secureview.desktop.opencv.stub;
 public class CvType {
     public static final int CV_32F = 5;
     public static final int CV_8UC1 = 0;
+    public static final int CV_8UC3 = 16;
     public static final int CV_64F = 6;
 }
 
@@ -3,80 +3,78 @@ package com.secureview.desktop.opencv.stub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV Dnn.
- * Uses reflection to call real OpenCV DNN methods if available.
+ * Calls the real OpenCV DNN methods through the selected {@link OpenCvBackend} if available.
  */
 public class Dnn {
     private static final Logger logger = LoggerFactory.getLogger(Dnn.class);
-    private static Class<?> realDnnClass;
-    private static Method blobFromImageMethod;
-    private static Method readNetFromONNXMethod;
-    private static Method readNetFromTensorflowMethod;
-    private static Method readNetFromTorchMethod;
+    public static Mat blobFromImage(Mat image, double scalefactor, Object size, Object mean, 
+                                   boolean swapRB, boolean crop) {
+        if (CV.isAvailable() && image.getRealInstance() != null) {
+            try {
+                Object realBlob = CV.blobFromImage(image.getRealInstance(), scalefactor,
+                    Size.toReal(size), Scalar.toReal(mean), swapRB, crop);
+                return new Mat(realBlob);
+            } catch (Throwable e) {
+                logger.warn("Failed to create blob from image using OpenCV DNN", e);
+            }
+        }
+        return new Mat();
+    }
     
-    static {
-        try {
-            realDnnClass = Class.forName("org.opencv.dnn.Dnn");
-            blobFromImageMethod = realDnnClass.getMethod("blobFromImage",
-                Class.forName("org.opencv.core.Mat"),
-                double.class,
-                Class.forName("org.opencv.core.Size"),
-                Class.forName("org.opencv.core.Scalar"),
-                boolean.class,
-                boolean.class);
-            readNetFromONNXMethod = realDnnClass.getMethod("readNetFromONNX", String.class);
-            readNetFromTensorflowMethod = realDnnClass.getMethod("readNetFromTensorflow", String.class);
-            readNetFromTorchMethod = realDnnClass.getMethod("readNetFromTorch", String.class);
-        } catch (Exception e) {
-            logger.debug("OpenCV Dnn class not found. DNN features will be limited.", e);
+    /**
+     * Writes the blob for {@code image} into {@code blob}, reusing its memory when the shape is
+     * unchanged. Leaves {@code blob} untouched if OpenCV or this entry point (4.8+) is unavailable.
+     * @return true if the blob was written
+     */
+    public static boolean blobFromImageWithParams(Mat image, Mat blob, Image2BlobParams params) {
+        if (CV.isAvailable() && image.getRealInstance() != null && blob.getRealInstance() != null
+                && params.getRealInstance() != null) {
+            try {
+                CV.blobFromImageWithParams(image.getRealInstance(), blob.getRealInstance(),
+                    params.getRealInstance());
+                return true;
+            } catch (Throwable e) {
+                logger.debug("Failed to create blob from image with params", e);
+            }
         }
+        return false;
     }
     
-    public static Mat blobFromImage(Mat image, double scalefactor, Object size, Object mean, 
-                                   boolean swapRB, boolean crop) {
-        if (blobFromImageMethod != null && image.getRealInstance() != null) {
+    /**
+     * Stacks several images into one NCHW blob (batch dimension = images.size()).
+     */
+    public static Mat blobFromImages(java.util.List<Mat> images, double scalefactor, Object size, Object mean,
+                                    boolean swapRB, boolean crop) {
+        if (CV.isAvailable() && !images.isEmpty()) {
             try {
-                // Convert Size and Scalar to real OpenCV objects
-                Object realSize = null;
-                Object realMean = null;
-                
-                if (size instanceof Size) {
-                    Size s = (Size) size;
-                    Class<?> sizeClass = Class.forName("org.opencv.core.Size");
-                    realSize = sizeClass.getDeclaredConstructor(double.class, double.class)
-                        .newInstance(s.width, s.height);
-                } else {
-                    realSize = size;
-                }
-                
-                if (mean instanceof Scalar) {
-                    Scalar sc = (Scalar) mean;
-                    Class<?> scalarClass = Class.forName("org.opencv.core.Scalar");
-                    realMean = scalarClass.getDeclaredConstructor(double.class, double.class, double.class, double.class)
-                        .newInstance(sc.val[0], sc.val[1], sc.val[2], sc.val[3]);
-                } else {
-                    realMean = mean;
+                java.util.List<Object> realImages = new java.util.ArrayList<>(images.size());
+                for (Mat image : images) {
+                    if (image.getRealInstance() == null) {
+                        return new Mat();
+                    }
+                    realImages.add(image.getRealInstance());
                 }
                 
-                Object realBlob = blobFromImageMethod.invoke(null, 
-                    image.getRealInstance(), scalefactor, realSize, realMean, swapRB, crop);
+                Object realBlob = CV.blobFromImages(realImages, scalefactor,
+                    Size.toReal(size), Scalar.toReal(mean), swapRB, crop);
                 return new Mat(realBlob);
-            } catch (Exception e) {
-                logger.warn("Failed to create blob from image using OpenCV DNN", e);
+            } catch (Throwable e) {
+                logger.warn("Failed to create blob from images using OpenCV DNN", e);
             }
         }
         return new Mat();
     }
     
     public static Net readNetFromONNX(String modelPath) {
-        if (readNetFromONNXMethod != null) {
+        if (CV.isAvailable()) {
             try {
-                Object realNet = readNetFromONNXMethod.invoke(null, modelPath);
+                Object realNet = CV.readNetFromONNX(modelPath);
                 return new Net(realNet);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 logger.error("Failed to load ONNX model from: {}", modelPath, e);
             }
         }
@@ -84,11 +82,11 @@ public class Dnn {
     }
     
     public static Net readNetFromTensorflow(String modelPath) {
-        if (readNetFromTensorflowMethod != null) {
+        if (CV.isAvailable()) {
             try {
-                Object realNet = readNetFromTensorflowMethod.invoke(null, modelPath);
+                Object realNet = CV.readNetFromTensorflow(modelPath);
                 return new Net(realNet);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 logger.error("Failed to load TensorFlow model from: {}", modelPath, e);
             }
         }
@@ -96,11 +94,11 @@ public class Dnn {
     }
     
     public static Net readNetFromTorch(String modelPath) {
-        if (readNetFromTorchMethod != null) {
+        if (CV.isAvailable()) {
             try {
-                Object realNet = readNetFromTorchMethod.invoke(null, modelPath);
+                Object realNet = CV.readNetFromTorch(modelPath);
                 return new Net(realNet);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 logger.error("Failed to load Torch model from: {}", modelPath, e);
             }
         }
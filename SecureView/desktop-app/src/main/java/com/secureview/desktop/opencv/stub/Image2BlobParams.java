@@ -0,0 +1,31 @@
+package com.secureview.desktop.opencv.stub;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
+
+/**
+ * Stub class for OpenCV Image2BlobParams (OpenCV 4.8+).
+ * Holds the preprocessing of {@link Dnn#blobFromImageWithParams}: per-channel scale, target size,
+ * mean and channel swap. The output is a CV_32F NCHW blob. Build it once and reuse it.
+ */
+public class Image2BlobParams {
+    private static final Logger logger = LoggerFactory.getLogger(Image2BlobParams.class);
+    private Object realParams;
+    
+    public Image2BlobParams(Scalar scalefactor, Size size, Scalar mean, boolean swapRB) {
+        if (CV.isAvailable()) {
+            try {
+                realParams = CV.newImage2BlobParams(scalefactor.toReal(), size.toReal(), mean.toReal(), swapRB);
+            } catch (Throwable t) {
+                logger.debug("Image2BlobParams not available in this OpenCV build", t);
+                realParams = null;
+            }
+        }
+    }
+    
+    public Object getRealInstance() {
+        return realParams;
+    }
+}
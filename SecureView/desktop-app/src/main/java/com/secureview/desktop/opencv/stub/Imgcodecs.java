@@ -1,55 +1,42 @@
 package com.secureview.desktop.opencv.stub;
 
-import com.secureview.desktop.opencv.stub.Mat;
-import com.secureview.desktop.opencv.OpenCVClassLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV Imgcodecs.
- * Uses reflection to call real OpenCV methods if available.
+ * Calls the real OpenCV methods through the selected {@link OpenCvBackend} if available.
  */
 public class Imgcodecs {
     private static final Logger logger = LoggerFactory.getLogger(Imgcodecs.class);
     
     public static boolean imwrite(String filename, Mat img) {
-        if (img != null && img.getRealInstance() != null) {
+        if (img != null && img.getRealInstance() != null && CV.isAvailable()) {
             try {
-                Class<?> imgcodecsClass = Class.forName("org.opencv.imgcodecs.Imgcodecs");
-                Method imwriteMethod = imgcodecsClass.getMethod("imwrite", String.class, 
-                    Class.forName("org.opencv.core.Mat"));
-                Object realMat = img.getRealInstance();
-                if (realMat != null) {
-                    return (Boolean) imwriteMethod.invoke(null, filename, realMat);
-                }
-            } catch (Exception e) {
-                logger.error("Error calling real Imgcodecs.imwrite()", e);
+                return CV.imwrite(filename, img.getRealInstance());
+            } catch (Throwable t) {
+                logger.error("Error calling real Imgcodecs.imwrite()", t);
             }
         }
         return false;
     }
     
     public static Mat imread(String filename) {
+        if (!CV.isAvailable()) {
+            logger.debug("OpenCV not loaded, cannot read image");
+            return new Mat();
+        }
         try {
-            Class<?> imgcodecsClass = Class.forName("org.opencv.imgcodecs.Imgcodecs");
-            Method imreadMethod = imgcodecsClass.getMethod("imread", String.class);
-            Object realMat = imreadMethod.invoke(null, filename);
-            if (realMat != null) {
-                // Check if Mat is not empty
-                Method emptyMethod = realMat.getClass().getMethod("empty");
-                boolean isEmpty = (Boolean) emptyMethod.invoke(realMat);
-                if (!isEmpty) {
-                    return new Mat(realMat);
-                }
+            Object realMat = CV.imread(filename);
+            // Check if Mat is not empty
+            if (realMat != null && !CV.empty(realMat)) {
+                return new Mat(realMat);
             }
-        } catch (ClassNotFoundException e) {
-            logger.debug("OpenCV not loaded, cannot read image");
-        } catch (Exception e) {
-            logger.error("Error calling real Imgcodecs.imread()", e);
+        } catch (Throwable t) {
+            logger.error("Error calling real Imgcodecs.imread()", t);
         }
         return new Mat(); // Return empty Mat if failed
     }
 }
-
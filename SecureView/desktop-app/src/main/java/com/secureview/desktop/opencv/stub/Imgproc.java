@@ -1,14 +1,13 @@
 package com.secureview.desktop.opencv.stub;
 
-import com.secureview.desktop.opencv.stub.Mat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV Imgproc.
- * Uses reflection to call real OpenCV methods if available.
+ * Calls the real OpenCV methods through the selected {@link OpenCvBackend} if available.
  */
 public class Imgproc {
     private static final Logger logger = LoggerFactory.getLogger(Imgproc.class);
@@ -16,110 +15,80 @@ public class Imgproc {
     public static final int COLOR_BGR2GRAY = 6;
     public static final int COLOR_GRAY2BGR = 8;
     public static final int COLOR_BGRA2BGR = 6;
+    public static final int COLOR_BGRA2GRAY = 10;
     public static final int CV_8UC1 = 0;
     public static final int CV_64F = 6;
     public static final int TM_CCOEFF_NORMED = 5;
     public static final int HISTCMP_CORREL = 0;
     public static final int NORM_MINMAX = 32;
-    
-    private static Class<?> realClass;
-    private static Method cvtColorMethod;
-    private static Method equalizeHistMethod;
-    private static Method resizeMethod;
-    private static Method sobelMethod;
-    private static Method calcHistMethod;
-    private static Method matchTemplateMethod;
-    private static Method compareHistMethod;
-    private static Method laplacianMethod;
-    
-    static {
-        try {
-            realClass = Class.forName("org.opencv.imgproc.Imgproc");
-            cvtColorMethod = realClass.getMethod("cvtColor", 
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                int.class);
-            equalizeHistMethod = realClass.getMethod("equalizeHist",
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"));
-            resizeMethod = realClass.getMethod("resize",
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Size"));
-            sobelMethod = realClass.getMethod("Sobel",
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                int.class, int.class, int.class, int.class, double.class, double.class);
-            calcHistMethod = realClass.getMethod("calcHist",
-                java.util.List.class,
-                Class.forName("org.opencv.core.MatOfInt"),
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.MatOfInt"),
-                Class.forName("org.opencv.core.MatOfFloat"));
-            matchTemplateMethod = realClass.getMethod("matchTemplate",
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                int.class);
-            compareHistMethod = realClass.getMethod("compareHist",
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                int.class);
-            laplacianMethod = realClass.getMethod("Laplacian",
-                Class.forName("org.opencv.core.Mat"),
-                Class.forName("org.opencv.core.Mat"),
-                int.class);
-        } catch (Exception e) {
-            // Real OpenCV not available
-        }
-    }
+    public static final int INTER_LINEAR = 1;
+    public static final int INTER_AREA = 3;
     
     public static void cvtColor(Mat src, Mat dst, int code) {
-        if (cvtColorMethod != null && src.getRealInstance() != null && dst.getRealInstance() != null) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null) {
             try {
-                cvtColorMethod.invoke(null, src.getRealInstance(), dst.getRealInstance(), code);
-            } catch (Exception e) {
+                CV.cvtColor(src.getRealInstance(), dst.getRealInstance(), code);
+            } catch (Throwable e) {
                 // Fall through
             }
         }
     }
     
     public static void equalizeHist(Mat src, Mat dst) {
-        if (equalizeHistMethod != null && src.getRealInstance() != null && dst.getRealInstance() != null) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null) {
             try {
-                equalizeHistMethod.invoke(null, src.getRealInstance(), dst.getRealInstance());
-            } catch (Exception e) {
+                CV.equalizeHist(src.getRealInstance(), dst.getRealInstance());
+            } catch (Throwable e) {
                 // Fall through
             }
         }
     }
     
     public static void resize(Mat src, Mat dst, Object size) {
-        if (resizeMethod != null && src.getRealInstance() != null && dst.getRealInstance() != null) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null) {
             try {
-                Object realSize;
-                if (size instanceof Size) {
-                    Size s = (Size) size;
-                    Class<?> sizeClass = Class.forName("org.opencv.core.Size");
-                    realSize = sizeClass.getDeclaredConstructor(double.class, double.class)
-                        .newInstance(s.width, s.height);
-                } else {
-                    realSize = size; // Assume it's already a real OpenCV Size
-                }
-                resizeMethod.invoke(null, src.getRealInstance(), dst.getRealInstance(), realSize);
-            } catch (Exception e) {
+                CV.resize(src.getRealInstance(), dst.getRealInstance(), Size.toReal(size));
+            } catch (Throwable e) {
+                // Fall through
+            }
+        }
+    }
+    
+    /**
+     * Resize with an explicit interpolation (e.g. {@link #INTER_AREA} for downscaling).
+     */
+    public static void resize(Mat src, Mat dst, Object size, int interpolation) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null) {
+            try {
+                CV.resize(src.getRealInstance(), dst.getRealInstance(), Size.toReal(size), interpolation);
+            } catch (Throwable e) {
                 // Fall through
             }
         }
     }
     
+    /**
+     * Affine warp of {@code src} into a {@code size} image; {@code transform} is the 2x3
+     * CV_64F matrix mapping source to destination coordinates.
+     */
+    public static void warpAffine(Mat src, Mat dst, Mat transform, Object size, int flags) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null
+                && transform.getRealInstance() != null) {
+            try {
+                CV.warpAffine(src.getRealInstance(), dst.getRealInstance(), transform.getRealInstance(),
+                              Size.toReal(size), flags);
+            } catch (Throwable e) {
+                logger.debug("Failed to warp", e);
+            }
+        }
+    }
+    
     public static void Sobel(Mat src, Mat dst, int ddepth, int dx, int dy, int ksize, double scale, double delta) {
-        if (sobelMethod != null && src.getRealInstance() != null && dst.getRealInstance() != null) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null) {
             try {
-                sobelMethod.invoke(null, src.getRealInstance(), dst.getRealInstance(), 
+                CV.sobel(src.getRealInstance(), dst.getRealInstance(),
                     ddepth, dx, dy, ksize, scale, delta);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 // Fall through
             }
         }
@@ -127,7 +96,7 @@ public class Imgproc {
     
     public static void calcHist(java.util.List<Mat> images, Object channels, Mat mask, 
                                Mat hist, Object histSize, Object ranges) {
-        if (calcHistMethod != null) {
+        if (CV.isAvailable()) {
             try {
                 // Convert Mat list to real OpenCV Mat list
                 java.util.List<Object> realImages = new java.util.ArrayList<>();
@@ -136,34 +105,33 @@ public class Imgproc {
                         realImages.add(m.getRealInstance());
                     }
                 }
-                calcHistMethod.invoke(null, realImages, channels, 
+                CV.calcHist(realImages, channels,
                     mask != null ? mask.getRealInstance() : null,
                     hist.getRealInstance(), histSize, ranges);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 // Fall through
             }
         }
     }
     
     public static void matchTemplate(Mat image, Mat templ, Mat result, int method) {
-        if (matchTemplateMethod != null && image.getRealInstance() != null && 
+        if (CV.isAvailable() && image.getRealInstance() != null && 
             templ.getRealInstance() != null && result.getRealInstance() != null) {
             try {
-                matchTemplateMethod.invoke(null, image.getRealInstance(), 
+                CV.matchTemplate(image.getRealInstance(),
                     templ.getRealInstance(), result.getRealInstance(), method);
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 logger.debug("Template matching failed", e);
             }
         }
     }
     
     public static double compareHist(Mat hist1, Mat hist2, int method) {
-        if (compareHistMethod != null && hist1.getRealInstance() != null && hist2.getRealInstance() != null) {
+        if (CV.isAvailable() && hist1.getRealInstance() != null && hist2.getRealInstance() != null) {
             try {
-                Object result = compareHistMethod.invoke(null, 
+                return CV.compareHist(
                     hist1.getRealInstance(), hist2.getRealInstance(), method);
-                return ((Number) result).doubleValue();
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 logger.debug("Histogram comparison failed", e);
             }
         }
@@ -171,10 +139,10 @@ public class Imgproc {
     }
     
     public static void Laplacian(Mat src, Mat dst, int ddepth) {
-        if (laplacianMethod != null && src.getRealInstance() != null && dst.getRealInstance() != null) {
+        if (CV.isAvailable() && src.getRealInstance() != null && dst.getRealInstance() != null) {
             try {
-                laplacianMethod.invoke(null, src.getRealInstance(), dst.getRealInstance(), ddepth);
-            } catch (Exception e) {
+                CV.laplacian(src.getRealInstance(), dst.getRealInstance(), ddepth);
+            } catch (Throwable e) {
                 logger.debug("Laplacian failed", e);
             }
         }
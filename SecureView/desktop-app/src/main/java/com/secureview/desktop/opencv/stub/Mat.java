@@ -1,55 +1,43 @@
 package com.secureview.desktop.opencv.stub;
 
-import java.lang.reflect.Method;
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV Mat.
  * Wraps real OpenCV Mat instances when available.
+ * Every Mat that wraps a real instance is added to the current thread's
+ * {@link MatScope}, if one is open, and to {@link MatTracker} when it is enabled.
  */
 public class Mat {
     protected Object realMat; // Real OpenCV Mat instance
-    private Class<?> realClass;
+    long trackingId; // MatTracker record, 0 if untracked
     
-    // This is a stub - actual implementation will use reflection to load real OpenCV Mat
     public Mat() {
-        // Try to create real OpenCV Mat
-        try {
-            realClass = Class.forName("org.opencv.core.Mat");
-            realMat = realClass.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-            realMat = null;
-        }
+        realMat = newRealMat();
+        register();
     }
     
     public Mat(Mat m, Rect r) {
         // Constructor for submatrix - will be handled by real OpenCV if available
-        try {
-            if (m.realMat != null) {
-                Class<?> rectClass = Class.forName("org.opencv.core.Rect");
-                Object realRect = rectClass.getDeclaredConstructor(int.class, int.class, int.class, int.class)
-                    .newInstance(r.x, r.y, r.width, r.height);
-                realClass = Class.forName("org.opencv.core.Mat");
-                realMat = realClass.getDeclaredConstructor(
-                    Class.forName("org.opencv.core.Mat"),
-                    Class.forName("org.opencv.core.Rect"))
-                    .newInstance(m.realMat, realRect);
+        if (m.realMat != null) {
+            try {
+                realMat = CV.newMat(m.realMat, r.x, r.y, r.width, r.height);
+            } catch (Throwable t) {
+                realMat = null;
             }
-        } catch (Exception e) {
-            realMat = null;
         }
+        register();
     }
     
     public Mat(Size size, int type) {
-        try {
-            Class<?> sizeClass = Class.forName("org.opencv.core.Size");
-            Object realSize = sizeClass.getDeclaredConstructor(double.class, double.class)
-                .newInstance(size.width, size.height);
-            realClass = Class.forName("org.opencv.core.Mat");
-            realMat = realClass.getDeclaredConstructor(sizeClass, int.class)
-                .newInstance(realSize, type);
-        } catch (Exception e) {
-            realMat = null;
+        if (CV.isAvailable()) {
+            try {
+                realMat = CV.newMat(size.toReal(), type);
+            } catch (Throwable t) {
+                realMat = null;
+            }
         }
+        register();
     }
     
     /**
@@ -57,24 +45,40 @@ public class Mat {
      * Used when loading images or getting Mat from real OpenCV operations.
      */
     public Mat(Object realMatInstance) {
-        if (realMatInstance != null && realMatInstance.getClass().getName().equals("org.opencv.core.Mat")) {
+        if (realMatInstance != null && realMatInstance.getClass().getName().equals(OpenCvBindings.MAT)) {
             this.realMat = realMatInstance;
-            try {
-                this.realClass = realMatInstance.getClass();
-            } catch (Exception e) {
-                this.realMat = null;
-            }
         } else {
             this.realMat = null;
         }
+        register();
+    }
+    
+    private void register() {
+        if (realMat != null) {
+            MatTracker.allocated(this);
+            MatScope.track(this);
+        }
+    }
+    
+    /**
+     * Creates a real OpenCV Mat, or returns null without OpenCV.
+     */
+    static Object newRealMat() {
+        if (!CV.isAvailable()) {
+            return null;
+        }
+        try {
+            return CV.newMat();
+        } catch (Throwable t) {
+            return null;
+        }
     }
     
     public boolean empty() {
         if (realMat != null) {
             try {
-                Method emptyMethod = realMat.getClass().getMethod("empty");
-                return (Boolean) emptyMethod.invoke(realMat);
-            } catch (Exception e) {
+                return CV.empty(realMat);
+            } catch (Throwable t) {
                 return true;
             }
         }
@@ -82,11 +86,13 @@ public class Mat {
     }
     
     public void release() {
+        if (trackingId != 0) {
+            MatTracker.released(this);
+        }
         if (realMat != null) {
             try {
-                Method releaseMethod = realMat.getClass().getMethod("release");
-                releaseMethod.invoke(realMat);
-            } catch (Exception e) {
+                CV.release(realMat);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
@@ -95,9 +101,8 @@ public class Mat {
     public int cols() {
         if (realMat != null) {
             try {
-                Method colsMethod = realMat.getClass().getMethod("cols");
-                return (Integer) colsMethod.invoke(realMat);
-            } catch (Exception e) {
+                return CV.cols(realMat);
+            } catch (Throwable t) {
                 return 0;
             }
         }
@@ -107,9 +112,8 @@ public class Mat {
     public int rows() {
         if (realMat != null) {
             try {
-                Method rowsMethod = realMat.getClass().getMethod("rows");
-                return (Integer) rowsMethod.invoke(realMat);
-            } catch (Exception e) {
+                return CV.rows(realMat);
+            } catch (Throwable t) {
                 return 0;
             }
         }
@@ -119,9 +123,22 @@ public class Mat {
     public int channels() {
         if (realMat != null) {
             try {
-                Method channelsMethod = realMat.getClass().getMethod("channels");
-                return (Integer) channelsMethod.invoke(realMat);
-            } catch (Exception e) {
+                return CV.channels(realMat);
+            } catch (Throwable t) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Size of one element in bytes (all channels).
+     */
+    public long elemSize() {
+        if (realMat != null) {
+            try {
+                return CV.elemSize(realMat);
+            } catch (Throwable t) {
                 return 0;
             }
         }
@@ -131,9 +148,8 @@ public class Mat {
     public long total() {
         if (realMat != null) {
             try {
-                Method totalMethod = realMat.getClass().getMethod("total");
-                return ((Number) totalMethod.invoke(realMat)).longValue();
-            } catch (Exception e) {
+                return CV.total(realMat);
+            } catch (Throwable t) {
                 return 0;
             }
         }
@@ -143,9 +159,18 @@ public class Mat {
     public void get(int row, int col, byte[] data) {
         if (realMat != null) {
             try {
-                Method getMethod = realMat.getClass().getMethod("get", int.class, int.class, byte[].class);
-                getMethod.invoke(realMat, row, col, data);
-            } catch (Exception e) {
+                CV.get(realMat, row, col, data);
+            } catch (Throwable t) {
+                // Ignore
+            }
+        }
+    }
+    
+    public void get(int row, int col, float[] data) {
+        if (realMat != null) {
+            try {
+                CV.get(realMat, row, col, data);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
@@ -154,9 +179,8 @@ public class Mat {
     public void get(int row, int col, double[] data) {
         if (realMat != null) {
             try {
-                Method getMethod = realMat.getClass().getMethod("get", int.class, int.class, double[].class);
-                getMethod.invoke(realMat, row, col, data);
-            } catch (Exception e) {
+                CV.get(realMat, row, col, data);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
@@ -165,9 +189,8 @@ public class Mat {
     public double[] get(int row, int col) {
         if (realMat != null) {
             try {
-                Method getMethod = realMat.getClass().getMethod("get", int.class, int.class);
-                return (double[]) getMethod.invoke(realMat, row, col);
-            } catch (Exception e) {
+                return CV.get(realMat, row, col);
+            } catch (Throwable t) {
                 return new double[1];
             }
         }
@@ -177,20 +200,26 @@ public class Mat {
     public void put(int row, int col, byte[] data) {
         if (realMat != null) {
             try {
-                Method putMethod = realMat.getClass().getMethod("put", int.class, int.class, byte[].class);
-                putMethod.invoke(realMat, row, col, data);
-            } catch (Exception e) {
+                CV.put(realMat, row, col, data);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
     }
     
+    /**
+     * Sets a single element. OpenCV has no put(int, int, int); this goes through
+     * put(int, int, double...), which converts to the Mat's depth.
+     */
     public void put(int row, int col, int data) {
+        put(row, col, new double[] { data });
+    }
+    
+    public void put(int row, int col, double[] data) {
         if (realMat != null) {
             try {
-                Method putMethod = realMat.getClass().getMethod("put", int.class, int.class, int.class);
-                putMethod.invoke(realMat, row, col, data);
-            } catch (Exception e) {
+                CV.put(realMat, row, col, data);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
@@ -199,33 +228,22 @@ public class Mat {
     public void copyTo(Mat dst) {
         if (realMat != null && dst.realMat != null) {
             try {
-                Method copyToMethod = realMat.getClass().getMethod("copyTo", Class.forName("org.opencv.core.Mat"));
-                copyToMethod.invoke(realMat, dst.realMat);
-            } catch (Exception e) {
+                CV.copyTo(realMat, dst.realMat);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
     }
     
     public void convertTo(Mat dst, int type, double alpha) {
-        if (realMat != null && dst.realMat != null) {
-            try {
-                Method convertToMethod = realMat.getClass().getMethod("convertTo", 
-                    Class.forName("org.opencv.core.Mat"), int.class, double.class);
-                convertToMethod.invoke(realMat, dst.realMat, type, alpha);
-            } catch (Exception e) {
-                // Ignore
-            }
-        }
+        convertTo(dst, type, alpha, 0.0);
     }
     
     public void convertTo(Mat dst, int type, double alpha, double beta) {
         if (realMat != null && dst.realMat != null) {
             try {
-                Method convertToMethod = realMat.getClass().getMethod("convertTo", 
-                    Class.forName("org.opencv.core.Mat"), int.class, double.class, double.class);
-                convertToMethod.invoke(realMat, dst.realMat, type, alpha, beta);
-            } catch (Exception e) {
+                CV.convertTo(realMat, dst.realMat, type, alpha, beta);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
@@ -234,21 +252,30 @@ public class Mat {
     public Size size() {
         if (realMat != null) {
             try {
-                Method sizeMethod = realMat.getClass().getMethod("size");
-                Object realSize = sizeMethod.invoke(realMat);
-                Class<?> sizeClass = realSize.getClass();
-                double width = sizeClass.getField("width").getDouble(realSize);
-                double height = sizeClass.getField("height").getDouble(realSize);
-                return new Size(width, height);
-            } catch (Exception e) {
+                return CV.size(realMat);
+            } catch (Throwable t) {
                 return new Size();
             }
         }
         return new Size();
     }
     
+    /**
+     * Same data with a different shape, e.g. a 3-D DNN output {@code [1, N, k]} viewed as
+     * N rows so it can be read with {@link #get(int, int, float[])}. Empty Mat on failure.
+     */
+    public Mat reshape(int cn, int rows) {
+        if (realMat != null) {
+            try {
+                return new Mat(CV.reshape(realMat, cn, rows));
+            } catch (Throwable t) {
+                // Fall through
+            }
+        }
+        return new Mat();
+    }
+    
     public Object getRealInstance() {
         return realMat;
     }
 }
-
@@ -0,0 +1,135 @@
+package com.secureview.desktop.opencv.stub;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Releases every {@link Mat} created on this thread while the scope is open.
+ *
+ * <pre>
+ * try (MatScope scope = MatScope.open()) {
+ *     Mat gray = new Mat();
+ *     Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGR2GRAY);
+ *     Mat face = scope.keep(new Mat());   // survives the scope
+ *     new Mat(gray, rect).copyTo(face);
+ *     ...
+ * } // gray and all other temporaries released here, also on exceptions
+ * </pre>
+ *
+ * Code that keeps none of its Mats can use {@link #run(Runnable)} or {@link #call(Supplier)}
+ * instead of a try-with-resources block whose scope variable would go unused.
+ *
+ * Scopes nest: a Mat belongs to the innermost open scope of the thread that created it,
+ * and {@link #keep(Mat)} hands it to the enclosing scope (or to the caller if there is none).
+ * Mats passed in from outside are never touched. Releasing a Mat explicitly inside a scope
+ * is still fine; release is idempotent.
+ */
+public final class MatScope implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MatScope.class);
+
+    private static final ThreadLocal<MatScope> CURRENT = new ThreadLocal<>();
+
+    private final MatScope parent;
+    private final List<Mat> mats = new ArrayList<>();
+    private boolean closed;
+
+    private MatScope(MatScope parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a scope on the current thread. Must be closed on the same thread.
+     */
+    public static MatScope open() {
+        MatScope scope = new MatScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Runs {@code body} in a new scope and releases every Mat it created.
+     *
+     * @return the body's result, which must not be a Mat created inside it
+     */
+    public static <T> T call(Supplier<T> body) {
+        MatScope scope = open();
+        try {
+            return body.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Runs {@code body} in a new scope and releases every Mat it created.
+     */
+    public static void run(Runnable body) {
+        MatScope scope = open();
+        try {
+            body.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Called by the Mat constructors.
+     */
+    static void track(Mat mat) {
+        MatScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.mats.add(mat);
+        }
+    }
+
+    /**
+     * Removes a Mat from this scope so it is not released on close. It moves to the
+     * enclosing scope, if any.
+     *
+     * @return the same Mat
+     */
+    public <T extends Mat> T keep(T mat) {
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            if (mats.get(i) == mat) {
+                mats.remove(i);
+                if (parent != null) {
+                    parent.mats.add(mat);
+                }
+                break;
+            }
+        }
+        return mat;
+    }
+
+    /**
+     * Number of Mats this scope will release.
+     */
+    public int size() {
+        return mats.size();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            mats.get(i).release();
+        }
+        mats.clear();
+        if (CURRENT.get() == this) {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        } else {
+            logger.warn("MatScope closed out of order or on another thread");
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.secureview.desktop.opencv.stub;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Debug accounting of native Mats (config: {@code matDebugEnabled}).
+ *
+ * While enabled, every Mat that wraps a real OpenCV instance is recorded until it is
+ * released. Every {@code stackSampleRate}-th allocation also records its call site
+ * (the first two frames outside this package), so the periodic report can say where
+ * live or leaked Mats come from. A Mat that is garbage collected without
+ * {@link Mat#release()} is counted as leaked: its pixels stayed allocated until the
+ * OpenCV finalizer ran.
+ *
+ * Off by default; when disabled the cost is one volatile read per Mat.
+ */
+public final class MatTracker {
+    private static final Logger logger = LoggerFactory.getLogger(MatTracker.class);
+
+    private static final String STUB_PACKAGE = MatTracker.class.getPackage().getName() + ".";
+    private static final int TOP_SITES = 5;
+
+    private static volatile boolean enabled;
+    private static volatile int stackSampleRate = 16;
+
+    private static final AtomicLong nextId = new AtomicLong();
+    private static final AtomicLong allocations = new AtomicLong();
+    private static final AtomicLong releases = new AtomicLong();
+    private static final AtomicLong leaked = new AtomicLong();
+    private static final Map<Long, Allocation> live = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> leakSites = new ConcurrentHashMap<>();
+
+    private static Thread reporter;
+
+    private MatTracker() {
+    }
+
+    /**
+     * Starts tracking and logs a summary every {@code reportIntervalSeconds}
+     * (no periodic log if 0).
+     *
+     * @param sampleRate record the allocation site of one in this many Mats (1 = all)
+     */
+    public static synchronized void enable(int sampleRate, long reportIntervalSeconds) {
+        stackSampleRate = Math.max(1, sampleRate);
+        enabled = true;
+        if (reporter == null && reportIntervalSeconds > 0) {
+            long intervalMs = TimeUnit.SECONDS.toMillis(reportIntervalSeconds);
+            reporter = new Thread(() -> reportLoop(intervalMs), "mat-tracker");
+            reporter.setDaemon(true);
+            reporter.start();
+        }
+        logger.info("Mat tracking enabled (stack sample 1/{})", stackSampleRate);
+    }
+
+    /**
+     * Stops tracking and forgets all records.
+     */
+    public static synchronized void disable() {
+        enabled = false;
+        if (reporter != null) {
+            reporter.interrupt();
+            reporter = null;
+        }
+        live.clear();
+        leakSites.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void allocated(Mat mat) {
+        if (!enabled) {
+            return;
+        }
+        long id = nextId.incrementAndGet();
+        String site = id % stackSampleRate == 0 ? callerSite() : null;
+        mat.trackingId = id;
+        allocations.incrementAndGet();
+        live.put(id, new Allocation(mat, site));
+    }
+
+    static void released(Mat mat) {
+        long id = mat.trackingId;
+        mat.trackingId = 0;
+        if (live.remove(id) != null) {
+            releases.incrementAndGet();
+        }
+    }
+
+    /**
+     * Current counts. Sweeps records of Mats that were collected without release.
+     * Bytes are {@code total() * elemSize()} per live Mat, so ROI views count their window
+     * again; treat the figure as an upper bound.
+     */
+    public static Snapshot snapshot() {
+        long count = 0;
+        long bytes = 0;
+        Map<String, Integer> sites = new HashMap<>();
+        for (Map.Entry<Long, Allocation> entry : live.entrySet()) {
+            Allocation allocation = entry.getValue();
+            Mat mat = allocation.mat.get();
+            if (mat == null) {
+                if (live.remove(entry.getKey()) != null) {
+                    leaked.incrementAndGet();
+                    if (allocation.site != null) {
+                        leakSites.computeIfAbsent(allocation.site, s -> new AtomicLong()).incrementAndGet();
+                    }
+                }
+                continue;
+            }
+            count++;
+            bytes += mat.total() * mat.elemSize();
+            if (allocation.site != null) {
+                sites.merge(allocation.site, 1, Integer::sum);
+            }
+        }
+        Map<String, Long> leakCounts = new HashMap<>();
+        leakSites.forEach((site, n) -> leakCounts.put(site, n.get()));
+        return new Snapshot(count, bytes, allocations.get(), releases.get(), leaked.get(),
+                            top(sites), top(leakCounts));
+    }
+
+    private static void reportLoop(long intervalMs) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (enabled) {
+                logger.info("{}", snapshot());
+            }
+        }
+    }
+
+    private static String callerSite() {
+        return StackWalker.getInstance().walk(frames -> {
+            List<String> outside = frames
+                .filter(f -> !f.getClassName().startsWith(STUB_PACKAGE))
+                .limit(2)
+                .map(f -> simpleName(f.getClassName()) + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .collect(Collectors.toList());
+            return outside.isEmpty() ? "unknown" : String.join(" < ", outside);
+        });
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static <N extends Number & Comparable<N>> Map<String, N> top(Map<String, N> counts) {
+        List<Map.Entry<String, N>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, N>comparingByValue().reversed());
+        Map<String, N> result = new LinkedHashMap<>();
+        for (Map.Entry<String, N> entry : entries.subList(0, Math.min(TOP_SITES, entries.size()))) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static final class Allocation {
+        final WeakReference<Mat> mat;
+        final String site;
+
+        Allocation(Mat mat, String site) {
+            this.mat = new WeakReference<>(mat);
+            this.site = site;
+        }
+    }
+
+    /**
+     * Point-in-time view of the tracker.
+     */
+    public static final class Snapshot {
+        public final long liveMats;
+        public final long liveBytes;
+        public final long allocations;
+        public final long releases;
+        public final long leaked;
+        /** Sampled allocation sites of live Mats, most frequent first. */
+        public final Map<String, Integer> liveSites;
+        /** Sampled allocation sites of Mats collected without release, most frequent first. */
+        public final Map<String, Long> leakSites;
+
+        Snapshot(long liveMats, long liveBytes, long allocations, long releases, long leaked,
+                 Map<String, Integer> liveSites, Map<String, Long> leakSites) {
+            this.liveMats = liveMats;
+            this.liveBytes = liveBytes;
+            this.allocations = allocations;
+            this.releases = releases;
+            this.leaked = leaked;
+            this.liveSites = liveSites;
+            this.leakSites = leakSites;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Mats: %d live (%.1f MB), %d allocated, %d released, %d leaked; "
+                                 + "live sites %s; leak sites %s",
+                                 liveMats, liveBytes / (1024.0 * 1024.0), allocations, releases, leaked,
+                                 sites(liveSites), sites(leakSites));
+        }
+
+        private static String sites(Map<String, ?> sites) {
+            return sites.isEmpty() ? "-" : sites.toString();
+        }
+    }
+}
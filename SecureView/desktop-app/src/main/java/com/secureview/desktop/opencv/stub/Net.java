@@ -3,18 +3,19 @@ package com.secureview.desktop.opencv.stub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV Net (DNN network).
- * Uses reflection to call real OpenCV DNN methods if available.
+ * Calls the real OpenCV DNN methods through the selected {@link OpenCvBackend} if available.
  */
 public class Net {
     private static final Logger logger = LoggerFactory.getLogger(Net.class);
     private Object realNet;
-    private Class<?> realClass;
-    private Method setInputMethod;
-    private Method forwardMethod;
     
     public Net() {
         // Empty constructor for stub
@@ -24,47 +25,68 @@ public class Net {
      * Constructor to wrap a real OpenCV Net instance.
      */
     public Net(Object realNetInstance) {
-        if (realNetInstance != null) {
-            try {
-                String className = realNetInstance.getClass().getName();
-                if (className.equals("org.opencv.dnn.Net")) {
-                    this.realNet = realNetInstance;
-                    this.realClass = realNetInstance.getClass();
-                    setInputMethod = realClass.getMethod("setInput", Class.forName("org.opencv.core.Mat"));
-                    forwardMethod = realClass.getMethod("forward");
-                    logger.debug("Wrapped real OpenCV Net instance");
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to wrap OpenCV Net instance", e);
-                this.realNet = null;
-            }
+        if (realNetInstance != null && realNetInstance.getClass().getName().equals(OpenCvBindings.NET)) {
+            this.realNet = realNetInstance;
+            logger.debug("Wrapped real OpenCV Net instance");
         } else {
             this.realNet = null;
         }
     }
     
     public void setInput(Mat blob) {
-        if (realNet != null && setInputMethod != null && blob.getRealInstance() != null) {
+        if (realNet != null && blob.getRealInstance() != null) {
             try {
-                setInputMethod.invoke(realNet, blob.getRealInstance());
-            } catch (Exception e) {
-                logger.error("Failed to set input to DNN network", e);
+                CV.setInput(realNet, blob.getRealInstance());
+            } catch (Throwable t) {
+                logger.error("Failed to set input to DNN network", t);
             }
         }
     }
     
     public Mat forward() {
-        if (realNet != null && forwardMethod != null) {
+        if (realNet != null) {
             try {
-                Object realOutput = forwardMethod.invoke(realNet);
+                Object realOutput = CV.forward(realNet);
                 return new Mat(realOutput);
-            } catch (Exception e) {
-                logger.error("Failed to run DNN forward pass", e);
+            } catch (Throwable t) {
+                logger.error("Failed to run DNN forward pass", t);
             }
         }
         return new Mat();
     }
     
+    /**
+     * Runs the network and returns the named outputs, in the order of {@code outputNames}.
+     * Empty list on failure.
+     */
+    public List<Mat> forward(List<String> outputNames) {
+        List<Mat> outputs = new ArrayList<>(outputNames.size());
+        if (realNet != null) {
+            try {
+                for (Object realOutput : CV.forward(realNet, outputNames)) {
+                    outputs.add(new Mat(realOutput));
+                }
+            } catch (Throwable t) {
+                logger.error("Failed to run DNN forward pass", t);
+            }
+        }
+        return outputs;
+    }
+    
+    /**
+     * Names of the network's output layers; empty if unavailable.
+     */
+    public List<String> getUnconnectedOutLayersNames() {
+        if (realNet != null) {
+            try {
+                return CV.getUnconnectedOutLayersNames(realNet);
+            } catch (Throwable t) {
+                logger.warn("Could not read DNN output layer names", t);
+            }
+        }
+        return Collections.emptyList();
+    }
+    
     public Object getRealInstance() {
         return realNet;
     }
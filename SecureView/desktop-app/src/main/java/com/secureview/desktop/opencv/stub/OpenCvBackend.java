@@ -0,0 +1,111 @@
+package com.secureview.desktop.opencv.stub;
+
+import java.util.List;
+
+/**
+ * The OpenCV calls behind the stub classes.
+ *
+ * OpenCV objects are passed as {@code Object} because the stubs compile without
+ * OpenCV. Two implementations exist: {@link ReflectiveOpenCvBackend}, which works
+ * with whatever OpenCV jar is on the class path at runtime, and the direct backend
+ * from the {@code opencv-direct} Maven profile, which is compiled against OpenCV and
+ * registered through {@link java.util.ServiceLoader}. {@link OpenCvBackends#CV} holds
+ * the one in use.
+ *
+ * Methods throw whatever OpenCV throws (including linkage errors when the native
+ * library is missing); the stubs catch and fall back.
+ */
+interface OpenCvBackend {
+
+    /**
+     * True if OpenCV classes are present, so the other methods can be called.
+     */
+    boolean isAvailable();
+
+    String getName();
+
+    // --- Mat ---
+    Object newMat();
+    Object newMat(Object mat, int x, int y, int width, int height);
+    Object newMat(Object size, int type);
+    boolean empty(Object mat);
+    void release(Object mat);
+    int cols(Object mat);
+    int rows(Object mat);
+    int channels(Object mat);
+    long total(Object mat);
+    long elemSize(Object mat);
+    void get(Object mat, int row, int col, byte[] data);
+    void get(Object mat, int row, int col, float[] data);
+    void get(Object mat, int row, int col, double[] data);
+    double[] get(Object mat, int row, int col);
+    void put(Object mat, int row, int col, byte[] data);
+    void put(Object mat, int row, int col, double[] data);
+    void copyTo(Object src, Object dst);
+    void convertTo(Object src, Object dst, int type, double alpha, double beta);
+    Size size(Object mat);
+    Object reshape(Object mat, int cn, int rows);
+
+    // --- value types ---
+    Object newSize(double width, double height);
+    Object newScalar(double v0, double v1, double v2, double v3);
+    double[] scalarValues(Object scalar);
+    Object newPoint(double x, double y);
+    double pointX(Object point);
+    double pointY(Object point);
+    Object newMatOfRect();
+    Rect[] toRects(Object matOfRect);
+
+    // --- Core ---
+    void normalize(Object src, Object dst, double alpha, double beta, int normType);
+    void minMaxLoc(Object src, double[] minVal, double[] maxVal);
+    void subtract(Object src, Object scalar, Object dst);
+    Object mean(Object src);
+    void meanStdDev(Object src, Object mean, Object stddev);
+    void flip(Object src, Object dst, int flipCode);
+    void absdiff(Object src1, Object src2, Object dst);
+    void copyMakeBorder(Object src, Object dst, int top, int bottom, int left, int right, int borderType, Object value);
+
+    // --- Imgproc ---
+    void cvtColor(Object src, Object dst, int code);
+    void equalizeHist(Object src, Object dst);
+    void resize(Object src, Object dst, Object size);
+    void resize(Object src, Object dst, Object size, int interpolation);
+    void warpAffine(Object src, Object dst, Object transform, Object size, int flags);
+    void sobel(Object src, Object dst, int ddepth, int dx, int dy, int ksize, double scale, double delta);
+    void calcHist(List<Object> images, Object channels, Object mask, Object hist, Object histSize, Object ranges);
+    void matchTemplate(Object image, Object templ, Object result, int method);
+    double compareHist(Object hist1, Object hist2, int method);
+    void laplacian(Object src, Object dst, int ddepth);
+
+    // --- Imgcodecs ---
+    Object imread(String filename);
+    boolean imwrite(String filename, Object mat);
+
+    // --- Dnn ---
+    Object blobFromImage(Object image, double scalefactor, Object size, Object mean, boolean swapRB, boolean crop);
+    Object blobFromImages(List<Object> images, double scalefactor, Object size, Object mean,
+                          boolean swapRB, boolean crop);
+    Object newImage2BlobParams(Object scalefactor, Object size, Object mean, boolean swapRB);
+    void blobFromImageWithParams(Object image, Object blob, Object params);
+    Object readNetFromONNX(String modelPath);
+    Object readNetFromTensorflow(String modelPath);
+    Object readNetFromTorch(String modelPath);
+    void setInput(Object net, Object blob);
+    Object forward(Object net);
+    List<Object> forward(Object net, List<String> outputNames);
+    List<String> getUnconnectedOutLayersNames(Object net);
+
+    // --- VideoCapture ---
+    Object newVideoCapture(int index);
+    boolean isOpened(Object capture);
+    boolean read(Object capture, Object mat);
+    void set(Object capture, int prop, double value);
+    void releaseCapture(Object capture);
+
+    // --- CascadeClassifier ---
+    Object newCascadeClassifier();
+    boolean load(Object classifier, String filename);
+    void detectMultiScale(Object classifier, Object image, Object faces, double scaleFactor,
+                          int minNeighbors, int flags, Object minSize, Object maxSize);
+}
@@ -0,0 +1,48 @@
+package com.secureview.desktop.opencv.stub;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Chooses the {@link OpenCvBackend} once, at first use of a stub class.
+ * A backend registered under {@code META-INF/services} wins if it reports itself
+ * available; otherwise the reflective backend is used.
+ */
+final class OpenCvBackends {
+    private static final Logger logger = LoggerFactory.getLogger(OpenCvBackends.class);
+
+    /**
+     * Backend used by all stub classes.
+     */
+    static final OpenCvBackend CV = select();
+
+    private OpenCvBackends() {
+    }
+
+    private static OpenCvBackend select() {
+        Iterator<OpenCvBackend> providers =
+            ServiceLoader.load(OpenCvBackend.class, OpenCvBackend.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                OpenCvBackend backend = providers.next();
+                if (backend.isAvailable()) {
+                    logger.info("Using {} OpenCV backend", backend.getName());
+                    return backend;
+                }
+                logger.debug("OpenCV backend {} is not available", backend.getName());
+            } catch (ServiceConfigurationError | LinkageError e) {
+                logger.debug("Skipping OpenCV backend that failed to load", e);
+            }
+        }
+        OpenCvBackend fallback = new ReflectiveOpenCvBackend();
+        logger.info("Using {} OpenCV backend (available: {})", fallback.getName(), fallback.isAvailable());
+        return fallback;
+    }
+}
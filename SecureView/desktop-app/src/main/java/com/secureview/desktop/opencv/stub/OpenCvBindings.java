@@ -0,0 +1,253 @@
+package com.secureview.desktop.opencv.stub;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Resolves every OpenCV entry point used by {@link ReflectiveOpenCvBackend} exactly once into a
+ * {@code static final MethodHandle}, so the JIT can inline the calls instead of
+ * going through {@code Method.invoke} and per-call lookups.
+ *
+ * OpenCV classes are not visible at compile time, so each handle's type is erased:
+ * every {@code org.opencv.*} parameter, receiver and return type becomes {@code Object},
+ * primitives and arrays are kept. Call sites use {@code invokeExact} with that erased type.
+ * A handle is null when OpenCV (or that particular entry point) is not available.
+ */
+final class OpenCvBindings {
+    private static final Logger logger = LoggerFactory.getLogger(OpenCvBindings.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    static final String MAT = "org.opencv.core.Mat";
+    static final String SIZE = "org.opencv.core.Size";
+    static final String SCALAR = "org.opencv.core.Scalar";
+    static final String RECT = "org.opencv.core.Rect";
+    static final String POINT = "org.opencv.core.Point";
+    static final String MAT_OF_RECT = "org.opencv.core.MatOfRect";
+    static final String MAT_OF_INT = "org.opencv.core.MatOfInt";
+    static final String MAT_OF_FLOAT = "org.opencv.core.MatOfFloat";
+    static final String MAT_OF_DOUBLE = "org.opencv.core.MatOfDouble";
+    static final String CORE = "org.opencv.core.Core";
+    static final String IMGPROC = "org.opencv.imgproc.Imgproc";
+    static final String IMGCODECS = "org.opencv.imgcodecs.Imgcodecs";
+    static final String DNN = "org.opencv.dnn.Dnn";
+    static final String NET = "org.opencv.dnn.Net";
+    static final String IMAGE2BLOB_PARAMS = "org.opencv.dnn.Image2BlobParams";
+    static final String VIDEO_CAPTURE = "org.opencv.videoio.VideoCapture";
+    static final String CASCADE = "org.opencv.objdetect.CascadeClassifier";
+
+    private OpenCvBindings() {
+    }
+
+    // --- org.opencv.core.Mat ---
+    static final MethodHandle MAT_NEW = constructor(MAT);
+    static final MethodHandle MAT_NEW_ROI = constructor(MAT, MAT, RECT);
+    static final MethodHandle MAT_NEW_SIZE_TYPE = constructor(MAT, SIZE, int.class);
+    static final MethodHandle MAT_EMPTY = virtual(MAT, "empty", boolean.class);
+    static final MethodHandle MAT_RELEASE = virtual(MAT, "release", void.class);
+    static final MethodHandle MAT_COLS = virtual(MAT, "cols", int.class);
+    static final MethodHandle MAT_ROWS = virtual(MAT, "rows", int.class);
+    static final MethodHandle MAT_CHANNELS = virtual(MAT, "channels", int.class);
+    static final MethodHandle MAT_TOTAL = virtual(MAT, "total", long.class);
+    static final MethodHandle MAT_ELEM_SIZE = virtual(MAT, "elemSize", long.class);
+    static final MethodHandle MAT_GET_BYTES = discardResult(virtual(MAT, "get", int.class, int.class, int.class, byte[].class));
+    static final MethodHandle MAT_GET_FLOATS = discardResult(virtual(MAT, "get", int.class, int.class, int.class, float[].class));
+    static final MethodHandle MAT_GET_DOUBLES = discardResult(virtual(MAT, "get", int.class, int.class, int.class, double[].class));
+    static final MethodHandle MAT_GET_ELEMENT = virtual(MAT, "get", double[].class, int.class, int.class);
+    static final MethodHandle MAT_PUT_BYTES = discardResult(virtual(MAT, "put", int.class, int.class, int.class, byte[].class));
+    static final MethodHandle MAT_PUT_DOUBLES = discardResult(virtual(MAT, "put", int.class, int.class, int.class, double[].class));
+    static final MethodHandle MAT_COPY_TO = virtual(MAT, "copyTo", void.class, MAT);
+    static final MethodHandle MAT_RESHAPE = virtual(MAT, "reshape", MAT, int.class, int.class);
+    static final MethodHandle MAT_CONVERT_TO_BETA =
+        virtual(MAT, "convertTo", void.class, MAT, int.class, double.class, double.class);
+    static final MethodHandle MAT_SIZE = virtual(MAT, "size", SIZE);
+
+    // --- value types ---
+    static final MethodHandle SIZE_NEW = constructor(SIZE, double.class, double.class);
+    static final MethodHandle SIZE_WIDTH = getter(SIZE, "width", double.class);
+    static final MethodHandle SIZE_HEIGHT = getter(SIZE, "height", double.class);
+    static final MethodHandle SCALAR_NEW = constructor(SCALAR, double.class, double.class, double.class, double.class);
+    static final MethodHandle SCALAR_VAL = getter(SCALAR, "val", double[].class);
+    static final MethodHandle RECT_NEW = constructor(RECT, int.class, int.class, int.class, int.class);
+    static final MethodHandle RECT_X = getter(RECT, "x", int.class);
+    static final MethodHandle RECT_Y = getter(RECT, "y", int.class);
+    static final MethodHandle RECT_WIDTH = getter(RECT, "width", int.class);
+    static final MethodHandle RECT_HEIGHT = getter(RECT, "height", int.class);
+    static final MethodHandle POINT_NEW = constructor(POINT, double.class, double.class);
+    static final MethodHandle POINT_X = getter(POINT, "x", double.class);
+    static final MethodHandle POINT_Y = getter(POINT, "y", double.class);
+    static final MethodHandle MAT_OF_RECT_NEW = constructor(MAT_OF_RECT);
+    static final MethodHandle MAT_OF_RECT_TO_ARRAY = virtual(MAT_OF_RECT, "toArray", "[" + RECT);
+    static final MethodHandle MAT_OF_RECT_RELEASE = virtual(MAT_OF_RECT, "release", void.class);
+
+    // --- org.opencv.core.Core ---
+    static final MethodHandle CORE_NORMALIZE =
+        staticMethod(CORE, "normalize", void.class, MAT, MAT, double.class, double.class, int.class);
+    static final MethodHandle CORE_MIN_MAX_LOC = staticMethod(CORE, "minMaxLoc", "org.opencv.core.Core$MinMaxLocResult", MAT);
+    static final MethodHandle MIN_MAX_LOC_MIN = getter("org.opencv.core.Core$MinMaxLocResult", "minVal", double.class);
+    static final MethodHandle MIN_MAX_LOC_MAX = getter("org.opencv.core.Core$MinMaxLocResult", "maxVal", double.class);
+    static final MethodHandle CORE_SUBTRACT_SCALAR = staticMethod(CORE, "subtract", void.class, MAT, SCALAR, MAT);
+    static final MethodHandle CORE_MEAN = staticMethod(CORE, "mean", SCALAR, MAT);
+    static final MethodHandle CORE_MEAN_STD_DEV =
+        staticMethod(CORE, "meanStdDev", void.class, MAT, MAT_OF_DOUBLE, MAT_OF_DOUBLE);
+    static final MethodHandle MAT_OF_DOUBLE_NEW = constructor(MAT_OF_DOUBLE);
+    static final MethodHandle CORE_FLIP = staticMethod(CORE, "flip", void.class, MAT, MAT, int.class);
+    static final MethodHandle CORE_ABSDIFF = staticMethod(CORE, "absdiff", void.class, MAT, MAT, MAT);
+    static final MethodHandle CORE_COPY_MAKE_BORDER = staticMethod(CORE, "copyMakeBorder", void.class,
+        MAT, MAT, int.class, int.class, int.class, int.class, int.class, SCALAR);
+
+    // --- org.opencv.imgproc.Imgproc ---
+    static final MethodHandle IMGPROC_CVT_COLOR = staticMethod(IMGPROC, "cvtColor", void.class, MAT, MAT, int.class);
+    static final MethodHandle IMGPROC_EQUALIZE_HIST = staticMethod(IMGPROC, "equalizeHist", void.class, MAT, MAT);
+    static final MethodHandle IMGPROC_RESIZE = staticMethod(IMGPROC, "resize", void.class, MAT, MAT, SIZE);
+    static final MethodHandle IMGPROC_RESIZE_INTERPOLATION = staticMethod(IMGPROC, "resize", void.class,
+        MAT, MAT, SIZE, double.class, double.class, int.class);
+    static final MethodHandle IMGPROC_WARP_AFFINE =
+        staticMethod(IMGPROC, "warpAffine", void.class, MAT, MAT, MAT, SIZE, int.class);
+    static final MethodHandle IMGPROC_SOBEL = staticMethod(IMGPROC, "Sobel", void.class,
+        MAT, MAT, int.class, int.class, int.class, int.class, double.class, double.class);
+    static final MethodHandle IMGPROC_CALC_HIST = staticMethod(IMGPROC, "calcHist", void.class,
+        java.util.List.class, MAT_OF_INT, MAT, MAT, MAT_OF_INT, MAT_OF_FLOAT);
+    static final MethodHandle IMGPROC_MATCH_TEMPLATE =
+        staticMethod(IMGPROC, "matchTemplate", void.class, MAT, MAT, MAT, int.class);
+    static final MethodHandle IMGPROC_COMPARE_HIST = staticMethod(IMGPROC, "compareHist", double.class, MAT, MAT, int.class);
+    static final MethodHandle IMGPROC_LAPLACIAN = staticMethod(IMGPROC, "Laplacian", void.class, MAT, MAT, int.class);
+
+    // --- org.opencv.imgcodecs.Imgcodecs ---
+    static final MethodHandle IMGCODECS_IMREAD = staticMethod(IMGCODECS, "imread", MAT, String.class);
+    static final MethodHandle IMGCODECS_IMWRITE = staticMethod(IMGCODECS, "imwrite", boolean.class, String.class, MAT);
+
+    // --- org.opencv.dnn ---
+    static final MethodHandle DNN_BLOB_FROM_IMAGE = staticMethod(DNN, "blobFromImage", MAT,
+        MAT, double.class, SIZE, SCALAR, boolean.class, boolean.class);
+    static final MethodHandle DNN_BLOB_FROM_IMAGES = staticMethod(DNN, "blobFromImages", MAT,
+        java.util.List.class, double.class, SIZE, SCALAR, boolean.class, boolean.class);
+    static final MethodHandle IMAGE2BLOB_PARAMS_NEW =
+        constructor(IMAGE2BLOB_PARAMS, SCALAR, SIZE, SCALAR, boolean.class);
+    static final MethodHandle DNN_BLOB_FROM_IMAGE_WITH_PARAMS =
+        staticMethod(DNN, "blobFromImageWithParams", void.class, MAT, MAT, IMAGE2BLOB_PARAMS);
+    static final MethodHandle DNN_READ_ONNX = staticMethod(DNN, "readNetFromONNX", NET, String.class);
+    static final MethodHandle DNN_READ_TENSORFLOW = staticMethod(DNN, "readNetFromTensorflow", NET, String.class);
+    static final MethodHandle DNN_READ_TORCH = staticMethod(DNN, "readNetFromTorch", NET, String.class);
+    static final MethodHandle NET_SET_INPUT = virtual(NET, "setInput", void.class, MAT);
+    static final MethodHandle NET_FORWARD = virtual(NET, "forward", MAT);
+    static final MethodHandle NET_FORWARD_OUTPUTS =
+        virtual(NET, "forward", void.class, java.util.List.class, java.util.List.class);
+    static final MethodHandle NET_OUTPUT_NAMES = virtual(NET, "getUnconnectedOutLayersNames", java.util.List.class);
+
+    // --- org.opencv.videoio.VideoCapture ---
+    static final MethodHandle VIDEO_CAPTURE_NEW = constructor(VIDEO_CAPTURE, int.class);
+    static final MethodHandle VIDEO_CAPTURE_IS_OPENED = virtual(VIDEO_CAPTURE, "isOpened", boolean.class);
+    static final MethodHandle VIDEO_CAPTURE_READ = virtual(VIDEO_CAPTURE, "read", boolean.class, MAT);
+    static final MethodHandle VIDEO_CAPTURE_SET = discardResult(virtual(VIDEO_CAPTURE, "set", boolean.class, int.class, double.class));
+    static final MethodHandle VIDEO_CAPTURE_RELEASE = virtual(VIDEO_CAPTURE, "release", void.class);
+
+    // --- org.opencv.objdetect.CascadeClassifier ---
+    static final MethodHandle CASCADE_NEW = constructor(CASCADE);
+    static final MethodHandle CASCADE_LOAD = virtual(CASCADE, "load", boolean.class, String.class);
+    static final MethodHandle CASCADE_DETECT_MULTI_SCALE = virtual(CASCADE, "detectMultiScale", void.class,
+        MAT, MAT_OF_RECT, double.class, int.class, int.class, SIZE, SIZE);
+
+    /**
+     * True if the OpenCV Java classes were found on the class path.
+     */
+    static final boolean AVAILABLE = MAT_NEW != null;
+
+    static {
+        logger.debug("OpenCV bindings resolved (available: {})", AVAILABLE);
+    }
+
+    /**
+     * Resolves a type given either as a Class or as an OpenCV class name ("[" prefix for arrays).
+     */
+    private static Class<?> type(Object spec) throws ClassNotFoundException {
+        if (spec instanceof Class) {
+            return (Class<?>) spec;
+        }
+        String name = (String) spec;
+        if (name.startsWith("[")) {
+            return java.lang.reflect.Array.newInstance(Class.forName(name.substring(1)), 0).getClass();
+        }
+        return Class.forName(name);
+    }
+
+    /**
+     * OpenCV types become Object (arrays of them Object[]); everything else is kept.
+     */
+    private static Class<?> erased(Object spec) {
+        if (spec instanceof Class) {
+            return (Class<?>) spec;
+        }
+        return ((String) spec).startsWith("[") ? Object[].class : Object.class;
+    }
+
+    private static Class<?>[] types(Object[] specs) throws ClassNotFoundException {
+        Class<?>[] classes = new Class<?>[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            classes[i] = type(specs[i]);
+        }
+        return classes;
+    }
+
+    private static Class<?>[] erasedTypes(Object[] specs) {
+        Class<?>[] classes = new Class<?>[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            classes[i] = erased(specs[i]);
+        }
+        return classes;
+    }
+
+    private static MethodHandle staticMethod(String owner, String name, Object returnType, Object... params) {
+        try {
+            MethodHandle handle = LOOKUP.findStatic(Class.forName(owner), name,
+                                                    MethodType.methodType(type(returnType), types(params)));
+            return handle.asType(MethodType.methodType(erased(returnType), erasedTypes(params)));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.trace("OpenCV binding {}.{} not available: {}", owner, name, e.toString());
+            return null;
+        }
+    }
+
+    private static MethodHandle virtual(String owner, String name, Object returnType, Object... params) {
+        try {
+            MethodHandle handle = LOOKUP.findVirtual(Class.forName(owner), name,
+                                                     MethodType.methodType(type(returnType), types(params)));
+            return handle.asType(MethodType.methodType(erased(returnType), erasedTypes(params))
+                                     .insertParameterTypes(0, Object.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.trace("OpenCV binding {}.{} not available: {}", owner, name, e.toString());
+            return null;
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Object... params) {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(Class.forName(owner),
+                                                         MethodType.methodType(void.class, types(params)));
+            return handle.asType(MethodType.methodType(Object.class, erasedTypes(params)));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.trace("OpenCV binding new {} not available: {}", owner, e.toString());
+            return null;
+        }
+    }
+
+    private static MethodHandle getter(String owner, String field, Class<?> type) {
+        try {
+            MethodHandle handle = LOOKUP.findGetter(Class.forName(owner), field, type);
+            return handle.asType(MethodType.methodType(type, Object.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.trace("OpenCV binding {}.{} not available: {}", owner, field, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Drops an unused return value so call sites can invoke the handle as a statement.
+     */
+    private static MethodHandle discardResult(MethodHandle handle) {
+        return handle == null ? null : handle.asType(handle.type().changeReturnType(void.class));
+    }
+}
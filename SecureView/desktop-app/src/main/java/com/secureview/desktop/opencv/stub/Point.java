@@ -1,7 +1,5 @@
 package com.secureview.desktop.opencv.stub;
 
-import java.lang.reflect.Constructor;
-
 /**
  * Stub class for OpenCV Point.
  */
@@ -17,28 +15,23 @@ public class Point {
     public Point(double x, double y) {
         this.x = x;
         this.y = y;
-        try {
-            Class<?> pointClass = Class.forName("org.opencv.core.Point");
-            Constructor<?> constructor = pointClass.getDeclaredConstructor(double.class, double.class);
-            this.realPoint = constructor.newInstance(x, y);
-        } catch (Exception e) {
-            // Real OpenCV not available
-            this.realPoint = null;
+        if (OpenCvBackends.CV.isAvailable()) {
+            try {
+                this.realPoint = OpenCvBackends.CV.newPoint(x, y);
+            } catch (Throwable t) {
+                // Real OpenCV not available
+                this.realPoint = null;
+            }
         }
     }
     
     public Point(Object realPointInstance) {
-        if (realPointInstance != null) {
+        if (realPointInstance != null && realPointInstance.getClass().getName().equals(OpenCvBindings.POINT)) {
             try {
-                String className = realPointInstance.getClass().getName();
-                if (className.equals("org.opencv.core.Point")) {
-                    this.realPoint = realPointInstance;
-                    // Extract x, y from real point
-                    Class<?> pointClass = realPointInstance.getClass();
-                    this.x = ((Number) pointClass.getField("x").get(realPointInstance)).doubleValue();
-                    this.y = ((Number) pointClass.getField("y").get(realPointInstance)).doubleValue();
-                }
-            } catch (Exception e) {
+                this.x = OpenCvBackends.CV.pointX(realPointInstance);
+                this.y = OpenCvBackends.CV.pointY(realPointInstance);
+                this.realPoint = realPointInstance;
+            } catch (Throwable t) {
                 this.realPoint = null;
             }
         }
@@ -53,4 +46,3 @@ public class Point {
         return "Point(" + x + ", " + y + ")";
     }
 }
-
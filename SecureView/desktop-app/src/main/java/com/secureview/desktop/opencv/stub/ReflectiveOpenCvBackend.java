@@ -0,0 +1,686 @@
+package com.secureview.desktop.opencv.stub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.secureview.desktop.opencv.stub.OpenCvBindings.*;
+
+/**
+ * Fallback backend: calls whatever OpenCV jar is on the class path at runtime
+ * through the handles in {@link OpenCvBindings}. Calling a method whose handle
+ * could not be resolved throws {@link NullPointerException}.
+ */
+final class ReflectiveOpenCvBackend implements OpenCvBackend {
+
+    @Override
+    public boolean isAvailable() {
+        return OpenCvBindings.AVAILABLE;
+    }
+
+    @Override
+    public String getName() {
+        return "reflective";
+    }
+
+    /**
+     * invokeExact declares Throwable; OpenCV itself only throws unchecked exceptions.
+     */
+    private static RuntimeException propagate(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+
+    // --- Mat ---
+
+    @Override
+    public Object newMat() {
+        try {
+            return (Object) MAT_NEW.invokeExact();
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object newMat(Object mat, int x, int y, int width, int height) {
+        try {
+            Object rect = (Object) RECT_NEW.invokeExact(x, y, width, height);
+            return (Object) MAT_NEW_ROI.invokeExact(mat, rect);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object newMat(Object size, int type) {
+        try {
+            return (Object) MAT_NEW_SIZE_TYPE.invokeExact(size, type);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public boolean empty(Object mat) {
+        try {
+            return (boolean) MAT_EMPTY.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void release(Object mat) {
+        try {
+            MAT_RELEASE.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public int cols(Object mat) {
+        try {
+            return (int) MAT_COLS.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public int rows(Object mat) {
+        try {
+            return (int) MAT_ROWS.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public int channels(Object mat) {
+        try {
+            return (int) MAT_CHANNELS.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public long total(Object mat) {
+        try {
+            return (long) MAT_TOTAL.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public long elemSize(Object mat) {
+        try {
+            return (long) MAT_ELEM_SIZE.invokeExact(mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void get(Object mat, int row, int col, byte[] data) {
+        try {
+            MAT_GET_BYTES.invokeExact(mat, row, col, data);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void get(Object mat, int row, int col, float[] data) {
+        try {
+            MAT_GET_FLOATS.invokeExact(mat, row, col, data);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void get(Object mat, int row, int col, double[] data) {
+        try {
+            MAT_GET_DOUBLES.invokeExact(mat, row, col, data);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public double[] get(Object mat, int row, int col) {
+        try {
+            return (double[]) MAT_GET_ELEMENT.invokeExact(mat, row, col);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void put(Object mat, int row, int col, byte[] data) {
+        try {
+            MAT_PUT_BYTES.invokeExact(mat, row, col, data);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void put(Object mat, int row, int col, double[] data) {
+        try {
+            MAT_PUT_DOUBLES.invokeExact(mat, row, col, data);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void copyTo(Object src, Object dst) {
+        try {
+            MAT_COPY_TO.invokeExact(src, dst);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object reshape(Object mat, int cn, int rows) {
+        try {
+            return (Object) MAT_RESHAPE.invokeExact(mat, cn, rows);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void convertTo(Object src, Object dst, int type, double alpha, double beta) {
+        try {
+            MAT_CONVERT_TO_BETA.invokeExact(src, dst, type, alpha, beta);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Size size(Object mat) {
+        try {
+            Object size = (Object) MAT_SIZE.invokeExact(mat);
+            return new Size((double) SIZE_WIDTH.invokeExact(size), (double) SIZE_HEIGHT.invokeExact(size));
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- value types ---
+
+    @Override
+    public Object newSize(double width, double height) {
+        try {
+            return (Object) SIZE_NEW.invokeExact(width, height);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object newScalar(double v0, double v1, double v2, double v3) {
+        try {
+            return (Object) SCALAR_NEW.invokeExact(v0, v1, v2, v3);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public double[] scalarValues(Object scalar) {
+        try {
+            return (double[]) SCALAR_VAL.invokeExact(scalar);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object newPoint(double x, double y) {
+        try {
+            return (Object) POINT_NEW.invokeExact(x, y);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public double pointX(Object point) {
+        try {
+            return (double) POINT_X.invokeExact(point);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public double pointY(Object point) {
+        try {
+            return (double) POINT_Y.invokeExact(point);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object newMatOfRect() {
+        try {
+            return (Object) MAT_OF_RECT_NEW.invokeExact();
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Rect[] toRects(Object matOfRect) {
+        try {
+            Object[] rects = (Object[]) MAT_OF_RECT_TO_ARRAY.invokeExact(matOfRect);
+            if (rects == null) {
+                return new Rect[0];
+            }
+            Rect[] result = new Rect[rects.length];
+            for (int i = 0; i < rects.length; i++) {
+                Object rect = rects[i];
+                result[i] = new Rect((int) RECT_X.invokeExact(rect), (int) RECT_Y.invokeExact(rect),
+                                     (int) RECT_WIDTH.invokeExact(rect), (int) RECT_HEIGHT.invokeExact(rect));
+            }
+            return result;
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- Core ---
+
+    @Override
+    public void normalize(Object src, Object dst, double alpha, double beta, int normType) {
+        try {
+            CORE_NORMALIZE.invokeExact(src, dst, alpha, beta, normType);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void minMaxLoc(Object src, double[] minVal, double[] maxVal) {
+        try {
+            Object result = (Object) CORE_MIN_MAX_LOC.invokeExact(src);
+            minVal[0] = (double) MIN_MAX_LOC_MIN.invokeExact(result);
+            maxVal[0] = (double) MIN_MAX_LOC_MAX.invokeExact(result);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void subtract(Object src, Object scalar, Object dst) {
+        try {
+            CORE_SUBTRACT_SCALAR.invokeExact(src, scalar, dst);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object mean(Object src) {
+        try {
+            return (Object) CORE_MEAN.invokeExact(src);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void meanStdDev(Object src, Object mean, Object stddev) {
+        try {
+            // OpenCV writes into MatOfDouble outputs; copy them into the caller's Mats
+            Object realMean = (Object) MAT_OF_DOUBLE_NEW.invokeExact();
+            Object realStddev = (Object) MAT_OF_DOUBLE_NEW.invokeExact();
+            CORE_MEAN_STD_DEV.invokeExact(src, realMean, realStddev);
+            MAT_COPY_TO.invokeExact(realMean, mean);
+            MAT_COPY_TO.invokeExact(realStddev, stddev);
+            MAT_RELEASE.invokeExact(realMean);
+            MAT_RELEASE.invokeExact(realStddev);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void flip(Object src, Object dst, int flipCode) {
+        try {
+            CORE_FLIP.invokeExact(src, dst, flipCode);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void absdiff(Object src1, Object src2, Object dst) {
+        try {
+            CORE_ABSDIFF.invokeExact(src1, src2, dst);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void copyMakeBorder(Object src, Object dst, int top, int bottom, int left, int right,
+                               int borderType, Object value) {
+        try {
+            CORE_COPY_MAKE_BORDER.invokeExact(src, dst, top, bottom, left, right, borderType, value);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- Imgproc ---
+
+    @Override
+    public void cvtColor(Object src, Object dst, int code) {
+        try {
+            IMGPROC_CVT_COLOR.invokeExact(src, dst, code);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void equalizeHist(Object src, Object dst) {
+        try {
+            IMGPROC_EQUALIZE_HIST.invokeExact(src, dst);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void resize(Object src, Object dst, Object size) {
+        try {
+            IMGPROC_RESIZE.invokeExact(src, dst, size);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void resize(Object src, Object dst, Object size, int interpolation) {
+        try {
+            IMGPROC_RESIZE_INTERPOLATION.invokeExact(src, dst, size, 0.0, 0.0, interpolation);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void warpAffine(Object src, Object dst, Object transform, Object size, int flags) {
+        try {
+            IMGPROC_WARP_AFFINE.invokeExact(src, dst, transform, size, flags);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void sobel(Object src, Object dst, int ddepth, int dx, int dy, int ksize, double scale, double delta) {
+        try {
+            IMGPROC_SOBEL.invokeExact(src, dst, ddepth, dx, dy, ksize, scale, delta);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void calcHist(List<Object> images, Object channels, Object mask, Object hist,
+                         Object histSize, Object ranges) {
+        try {
+            IMGPROC_CALC_HIST.invokeExact(images, channels, mask, hist, histSize, ranges);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void matchTemplate(Object image, Object templ, Object result, int method) {
+        try {
+            IMGPROC_MATCH_TEMPLATE.invokeExact(image, templ, result, method);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public double compareHist(Object hist1, Object hist2, int method) {
+        try {
+            return (double) IMGPROC_COMPARE_HIST.invokeExact(hist1, hist2, method);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void laplacian(Object src, Object dst, int ddepth) {
+        try {
+            IMGPROC_LAPLACIAN.invokeExact(src, dst, ddepth);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- Imgcodecs ---
+
+    @Override
+    public Object imread(String filename) {
+        try {
+            return (Object) IMGCODECS_IMREAD.invokeExact(filename);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public boolean imwrite(String filename, Object mat) {
+        try {
+            return (boolean) IMGCODECS_IMWRITE.invokeExact(filename, mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- Dnn ---
+
+    @Override
+    public Object blobFromImage(Object image, double scalefactor, Object size, Object mean,
+                                boolean swapRB, boolean crop) {
+        try {
+            return (Object) DNN_BLOB_FROM_IMAGE.invokeExact(image, scalefactor, size, mean, swapRB, crop);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object blobFromImages(List<Object> images, double scalefactor, Object size, Object mean,
+                                 boolean swapRB, boolean crop) {
+        try {
+            return (Object) DNN_BLOB_FROM_IMAGES.invokeExact(images, scalefactor, size, mean, swapRB, crop);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object newImage2BlobParams(Object scalefactor, Object size, Object mean, boolean swapRB) {
+        try {
+            return (Object) IMAGE2BLOB_PARAMS_NEW.invokeExact(scalefactor, size, mean, swapRB);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void blobFromImageWithParams(Object image, Object blob, Object params) {
+        try {
+            DNN_BLOB_FROM_IMAGE_WITH_PARAMS.invokeExact(image, blob, params);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object readNetFromONNX(String modelPath) {
+        try {
+            return (Object) DNN_READ_ONNX.invokeExact(modelPath);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object readNetFromTensorflow(String modelPath) {
+        try {
+            return (Object) DNN_READ_TENSORFLOW.invokeExact(modelPath);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object readNetFromTorch(String modelPath) {
+        try {
+            return (Object) DNN_READ_TORCH.invokeExact(modelPath);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void setInput(Object net, Object blob) {
+        try {
+            NET_SET_INPUT.invokeExact(net, blob);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public Object forward(Object net) {
+        try {
+            return (Object) NET_FORWARD.invokeExact(net);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public List<Object> forward(Object net, List<String> outputNames) {
+        List<Object> outputs = new ArrayList<>(outputNames.size());
+        try {
+            NET_FORWARD_OUTPUTS.invokeExact(net, (List) outputs, (List) outputNames);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+        return outputs;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> getUnconnectedOutLayersNames(Object net) {
+        try {
+            return (List<String>) (List) NET_OUTPUT_NAMES.invokeExact(net);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- VideoCapture ---
+
+    @Override
+    public Object newVideoCapture(int index) {
+        try {
+            return (Object) VIDEO_CAPTURE_NEW.invokeExact(index);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public boolean isOpened(Object capture) {
+        try {
+            return (boolean) VIDEO_CAPTURE_IS_OPENED.invokeExact(capture);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public boolean read(Object capture, Object mat) {
+        try {
+            return (boolean) VIDEO_CAPTURE_READ.invokeExact(capture, mat);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void set(Object capture, int prop, double value) {
+        try {
+            VIDEO_CAPTURE_SET.invokeExact(capture, prop, value);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void releaseCapture(Object capture) {
+        try {
+            VIDEO_CAPTURE_RELEASE.invokeExact(capture);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    // --- CascadeClassifier ---
+
+    @Override
+    public Object newCascadeClassifier() {
+        try {
+            return (Object) CASCADE_NEW.invokeExact();
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public boolean load(Object classifier, String filename) {
+        try {
+            return (boolean) CASCADE_LOAD.invokeExact(classifier, filename);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    @Override
+    public void detectMultiScale(Object classifier, Object image, Object faces, double scaleFactor,
+                                 int minNeighbors, int flags, Object minSize, Object maxSize) {
+        try {
+            CASCADE_DETECT_MULTI_SCALE.invokeExact(classifier, image, faces, scaleFactor,
+                                                   minNeighbors, flags, minSize, maxSize);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+}
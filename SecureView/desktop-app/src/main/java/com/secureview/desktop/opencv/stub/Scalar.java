@@ -5,6 +5,7 @@ package com.secureview.desktop.opencv.stub;
  */
 public class Scalar {
     public double[] val = new double[4];
+    private Converted converted; // last real Scalar built from val
     
     public Scalar() {
         val[0] = 0; val[1] = 0; val[2] = 0; val[3] = 0;
@@ -28,16 +29,56 @@ public class Scalar {
     public Scalar(Object realScalarInstance) {
         if (realScalarInstance != null) {
             try {
-                java.lang.reflect.Field valField = realScalarInstance.getClass().getField("val");
-                double[] realVal = (double[]) valField.get(realScalarInstance);
+                double[] realVal = OpenCvBackends.CV.scalarValues(realScalarInstance);
                 if (realVal != null && realVal.length >= 4) {
                     val = realVal.clone();
                 }
-            } catch (Exception e) {
+            } catch (Throwable t) {
                 // Fall back to default
                 val = new double[4];
             }
         }
     }
-}
 
+    /**
+     * Real OpenCV Scalar with the current values, or null without OpenCV.
+     * Reused until {@link #val} changes.
+     */
+    Object toReal() {
+        Converted c = converted;
+        double[] v = val;
+        if (c != null && c.v0 == v[0] && c.v1 == v[1] && c.v2 == v[2] && c.v3 == v[3]) {
+            return c.real;
+        }
+        if (!OpenCvBackends.CV.isAvailable()) {
+            return null;
+        }
+        try {
+            Object real = OpenCvBackends.CV.newScalar(v[0], v[1], v[2], v[3]);
+            converted = new Converted(v[0], v[1], v[2], v[3], real);
+            return real;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts a stub Scalar (or passes through a real one).
+     */
+    static Object toReal(Object scalar) {
+        return scalar instanceof Scalar ? ((Scalar) scalar).toReal() : scalar;
+    }
+
+    private static final class Converted {
+        final double v0, v1, v2, v3;
+        final Object real;
+
+        Converted(double v0, double v1, double v2, double v3, Object real) {
+            this.v0 = v0;
+            this.v1 = v1;
+            this.v2 = v2;
+            this.v3 = v3;
+            this.real = real;
+        }
+    }
+}
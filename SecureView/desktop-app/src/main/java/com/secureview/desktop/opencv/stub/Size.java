@@ -6,10 +6,52 @@ package com.secureview.desktop.opencv.stub;
 public class Size {
     public double width;
     public double height;
+    private Converted converted; // last real Size built from these fields
+
     public Size() {}
     public Size(double width, double height) {
         this.width = width;
         this.height = height;
     }
-}
 
+    /**
+     * Real OpenCV Size with the current width/height, or null without OpenCV.
+     * The instance is reused until the fields change, so a Size kept in a field
+     * costs no allocation per frame.
+     */
+    Object toReal() {
+        Converted c = converted;
+        if (c != null && c.width == width && c.height == height) {
+            return c.real;
+        }
+        if (!OpenCvBackends.CV.isAvailable()) {
+            return null;
+        }
+        try {
+            Object real = OpenCvBackends.CV.newSize(width, height);
+            converted = new Converted(width, height, real);
+            return real;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts a stub Size (or passes through a real one).
+     */
+    static Object toReal(Object size) {
+        return size instanceof Size ? ((Size) size).toReal() : size;
+    }
+
+    private static final class Converted {
+        final double width;
+        final double height;
+        final Object real;
+
+        Converted(double width, double height, Object real) {
+            this.width = width;
+            this.height = height;
+            this.real = real;
+        }
+    }
+}
@@ -1,121 +1,80 @@
 package com.secureview.desktop.opencv.stub;
 
-import com.secureview.desktop.opencv.stub.Mat;
-import java.lang.reflect.Method;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.secureview.desktop.opencv.stub.OpenCvBackends.CV;
 
 /**
  * Stub class for OpenCV VideoCapture.
- * Uses reflection to call real OpenCV methods if available.
+ * Calls the real OpenCV methods through the selected {@link OpenCvBackend} if available.
  */
 public class VideoCapture {
+    private static final Logger logger = LoggerFactory.getLogger(VideoCapture.class);
     private Object realVideoCapture;
-    private Class<?> realClass;
-    private Method isOpenedMethod;
-    private Method readMethod;
-    private Method setMethod;
-    private Method releaseMethod;
     
     public VideoCapture(int index) {
-        // Try to load real OpenCV VideoCapture
-        try {
-            realClass = Class.forName("org.opencv.videoio.VideoCapture");
-            realVideoCapture = realClass.getDeclaredConstructor(int.class).newInstance(index);
-            isOpenedMethod = realClass.getMethod("isOpened");
-            readMethod = realClass.getMethod("read", Class.forName("org.opencv.core.Mat"));
-            setMethod = realClass.getMethod("set", int.class, double.class);
-            releaseMethod = realClass.getMethod("release");
-        } catch (Exception e) {
-            // Real OpenCV not available
-            realVideoCapture = null;
+        // Try to open a real OpenCV VideoCapture
+        if (CV.isAvailable()) {
+            try {
+                realVideoCapture = CV.newVideoCapture(index);
+            } catch (Throwable t) {
+                // Real OpenCV not available
+                realVideoCapture = null;
+            }
         }
     }
     
     public boolean isOpened() {
-        if (realVideoCapture != null && isOpenedMethod != null) {
+        if (realVideoCapture != null) {
             try {
-                return (Boolean) isOpenedMethod.invoke(realVideoCapture);
-            } catch (Exception e) {
+                return CV.isOpened(realVideoCapture);
+            } catch (Throwable t) {
                 return false;
             }
         }
         return false;
     }
     
+    /**
+     * Grabs the next frame into {@code frame}, reusing its real Mat (and its buffer)
+     * when it already has one.
+     */
     public boolean read(Mat frame) {
         if (realVideoCapture == null) {
-            org.slf4j.LoggerFactory.getLogger(VideoCapture.class)
-                .warn("VideoCapture: realVideoCapture is null. OpenCV may not be loaded.");
-            return false;
-        }
-        
-        if (readMethod == null) {
-            org.slf4j.LoggerFactory.getLogger(VideoCapture.class)
-                .warn("VideoCapture: readMethod is null.");
+            logger.warn("VideoCapture: realVideoCapture is null. OpenCV may not be loaded.");
             return false;
         }
         
         try {
-            // Create or get real Mat instance
-            Object realMat;
-            Class<?> matClass = Class.forName("org.opencv.core.Mat");
-            
-            // Try to get real Mat from stub, or create new one
-            try {
-                java.lang.reflect.Field realField = Mat.class.getDeclaredField("realMat");
-                realField.setAccessible(true);
-                realMat = realField.get(frame);
-                if (realMat == null) {
-                    realMat = matClass.getDeclaredConstructor().newInstance();
-                    realField.set(frame, realMat);
-                }
-            } catch (Exception e) {
-                // Create new real Mat
-                realMat = matClass.getDeclaredConstructor().newInstance();
-                // Store it in the stub
-                try {
-                    java.lang.reflect.Field realField = Mat.class.getDeclaredField("realMat");
-                    realField.setAccessible(true);
-                    realField.set(frame, realMat);
-                } catch (Exception e2) {
-                    // Ignore if field doesn't exist
+            if (frame.realMat == null) {
+                frame.realMat = Mat.newRealMat();
+                if (frame.realMat == null) {
+                    return false;
                 }
             }
-            
-            // Invoke read method
-            Boolean result = (Boolean) readMethod.invoke(realVideoCapture, realMat);
-            
-            // Update the stub's realMat field after read
-            try {
-                java.lang.reflect.Field realField = Mat.class.getDeclaredField("realMat");
-                realField.setAccessible(true);
-                realField.set(frame, realMat);
-            } catch (Exception e) {
-                // Ignore
-            }
-            
-            return result != null && result;
-        } catch (Exception e) {
-            org.slf4j.LoggerFactory.getLogger(VideoCapture.class)
-                .error("Error in VideoCapture.read()", e);
+            return CV.read(realVideoCapture, frame.realMat);
+        } catch (Throwable t) {
+            logger.error("Error in VideoCapture.read()", t);
             return false;
         }
     }
     
     public void set(int prop, double value) {
-        if (realVideoCapture != null && setMethod != null) {
+        if (realVideoCapture != null) {
             try {
-                setMethod.invoke(realVideoCapture, prop, value);
-            } catch (Exception e) {
+                CV.set(realVideoCapture, prop, value);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
     }
     
     public void release() {
-        if (realVideoCapture != null && releaseMethod != null) {
+        if (realVideoCapture != null) {
             try {
-                releaseMethod.invoke(realVideoCapture);
-            } catch (Exception e) {
+                CV.releaseCapture(realVideoCapture);
+            } catch (Throwable t) {
                 // Ignore
             }
         }
@@ -125,4 +84,3 @@ public class VideoCapture {
         return realVideoCapture;
     }
 }
-
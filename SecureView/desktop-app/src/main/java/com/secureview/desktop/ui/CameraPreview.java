@@ -0,0 +1,130 @@
+package com.secureview.desktop.ui;
+
+import com.secureview.desktop.opencv.stub.Imgproc;
+import com.secureview.desktop.opencv.stub.Mat;
+import com.secureview.desktop.opencv.stub.Size;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Camera preview that renders frames without per-frame allocation.
+ *
+ * Each frame is resized by OpenCV to the size it will be shown at (aspect ratio kept)
+ * into a reused Mat, and its bytes are read straight into the {@code DataBufferByte} of a
+ * reused {@code TYPE_3BYTE_BGR} image, which Mat's BGR layout matches. The image and Mat
+ * are only reallocated when the display size changes. Paint just draws that image,
+ * scaling it through the {@code Graphics2D} transform if the component was resized since.
+ *
+ * Use from the EDT only.
+ */
+public class CameraPreview extends JComponent {
+    private final Mat scaled = new Mat();
+    private final Mat bgr = new Mat();
+    private final Size targetSize = new Size();
+    private BufferedImage image;
+    private byte[] pixels;
+    private final Insets insets = new Insets(0, 0, 0, 0);
+    private final String placeholder;
+
+    /**
+     * @param placeholder text shown until the first frame arrives
+     */
+    public CameraPreview(String placeholder, int width, int height) {
+        this.placeholder = placeholder;
+        setPreferredSize(new Dimension(width, height));
+        setForeground(ModernTheme.TEXT_SECONDARY);
+        setFont(ModernTheme.getBodyFont());
+    }
+
+    /**
+     * Copies {@code frame} (BGR or grayscale) into the preview image and schedules a repaint.
+     * The frame is only read.
+     */
+    public void showFrame(Mat frame) {
+        int frameWidth = frame.cols();
+        int frameHeight = frame.rows();
+        if (frameWidth <= 0 || frameHeight <= 0) {
+            return;
+        }
+
+        getInsets(insets);
+        int areaWidth = getWidth() - insets.left - insets.right;
+        int areaHeight = getHeight() - insets.top - insets.bottom;
+        if (areaWidth <= 0 || areaHeight <= 0) {
+            // Not laid out yet
+            Dimension preferred = getPreferredSize();
+            areaWidth = preferred.width;
+            areaHeight = preferred.height;
+        }
+        double fit = Math.min(areaWidth / (double) frameWidth, areaHeight / (double) frameHeight);
+        int width = Math.max(1, (int) Math.round(frameWidth * fit));
+        int height = Math.max(1, (int) Math.round(frameHeight * fit));
+
+        Mat source = frame;
+        if (frame.channels() == 1) {
+            Imgproc.cvtColor(frame, bgr, Imgproc.COLOR_GRAY2BGR);
+            source = bgr;
+        }
+        if (width != frameWidth || height != frameHeight) {
+            // Same values keep the cached OpenCV Size
+            targetSize.width = width;
+            targetSize.height = height;
+            Imgproc.resize(source, scaled, targetSize);
+            source = scaled;
+        }
+
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        }
+        source.get(0, 0, pixels);
+        repaint();
+    }
+
+    /**
+     * Releases the native scratch buffers.
+     */
+    public void release() {
+        scaled.release();
+        bgr.release();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        getInsets(insets);
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+
+        if (image == null) {
+            if (placeholder != null) {
+                g.setColor(getForeground());
+                g.setFont(getFont());
+                FontMetrics metrics = g.getFontMetrics();
+                int x = insets.left + (width - metrics.stringWidth(placeholder)) / 2;
+                int y = insets.top + (height - metrics.getHeight()) / 2 + metrics.getAscent();
+                g.drawString(placeholder, x, y);
+            }
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            double scale = Math.min(width / (double) image.getWidth(), height / (double) image.getHeight());
+            double x = insets.left + (width - image.getWidth() * scale) / 2.0;
+            double y = insets.top + (height - image.getHeight() * scale) / 2.0;
+            g2.translate(x, y);
+            if (scale != 1.0) {
+                // Only until the next frame, which is resized to the new size by OpenCV
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.scale(scale, scale);
+            }
+            g2.drawImage(image, 0, 0, null);
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.secureview.desktop.user;
+
+import com.secureview.desktop.encryption.EncryptionService;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import com.secureview.desktop.face.gallery.GalleryFile;
+import com.secureview.desktop.face.gallery.GalleryMatch;
+import com.secureview.desktop.face.gallery.HnswEmbeddingStore;
+import com.secureview.desktop.face.gallery.ReferenceEmbeddingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 1:N face identification index over all user profiles.
+ * One HNSW entry per registered face image, labelled with the user ID. The graph is
+ * persisted encrypted next to users.json and tagged with the embedding model fingerprint.
+ * Embeddings themselves live in a memory-mapped {@link GalleryFile}; a missing, unreadable
+ * or stale graph is rebuilt from it, and images are only decoded for users it lacks.
+ */
+class UserFaceIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserFaceIndex.class);
+
+    private static final int HNSW_M = 16;
+    private static final int HNSW_EF_CONSTRUCTION = 200;
+    private static final int HNSW_EF_SEARCH = 64;
+
+    private final File indexFile;
+    private final File galleryFile;
+    private final EncryptionService encryptionService;
+    private final ReferenceEmbeddingCache embeddingCache;
+    private final String modelFingerprint;
+    private final HnswEmbeddingStore store = new HnswEmbeddingStore(HNSW_M, HNSW_EF_CONSTRUCTION, HNSW_EF_SEARCH);
+    private GalleryFile gallery; // null if the gallery file could not be opened
+
+    UserFaceIndex(File indexFile, File galleryFile, EncryptionService encryptionService,
+                  ReferenceEmbeddingCache embeddingCache, String modelFingerprint) {
+        this.indexFile = indexFile;
+        this.galleryFile = galleryFile;
+        this.encryptionService = encryptionService;
+        this.embeddingCache = embeddingCache;
+        this.modelFingerprint = modelFingerprint;
+    }
+
+    /**
+     * Opens the persisted index, or rebuilds it from the gallery file (decoding
+     * images only for users the gallery has no records for).
+     */
+    void open(Collection<UserProfile> users) {
+        long start = System.nanoTime();
+        try {
+            gallery = GalleryFile.open(galleryFile, encryptionService, modelFingerprint);
+        } catch (Exception e) {
+            logger.warn("Failed to open gallery file, embeddings will be read from the image cache", e);
+            gallery = null;
+        }
+        
+        if (load() && (gallery == null || store.size() == countIndexable(users))) {
+            logger.info("Loaded face index with {} entries in {} ms",
+                       store.size(), (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+        store.clear();
+        Set<String> knownIds = new HashSet<>();
+        for (UserProfile user : users) {
+            knownIds.add(user.getUserId());
+            if (!indexFromGallery(user)) {
+                addUser(user);
+            }
+        }
+        removeOrphans(knownIds);
+        save();
+        logger.info("Rebuilt face index with {} entries in {} ms",
+                   store.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int countIndexable(Collection<UserProfile> users) {
+        int total = 0;
+        for (UserProfile user : users) {
+            if (user.isActive()) {
+                total += gallery.slotsOf(user.getUserId()).size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Indexes a user from the gallery file without decoding images.
+     * @return false if the gallery has no records for the user
+     */
+    private boolean indexFromGallery(UserProfile user) {
+        if (gallery == null) {
+            return false;
+        }
+        List<Integer> slots = gallery.slotsOf(user.getUserId());
+        if (slots.isEmpty()) {
+            return false;
+        }
+        if (!user.isActive()) {
+            return true;
+        }
+        for (int slot : slots) {
+            try {
+                store.add(user.getUserId(), FloatEmbedding.normalizeInPlace(gallery.read(slot)));
+            } catch (Exception e) {
+                logger.warn("Skipping unreadable gallery record {} of user {}", slot, user.getUsername(), e);
+            }
+        }
+        return true;
+    }
+
+    private void removeOrphans(Set<String> knownIds) {
+        if (gallery == null) {
+            return;
+        }
+        Set<String> orphans = new HashSet<>();
+        for (int slot = 0; slot < gallery.getRecordCount(); slot++) {
+            if (gallery.isLive(slot) && !knownIds.contains(gallery.idAt(slot))) {
+                orphans.add(gallery.idAt(slot));
+            }
+        }
+        for (String id : orphans) {
+            gallery.delete(id);
+        }
+        gallery.compactIfNeeded();
+    }
+
+    private boolean load() {
+        if (!indexFile.exists()) {
+            return false;
+        }
+        try {
+            byte[] decrypted = encryptionService.decrypt(Files.readAllBytes(indexFile.toPath()));
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(decrypted))) {
+                String fingerprint = in.readUTF();
+                if (!fingerprint.equals(modelFingerprint)) {
+                    logger.info("Face index was built with model {}, rebuilding", fingerprint);
+                    return false;
+                }
+                store.readFrom(in);
+                return true;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read face index, it will be rebuilt", e);
+            store.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the index to disk (encrypted). Written to a temp file first so a crash
+     * never leaves a truncated index behind.
+     */
+    synchronized void save() {
+        if (gallery != null) {
+            gallery.force();
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(modelFingerprint);
+                store.writeTo(out);
+            }
+            Files.createDirectories(indexFile.getParentFile().toPath());
+            File tmp = new File(indexFile.getPath() + ".tmp");
+            Files.write(tmp.toPath(), encryptionService.encrypt(bytes.toByteArray()));
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            logger.warn("Failed to save face index", e);
+        }
+    }
+
+    /**
+     * Embeds every face image of a user into the gallery file, replacing previous
+     * records, and indexes them if the user is active.
+     * @return number of images indexed
+     */
+    int addUser(UserProfile user) {
+        String userId = user.getUserId();
+        store.remove(userId);
+        if (gallery != null) {
+            gallery.delete(userId);
+        }
+        int added = 0;
+        List<String> imagePaths = user.getFaceImagePaths();
+        File[] imageFiles = new File[imagePaths.size()];
+        for (int i = 0; i < imageFiles.length; i++) {
+            imageFiles[i] = new File(imagePaths.get(i));
+        }
+        double[][] embeddings = embeddingCache.getOrComputeAll(imageFiles);
+        for (int i = 0; i < imageFiles.length; i++) {
+            String imagePath = imagePaths.get(i);
+            FloatEmbedding embedding = FloatEmbedding.of(embeddings[i]);
+            if (embedding == null) {
+                continue;
+            }
+            try {
+                if (gallery != null) {
+                    gallery.append(userId, embedding.values());
+                }
+                if (user.isActive()) {
+                    store.add(userId, embedding);
+                    added++;
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warn("Skipping face image {} of user {}: {}", imagePath, user.getUsername(), e.getMessage());
+            } catch (Exception e) {
+                logger.warn("Failed to write face image {} of user {} to the gallery", imagePath, user.getUsername(), e);
+            }
+        }
+        if (gallery != null) {
+            gallery.compactIfNeeded();
+        }
+        return added;
+    }
+
+    void removeUser(String userId) {
+        store.remove(userId);
+        if (gallery != null) {
+            gallery.delete(userId);
+            gallery.compactIfNeeded();
+        }
+    }
+
+    /**
+     * Returns the closest indexed faces, best first. Several entries may share a user ID.
+     */
+    List<GalleryMatch> search(FloatEmbedding query, int k) {
+        return store.search(query, k);
+    }
+
+    int size() {
+        return store.size();
+    }
+
+    /**
+     * Flushes the gallery file and releases its channel; later changes only reach the in-memory index.
+     */
+    synchronized void close() {
+        if (gallery == null) {
+            return;
+        }
+        try {
+            gallery.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close gallery file", e);
+        }
+        gallery = null;
+    }
+}
@@ -2,6 +2,11 @@ package com.secureview.desktop.user;
 
 import com.secureview.desktop.config.ConfigManager;
 import com.secureview.desktop.encryption.EncryptionService;
+import com.secureview.desktop.face.FaceRecognitionService;
+import com.secureview.desktop.face.embedding.EmbeddingInferenceService;
+import com.secureview.desktop.face.embedding.FloatEmbedding;
+import com.secureview.desktop.face.gallery.GalleryMatch;
+import com.secureview.desktop.face.gallery.ReferenceEmbeddingCache;
 import com.secureview.desktop.opencv.stub.Imgcodecs;
 import com.secureview.desktop.opencv.stub.Mat;
 import com.google.gson.Gson;
@@ -32,6 +37,11 @@ public class UserManager {
     private UserProfile currentUser;
     private static final String USERS_FILE = "users.json";
     private static final String USER_DATA_DIR = "users";
+    private static final String FACE_INDEX_FILE = "user_faces.hnsw.enc";
+    private static final String GALLERY_FILE = "user_gallery.gallery";
+    private static final int IDENTIFICATION_CANDIDATES = 8;
+    
+    private UserFaceIndex faceIndex;
     
     private UserManager() {
         configManager = ConfigManager.getInstance();
@@ -54,6 +64,28 @@ public class UserManager {
         logger.info("User Manager initialized. Found {} users.", users.size());
     }
     
+    /**
+     * Returns the 1:N identification index, opening (or rebuilding) it on first use.
+     * Returns null until the face recognition service has been initialized.
+     */
+    private synchronized UserFaceIndex getFaceIndex() {
+        if (faceIndex == null) {
+            FaceRecognitionService faceService = FaceRecognitionService.getInstance();
+            EmbeddingInferenceService extractor = faceService.getInferenceService();
+            ReferenceEmbeddingCache cache = faceService.getReferenceEmbeddingCache();
+            if (extractor == null || cache == null) {
+                return null;
+            }
+            String dataDir = configManager.getConfig().getDataDirectory();
+            UserFaceIndex index = new UserFaceIndex(new File(dataDir, FACE_INDEX_FILE), new File(dataDir, GALLERY_FILE),
+                                                    EncryptionService.getInstance(),
+                                                    cache, extractor.getModelFingerprint());
+            index.open(users.values());
+            faceIndex = index;
+        }
+        return faceIndex;
+    }
+    
     /**
      * Loads users from disk.
      */
@@ -172,6 +204,7 @@ public class UserManager {
         if (existingFiles != null) {
             for (File file : existingFiles) {
                 file.delete();
+                ReferenceEmbeddingCache.deleteFor(file);
             }
         }
         
@@ -188,6 +221,15 @@ public class UserManager {
         
         user.setFaceImagePaths(imagePaths);
         saveUsers();
+        
+        UserFaceIndex index = getFaceIndex();
+        if (index != null) {
+            synchronized (this) {
+                int indexed = index.addUser(user);
+                index.save();
+                logger.debug("Indexed {} face embeddings for user {}", indexed, user.getUsername());
+            }
+        }
         logger.info("Registered {} face images for user {}", imagePaths.size(), user.getUsername());
         return !imagePaths.isEmpty();
     }
@@ -202,8 +244,28 @@ public class UserManager {
     
     /**
      * Finds user by face recognition (returns best match).
+     * Uses the HNSW embedding index once the face recognition service is initialized,
+     * otherwise falls back to pixel comparison against every user's images.
      */
     public UserProfile findUserByFace(Mat faceImage, com.secureview.desktop.face.comparison.ImageComparisonService comparisonService) {
+        return findUserByFace(faceImage, null, comparisonService);
+    }
+    
+    /**
+     * Finds user by face recognition with a face already aligned for embedding extraction
+     * (see {@link FaceRecognitionService#alignFace(Mat, com.secureview.desktop.face.detection.RetinaFaceDetector.FaceDetection)}).
+     * @param alignedFace embedding input owned by the caller, or null to align {@code faceImage}
+     */
+    public UserProfile findUserByFace(Mat faceImage, Mat alignedFace,
+                                      com.secureview.desktop.face.comparison.ImageComparisonService comparisonService) {
+        UserFaceIndex index = getFaceIndex();
+        if (index != null) {
+            return identifyByEmbedding(faceImage, alignedFace, index);
+        }
+        if (faceImage == null || faceImage.empty()) {
+            return null; // Pixel comparison needs the face crop
+        }
+        
         UserProfile bestMatch = null;
         double bestScore = 0.0;
         double threshold = 0.6; // Minimum similarity threshold
@@ -248,6 +310,42 @@ public class UserManager {
         return bestMatch;
     }
     
+    /**
+     * 1:N identification against the embedding index.
+     */
+    private UserProfile identifyByEmbedding(Mat faceImage, Mat alignedFace, UserFaceIndex index) {
+        FaceRecognitionService faceService = FaceRecognitionService.getInstance();
+        Mat ownedAligned = null;
+        if (alignedFace == null || alignedFace.empty()) {
+            ownedAligned = faceService.alignFace(faceImage);
+            alignedFace = ownedAligned != null && !ownedAligned.empty() ? ownedAligned : faceImage;
+        }
+        FloatEmbedding embedding = faceService.getInferenceService().extractFloatEmbedding(alignedFace);
+        if (ownedAligned != null) ownedAligned.release();
+        if (embedding == null) {
+            return null;
+        }
+        
+        long start = System.nanoTime();
+        List<GalleryMatch> matches = index.search(embedding, IDENTIFICATION_CANDIDATES);
+        long searchMicros = (System.nanoTime() - start) / 1000;
+        
+        double threshold = configManager.getConfig().getFaceRecognitionThreshold();
+        for (GalleryMatch match : matches) {
+            if (match.score < threshold) {
+                break; // Matches are ordered best first
+            }
+            UserProfile user = users.get(match.label);
+            if (user != null && user.isActive()) {
+                logger.info("Found user match: {} (similarity: {}, search: {} us over {} faces)",
+                           user.getUsername(), match.score, searchMicros, index.size());
+                return user;
+            }
+        }
+        logger.debug("No user match above {} (search: {} us over {} faces)", threshold, searchMicros, index.size());
+        return null;
+    }
+    
     /**
      * Sets the current active user.
      */
@@ -303,6 +401,13 @@ public class UserManager {
             }
             
             users.remove(userId);
+            UserFaceIndex index = getFaceIndex();
+            if (index != null) {
+                synchronized (this) {
+                    index.removeUser(userId);
+                    index.save();
+                }
+            }
             if (currentUser != null && currentUser.getUserId().equals(userId)) {
                 currentUser = null;
             }
@@ -313,6 +418,14 @@ public class UserManager {
         return false;
     }
     
+    /**
+     * Checks if faces are identified through the embedding index, which only needs the aligned
+     * face; without it {@link #findUserByFace} compares the face crop pixel by pixel.
+     */
+    public boolean hasFaceIndex() {
+        return getFaceIndex() != null;
+    }
+    
     /**
      * Checks if any users are registered.
      */
@@ -326,5 +439,14 @@ public class UserManager {
     public UserProfile getUserById(String userId) {
         return users.get(userId);
     }
+    
+    /**
+     * Flushes and closes the face index's gallery file. Called once when the application exits.
+     */
+    public synchronized void shutdown() {
+        if (faceIndex != null) {
+            faceIndex.close();
+            faceIndex = null;
+        }
+    }
 }
-